@@ -0,0 +1,66 @@
+package integeruser.jglsdk.glimg;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * Reads a buffer from its position to its limit, without copying it. Like ByteArrayInputStream, reset returns to the
+ * marked position, or to the initial one if none was marked.
+ */
+public class ByteBufferInputStream extends InputStream {
+    public ByteBufferInputStream(ByteBuffer buffer) {
+        this.buffer = buffer;
+        markPosition = buffer.position();
+    }
+
+    ////////////////////////////////
+    @Override
+    public int read() {
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+        if (length == 0) return 0;
+        if (!buffer.hasRemaining()) return -1;
+
+        int bytesRead = Math.min(length, buffer.remaining());
+        buffer.get(bytes, offset, bytesRead);
+        return bytesRead;
+    }
+
+    @Override
+    public long skip(long count) {
+        int skipped = (int) Math.max(Math.min(count, buffer.remaining()), 0);
+        buffer.position(buffer.position() + skipped);
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+        markPosition = buffer.position();
+    }
+
+    @Override
+    public synchronized void reset() {
+        buffer.position(markPosition);
+    }
+
+    ////////////////////////////////
+    private ByteBuffer buffer;
+    private int markPosition;
+}
@@ -0,0 +1,272 @@
+package integeruser.jglsdk.glimg;
+
+import integeruser.jglsdk.glimg.ImageFormat.*;
+import integeruser.jglsdk.glimg.ImageSet.Dimensions;
+import org.lwjgl.BufferUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.stream.IntStream;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * CPU-side color space conversions for 8-bit normalized images, for when the GL can't do them for us: building
+ * mipmaps, encoding, screenshots. The image sets are converted in place through lookup tables, and the lines of each
+ * mipmap level are processed in parallel. Read-only image data, like memory-mapped files, is copied first.
+ */
+public class ColorConversion {
+    // The exact sRGB transfer functions, on [0, 1].
+    public static float srgbToLinear(float srgb) {
+        if (srgb <= 0.04045f) return srgb / 12.92f;
+        return (float) Math.pow((srgb + 0.055f) / 1.055f, 2.4f);
+    }
+
+    public static float linearToSrgb(float linear) {
+        if (linear <= 0.0031308f) return linear * 12.92f;
+        return (float) (1.055f * Math.pow(linear, 1.0f / 2.4f) - 0.055f);
+    }
+
+
+    public static float srgb8ToLinear(int srgb8) {
+        return SRGB8_TO_LINEAR[srgb8 & 0xFF];
+    }
+
+    // Off by at most one step from the exact conversion.
+    public static int linearToSrgb8(float linear) {
+        float clampedLinear = Math.min(Math.max(linear, 0.0f), 1.0f);
+        return LINEAR_TO_SRGB8[(int) (clampedLinear * (LINEAR_TO_SRGB8.length - 1) + 0.5f)] & 0xFF;
+    }
+
+    ////////////////////////////////
+    /**
+     * Decodes the color components. sRGB formats become linear ones; the data of the others is assumed to be sRGB
+     * anyway.
+     */
+    public static ImageSet srgbToLinear(ImageSet imageSet) {
+        return applyLut(imageSet, retagFormat(imageSet.getFormat(), false), SRGB8_TO_LINEAR8);
+    }
+
+    /**
+     * Encodes the color components, and tags RGB formats as sRGB. Dark values lose precision, as in any 8-bit encoding
+     * of linear data.
+     */
+    public static ImageSet linearToSrgb(ImageSet imageSet) {
+        return applyLut(imageSet, retagFormat(imageSet.getFormat(), true), LINEAR8_TO_SRGB8);
+    }
+
+    /**
+     * Raises the color components to the given power: 2.2 decodes, 1 / 2.2 encodes. The format is left unchanged.
+     */
+    public static ImageSet applyGamma(ImageSet imageSet, float gamma) {
+        if (!(gamma > 0.0f) || Float.isInfinite(gamma)) throw new IllegalArgumentException("Invalid gamma: " + gamma);
+
+        byte[] gammaLut = new byte[256];
+        for (int i = 0; i < gammaLut.length; i++) {
+            gammaLut[i] = (byte) Math.round(Math.pow(i / 255.0, gamma) * 255.0);
+        }
+        return applyLut(imageSet, imageSet.getFormat(), gammaLut);
+    }
+
+
+    public static ImageSet premultiplyAlpha(ImageSet imageSet) {
+        PixelLayout pixelLayout = getPixelLayout(imageSet.getFormat());
+        if (pixelLayout.alphaIx < 0) throw new IllegalArgumentException("The image has no alpha component.");
+
+        return convert(imageSet, imageSet.getFormat(), pixelLayout, (line, length) -> {
+            for (int pixelIx = 0; pixelIx < length; pixelIx += pixelLayout.stride) {
+                int alpha = line[pixelIx + pixelLayout.alphaIx] & 0xFF;
+                for (int colorIx : pixelLayout.colorIxs) {
+                    // Rounded color * alpha / 255, without the division.
+                    int product = (line[pixelIx + colorIx] & 0xFF) * alpha + 128;
+                    line[pixelIx + colorIx] = (byte) ((product + (product >> 8)) >> 8);
+                }
+            }
+        });
+    }
+
+    public static ImageSet unpremultiplyAlpha(ImageSet imageSet) {
+        PixelLayout pixelLayout = getPixelLayout(imageSet.getFormat());
+        if (pixelLayout.alphaIx < 0) throw new IllegalArgumentException("The image has no alpha component.");
+
+        return convert(imageSet, imageSet.getFormat(), pixelLayout, (line, length) -> {
+            for (int pixelIx = 0; pixelIx < length; pixelIx += pixelLayout.stride) {
+                int alpha = line[pixelIx + pixelLayout.alphaIx] & 0xFF;
+                if (alpha == 255) continue;
+
+                for (int colorIx : pixelLayout.colorIxs) {
+                    int color = alpha == 0 ? 0 : ((line[pixelIx + colorIx] & 0xFF) * 255 + alpha / 2) / alpha;
+                    line[pixelIx + colorIx] = (byte) Math.min(color, 255);
+                }
+            }
+        });
+    }
+
+    ////////////////////////////////
+    private static final int PARALLEL_PIXEL_COUNT = 64 * 64;
+
+    private static final float[] SRGB8_TO_LINEAR = new float[256];
+    private static final byte[] SRGB8_TO_LINEAR8 = new byte[256];
+    private static final byte[] LINEAR8_TO_SRGB8 = new byte[256];
+    private static final byte[] LINEAR_TO_SRGB8 = new byte[4096];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            SRGB8_TO_LINEAR[i] = srgbToLinear(i / 255.0f);
+            SRGB8_TO_LINEAR8[i] = (byte) Math.round(SRGB8_TO_LINEAR[i] * 255.0f);
+            LINEAR8_TO_SRGB8[i] = (byte) Math.round(linearToSrgb(i / 255.0f) * 255.0f);
+        }
+        for (int i = 0; i < LINEAR_TO_SRGB8.length; i++) {
+            LINEAR_TO_SRGB8[i] = (byte) Math.round(linearToSrgb(i / (float) (LINEAR_TO_SRGB8.length - 1)) * 255.0f);
+        }
+    }
+
+
+    private interface LineKernel {
+        void apply(byte[] line, int length);
+    }
+
+    private static class PixelLayout {
+        int stride;       // Bytes per pixel.
+        int[] colorIxs;   // The bytes of the color components, within a pixel.
+        int alphaIx;      // The byte of the alpha component within a pixel, or -1.
+    }
+
+
+    private static ImageSet applyLut(ImageSet imageSet, ImageFormat format, byte[] lut) {
+        PixelLayout pixelLayout = getPixelLayout(imageSet.getFormat());
+
+        return convert(imageSet, format, pixelLayout, (line, length) -> {
+            for (int pixelIx = 0; pixelIx < length; pixelIx += pixelLayout.stride) {
+                for (int colorIx : pixelLayout.colorIxs) {
+                    line[pixelIx + colorIx] = lut[line[pixelIx + colorIx] & 0xFF];
+                }
+            }
+        });
+    }
+
+
+    private static PixelLayout getPixelLayout(ImageFormat format) {
+        PixelComponents components = format.getPixelComponents();
+        if (format.getPixelDataType() != PixelDataType.NORM_UNSIGNED_INTEGER
+                || components == PixelComponents.DEPTH || components == PixelComponents.DEPTH_X) {
+            throw new IllegalArgumentException("Only normalized unsigned color formats can be converted.");
+        }
+
+        int componentCount = Util.calcComponentCount(components);
+        int stride = Util.calcBytesPerPixel(format);
+        boolean reversedBytes;
+        switch (format.getBitDepth()) {
+            case PER_COMP_8:
+                reversedBytes = false;
+                break;
+
+            // The first component is in the most significant byte, unless reversed.
+            case PACKED_32_BIT_8888:
+                reversedBytes = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+                break;
+
+            case PACKED_32_BIT_8888_REV:
+                reversedBytes = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
+                break;
+
+            default:
+                throw new IllegalArgumentException("Only 8-bit components can be converted.");
+        }
+
+        PixelLayout pixelLayout = new PixelLayout();
+        pixelLayout.stride = stride;
+        pixelLayout.colorIxs = new int[Math.min(componentCount, 3)];
+        for (int i = 0; i < pixelLayout.colorIxs.length; i++) {
+            pixelLayout.colorIxs[i] = reversedBytes ? stride - 1 - i : i;
+        }
+
+        boolean hasAlpha = components == PixelComponents.COLOR_RGBA || components == PixelComponents.COLOR_RGBA_SRGB;
+        pixelLayout.alphaIx = hasAlpha ? (reversedBytes ? 0 : 3) : -1;
+        return pixelLayout;
+    }
+
+    private static ImageFormat retagFormat(ImageFormat format, boolean toSrgb) {
+        PixelComponents components = format.getPixelComponents();
+        switch (components) {
+            case COLOR_RGB:
+            case COLOR_RGB_SRGB:
+                components = toSrgb ? PixelComponents.COLOR_RGB_SRGB : PixelComponents.COLOR_RGB;
+                break;
+
+            case COLOR_RGBX:
+            case COLOR_RGBX_SRGB:
+                components = toSrgb ? PixelComponents.COLOR_RGBX_SRGB : PixelComponents.COLOR_RGBX;
+                break;
+
+            case COLOR_RGBA:
+            case COLOR_RGBA_SRGB:
+                components = toSrgb ? PixelComponents.COLOR_RGBA_SRGB : PixelComponents.COLOR_RGBA;
+                break;
+
+            default:
+                // There are no sRGB formats with less than three components.
+                return format;
+        }
+
+        return new ImageFormat(new UncheckedImageFormat(format.getPixelDataType(), components,
+                format.getComponentOrder(), format.getBitDepth(), format.getLineAlignment()));
+    }
+
+
+    private static ImageSet convert(ImageSet imageSet, ImageFormat format, PixelLayout pixelLayout, LineKernel kernel) {
+        int mipmapCount = imageSet.getMipmapCount();
+        int imageCount = imageSet.getArrayCount() * imageSet.getFaceCount();
+
+        ArrayList<ByteBuffer> imageData = new ArrayList<>(mipmapCount);
+        int[] imageSizes = new int[mipmapCount];
+
+        for (int mipmapLevel = 0; mipmapLevel < mipmapCount; mipmapLevel++) {
+            ByteBuffer mipmapLevelData = imageSet.getMipmapLevelData(mipmapLevel);
+            if (mipmapLevelData.isReadOnly()) {
+                ByteBuffer copiedData = BufferUtils.createByteBuffer(mipmapLevelData.capacity());
+                mipmapLevelData.clear();
+                copiedData.put(mipmapLevelData);
+                mipmapLevelData = copiedData;
+            }
+
+            Dimensions dimensions = imageSet.getDimensions(mipmapLevel);
+            int linesPerImage = (dimensions.numDimensions > 1 ? dimensions.height : 1)
+                    * (dimensions.numDimensions > 2 ? dimensions.depth : 1);
+            int lineLength = dimensions.width * pixelLayout.stride;
+            int lineSize = format.alignByteCount(lineLength);
+            int imageSize = imageSet.getSize(mipmapLevel);
+
+            // Each line is read and written back on its own, so the lines can be converted concurrently.
+            ByteBuffer levelData = mipmapLevelData;
+            IntStream lines = IntStream.range(0, linesPerImage * imageCount);
+            if (dimensions.width * linesPerImage * imageCount >= PARALLEL_PIXEL_COUNT) lines = lines.parallel();
+            lines.forEach(lineIx -> {
+                int offset = (lineIx / linesPerImage) * imageSize + (lineIx % linesPerImage) * lineSize;
+                convertLine(levelData, offset, lineLength, kernel);
+            });
+
+            imageData.add(mipmapLevelData);
+            imageSizes[mipmapLevel] = imageSize;
+        }
+
+        ImageSet convertedImageSet = new ImageSet(format, imageSet.getDimensions(0), mipmapCount,
+                imageSet.getArrayCount(), imageSet.getFaceCount(), imageData, imageSizes);
+        convertedImageSet.setTopLeftOrigin(imageSet.isTopLeftOrigin());
+        return convertedImageSet;
+    }
+
+    private static void convertLine(ByteBuffer buffer, int offset, int length, LineKernel kernel) {
+        byte[] line = new byte[length];
+        ByteBuffer lineBuffer = buffer.duplicate();
+        lineBuffer.position(offset);
+        lineBuffer.get(line);
+
+        kernel.apply(line, length);
+
+        lineBuffer.position(offset);
+        lineBuffer.put(line);
+    }
+}
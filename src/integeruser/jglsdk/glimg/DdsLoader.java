@@ -1,9 +1,7 @@
 package integeruser.jglsdk.glimg;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
 
 /**
@@ -11,8 +9,11 @@ import java.util.Arrays;
  */
 public class DdsLoader {
     public static ImageSet loadFromFile(String ddsFilepath) throws IOException {
-        InputStream ddsInputStream = ClassLoader.class.getResourceAsStream(ddsFilepath);
-        byte[] ddsFile = readDdsFile(ddsInputStream);
+        return loadFromFile(ddsFilepath, ResolutionPolicy.getGlobal());
+    }
+
+    public static ImageSet loadFromFile(String ddsFilepath, ResolutionPolicy resolutionPolicy) throws IOException {
+        byte[] ddsFile = ImageFiles.readFile(ddsFilepath);
 
         // Check the first 4 bytes.
         int magicTest = readDoubleWord(ddsFile, 0);
@@ -27,8 +28,8 @@ public class DdsLoader {
         // Collect info from the DDS file.
         DdsHeader ddsHeader = new DdsHeader(ddsFile);
         Dds10Header dds10Header = getDds10Header(ddsFile, ddsHeader);
-        ImageSet.Dimensions ddsDimensions = getDimensions(ddsHeader);
-        ImageFormat.UncheckedImageFormat ddsFormat = getFormat(ddsHeader, dds10Header);
+        ImageSet.Dimensions ddsDimensions = getDimensions(ddsHeader, dds10Header);
+        ImageFormat.UncheckedImageFormat ddsFormat = getFormat(ddsFilepath, ddsHeader, dds10Header);
 
         // Get image counts.
         int numArrays = (dds10Header.arraySize > 1) ? dds10Header.arraySize : 1;
@@ -38,7 +39,9 @@ public class DdsLoader {
         int baseOffset = getOffsetToData(ddsHeader);
 
         // Build the image creator.
-        ImageCreator imageCreator = new ImageCreator(new ImageFormat(ddsFormat), ddsDimensions, numMipmaps, numArrays, numFaces);
+        int droppedMipmaps = resolutionPolicy.calcDroppedMipmapCount(ddsDimensions, numMipmaps);
+        ImageCreator imageCreator = new ImageCreator(new ImageFormat(ddsFormat), ddsDimensions, numMipmaps, numArrays,
+                numFaces, droppedMipmaps);
         int cumulativeOffset = baseOffset;
 
         for (int arrayIx = 0; arrayIx < numArrays; arrayIx++) {
@@ -46,8 +49,14 @@ public class DdsLoader {
                 for (int mipmapLevel = 0; mipmapLevel < numMipmaps; mipmapLevel++) {
                     int mipmapLevelSize = calcMipmapSize(ddsFormat, ddsDimensions, mipmapLevel);
 
-                    // Get specific data from ddsFile.
-                    byte[] mipmapLevelData = Arrays.copyOfRange(ddsFile, cumulativeOffset, cumulativeOffset + mipmapLevelSize);
+                    // Dropped levels are stepped over without copying them.
+                    if (imageCreator.isMipmapLevelDropped(mipmapLevel)) {
+                        cumulativeOffset += mipmapLevelSize;
+                        continue;
+                    }
+
+                    // Get specific data from ddsFile, without copying it.
+                    ByteBuffer mipmapLevelData = ByteBuffer.wrap(ddsFile, cumulativeOffset, mipmapLevelSize);
 
                     // Set data for the current mipmap level in imageCreator.
                     imageCreator.setImageData(mipmapLevelData, true, mipmapLevel, arrayIx, faceIx);
@@ -123,6 +132,72 @@ public class DdsLoader {
 
     private static class DxgiFormat {
         static final int UNKNOWN = 0;
+        static final int R32G32B32A32_FLOAT = 2;
+        static final int R32G32B32A32_UINT = 3;
+        static final int R32G32B32A32_SINT = 4;
+        static final int R32G32B32_FLOAT = 6;
+        static final int R32G32B32_UINT = 7;
+        static final int R32G32B32_SINT = 8;
+        static final int R16G16B16A16_FLOAT = 10;
+        static final int R16G16B16A16_UNORM = 11;
+        static final int R16G16B16A16_UINT = 12;
+        static final int R16G16B16A16_SNORM = 13;
+        static final int R16G16B16A16_SINT = 14;
+        static final int R32G32_FLOAT = 16;
+        static final int R32G32_UINT = 17;
+        static final int R32G32_SINT = 18;
+        static final int R10G10B10A2_UNORM = 24;
+        static final int R11G11B10_FLOAT = 26;
+        static final int R8G8B8A8_UNORM = 28;
+        static final int R8G8B8A8_UNORM_SRGB = 29;
+        static final int R8G8B8A8_UINT = 30;
+        static final int R8G8B8A8_SNORM = 31;
+        static final int R8G8B8A8_SINT = 32;
+        static final int R16G16_FLOAT = 34;
+        static final int R16G16_UNORM = 35;
+        static final int R16G16_UINT = 36;
+        static final int R16G16_SNORM = 37;
+        static final int R16G16_SINT = 38;
+        static final int D32_FLOAT = 40;
+        static final int R32_FLOAT = 41;
+        static final int R32_UINT = 42;
+        static final int R32_SINT = 43;
+        static final int R8G8_UNORM = 49;
+        static final int R8G8_UINT = 50;
+        static final int R8G8_SNORM = 51;
+        static final int R8G8_SINT = 52;
+        static final int R16_FLOAT = 54;
+        static final int D16_UNORM = 55;
+        static final int R16_UNORM = 56;
+        static final int R16_UINT = 57;
+        static final int R16_SNORM = 58;
+        static final int R16_SINT = 59;
+        static final int R8_UNORM = 61;
+        static final int R8_UINT = 62;
+        static final int R8_SNORM = 63;
+        static final int R8_SINT = 64;
+        static final int R9G9B9E5_SHAREDEXP = 67;
+        static final int BC1_UNORM = 71;
+        static final int BC1_UNORM_SRGB = 72;
+        static final int BC2_UNORM = 74;
+        static final int BC2_UNORM_SRGB = 75;
+        static final int BC3_UNORM = 77;
+        static final int BC3_UNORM_SRGB = 78;
+        static final int BC4_UNORM = 80;
+        static final int BC4_SNORM = 81;
+        static final int BC5_UNORM = 83;
+        static final int BC5_SNORM = 84;
+        static final int B5G6R5_UNORM = 85;
+        static final int B5G5R5A1_UNORM = 86;
+        static final int B8G8R8A8_UNORM = 87;
+        static final int B8G8R8X8_UNORM = 88;
+        static final int B8G8R8A8_UNORM_SRGB = 91;
+        static final int B8G8R8X8_UNORM_SRGB = 93;
+        static final int BC6H_UF16 = 95;
+        static final int BC6H_SF16 = 96;
+        static final int BC7_UNORM = 98;
+        static final int BC7_UNORM_SRGB = 99;
+        static final int B4G4R4A4_UNORM = 115;
     }
 
 
@@ -210,22 +285,6 @@ public class DdsLoader {
     }
 
     ////////////////////////////////
-    private static byte[] readDdsFile(InputStream ddsInStream) throws IOException {
-        assert ddsInStream != null;
-
-        ByteArrayOutputStream ddsOutStream = new ByteArrayOutputStream();
-        int bytesRead;
-
-        byte[] buffer = new byte[4096];
-
-        while ((bytesRead = ddsInStream.read(buffer)) != -1) {
-            ddsOutStream.write(buffer, 0, bytesRead);
-        }
-
-        return ddsOutStream.toByteArray();
-    }
-
-
     // Read four bytes.
     private static int readDoubleWord(byte bytes[], int startIx) {
         int dw = 0;
@@ -283,7 +342,7 @@ public class DdsLoader {
     }
 
 
-    private static ImageSet.Dimensions getDimensions(DdsHeader ddsHeader) {
+    private static ImageSet.Dimensions getDimensions(DdsHeader ddsHeader, Dds10Header dds10Header) {
         ImageSet.Dimensions ddsDimensions = new ImageSet.Dimensions();
         ddsDimensions.numDimensions = 1;
         ddsDimensions.width = ddsHeader.width;
@@ -298,12 +357,39 @@ public class DdsLoader {
             ddsDimensions.depth = ddsHeader.depth;
         }
 
+        // The DX10 header states the dimensionality explicitly; tools still set the height flag for 1D textures.
+        if (ddsHeader.ddsPixelFormat.fourCC == MagicNumbers.DDS10_FOUR_CC) {
+            switch (dds10Header.resourceDimension) {
+                case Dds10ResourceDimensions.TEXTURE1D:
+                    ddsDimensions.numDimensions = 1;
+                    ddsDimensions.height = 0;
+                    ddsDimensions.depth = 0;
+                    break;
+
+                case Dds10ResourceDimensions.TEXTURE2D:
+                    ddsDimensions.numDimensions = 2;
+                    ddsDimensions.depth = 0;
+                    break;
+
+                case Dds10ResourceDimensions.TEXTURE3D:
+                    ddsDimensions.numDimensions = 3;
+                    break;
+            }
+        }
+
         return ddsDimensions;
     }
 
-    private static ImageFormat.UncheckedImageFormat getFormat(DdsHeader ddsHeader, Dds10Header dds10Header) throws DdsFileUnsupportedException {
+    private static ImageFormat.UncheckedImageFormat getFormat(String ddsFilepath, DdsHeader ddsHeader,
+                                                              Dds10Header dds10Header) throws DdsFileUnsupportedException {
         if (dds10Header.dxgiFormat != DxgiFormat.UNKNOWN) {
-            Util.throwNotYetPortedException();
+            for (int convIx = 0; convIx < dxgiFormatConvert.length; convIx++) {
+                if (dxgiFormatConvert[convIx].dxgiFormat == dds10Header.dxgiFormat) {
+                    return dxgiFormatConvert[convIx].uncheckedImageFormat;
+                }
+            }
+
+            throw new DdsFileUnsupportedException(ddsFilepath, "Could not use the DXGI format " + dds10Header.dxgiFormat + ".");
         }
 
         for (int convIx = 0; convIx < oldFormatConvert.length; convIx++) {
@@ -312,7 +398,7 @@ public class DdsLoader {
             }
         }
 
-        throw new DdsFileUnsupportedException("", "Could not use the DDS9's image format.");
+        throw new DdsFileUnsupportedException(ddsFilepath, "Could not use the DDS9's image format.");
     }
 
     private static int getOffsetToData(DdsHeader ddsHeader) {
@@ -493,6 +579,285 @@ public class DdsLoader {
     }
 
 
+    // Typeless and video formats have no ImageFormat counterpart and are rejected.
+    private static DxgiFormatConv dxgiFormatConvert[] = {
+            new DxgiFormatConv(DxgiFormat.R32G32B32A32_FLOAT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.FLOAT, ImageFormat.PixelComponents.COLOR_RGBA, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_32, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R32G32B32A32_UINT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.UNSIGNED_INTEGRAL, ImageFormat.PixelComponents.COLOR_RGBA, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_32, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R32G32B32A32_SINT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.SIGNED_INTEGRAL, ImageFormat.PixelComponents.COLOR_RGBA, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_32, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R32G32B32_FLOAT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.FLOAT, ImageFormat.PixelComponents.COLOR_RGB, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_32, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R32G32B32_UINT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.UNSIGNED_INTEGRAL, ImageFormat.PixelComponents.COLOR_RGB, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_32, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R32G32B32_SINT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.SIGNED_INTEGRAL, ImageFormat.PixelComponents.COLOR_RGB, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_32, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R16G16B16A16_FLOAT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.FLOAT, ImageFormat.PixelComponents.COLOR_RGBA, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_16, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R16G16B16A16_UNORM,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.NORM_UNSIGNED_INTEGER, ImageFormat.PixelComponents.COLOR_RGBA, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_16, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R16G16B16A16_UINT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.UNSIGNED_INTEGRAL, ImageFormat.PixelComponents.COLOR_RGBA, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_16, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R16G16B16A16_SNORM,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.NORM_SIGNED_INTEGER, ImageFormat.PixelComponents.COLOR_RGBA, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_16, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R16G16B16A16_SINT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.SIGNED_INTEGRAL, ImageFormat.PixelComponents.COLOR_RGBA, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_16, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R32G32_FLOAT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.FLOAT, ImageFormat.PixelComponents.COLOR_RG, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_32, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R32G32_UINT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.UNSIGNED_INTEGRAL, ImageFormat.PixelComponents.COLOR_RG, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_32, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R32G32_SINT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.SIGNED_INTEGRAL, ImageFormat.PixelComponents.COLOR_RG, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_32, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R10G10B10A2_UNORM,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.NORM_UNSIGNED_INTEGER, ImageFormat.PixelComponents.COLOR_RGBA, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PACKED_32_BIT_2101010_REV, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R11G11B10_FLOAT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.FLOAT, ImageFormat.PixelComponents.COLOR_RGB, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PACKED_32_BIT_101111_REV, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R8G8B8A8_UNORM,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.NORM_UNSIGNED_INTEGER, ImageFormat.PixelComponents.COLOR_RGBA, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_8, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R8G8B8A8_UNORM_SRGB,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.NORM_UNSIGNED_INTEGER, ImageFormat.PixelComponents.COLOR_RGBA_SRGB, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_8, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R8G8B8A8_UINT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.UNSIGNED_INTEGRAL, ImageFormat.PixelComponents.COLOR_RGBA, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_8, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R8G8B8A8_SNORM,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.NORM_SIGNED_INTEGER, ImageFormat.PixelComponents.COLOR_RGBA, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_8, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R8G8B8A8_SINT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.SIGNED_INTEGRAL, ImageFormat.PixelComponents.COLOR_RGBA, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_8, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R16G16_FLOAT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.FLOAT, ImageFormat.PixelComponents.COLOR_RG, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_16, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R16G16_UNORM,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.NORM_UNSIGNED_INTEGER, ImageFormat.PixelComponents.COLOR_RG, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_16, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R16G16_UINT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.UNSIGNED_INTEGRAL, ImageFormat.PixelComponents.COLOR_RG, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_16, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R16G16_SNORM,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.NORM_SIGNED_INTEGER, ImageFormat.PixelComponents.COLOR_RG, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_16, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R16G16_SINT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.SIGNED_INTEGRAL, ImageFormat.PixelComponents.COLOR_RG, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_16, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.D32_FLOAT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.FLOAT, ImageFormat.PixelComponents.DEPTH, ImageFormat.ComponentOrder.DEPTH_STENCIL, ImageFormat.BitDepth.PER_COMP_32, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R32_FLOAT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.FLOAT, ImageFormat.PixelComponents.COLOR_RED, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_32, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R32_UINT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.UNSIGNED_INTEGRAL, ImageFormat.PixelComponents.COLOR_RED, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_32, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R32_SINT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.SIGNED_INTEGRAL, ImageFormat.PixelComponents.COLOR_RED, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_32, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R8G8_UNORM,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.NORM_UNSIGNED_INTEGER, ImageFormat.PixelComponents.COLOR_RG, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_8, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R8G8_UINT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.UNSIGNED_INTEGRAL, ImageFormat.PixelComponents.COLOR_RG, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_8, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R8G8_SNORM,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.NORM_SIGNED_INTEGER, ImageFormat.PixelComponents.COLOR_RG, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_8, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R8G8_SINT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.SIGNED_INTEGRAL, ImageFormat.PixelComponents.COLOR_RG, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_8, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R16_FLOAT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.FLOAT, ImageFormat.PixelComponents.COLOR_RED, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_16, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.D16_UNORM,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.NORM_UNSIGNED_INTEGER, ImageFormat.PixelComponents.DEPTH, ImageFormat.ComponentOrder.DEPTH_STENCIL, ImageFormat.BitDepth.PER_COMP_16, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R16_UNORM,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.NORM_UNSIGNED_INTEGER, ImageFormat.PixelComponents.COLOR_RED, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_16, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R16_UINT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.UNSIGNED_INTEGRAL, ImageFormat.PixelComponents.COLOR_RED, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_16, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R16_SNORM,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.NORM_SIGNED_INTEGER, ImageFormat.PixelComponents.COLOR_RED, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_16, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R16_SINT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.SIGNED_INTEGRAL, ImageFormat.PixelComponents.COLOR_RED, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_16, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R8_UNORM,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.NORM_UNSIGNED_INTEGER, ImageFormat.PixelComponents.COLOR_RED, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_8, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R8_UINT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.UNSIGNED_INTEGRAL, ImageFormat.PixelComponents.COLOR_RED, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_8, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R8_SNORM,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.NORM_SIGNED_INTEGER, ImageFormat.PixelComponents.COLOR_RED, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_8, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R8_SINT,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.SIGNED_INTEGRAL, ImageFormat.PixelComponents.COLOR_RED, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PER_COMP_8, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.R9G9B9E5_SHAREDEXP,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.SHARED_EXP_FLOAT, ImageFormat.PixelComponents.COLOR_RGB, ImageFormat.ComponentOrder.RGBE, ImageFormat.BitDepth.PACKED_32_BIT_5999_REV, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.BC1_UNORM,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.COMPRESSED_BC1, ImageFormat.PixelComponents.COLOR_RGBA, ImageFormat.ComponentOrder.COMPRESSED, ImageFormat.BitDepth.COMPRESSED, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.BC1_UNORM_SRGB,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.COMPRESSED_BC1, ImageFormat.PixelComponents.COLOR_RGBA_SRGB, ImageFormat.ComponentOrder.COMPRESSED, ImageFormat.BitDepth.COMPRESSED, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.BC2_UNORM,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.COMPRESSED_BC2, ImageFormat.PixelComponents.COLOR_RGBA, ImageFormat.ComponentOrder.COMPRESSED, ImageFormat.BitDepth.COMPRESSED, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.BC2_UNORM_SRGB,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.COMPRESSED_BC2, ImageFormat.PixelComponents.COLOR_RGBA_SRGB, ImageFormat.ComponentOrder.COMPRESSED, ImageFormat.BitDepth.COMPRESSED, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.BC3_UNORM,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.COMPRESSED_BC3, ImageFormat.PixelComponents.COLOR_RGBA, ImageFormat.ComponentOrder.COMPRESSED, ImageFormat.BitDepth.COMPRESSED, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.BC3_UNORM_SRGB,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.COMPRESSED_BC3, ImageFormat.PixelComponents.COLOR_RGBA_SRGB, ImageFormat.ComponentOrder.COMPRESSED, ImageFormat.BitDepth.COMPRESSED, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.BC4_UNORM,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.COMPRESSED_UNSIGNED_BC4, ImageFormat.PixelComponents.COLOR_RED, ImageFormat.ComponentOrder.COMPRESSED, ImageFormat.BitDepth.COMPRESSED, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.BC4_SNORM,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.COMPRESSED_SIGNED_BC4, ImageFormat.PixelComponents.COLOR_RED, ImageFormat.ComponentOrder.COMPRESSED, ImageFormat.BitDepth.COMPRESSED, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.BC5_UNORM,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.COMPRESSED_UNSIGNED_BC5, ImageFormat.PixelComponents.COLOR_RG, ImageFormat.ComponentOrder.COMPRESSED, ImageFormat.BitDepth.COMPRESSED, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.BC5_SNORM,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.COMPRESSED_SIGNED_BC5, ImageFormat.PixelComponents.COLOR_RG, ImageFormat.ComponentOrder.COMPRESSED, ImageFormat.BitDepth.COMPRESSED, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.B5G6R5_UNORM,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.NORM_UNSIGNED_INTEGER, ImageFormat.PixelComponents.COLOR_RGB, ImageFormat.ComponentOrder.RGBA, ImageFormat.BitDepth.PACKED_16_BIT_565, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.B5G5R5A1_UNORM,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.NORM_UNSIGNED_INTEGER, ImageFormat.PixelComponents.COLOR_RGBA, ImageFormat.ComponentOrder.BGRA, ImageFormat.BitDepth.PACKED_16_BIT_1555_REV, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.B8G8R8A8_UNORM,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.NORM_UNSIGNED_INTEGER, ImageFormat.PixelComponents.COLOR_RGBA, ImageFormat.ComponentOrder.BGRA, ImageFormat.BitDepth.PACKED_32_BIT_8888_REV, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.B8G8R8X8_UNORM,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.NORM_UNSIGNED_INTEGER, ImageFormat.PixelComponents.COLOR_RGBX, ImageFormat.ComponentOrder.BGRA, ImageFormat.BitDepth.PACKED_32_BIT_8888_REV, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.B8G8R8A8_UNORM_SRGB,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.NORM_UNSIGNED_INTEGER, ImageFormat.PixelComponents.COLOR_RGBA_SRGB, ImageFormat.ComponentOrder.BGRA, ImageFormat.BitDepth.PACKED_32_BIT_8888_REV, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.B8G8R8X8_UNORM_SRGB,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.NORM_UNSIGNED_INTEGER, ImageFormat.PixelComponents.COLOR_RGBX_SRGB, ImageFormat.ComponentOrder.BGRA, ImageFormat.BitDepth.PACKED_32_BIT_8888_REV, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.BC6H_UF16,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.COMPRESSED_UNSIGNED_BC6H, ImageFormat.PixelComponents.COLOR_RGB, ImageFormat.ComponentOrder.COMPRESSED, ImageFormat.BitDepth.COMPRESSED, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.BC6H_SF16,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.COMPRESSED_SIGNED_BC6H, ImageFormat.PixelComponents.COLOR_RGB, ImageFormat.ComponentOrder.COMPRESSED, ImageFormat.BitDepth.COMPRESSED, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.BC7_UNORM,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.COMPRESSED_BC7, ImageFormat.PixelComponents.COLOR_RGBA, ImageFormat.ComponentOrder.COMPRESSED, ImageFormat.BitDepth.COMPRESSED, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.BC7_UNORM_SRGB,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.COMPRESSED_BC7, ImageFormat.PixelComponents.COLOR_RGBA_SRGB, ImageFormat.ComponentOrder.COMPRESSED, ImageFormat.BitDepth.COMPRESSED, 1)
+            ),
+
+            new DxgiFormatConv(DxgiFormat.B4G4R4A4_UNORM,
+                    new ImageFormat.UncheckedImageFormat(ImageFormat.PixelDataType.NORM_UNSIGNED_INTEGER, ImageFormat.PixelComponents.COLOR_RGBA, ImageFormat.ComponentOrder.BGRA, ImageFormat.BitDepth.PACKED_16_BIT_4444_REV, 1)
+            )
+    };
+
+
+    private static class DxgiFormatConv {
+        int dxgiFormat;
+        ImageFormat.UncheckedImageFormat uncheckedImageFormat;
+
+        DxgiFormatConv(int dxgiFormat, ImageFormat.UncheckedImageFormat uncheckedImageFormat) {
+            this.dxgiFormat = dxgiFormat;
+            this.uncheckedImageFormat = uncheckedImageFormat;
+        }
+    }
+
+
     private static boolean doesMatchFormat(OldDdsFmtMatch ddsFmt, DdsHeader ddsHeader) {
         if ((ddsHeader.ddsPixelFormat.flags & ddsFmt.flags) == 0) return false;
 
@@ -0,0 +1,307 @@
+package integeruser.jglsdk.glimg;
+
+import integeruser.jglsdk.glimg.ImageFormat.*;
+import integeruser.jglsdk.glimg.ImageSet.Dimensions;
+import org.lwjgl.BufferUtils;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.stream.IntStream;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * Loads Radiance .hdr (RGBE) images as FLOAT RGBA image sets. By default the pixels are packed into half floats, to be
+ * uploaded as GL_RGBA16F.
+ */
+public class HdrLoader {
+    public static ImageSet loadFromFile(String imagePath) throws IOException {
+        return loadFromFile(imagePath, ResolutionPolicy.getGlobal(), true);
+    }
+
+    public static ImageSet loadFromFile(String imagePath, ResolutionPolicy resolutionPolicy) throws IOException {
+        return loadFromFile(imagePath, resolutionPolicy, true);
+    }
+
+    /**
+     * @param halfFloat whether to store the pixels as 16-bit or 32-bit floats.
+     */
+    public static ImageSet loadFromFile(String imagePath, ResolutionPolicy resolutionPolicy,
+                                        boolean halfFloat) throws IOException {
+        try (InputStream imageInputStream = openFile(imagePath)) {
+            Header header = readHeader(imageInputStream);
+
+            // The RGBE pixels are stored in GL order: bottom row first.
+            byte[] rgbe = new byte[header.width * header.height * 4];
+            byte[] scanline = new byte[header.width * 4];
+            for (int y = 0; y < header.height; y++) {
+                readScanline(imageInputStream, scanline, header.width);
+
+                int row = header.topDown ? header.height - 1 - y : y;
+                System.arraycopy(scanline, 0, rgbe, row * scanline.length, scanline.length);
+            }
+
+            return buildImageSet(rgbe, header, resolutionPolicy, halfFloat);
+        }
+    }
+
+    ////////////////////////////////
+    private static final int PARALLEL_PIXEL_COUNT = 256 * 256;
+
+    private static final short HALF_ONE = 0x3C00;
+
+
+    private static class Header {
+        int width, height;
+        boolean topDown;
+    }
+
+
+    private static class HdrFormatException extends IOException {
+        HdrFormatException(String message) {
+            super(message);
+        }
+    }
+
+
+    private static InputStream openFile(String imagePath) throws IOException {
+        return new BufferedInputStream(ImageFiles.openFile(imagePath));
+    }
+
+
+    private static Header readHeader(InputStream imageInputStream) throws IOException {
+        String magic = readLine(imageInputStream);
+        if (!magic.startsWith("#?RADIANCE") && !magic.startsWith("#?RGBE")) {
+            throw new HdrFormatException("Not a Radiance HDR file.");
+        }
+
+        // Variables are terminated by an empty line.
+        for (String line = readLine(imageInputStream); !line.isEmpty(); line = readLine(imageInputStream)) {
+            if (line.startsWith("FORMAT=") && !line.equals("FORMAT=32-bit_rle_rgbe")) {
+                throw new HdrFormatException("Unsupported pixel format: " + line.substring("FORMAT=".length()));
+            }
+        }
+
+        // Only the common orientations are supported: "-Y height +X width" and "+Y height +X width".
+        String[] resolution = readLine(imageInputStream).split("\\s+");
+        if (resolution.length != 4 || !resolution[2].equals("+X")
+                || !(resolution[0].equals("-Y") || resolution[0].equals("+Y"))) {
+            throw new HdrFormatException("Unsupported image orientation.");
+        }
+
+        Header header = new Header();
+        try {
+            header.height = Integer.parseInt(resolution[1]);
+            header.width = Integer.parseInt(resolution[3]);
+        } catch (NumberFormatException e) {
+            throw new HdrFormatException("Invalid image resolution.");
+        }
+        if (header.width <= 0 || header.height <= 0) throw new HdrFormatException("Invalid image resolution.");
+        header.topDown = resolution[0].equals("-Y");
+        return header;
+    }
+
+    private static String readLine(InputStream imageInputStream) throws IOException {
+        byte[] line = new byte[128];
+        int length = 0;
+
+        for (int character = readByte(imageInputStream); character != '\n'; character = readByte(imageInputStream)) {
+            if (length == line.length) {
+                byte[] longerLine = new byte[line.length * 2];
+                System.arraycopy(line, 0, longerLine, 0, length);
+                line = longerLine;
+            }
+            line[length++] = (byte) character;
+        }
+
+        return new String(line, 0, length, StandardCharsets.US_ASCII).trim();
+    }
+
+
+    // Reads a flat, old-style RLE or new-style RLE scanline into RGBE quadruplets.
+    private static void readScanline(InputStream imageInputStream, byte[] scanline, int width) throws IOException {
+        int r = readByte(imageInputStream);
+        int g = readByte(imageInputStream);
+        int b = readByte(imageInputStream);
+        int e = readByte(imageInputStream);
+
+        if (width < 8 || width > 0x7FFF || r != 2 || g != 2 || (b & 0x80) != 0) {
+            scanline[0] = (byte) r;
+            scanline[1] = (byte) g;
+            scanline[2] = (byte) b;
+            scanline[3] = (byte) e;
+            readOldScanline(imageInputStream, scanline, width);
+            return;
+        }
+
+        if ((b << 8 | e) != width) throw new HdrFormatException("Wrong scanline width.");
+
+        // New-style RLE: each component is run-length encoded on its own.
+        for (int component = 0; component < 4; component++) {
+            int pixelIx = 0;
+            while (pixelIx < width) {
+                int count = readByte(imageInputStream);
+
+                if (count > 128) {
+                    count -= 128;
+                    if (pixelIx + count > width) throw new HdrFormatException("Bad scanline data.");
+
+                    byte value = (byte) readByte(imageInputStream);
+                    for (int i = 0; i < count; i++) {
+                        scanline[(pixelIx++) * 4 + component] = value;
+                    }
+                } else {
+                    if (count == 0 || pixelIx + count > width) throw new HdrFormatException("Bad scanline data.");
+
+                    for (int i = 0; i < count; i++) {
+                        scanline[(pixelIx++) * 4 + component] = (byte) readByte(imageInputStream);
+                    }
+                }
+            }
+        }
+    }
+
+    // The first pixel has already been read. A (1, 1, 1, n) pixel repeats the previous one n times, with n shifted
+    // left by 8 bits for every consecutive repeat pixel.
+    private static void readOldScanline(InputStream imageInputStream, byte[] scanline, int width) throws IOException {
+        int pixelIx = 1;
+        int shift = 0;
+
+        while (pixelIx < width) {
+            int r = readByte(imageInputStream);
+            int g = readByte(imageInputStream);
+            int b = readByte(imageInputStream);
+            int e = readByte(imageInputStream);
+
+            if (r == 1 && g == 1 && b == 1) {
+                int count = e << shift;
+                if (pixelIx + count > width) throw new HdrFormatException("Bad scanline data.");
+
+                for (int i = 0; i < count; i++) {
+                    System.arraycopy(scanline, (pixelIx - 1) * 4, scanline, pixelIx * 4, 4);
+                    pixelIx++;
+                }
+                shift += 8;
+            } else {
+                int pixelOffset = (pixelIx++) * 4;
+                scanline[pixelOffset] = (byte) r;
+                scanline[pixelOffset + 1] = (byte) g;
+                scanline[pixelOffset + 2] = (byte) b;
+                scanline[pixelOffset + 3] = (byte) e;
+                shift = 0;
+            }
+        }
+    }
+
+    private static int readByte(InputStream imageInputStream) throws IOException {
+        int value = imageInputStream.read();
+        if (value < 0) throw new EOFException("Unexpected end of the HDR file.");
+        return value;
+    }
+
+
+    private static ImageSet buildImageSet(byte[] rgbe, Header header, ResolutionPolicy resolutionPolicy,
+                                          boolean halfFloat) {
+        Dimensions imageDimensions = new Dimensions();
+        imageDimensions.numDimensions = 2;
+        imageDimensions.depth = 0;
+        imageDimensions.width = header.width;
+        imageDimensions.height = header.height;
+
+        // There are no mipmaps to drop: average blocks of pixels instead, as if the image had a full mipmap chain.
+        int droppedMipmapCount = resolutionPolicy.calcDroppedMipmapCount(imageDimensions,
+                ResolutionPolicy.calcFullMipmapCount(imageDimensions));
+        imageDimensions = Util.calcMipmapLevelDimensions(imageDimensions, droppedMipmapCount);
+
+        int bytesPerComponent = halfFloat ? 2 : 4;
+        ByteBuffer pixels = BufferUtils.createByteBuffer(imageDimensions.width * imageDimensions.height * 4 * bytesPerComponent);
+
+        // Each row is written to its own region of the buffer, so the rows can be converted concurrently.
+        final Dimensions dimensions = imageDimensions;
+        IntStream rows = IntStream.range(0, imageDimensions.height);
+        if (imageDimensions.width * imageDimensions.height >= PARALLEL_PIXEL_COUNT) rows = rows.parallel();
+        rows.forEach(row -> convertRow(rgbe, header, droppedMipmapCount, pixels, dimensions, row, halfFloat));
+
+        UncheckedImageFormat uncheckedImageFormat = new UncheckedImageFormat();
+        uncheckedImageFormat.type = PixelDataType.FLOAT;
+        uncheckedImageFormat.format = PixelComponents.COLOR_RGBA;
+        uncheckedImageFormat.order = ComponentOrder.RGBA;
+        uncheckedImageFormat.bitDepth = halfFloat ? BitDepth.PER_COMP_16 : BitDepth.PER_COMP_32;
+        uncheckedImageFormat.lineAlignment = 1;
+
+        ArrayList<ByteBuffer> imageData = new ArrayList<>(1);
+        imageData.add(pixels);
+        int[] imageSizes = {pixels.capacity()};
+
+        return new ImageSet(new ImageFormat(uncheckedImageFormat), imageDimensions, 1, 1, 1, imageData, imageSizes);
+    }
+
+    // Decodes a row of the output image. When levels are dropped, each output pixel is the average of a block of
+    // RGBE pixels.
+    private static void convertRow(byte[] rgbe, Header header, int droppedMipmapCount, ByteBuffer pixels,
+                                   Dimensions dimensions, int row, boolean halfFloat) {
+        int blockSize = 1 << droppedMipmapCount;
+        int firstLine = Math.min(row * blockSize, header.height - 1);
+        int lastLine = Math.min(firstLine + blockSize, header.height);
+
+        float[] color = new float[3];
+        int pixelOffset = row * dimensions.width * 4 * (halfFloat ? 2 : 4);
+
+        for (int x = 0; x < dimensions.width; x++) {
+            int firstColumn = Math.min(x * blockSize, header.width - 1);
+            int lastColumn = Math.min(firstColumn + blockSize, header.width);
+
+            float red = 0.0f, green = 0.0f, blue = 0.0f;
+            for (int line = firstLine; line < lastLine; line++) {
+                for (int column = firstColumn; column < lastColumn; column++) {
+                    decodeRgbe(rgbe, (line * header.width + column) * 4, color);
+                    red += color[0];
+                    green += color[1];
+                    blue += color[2];
+                }
+            }
+
+            float scale = 1.0f / ((lastLine - firstLine) * (lastColumn - firstColumn));
+            red *= scale;
+            green *= scale;
+            blue *= scale;
+
+            if (halfFloat) {
+                pixels.putShort(pixelOffset, Util.floatToHalf(red));
+                pixels.putShort(pixelOffset + 2, Util.floatToHalf(green));
+                pixels.putShort(pixelOffset + 4, Util.floatToHalf(blue));
+                pixels.putShort(pixelOffset + 6, HALF_ONE);
+                pixelOffset += 8;
+            } else {
+                pixels.putFloat(pixelOffset, red);
+                pixels.putFloat(pixelOffset + 4, green);
+                pixels.putFloat(pixelOffset + 8, blue);
+                pixels.putFloat(pixelOffset + 12, 1.0f);
+                pixelOffset += 16;
+            }
+        }
+    }
+
+    private static void decodeRgbe(byte[] rgbe, int offset, float[] color) {
+        int exponent = rgbe[offset + 3] & 0xFF;
+        if (exponent == 0) {
+            color[0] = color[1] = color[2] = 0.0f;
+            return;
+        }
+
+        // The mantissas are fixed point with 8 fractional bits. Tiny exponents make a denormal scale.
+        int scaleExponent = exponent - 128 - 8;
+        float scale = scaleExponent > -Float.MAX_EXPONENT
+                ? Float.intBitsToFloat((scaleExponent + Float.MAX_EXPONENT) << 23)
+                : Math.scalb(1.0f, scaleExponent);
+        color[0] = (rgbe[offset] & 0xFF) * scale;
+        color[1] = (rgbe[offset + 1] & 0xFF) * scale;
+        color[2] = (rgbe[offset + 2] & 0xFF) * scale;
+    }
+}
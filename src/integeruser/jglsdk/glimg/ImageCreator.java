@@ -3,9 +3,10 @@ package integeruser.jglsdk.glimg;
 import integeruser.jglsdk.glimg.ImageFormat.PixelDataType;
 import integeruser.jglsdk.glimg.ImageSet.Dimensions;
 import integeruser.jglsdk.glimg.Util.CompressedBlockData;
+import org.lwjgl.BufferUtils;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Arrays;
 
 
 /**
@@ -13,57 +14,92 @@ import java.util.Arrays;
  */
 class ImageCreator {
     ImageCreator(ImageFormat ddsFormat, Dimensions ddsDimensions, int mipmapCount, int arrayCount, int faceCount) {
-        imageFormat = ddsFormat;
-        imageDimensions = new Dimensions(ddsDimensions);
-        this.mipmapCount = mipmapCount;
-        this.arrayCount = arrayCount;
-        this.faceCount = faceCount;
+        this(ddsFormat, ddsDimensions, mipmapCount, arrayCount, faceCount, 0);
+    }
 
+    /**
+     * The first droppedMipmapCount levels are not stored: the image set starts from the following level, and the data
+     * given for the dropped levels is ignored.
+     */
+    ImageCreator(ImageFormat ddsFormat, Dimensions ddsDimensions, int mipmapCount, int arrayCount, int faceCount,
+                 int droppedMipmapCount) {
         if (faceCount != 6 && faceCount != 1) throw new BadFaceCountException();
         if (faceCount == 6 && ddsDimensions.numDimensions != 2) throw new CubemapsMustBe2DException();
         if (ddsDimensions.numDimensions == 3 && arrayCount != 1) throw new No3DTextureArrayException();
         if (mipmapCount <= 0 || arrayCount <= 0) throw new NoImagesSpecifiedException();
+        if (droppedMipmapCount < 0 || droppedMipmapCount >= mipmapCount) throw new MipmapLayerOutOfBoundsException();
 
-        imageData = new ArrayList<>(mipmapCount);
-        imageSizes = new int[mipmapCount];
+        imageFormat = ddsFormat;
+        imageDimensions = Util.calcMipmapLevelDimensions(ddsDimensions, droppedMipmapCount);
+        this.mipmapCount = mipmapCount - droppedMipmapCount;
+        this.arrayCount = arrayCount;
+        this.faceCount = faceCount;
+        this.droppedMipmapCount = droppedMipmapCount;
+
+        imageData = new ArrayList<>(this.mipmapCount);
+        imageSizes = new int[this.mipmapCount];
 
         // Allocate the memory for our data.
-        for (int mipmapLevel = 0; mipmapLevel < mipmapCount; mipmapLevel++) {
-            Dimensions mipmapLevelDimensions = Util.calcMipmapLevelDimensions(ddsDimensions, mipmapLevel);
+        for (int mipmapLevel = 0; mipmapLevel < this.mipmapCount; mipmapLevel++) {
+            Dimensions mipmapLevelDimensions = Util.calcMipmapLevelDimensions(imageDimensions, mipmapLevel);
 
             int mipmapLevelSize = Util.calcMipmapLevelSize(ddsFormat, mipmapLevelDimensions);
             imageSizes[mipmapLevel] = mipmapLevelSize;
 
-            byte[] mipmapLevelData = new byte[mipmapLevelSize * faceCount * arrayCount];
-            imageData.add(mipmapLevelData);
+            imageData.add(BufferUtils.createByteBuffer(mipmapLevelSize * faceCount * arrayCount));
         }
     }
 
 
     ////////////////////////////////
     void setImageData(byte sourceData[], boolean isTopLeft, int mipmapLevel, int arrayIx, int faceIx) {
+        setImageData(ByteBuffer.wrap(sourceData), isTopLeft, mipmapLevel, arrayIx, faceIx);
+    }
+
+    /**
+     * Copies the image between the position and the limit of sourceData, which is left untouched. Mapped files can be
+     * given as they are: they are read in place.
+     */
+    void setImageData(ByteBuffer sourceData, boolean isTopLeft, int mipmapLevel, int arrayIx, int faceIx) {
         if (imageData.isEmpty()) throw new ImageSetAlreadyCreatedException();
 
         // Check inputs.
         if ((arrayIx < 0) || (arrayCount <= arrayIx)) throw new ArrayIndexOutOfBoundsException();
         if ((faceIx < 0) || (faceCount <= faceIx)) throw new FaceIndexOutOfBoundsException();
-        if ((mipmapLevel < 0) || (mipmapCount <= mipmapLevel)) throw new MipmapLayerOutOfBoundsException();
+        if ((mipmapLevel < 0) || (droppedMipmapCount + mipmapCount <= mipmapLevel)) {
+            throw new MipmapLayerOutOfBoundsException();
+        }
+
+        if (isMipmapLevelDropped(mipmapLevel)) return;
+        mipmapLevel -= droppedMipmapCount;
 
         // Get the image relative to mipmapLevel
-        byte[] imageData = this.imageData.get(mipmapLevel);
+        ByteBuffer imageData = this.imageData.get(mipmapLevel);
+        int imageDataOffset = ((arrayIx * faceCount) + faceIx) * imageSizes[mipmapLevel];
 
         if (!isTopLeft) {
-            Util.throwNotYetPortedException();
+            // Already in GL order.
+            copyBytes(sourceData.slice(), 0, imageData, imageDataOffset, imageSizes[mipmapLevel]);
         } else {
-            int imageDataOffset = ((arrayIx * faceCount) + faceIx) * imageSizes[mipmapLevel];
-            copyImageFlipped(sourceData, imageData, imageDataOffset, mipmapLevel);
+            copyImageFlipped(sourceData.slice(), imageData, imageDataOffset, mipmapLevel);
         }
     }
 
 
+    // Loaders can avoid reading the data of dropped levels.
+    boolean isMipmapLevelDropped(int mipmapLevel) {
+        return mipmapLevel < droppedMipmapCount;
+    }
+
+
     ImageSet createImage() {
         if (imageData.isEmpty()) throw new ImageSetAlreadyCreatedException();
-        return new ImageSet(imageFormat, imageDimensions, mipmapCount, arrayCount, faceCount, imageData, imageSizes);
+
+        // The image set takes over the buffers.
+        ImageSet imageSet = new ImageSet(imageFormat, imageDimensions, mipmapCount, arrayCount, faceCount, imageData, imageSizes);
+        imageSet.setTopLeftOrigin(topLeftOrigin);
+        imageData = new ArrayList<>();
+        return imageSet;
     }
 
     ////////////////////////////////
@@ -73,8 +109,10 @@ class ImageCreator {
     private int mipmapCount;
     private int arrayCount;
     private int faceCount;
+    private int droppedMipmapCount;
+    private boolean topLeftOrigin;
 
-    private ArrayList<byte[]> imageData;
+    private ArrayList<ByteBuffer> imageData;
     private int[] imageSizes;
 
 
@@ -100,8 +138,20 @@ class ImageCreator {
     }
 
     ////////////////////////////////
-    private void copyImageFlipped(byte[] sourceData, byte[] imageData, int imageDataOffset, int mipmapLevel) {
-        assert (sourceData.length * faceCount * arrayCount) == imageData.length;
+    private static void copyBytes(ByteBuffer sourceData, int sourceDataOffset, ByteBuffer imageData, int imageDataOffset,
+                                  int byteCount) {
+        ByteBuffer source = sourceData.duplicate();
+        source.limit(sourceDataOffset + byteCount);
+        source.position(sourceDataOffset);
+
+        ByteBuffer destination = imageData.duplicate();
+        destination.position(imageDataOffset);
+        destination.put(source);
+    }
+
+
+    private void copyImageFlipped(ByteBuffer sourceData, ByteBuffer imageData, int imageDataOffset, int mipmapLevel) {
+        assert (sourceData.remaining() * faceCount * arrayCount) == imageData.capacity();
 
         Dimensions mipmapImageDimensions = Util.calcMipmapLevelDimensions(new Dimensions(imageDimensions), mipmapLevel);
 
@@ -120,6 +170,15 @@ class ImageCreator {
                     copyBCFlipped(imageFormat, sourceData, imageData, imageDataOffset, imageSizes[mipmapLevel], mipmapImageDimensions, mipmapLevel);
                     break;
 
+                case COMPRESSED_UNSIGNED_BC6H:
+                case COMPRESSED_SIGNED_BC6H:
+                case COMPRESSED_BC7:
+                    // The texels of BC6H/BC7 blocks can't be reordered without re-encoding them: the data keeps the
+                    // top-left origin of the source file, and TextureGenerator flips it on upload.
+                    copyBytes(sourceData, 0, imageData, imageDataOffset, imageSizes[mipmapLevel]);
+                    topLeftOrigin = true;
+                    break;
+
                 default:
                     Util.throwNotYetPortedException();
                     break;
@@ -128,7 +187,7 @@ class ImageCreator {
     }
 
 
-    private void copyPixelsFlipped(ImageFormat imageFormat, byte[] sourceData, byte[] imageData, int imageDataOffset,
+    private void copyPixelsFlipped(ImageFormat imageFormat, ByteBuffer sourceData, ByteBuffer imageData, int imageDataOffset,
                                    int imageSize, Dimensions imageDimensions) {
         // Flip the data. Copy line by line.
         final int numLines = imageDimensions.calcNumLines();
@@ -139,10 +198,8 @@ class ImageCreator {
         int imageDataLineOffset = imageDataOffset;    // start from imageDataOffset
 
         for (int line = 0; line < numLines; line++) {
-            byte[] sourceLine = Arrays.copyOfRange(sourceData, sourceLineOffset, sourceLineOffset + lineSize);
-
             // Copy the source line into imageData
-            System.arraycopy(sourceLine, 0, imageData, imageDataLineOffset, lineSize);
+            copyBytes(sourceData, sourceLineOffset, imageData, imageDataLineOffset, lineSize);
 
             // Update indices
             sourceLineOffset -= lineSize;
@@ -151,7 +208,7 @@ class ImageCreator {
     }
 
 
-    private void copyBCFlipped(ImageFormat imageFormat, byte[] sourceData, byte[] imageData, int imageDataOffset,
+    private void copyBCFlipped(ImageFormat imageFormat, ByteBuffer sourceData, ByteBuffer imageData, int imageDataOffset,
                                int imageSize, Dimensions imageDimensions, int mipmapLevel) {
         // No support for 3D compressed formats.
         assert imageDimensions.numDimensions != 3 : "No support for 3D compressed formats.";
@@ -164,14 +221,23 @@ class ImageCreator {
         final int numLines = numTotalBlocks / blocksPerLine;
 
         // Copy each block.
+        ByteBuffer source = sourceData.duplicate();
+        ByteBuffer destination = imageData.duplicate();
+        byte[] sourceBlock = new byte[blockData.byteCount];
+        byte[] flippedBlock = new byte[blockData.byteCount];
+
         int sourceBlockOffset = imageSize - blockLineSize;  // start from last block
         int imageDataBlockOffset = imageDataOffset;         // start from imageDataOffset
 
         for (int line = 0; line < numLines; ++line) {
             for (int block = 0; block < blocksPerLine; ++block) {
-                byte[] sourceBlock = Arrays.copyOfRange(sourceData, sourceBlockOffset, sourceBlockOffset + blockData.byteCount);
+                source.position(sourceBlockOffset);
+                source.get(sourceBlock);
+
+                flippingFunc(imageFormat, sourceBlock, flippedBlock, 0);
 
-                flippingFunc(imageFormat, sourceBlock, imageData, imageDataBlockOffset);
+                destination.position(imageDataBlockOffset);
+                destination.put(flippedBlock);
 
                 sourceBlockOffset += blockData.byteCount;
                 imageDataBlockOffset += blockData.byteCount;
@@ -183,11 +249,31 @@ class ImageCreator {
         }
     }
 
-    // TODO
     private void flippingFunc(ImageFormat imageFormat, byte[] sourceData, byte[] imageData, int imageDataOffset) {
         switch (this.imageFormat.getPixelDataType()) {
             case COMPRESSED_BC1:
-                copyBlockBC1Flipped(sourceData, imageData, imageDataOffset);
+                copyBlockBC1Flipped(sourceData, 0, imageData, imageDataOffset);
+                break;
+
+            case COMPRESSED_BC2:
+                copyBlockBC2AlphaFlipped(sourceData, 0, imageData, imageDataOffset);
+                copyBlockBC1Flipped(sourceData, 8, imageData, imageDataOffset + 8);
+                break;
+
+            case COMPRESSED_BC3:
+                copyBlockBC4Flipped(sourceData, 0, imageData, imageDataOffset);
+                copyBlockBC1Flipped(sourceData, 8, imageData, imageDataOffset + 8);
+                break;
+
+            case COMPRESSED_UNSIGNED_BC4:
+            case COMPRESSED_SIGNED_BC4:
+                copyBlockBC4Flipped(sourceData, 0, imageData, imageDataOffset);
+                break;
+
+            case COMPRESSED_UNSIGNED_BC5:
+            case COMPRESSED_SIGNED_BC5:
+                copyBlockBC4Flipped(sourceData, 0, imageData, imageDataOffset);
+                copyBlockBC4Flipped(sourceData, 8, imageData, imageDataOffset + 8);
                 break;
 
             default:
@@ -196,19 +282,49 @@ class ImageCreator {
         }
     }
 
-    private void copyBlockBC1Flipped(byte[] sourceData, byte[] imageData, int imageDataOffset) {
-        assert sourceData.length == 8;
+    private void copyBlockBC1Flipped(byte[] sourceData, int sourceDataOffset, byte[] imageData, int imageDataOffset) {
+        assert sourceData.length >= sourceDataOffset + 8;
 
         // First 4 bytes are 2 16-bit colors. Keep them the same.
         for (int i = 0; i < 4; i++) {
-            imageData[imageDataOffset + i] = sourceData[i];
+            imageData[imageDataOffset + i] = sourceData[sourceDataOffset + i];
         }
 
         // Next four bytes are 16 2-bit values, in row-major, top-to-bottom order,
         // representing the 4x4 pixel data for the block. So copy the bytes in reverse order.
-        imageData[imageDataOffset + 4] = sourceData[7];
-        imageData[imageDataOffset + 5] = sourceData[6];
-        imageData[imageDataOffset + 6] = sourceData[5];
-        imageData[imageDataOffset + 7] = sourceData[4];
+        imageData[imageDataOffset + 4] = sourceData[sourceDataOffset + 7];
+        imageData[imageDataOffset + 5] = sourceData[sourceDataOffset + 6];
+        imageData[imageDataOffset + 6] = sourceData[sourceDataOffset + 5];
+        imageData[imageDataOffset + 7] = sourceData[sourceDataOffset + 4];
+    }
+
+    private void copyBlockBC2AlphaFlipped(byte[] sourceData, int sourceDataOffset, byte[] imageData, int imageDataOffset) {
+        // 16 4-bit alpha values, one 16-bit row after the other. Copy the rows in reverse order.
+        for (int row = 0; row < 4; row++) {
+            imageData[imageDataOffset + (row * 2)] = sourceData[sourceDataOffset + ((3 - row) * 2)];
+            imageData[imageDataOffset + (row * 2) + 1] = sourceData[sourceDataOffset + ((3 - row) * 2) + 1];
+        }
+    }
+
+    private void copyBlockBC4Flipped(byte[] sourceData, int sourceDataOffset, byte[] imageData, int imageDataOffset) {
+        // First 2 bytes are the endpoints. Keep them the same.
+        imageData[imageDataOffset] = sourceData[sourceDataOffset];
+        imageData[imageDataOffset + 1] = sourceData[sourceDataOffset + 1];
+
+        // Next six bytes are 16 3-bit values, in row-major, top-to-bottom order: 12 bits per row.
+        long indices = 0;
+        for (int i = 0; i < 6; i++) {
+            indices |= (sourceData[sourceDataOffset + 2 + i] & 0xffL) << (8 * i);
+        }
+
+        long flippedIndices = 0;
+        for (int row = 0; row < 4; row++) {
+            long rowBits = (indices >>> (12 * row)) & 0xfff;
+            flippedIndices |= rowBits << (12 * (3 - row));
+        }
+
+        for (int i = 0; i < 6; i++) {
+            imageData[imageDataOffset + 2 + i] = (byte) (flippedIndices >>> (8 * i));
+        }
     }
 }
@@ -0,0 +1,119 @@
+package integeruser.jglsdk.glimg;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * Where the loaders read image files from. By default files are classpath resources; a provider, like an asset
+ * archive, can serve them from memory instead. Files it doesn't have are still looked up on the classpath. A provider
+ * set for a thread takes precedence over the global one, so that threads loading from different archives don't clash.
+ */
+public class ImageFiles {
+    public interface Provider {
+        // Returns the content of the file, or null if the provider doesn't have it.
+        ByteBuffer findFile(String filePath) throws IOException;
+    }
+
+    ////////////////////////////////
+    public static void setProvider(Provider provider) {
+        ImageFiles.provider = provider;
+    }
+
+    public static Provider getProvider() {
+        return provider;
+    }
+
+
+    /**
+     * Sets the provider of the current thread, or clears it if null. Returns the previous one, to be restored.
+     */
+    public static Provider setThreadProvider(Provider provider) {
+        Provider previousProvider = threadProvider.get();
+        if (provider == null) {
+            threadProvider.remove();
+        } else {
+            threadProvider.set(provider);
+        }
+        return previousProvider;
+    }
+
+    ////////////////////////////////
+    private static volatile Provider provider;
+    private static ThreadLocal<Provider> threadProvider = new ThreadLocal<>();
+
+
+    static InputStream openFile(String filePath) throws IOException {
+        ByteBuffer file = findProvidedFile(filePath);
+        if (file != null) return new ByteBufferInputStream(file);
+
+        InputStream inputStream = ClassLoader.class.getResourceAsStream(filePath);
+        if (inputStream == null) throw new IOException("Could not open the file " + filePath);
+        return inputStream;
+    }
+
+    // Files on disk are memory mapped; resources packed in a jar are read into memory.
+    static ByteBuffer mapFile(String filePath) throws IOException {
+        ByteBuffer file = findProvidedFile(filePath);
+        if (file != null) return file;
+
+        URL fileUrl = ClassLoader.class.getResource(filePath);
+        if (fileUrl == null) throw new IOException("Could not open the file " + filePath);
+
+        if (fileUrl.getProtocol().equals("file")) {
+            try (FileChannel channel = FileChannel.open(Paths.get(fileUrl.toURI()), StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        }
+
+        try (InputStream inputStream = fileUrl.openStream()) {
+            return ByteBuffer.wrap(readFully(inputStream));
+        }
+    }
+
+    static byte[] readFile(String filePath) throws IOException {
+        ByteBuffer file = findProvidedFile(filePath);
+        if (file != null) {
+            byte[] fileBytes = new byte[file.remaining()];
+            file.get(fileBytes);
+            return fileBytes;
+        }
+
+        try (InputStream inputStream = openFile(filePath)) {
+            return readFully(inputStream);
+        }
+    }
+
+
+    private static ByteBuffer findProvidedFile(String filePath) throws IOException {
+        Provider currentProvider = threadProvider.get();
+        if (currentProvider == null) currentProvider = provider;
+        if (currentProvider == null) return null;
+
+        ByteBuffer file = currentProvider.findFile(filePath);
+        return file == null ? null : file.slice();
+    }
+
+    private static byte[] readFully(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int bytesRead;
+
+        while ((bytesRead = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, bytesRead);
+        }
+
+        return outputStream.toByteArray();
+    }
+}
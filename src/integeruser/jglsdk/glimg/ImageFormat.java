@@ -1,5 +1,6 @@
 package integeruser.jglsdk.glimg;
 
+import java.util.EnumSet;
 
 /**
  * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
@@ -106,12 +107,14 @@ class ImageFormat {
         }
 
         ////////////////////////////////
+        boolean validateFormat() {
+            return validateFormatText().equals("");
+        }
+
         private String validateFormatText() {
             // Alignment only matters for uncompressed types.
             if (type.ordinal() < PixelDataType.NUM_UNCOMPRESSED_TYPES.ordinal()) {
-                Integer[] tests = {1, 2, 4, 8};
-
-                if (!Util.isOneOfThese(lineAlignment, tests)) {
+                if ((lineAlignment & VALID_LINE_ALIGNMENTS) == 0 || Integer.bitCount(lineAlignment) != 1) {
                     return "Alignment must be 1, 2, 4, or 8 bytes.";
                 }
 
@@ -135,12 +138,11 @@ class ImageFormat {
                 if (type == PixelDataType.COMPRESSED_BC2
                         || type == PixelDataType.COMPRESSED_BC3
                         || type == PixelDataType.COMPRESSED_BC7) {
-                    if (!Util.isOneOfThese(format, alphaFormats)) {
+                    if (!alphaFormats.contains(format)) {
                         return "BC2, 3, and 7 compression must use an RGBA format.";
                     }
                 } else if (type == PixelDataType.COMPRESSED_BC1) {
-                    if (!Util.isOneOfThese(format, rgbFormats) &&
-                            !Util.isOneOfThese(format, alphaFormats)) {
+                    if (!rgbFormats.contains(format) && !alphaFormats.contains(format)) {
                         return "BC1 compression must use an RGB or RGBA format";
                     }
                 }
@@ -229,13 +231,13 @@ class ImageFormat {
 
             // Floats must be at least 16-bits per component, or 101111.
             if (type == PixelDataType.FLOAT) {
-                if (!Util.isOneOfThese(bitDepth, floatBitdepths)) {
+                if (!floatBitdepths.contains(bitDepth)) {
                     return "Floating-point types must use 16 or 32-bit bitdepths, or the Bitdepth.PACKED_32_BIT_101111_REV";
                 }
             }
 
             // Only normalized unsigned integers can be sRGB.
-            if (Util.isOneOfThese(format, srgbFormats)) {
+            if (srgbFormats.contains(format)) {
                 if (type != PixelDataType.NORM_UNSIGNED_INTEGER) {
                     return "Only normalized, unsigned integers can be in the sRGB colorspace.";
                 }
@@ -271,12 +273,13 @@ class ImageFormat {
                         return "Non-depth two-component formats cannot work with packed bitdepths.";
 
                     case 3:
-                        if (!Util.isOneOfThese(bitDepth, threeCompBitdepths)) {
+                        if (!threeCompBitdepths.contains(bitDepth)) {
                             return "The only packed formats available to 3-component formats are 565 or 565_REV.";
                         }
+                        break;
 
                     case 4:
-                        if (Util.isOneOfThese(bitDepth, threeCompBitdepths)) {
+                        if (threeCompBitdepths.contains(bitDepth)) {
                             return "Cannot use 565 or 565_REV with 4-component formats.";
                         }
                 }
@@ -306,6 +309,8 @@ class ImageFormat {
 
         String message = this.uncheckedImageFormat.validateFormatText();
         if (!message.equals("")) throw new InvalidFormatException(message);
+
+        key = calcKey(uncheckedImageFormat);
     }
 
 
@@ -328,7 +333,8 @@ class ImageFormat {
 
 
     int alignByteCount(int byteCount) {
-        return (byteCount + (uncheckedImageFormat.lineAlignment - 1)) / uncheckedImageFormat.lineAlignment;
+        return (byteCount + (uncheckedImageFormat.lineAlignment - 1)) / uncheckedImageFormat.lineAlignment
+                * uncheckedImageFormat.lineAlignment;
     }
 
     int getLineAlignment() {
@@ -336,16 +342,60 @@ class ImageFormat {
     }
 
 
+    /**
+     * Returns all the fields of this format packed into the low KEY_BITS bits of an int. Two formats are equal if and
+     * only if their keys are equal.
+     */
+    int getKey() {
+        return key;
+    }
+
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof ImageFormat)) return false;
+
+        return key == ((ImageFormat) obj).key;
+    }
+
+    @Override
+    public int hashCode() {
+        return key;
+    }
+
+
     ////////////////////////////////
-    private static PixelComponents[] alphaFormats = {PixelComponents.COLOR_RGBA, PixelComponents.COLOR_RGBA_SRGB};
-    private static PixelComponents[] rgbFormats = {PixelComponents.COLOR_RGB, PixelComponents.COLOR_RGB_SRGB};
-    private static PixelComponents[] srgbFormats = {PixelComponents.COLOR_RGB_SRGB, PixelComponents.COLOR_RGBX_SRGB, PixelComponents.COLOR_RGBA_SRGB};
+    // Layout of the key: type (5 bits), format (4 bits), order (3 bits), bitdepth (5 bits), log2 of the alignment (2 bits).
+    static final int KEY_BITS = 19;
+
+    private static final int VALID_LINE_ALIGNMENTS = 1 | 2 | 4 | 8;
+
+    private static EnumSet<PixelComponents> alphaFormats = EnumSet.of(PixelComponents.COLOR_RGBA, PixelComponents.COLOR_RGBA_SRGB);
+    private static EnumSet<PixelComponents> rgbFormats = EnumSet.of(PixelComponents.COLOR_RGB, PixelComponents.COLOR_RGB_SRGB);
+    private static EnumSet<PixelComponents> srgbFormats = EnumSet.of(PixelComponents.COLOR_RGB_SRGB, PixelComponents.COLOR_RGBX_SRGB, PixelComponents.COLOR_RGBA_SRGB);
 
-    private static BitDepth[] floatBitdepths = {BitDepth.PER_COMP_16, BitDepth.PER_COMP_32, BitDepth.PACKED_32_BIT_101111_REV};
-    private static BitDepth[] threeCompBitdepths = {BitDepth.PACKED_16_BIT_565, BitDepth.PACKED_16_BIT_565_REV};
+    private static EnumSet<BitDepth> floatBitdepths = EnumSet.of(BitDepth.PER_COMP_16, BitDepth.PER_COMP_32, BitDepth.PACKED_32_BIT_101111_REV);
+    private static EnumSet<BitDepth> threeCompBitdepths = EnumSet.of(BitDepth.PACKED_16_BIT_565, BitDepth.PACKED_16_BIT_565_REV);
 
 
     private UncheckedImageFormat uncheckedImageFormat;
+    private int key;
+
+
+    private static int calcKey(UncheckedImageFormat uncheckedImageFormat) {
+        // Compressed formats ignore the alignment, so it doesn't take part in their key either.
+        int alignmentBits = 0;
+        if (uncheckedImageFormat.type.ordinal() < PixelDataType.NUM_UNCOMPRESSED_TYPES.ordinal()) {
+            alignmentBits = Integer.numberOfTrailingZeros(uncheckedImageFormat.lineAlignment);
+        }
+
+        return uncheckedImageFormat.type.ordinal()
+                | uncheckedImageFormat.format.ordinal() << 5
+                | uncheckedImageFormat.order.ordinal() << 9
+                | uncheckedImageFormat.bitDepth.ordinal() << 12
+                | alignmentBits << 17;
+    }
 
 
     private static class InvalidFormatException extends RuntimeException {
@@ -1,9 +1,8 @@
 package integeruser.jglsdk.glimg;
 
-import org.lwjgl.BufferUtils;
-
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 
 /**
@@ -73,7 +72,7 @@ public class ImageSet {
 
     ////////////////////////////////
     ImageSet(ImageFormat imageFormat, Dimensions imageDimensions, int mipmapCount, int arrayCount, int faceCount,
-             ArrayList<byte[]> imageData, int[] imageSizes) {
+             ArrayList<ByteBuffer> imageData, int[] imageSizes) {
         format = imageFormat;
         dimensions = imageDimensions;
         this.imageData = imageData;
@@ -121,17 +120,58 @@ public class ImageSet {
         return imageSizes[mipmap];
     }
 
+    // The number of bytes taken by all the arrays and faces of a mipmap level, once uploaded.
+    public int calcMipmapLevelByteCount(int mipmapLevel) {
+        return Util.calcMipmapLevelSize(format, getDimensions(mipmapLevel)) * arrayCount * faceCount;
+    }
+
 
     public ByteBuffer getImageData(int mipmapLevel, int arrayIx, int faceIx) {
-        byte[] imageData = this.imageData.get(mipmapLevel);
+        ByteBuffer imageDataBuffer = imageData.get(mipmapLevel).duplicate();
         int imageDataOffset = ((arrayIx * faceCount) + faceIx) * imageSizes[mipmapLevel];
 
-        ByteBuffer imageDataBuffer = BufferUtils.createByteBuffer(imageSizes[mipmapLevel]);
-        for (int i = imageDataOffset; i < imageDataOffset + imageSizes[mipmapLevel]; i++) {
-            imageDataBuffer.put(imageData[i]);
+        imageDataBuffer.limit(imageDataOffset + imageSizes[mipmapLevel]);
+        imageDataBuffer.position(imageDataOffset);
+        return imageDataBuffer.slice();
+    }
+
+
+    /**
+     * Returns an image set without the first mipmapCount levels, whose base level is the following one. The image data
+     * is shared, not copied.
+     */
+    public ImageSet dropMipmapLevels(int mipmapCount) {
+        if (mipmapCount < 0 || mipmapCount >= this.mipmapCount) {
+            throw new IllegalArgumentException("Cannot drop " + mipmapCount + " of the " + this.mipmapCount
+                    + " mipmap levels.");
         }
-        imageDataBuffer.flip();
-        return imageDataBuffer;
+        if (mipmapCount == 0) return this;
+
+        ImageSet imageSet = new ImageSet(format, getDimensions(mipmapCount), this.mipmapCount - mipmapCount, arrayCount,
+                faceCount, new ArrayList<>(imageData.subList(mipmapCount, this.mipmapCount)),
+                Arrays.copyOfRange(imageSizes, mipmapCount, this.mipmapCount));
+        imageSet.topLeftOrigin = topLeftOrigin;
+        return imageSet;
+    }
+
+
+    /**
+     * Returns true if the first line of the data is the top of the image, instead of the bottom as GL expects. Only
+     * BC6H and BC7 images can be left this way: their blocks can't be flipped without re-encoding them.
+     * TextureGenerator flips them when it creates their textures, see TextureGenerator.flipTopLeftOrigin.
+     */
+    public boolean isTopLeftOrigin() {
+        return topLeftOrigin;
+    }
+
+    void setTopLeftOrigin(boolean topLeftOrigin) {
+        this.topLeftOrigin = topLeftOrigin;
+    }
+
+
+    // The data of all the arrays and faces of a mipmap level, one after the other.
+    ByteBuffer getMipmapLevelData(int mipmapLevel) {
+        return imageData.get(mipmapLevel).duplicate();
     }
 
     ////////////////////////////////
@@ -139,9 +179,10 @@ public class ImageSet {
     private Dimensions dimensions;
 
     private int[] imageSizes;
-    private ArrayList<byte[]> imageData;
+    private ArrayList<ByteBuffer> imageData;
 
     private int arrayCount;
     private int faceCount;
     private int mipmapCount;
+    private boolean topLeftOrigin;
 }
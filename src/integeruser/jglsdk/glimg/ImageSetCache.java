@@ -0,0 +1,237 @@
+package integeruser.jglsdk.glimg;
+
+import integeruser.jglsdk.glimg.ImageFormat.*;
+import integeruser.jglsdk.glimg.ImageSet.Dimensions;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * Stores loaded image sets on disk, ready to be uploaded, so that following runs map them back into memory instead
+ * of decoding the source file again. Entries are keyed by the content of the source file, by the forced conversion
+ * flags used to create the texture and by the resolution policy.
+ */
+public class ImageSetCache {
+    public interface Loader {
+        ImageSet loadFromFile(String filePath, ResolutionPolicy resolutionPolicy) throws IOException;
+    }
+
+    ////////////////////////////////
+    public ImageSetCache(File cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+
+        if (!cacheDirectory.isDirectory() && !cacheDirectory.mkdirs()) {
+            throw new RuntimeException("Could not create the image cache directory " + cacheDirectory);
+        }
+    }
+
+    ////////////////////////////////
+    public ImageSet loadFromFile(String filePath, int forceConvertBits, Loader loader) throws IOException {
+        return loadFromFile(filePath, forceConvertBits, ResolutionPolicy.getGlobal(), loader);
+    }
+
+    public ImageSet loadFromFile(String filePath, int forceConvertBits, ResolutionPolicy resolutionPolicy,
+                                 Loader loader) throws IOException {
+        byte[] sourceFile = ImageFiles.readFile(filePath);
+        File cacheFile = new File(cacheDirectory, calcKey(sourceFile, forceConvertBits, resolutionPolicy) + FILE_EXTENSION);
+
+        if (cacheFile.isFile()) {
+            ImageSet imageSet = readCacheFile(cacheFile, forceConvertBits);
+            if (imageSet != null) return imageSet;
+
+            // Stale, truncated or corrupt entry: rebuild it.
+            Files.deleteIfExists(cacheFile.toPath());
+        }
+
+        ImageSet imageSet = loader.loadFromFile(filePath, resolutionPolicy);
+        writeCacheFile(cacheFile, imageSet, forceConvertBits);
+        return imageSet;
+    }
+
+    ////////////////////////////////
+    private static final String FILE_EXTENSION = ".imgset";
+
+    private static final int MAGIC_NUMBER = 0x534d4947;  // "GIMS"
+    private static final int VERSION = 2;
+
+    // Magic number, version, flags, 5 format fields, 4 dimension fields, 3 image counts and the origin.
+    private static final int FIXED_HEADER_SIZE = 16 * (Integer.SIZE / 8);
+
+    // Image data starts at this alignment, so that mapped mipmap levels can be handed to GL as they are.
+    private static final int DATA_ALIGNMENT = 16;
+
+
+    private File cacheDirectory;
+
+
+    ////////////////////////////////
+    private static String calcKey(byte[] sourceFile, int forceConvertBits, ResolutionPolicy resolutionPolicy) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest(sourceFile)) {
+            key.append(String.format("%02x", b));
+        }
+        key.append('_').append(String.format("%04x", forceConvertBits));
+        if (!resolutionPolicy.isFullResolution()) {
+            key.append(String.format("_s%d_m%d", resolutionPolicy.getSkipMipmaps(), resolutionPolicy.getMaxResolution()));
+        }
+        return key.toString();
+    }
+
+
+    private static int calcHeaderSize(int mipmapCount) {
+        int headerSize = FIXED_HEADER_SIZE + mipmapCount * (Integer.SIZE / 8);
+        return (headerSize + (DATA_ALIGNMENT - 1)) / DATA_ALIGNMENT * DATA_ALIGNMENT;
+    }
+
+
+    // Returns null if the file was written by a different version or for different flags, or if it is truncated or
+    // corrupt: only I/O errors are thrown.
+    private static ImageSet readCacheFile(File cacheFile, int forceConvertBits) throws IOException {
+        MappedByteBuffer mappedFile;
+        try (RandomAccessFile file = new RandomAccessFile(cacheFile, "r"); FileChannel channel = file.getChannel()) {
+            mappedFile = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        mappedFile.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (mappedFile.remaining() < FIXED_HEADER_SIZE) return null;
+        if (mappedFile.getInt() != MAGIC_NUMBER) return null;
+        if (mappedFile.getInt() != VERSION) return null;
+        if (mappedFile.getInt() != forceConvertBits) return null;
+
+        PixelDataType pixelDataType = readEnum(mappedFile, PixelDataType.values());
+        PixelComponents pixelComponents = readEnum(mappedFile, PixelComponents.values());
+        ComponentOrder componentOrder = readEnum(mappedFile, ComponentOrder.values());
+        BitDepth bitDepth = readEnum(mappedFile, BitDepth.values());
+        int lineAlignment = mappedFile.getInt();
+        if (pixelDataType == null || pixelComponents == null || componentOrder == null || bitDepth == null) return null;
+
+        UncheckedImageFormat uncheckedImageFormat = new UncheckedImageFormat(pixelDataType, pixelComponents,
+                componentOrder, bitDepth, lineAlignment);
+        if (!uncheckedImageFormat.validateFormat()) return null;
+
+        Dimensions dimensions = new Dimensions();
+        dimensions.numDimensions = mappedFile.getInt();
+        dimensions.width = mappedFile.getInt();
+        dimensions.height = mappedFile.getInt();
+        dimensions.depth = mappedFile.getInt();
+
+        int mipmapCount = mappedFile.getInt();
+        int arrayCount = mappedFile.getInt();
+        int faceCount = mappedFile.getInt();
+        int topLeftOrigin = mappedFile.getInt();
+        if (mipmapCount < 0 || arrayCount < 0 || faceCount < 0) return null;
+        if (topLeftOrigin != 0 && topLeftOrigin != 1) return null;
+        if (mipmapCount > mappedFile.remaining() / (Integer.SIZE / 8)) return null;
+
+        int[] imageSizes = new int[mipmapCount];
+        for (int mipmapLevel = 0; mipmapLevel < mipmapCount; mipmapLevel++) {
+            imageSizes[mipmapLevel] = mappedFile.getInt();
+            if (imageSizes[mipmapLevel] < 0) return null;
+        }
+
+        // Mipmap levels are views on the mapped file: nothing is copied.
+        ArrayList<ByteBuffer> imageData = new ArrayList<>(mipmapCount);
+        long offset = calcHeaderSize(mipmapCount);
+        for (int mipmapLevel = 0; mipmapLevel < mipmapCount; mipmapLevel++) {
+            long mipmapLevelSize = (long) imageSizes[mipmapLevel] * arrayCount * faceCount;
+            if (offset + mipmapLevelSize > mappedFile.capacity()) return null;
+
+            ByteBuffer mipmapLevelData = mappedFile.duplicate();
+            mipmapLevelData.limit((int) (offset + mipmapLevelSize));
+            mipmapLevelData.position((int) offset);
+            imageData.add(mipmapLevelData.slice());
+
+            offset += mipmapLevelSize;
+        }
+
+        ImageSet imageSet = new ImageSet(new ImageFormat(uncheckedImageFormat), dimensions, mipmapCount, arrayCount,
+                faceCount, imageData, imageSizes);
+        imageSet.setTopLeftOrigin(topLeftOrigin == 1);
+        return imageSet;
+    }
+
+    // Returns null if the ordinal is out of range.
+    private static <E extends Enum<E>> E readEnum(ByteBuffer buffer, E[] values) {
+        int ordinal = buffer.getInt();
+        return ordinal >= 0 && ordinal < values.length ? values[ordinal] : null;
+    }
+
+    private static void writeCacheFile(File cacheFile, ImageSet imageSet, int forceConvertBits) throws IOException {
+        int mipmapCount = imageSet.getMipmapCount();
+        int arrayCount = imageSet.getArrayCount();
+        int faceCount = imageSet.getFaceCount();
+
+        int headerSize = calcHeaderSize(mipmapCount);
+        long fileSize = headerSize;
+        for (int mipmapLevel = 0; mipmapLevel < mipmapCount; mipmapLevel++) {
+            fileSize += (long) imageSet.getSize(mipmapLevel) * arrayCount * faceCount;
+        }
+
+        // Write to a temporary file first, so that an interrupted run never leaves a truncated entry behind.
+        File tempFile = File.createTempFile("imgset", ".tmp", cacheFile.getParentFile());
+        try {
+            try (RandomAccessFile file = new RandomAccessFile(tempFile, "rw"); FileChannel channel = file.getChannel()) {
+                MappedByteBuffer mappedFile = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+                mappedFile.order(ByteOrder.LITTLE_ENDIAN);
+
+                ImageFormat imageFormat = imageSet.getFormat();
+                Dimensions dimensions = imageSet.getDimensions();
+
+                mappedFile.putInt(MAGIC_NUMBER);
+                mappedFile.putInt(VERSION);
+                mappedFile.putInt(forceConvertBits);
+
+                mappedFile.putInt(imageFormat.getPixelDataType().ordinal());
+                mappedFile.putInt(imageFormat.getPixelComponents().ordinal());
+                mappedFile.putInt(imageFormat.getComponentOrder().ordinal());
+                mappedFile.putInt(imageFormat.getBitDepth().ordinal());
+                mappedFile.putInt(imageFormat.getLineAlignment());
+
+                mappedFile.putInt(dimensions.numDimensions);
+                mappedFile.putInt(dimensions.width);
+                mappedFile.putInt(dimensions.height);
+                mappedFile.putInt(dimensions.depth);
+
+                mappedFile.putInt(mipmapCount);
+                mappedFile.putInt(arrayCount);
+                mappedFile.putInt(faceCount);
+                mappedFile.putInt(imageSet.isTopLeftOrigin() ? 1 : 0);
+
+                for (int mipmapLevel = 0; mipmapLevel < mipmapCount; mipmapLevel++) {
+                    mappedFile.putInt(imageSet.getSize(mipmapLevel));
+                }
+
+                mappedFile.position(headerSize);
+                for (int mipmapLevel = 0; mipmapLevel < mipmapCount; mipmapLevel++) {
+                    mappedFile.put(imageSet.getMipmapLevelData(mipmapLevel));
+                }
+
+                mappedFile.force();
+            }
+
+            Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+}
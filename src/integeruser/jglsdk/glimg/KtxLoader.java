@@ -0,0 +1,602 @@
+package integeruser.jglsdk.glimg;
+
+import integeruser.jglsdk.glimg.ImageFormat.*;
+import integeruser.jglsdk.glimg.ImageSet.Dimensions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * Loads KTX and KTX2 files. Files on disk are memory mapped and their images are handed to the image creator in
+ * place. KTX2 levels supercompressed with zlib are inflated concurrently.
+ */
+public class KtxLoader {
+    public static ImageSet loadFromFile(String ktxFilepath) throws IOException {
+        return loadFromFile(ktxFilepath, ResolutionPolicy.getGlobal());
+    }
+
+    public static ImageSet loadFromFile(String ktxFilepath, ResolutionPolicy resolutionPolicy) throws IOException {
+        ByteBuffer ktxFile = ImageFiles.mapFile(ktxFilepath);
+        if (ktxFile.capacity() < IDENTIFIER_LENGTH) {
+            throw new KtxFileMalformedException(ktxFilepath, "The data is way too small to store actual information.");
+        }
+
+        byte[] identifier = new byte[IDENTIFIER_LENGTH];
+        ktxFile.get(identifier);
+
+        if (Arrays.equals(identifier, KTX1_IDENTIFIER)) return loadKtx1(ktxFilepath, ktxFile, resolutionPolicy);
+        if (Arrays.equals(identifier, KTX2_IDENTIFIER)) return loadKtx2(ktxFilepath, ktxFile, resolutionPolicy);
+        throw new KtxFileMalformedException(ktxFilepath, "The KTX identifier is missing from the file.");
+    }
+
+    ////////////////////////////////
+    private static final int IDENTIFIER_LENGTH = 12;
+
+    private static final byte[] KTX1_IDENTIFIER = {
+            (byte) 0xAB, 'K', 'T', 'X', ' ', '1', '1', (byte) 0xBB, '\r', '\n', 0x1A, '\n'
+    };
+
+    private static final byte[] KTX2_IDENTIFIER = {
+            (byte) 0xAB, 'K', 'T', 'X', ' ', '2', '0', (byte) 0xBB, '\r', '\n', 0x1A, '\n'
+    };
+
+
+    private static class KtxFileMalformedException extends RuntimeException {
+        private KtxFileMalformedException(String filename, String message) {
+            super(filename + ": " + message);
+        }
+    }
+
+    private static class KtxFileUnsupportedException extends RuntimeException {
+        private KtxFileUnsupportedException(String filename, String message) {
+            super(filename + ": " + message);
+        }
+    }
+
+    ////////////////////////////////
+    private static class Ktx1Header {
+        static final int SIZE = IDENTIFIER_LENGTH + 13 * (Integer.SIZE / 8);
+
+        static final int ENDIANNESS = 0x04030201;
+        static final int ENDIANNESS_SWAPPED = 0x01020304;
+
+        int glType;
+        int glTypeSize;
+        int glFormat;
+        int glInternalFormat;
+        int pixelWidth;
+        int pixelHeight;
+        int pixelDepth;
+        int numberOfArrayElements;
+        int numberOfFaces;
+        int numberOfMipmapLevels;
+        int bytesOfKeyValueData;
+
+        Ktx1Header(ByteBuffer ktxFile) {
+            glType = ktxFile.getInt(16);
+            glTypeSize = ktxFile.getInt(20);
+            glFormat = ktxFile.getInt(24);
+            glInternalFormat = ktxFile.getInt(28);
+            pixelWidth = ktxFile.getInt(36);
+            pixelHeight = ktxFile.getInt(40);
+            pixelDepth = ktxFile.getInt(44);
+            numberOfArrayElements = ktxFile.getInt(48);
+            numberOfFaces = ktxFile.getInt(52);
+            numberOfMipmapLevels = ktxFile.getInt(56);
+            bytesOfKeyValueData = ktxFile.getInt(60);
+        }
+    }
+
+    private static class Ktx2Header {
+        static final int SIZE = 80;
+        static final int LEVEL_INDEX_ENTRY_SIZE = 3 * (Long.SIZE / 8);
+
+        int vkFormat;
+        int pixelWidth;
+        int pixelHeight;
+        int pixelDepth;
+        int layerCount;
+        int faceCount;
+        int levelCount;
+        int supercompressionScheme;
+        int kvdByteOffset;
+        int kvdByteLength;
+
+        Ktx2Header(ByteBuffer ktxFile) {
+            vkFormat = ktxFile.getInt(12);
+            pixelWidth = ktxFile.getInt(20);
+            pixelHeight = ktxFile.getInt(24);
+            pixelDepth = ktxFile.getInt(28);
+            layerCount = ktxFile.getInt(32);
+            faceCount = ktxFile.getInt(36);
+            levelCount = ktxFile.getInt(40);
+            supercompressionScheme = ktxFile.getInt(44);
+            kvdByteOffset = ktxFile.getInt(56);
+            kvdByteLength = ktxFile.getInt(60);
+        }
+    }
+
+    private static class SupercompressionSchemes {
+        static final int NONE = 0;
+        static final int ZLIB = 3;
+    }
+
+    private static final String ORIENTATION_KEY = "KTXorientation";
+
+    ////////////////////////////////
+    private static ImageSet loadKtx1(String ktxFilepath, ByteBuffer ktxFile, ResolutionPolicy resolutionPolicy) {
+        if (ktxFile.capacity() < Ktx1Header.SIZE) {
+            throw new KtxFileMalformedException(ktxFilepath, "The data is way too small to store actual information.");
+        }
+
+        ktxFile.order(ByteOrder.LITTLE_ENDIAN);
+        int endianness = ktxFile.getInt(IDENTIFIER_LENGTH);
+        if (endianness == Ktx1Header.ENDIANNESS_SWAPPED) {
+            ktxFile.order(ByteOrder.BIG_ENDIAN);
+        } else if (endianness != Ktx1Header.ENDIANNESS) {
+            throw new KtxFileMalformedException(ktxFilepath, "The endianness field is invalid.");
+        }
+
+        Ktx1Header ktxHeader = new Ktx1Header(ktxFile);
+        if (ktxFile.order() == ByteOrder.BIG_ENDIAN && ktxHeader.glTypeSize > 1) {
+            throw new KtxFileUnsupportedException(ktxFilepath, "Big endian image data is not supported.");
+        }
+
+        UncheckedImageFormat ktxFormat = getKtx1Format(ktxFilepath, ktxHeader);
+        Dimensions ktxDimensions = getDimensions(ktxFilepath, ktxHeader.pixelWidth, ktxHeader.pixelHeight,
+                ktxHeader.pixelDepth);
+
+        // KTX1 data is in GL order, unless the orientation says otherwise.
+        Map<String, String> keyValues = readKeyValueData(ktxFilepath, ktxFile, Ktx1Header.SIZE,
+                ktxHeader.bytesOfKeyValueData);
+        String orientation = keyValues.get(ORIENTATION_KEY);
+        boolean isTopLeft = orientation != null && orientation.contains("T=d");
+
+        int numArrays = Math.max(ktxHeader.numberOfArrayElements, 1);
+        int numFaces = ktxHeader.numberOfFaces;
+        int numMipmaps = Math.max(ktxHeader.numberOfMipmapLevels, 1);
+        if (numFaces != 1 && numFaces != 6) throw new KtxFileMalformedException(ktxFilepath, "Bad face count.");
+
+        // The faces of non-array cubemaps are sized and padded one by one.
+        boolean isSingleCubemap = numFaces == 6 && ktxHeader.numberOfArrayElements == 0;
+
+        ImageFormat imageFormat = new ImageFormat(ktxFormat);
+        int droppedMipmaps = resolutionPolicy.calcDroppedMipmapCount(ktxDimensions, numMipmaps);
+        ImageCreator imageCreator = new ImageCreator(imageFormat, ktxDimensions, numMipmaps, numArrays, numFaces,
+                droppedMipmaps);
+        long cumulativeOffset = Ktx1Header.SIZE + ktxHeader.bytesOfKeyValueData;
+
+        for (int mipmapLevel = 0; mipmapLevel < numMipmaps; mipmapLevel++) {
+            int imageSize = Util.calcMipmapLevelSize(imageFormat, Util.calcMipmapLevelDimensions(ktxDimensions, mipmapLevel));
+            int expectedImageSize = isSingleCubemap ? imageSize : imageSize * numArrays * numFaces;
+
+            if (cumulativeOffset + 4 > ktxFile.capacity()) {
+                throw new KtxFileMalformedException(ktxFilepath, "The image data is truncated.");
+            }
+            if (ktxFile.getInt((int) cumulativeOffset) != expectedImageSize) {
+                throw new KtxFileMalformedException(ktxFilepath, "Wrong image size for mipmap level " + mipmapLevel + ".");
+            }
+            cumulativeOffset += 4;
+
+            for (int arrayIx = 0; arrayIx < numArrays; arrayIx++) {
+                for (int faceIx = 0; faceIx < numFaces; faceIx++) {
+                    // Dropped levels are stepped over without reading them.
+                    if (!imageCreator.isMipmapLevelDropped(mipmapLevel)) {
+                        ByteBuffer imageData = slice(ktxFilepath, ktxFile, cumulativeOffset, imageSize);
+                        imageCreator.setImageData(imageData, isTopLeft, mipmapLevel, arrayIx, faceIx);
+                    }
+
+                    cumulativeOffset += isSingleCubemap ? alignTo4(imageSize) : imageSize;
+                }
+            }
+
+            cumulativeOffset = alignTo4(cumulativeOffset);
+        }
+
+        return imageCreator.createImage();
+    }
+
+    private static ImageSet loadKtx2(String ktxFilepath, ByteBuffer ktxFile, ResolutionPolicy resolutionPolicy) {
+        if (ktxFile.capacity() < Ktx2Header.SIZE) {
+            throw new KtxFileMalformedException(ktxFilepath, "The data is way too small to store actual information.");
+        }
+
+        ktxFile.order(ByteOrder.LITTLE_ENDIAN);
+        Ktx2Header ktxHeader = new Ktx2Header(ktxFile);
+
+        if (ktxHeader.supercompressionScheme != SupercompressionSchemes.NONE
+                && ktxHeader.supercompressionScheme != SupercompressionSchemes.ZLIB) {
+            throw new KtxFileUnsupportedException(ktxFilepath, "Could not use the supercompression scheme "
+                    + ktxHeader.supercompressionScheme + ".");
+        }
+
+        UncheckedImageFormat ktxFormat = getKtx2Format(ktxFilepath, ktxHeader.vkFormat);
+        Dimensions ktxDimensions = getDimensions(ktxFilepath, ktxHeader.pixelWidth, ktxHeader.pixelHeight,
+                ktxHeader.pixelDepth);
+
+        // KTX2 data starts from the top left corner, unless the orientation says otherwise.
+        Map<String, String> keyValues = readKeyValueData(ktxFilepath, ktxFile, ktxHeader.kvdByteOffset,
+                ktxHeader.kvdByteLength);
+        String orientation = keyValues.get(ORIENTATION_KEY);
+        boolean isTopLeft = orientation == null || orientation.length() < 2 || orientation.charAt(1) != 'u';
+
+        int numArrays = Math.max(ktxHeader.layerCount, 1);
+        int numFaces = ktxHeader.faceCount;
+        int numMipmaps = Math.max(ktxHeader.levelCount, 1);
+        if (numFaces != 1 && numFaces != 6) throw new KtxFileMalformedException(ktxFilepath, "Bad face count.");
+        if (Ktx2Header.SIZE + (long) numMipmaps * Ktx2Header.LEVEL_INDEX_ENTRY_SIZE > ktxFile.capacity()) {
+            throw new KtxFileMalformedException(ktxFilepath, "The level index is truncated.");
+        }
+
+        ImageFormat imageFormat = new ImageFormat(ktxFormat);
+        int droppedMipmaps = resolutionPolicy.calcDroppedMipmapCount(ktxDimensions, numMipmaps);
+        ImageCreator imageCreator = new ImageCreator(imageFormat, ktxDimensions, numMipmaps, numArrays, numFaces,
+                droppedMipmaps);
+
+        // Levels are independent: inflate them concurrently. Dropped levels are not read at all.
+        ByteBuffer[] mipmapLevelData = new ByteBuffer[numMipmaps];
+        IntStream mipmapLevels = IntStream.range(droppedMipmaps, numMipmaps);
+        if (ktxHeader.supercompressionScheme == SupercompressionSchemes.ZLIB) mipmapLevels = mipmapLevels.parallel();
+        mipmapLevels.forEach(mipmapLevel -> mipmapLevelData[mipmapLevel] = readKtx2MipmapLevel(ktxFilepath, ktxFile,
+                ktxHeader, imageFormat, ktxDimensions, mipmapLevel));
+
+        for (int mipmapLevel = droppedMipmaps; mipmapLevel < numMipmaps; mipmapLevel++) {
+            int imageSize = Util.calcMipmapLevelSize(imageFormat, Util.calcMipmapLevelDimensions(ktxDimensions, mipmapLevel));
+
+            for (int arrayIx = 0; arrayIx < numArrays; arrayIx++) {
+                for (int faceIx = 0; faceIx < numFaces; faceIx++) {
+                    long imageOffset = (long) (arrayIx * numFaces + faceIx) * imageSize;
+                    ByteBuffer imageData = slice(ktxFilepath, mipmapLevelData[mipmapLevel], imageOffset, imageSize);
+                    imageCreator.setImageData(imageData, isTopLeft, mipmapLevel, arrayIx, faceIx);
+                }
+            }
+        }
+
+        return imageCreator.createImage();
+    }
+
+    private static ByteBuffer readKtx2MipmapLevel(String ktxFilepath, ByteBuffer ktxFile, Ktx2Header ktxHeader,
+                                                  ImageFormat imageFormat, Dimensions ktxDimensions, int mipmapLevel) {
+        int levelIndexOffset = Ktx2Header.SIZE + mipmapLevel * Ktx2Header.LEVEL_INDEX_ENTRY_SIZE;
+        long byteOffset = ktxFile.getLong(levelIndexOffset);
+        long byteLength = ktxFile.getLong(levelIndexOffset + 8);
+        long uncompressedByteLength = ktxFile.getLong(levelIndexOffset + 16);
+
+        int imageSize = Util.calcMipmapLevelSize(imageFormat, Util.calcMipmapLevelDimensions(ktxDimensions, mipmapLevel));
+        long expectedByteLength = (long) imageSize * Math.max(ktxHeader.layerCount, 1) * ktxHeader.faceCount;
+        if (uncompressedByteLength != expectedByteLength) {
+            throw new KtxFileMalformedException(ktxFilepath, "Wrong size for mipmap level " + mipmapLevel + ".");
+        }
+
+        ByteBuffer levelData = slice(ktxFilepath, ktxFile, byteOffset, byteLength);
+        if (ktxHeader.supercompressionScheme == SupercompressionSchemes.NONE) {
+            if (byteLength != expectedByteLength) {
+                throw new KtxFileMalformedException(ktxFilepath, "Wrong size for mipmap level " + mipmapLevel + ".");
+            }
+            return levelData;
+        }
+
+        return inflate(ktxFilepath, levelData, (int) uncompressedByteLength, mipmapLevel);
+    }
+
+    // Inflater only takes arrays on Java 8.
+    private static ByteBuffer inflate(String ktxFilepath, ByteBuffer compressedData, int uncompressedSize,
+                                      int mipmapLevel) {
+        byte[] input = new byte[compressedData.remaining()];
+        compressedData.get(input);
+        byte[] output = new byte[uncompressedSize];
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+
+            int outputSize = 0;
+            while (outputSize < uncompressedSize && !inflater.finished()) {
+                int inflatedSize = inflater.inflate(output, outputSize, uncompressedSize - outputSize);
+                if (inflatedSize == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                outputSize += inflatedSize;
+            }
+
+            if (outputSize != uncompressedSize) {
+                throw new KtxFileMalformedException(ktxFilepath, "Mipmap level " + mipmapLevel + " is truncated.");
+            }
+        } catch (DataFormatException e) {
+            throw new KtxFileMalformedException(ktxFilepath, "Could not inflate mipmap level " + mipmapLevel + ": "
+                    + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+
+        return ByteBuffer.wrap(output);
+    }
+
+
+    // Each entry is a key and a value separated by a NUL, and padded to 4 bytes.
+    private static Map<String, String> readKeyValueData(String ktxFilepath, ByteBuffer ktxFile, long offset, int length) {
+        Map<String, String> keyValues = new HashMap<>();
+        if (length == 0) return keyValues;
+
+        ByteBuffer keyValueData = slice(ktxFilepath, ktxFile, offset, length).order(ktxFile.order());
+        while (keyValueData.remaining() >= 4) {
+            int keyAndValueByteSize = keyValueData.getInt();
+            if (keyAndValueByteSize < 0 || keyAndValueByteSize > keyValueData.remaining()) {
+                throw new KtxFileMalformedException(ktxFilepath, "The key/value data is truncated.");
+            }
+
+            byte[] keyAndValue = new byte[keyAndValueByteSize];
+            keyValueData.get(keyAndValue);
+            keyValueData.position(Math.min((int) alignTo4(keyValueData.position()), keyValueData.limit()));
+
+            int separatorIx = 0;
+            while (separatorIx < keyAndValue.length && keyAndValue[separatorIx] != 0) separatorIx++;
+            if (separatorIx == keyAndValue.length) continue;
+
+            int valueLength = keyAndValue.length - separatorIx - 1;
+            if (valueLength > 0 && keyAndValue[keyAndValue.length - 1] == 0) valueLength--;
+
+            keyValues.put(new String(keyAndValue, 0, separatorIx, StandardCharsets.UTF_8),
+                    new String(keyAndValue, separatorIx + 1, valueLength, StandardCharsets.UTF_8));
+        }
+        return keyValues;
+    }
+
+
+    private static Dimensions getDimensions(String ktxFilepath, int pixelWidth, int pixelHeight, int pixelDepth) {
+        if (pixelWidth <= 0 || pixelHeight < 0 || pixelDepth < 0 || (pixelHeight == 0 && pixelDepth > 0)) {
+            throw new KtxFileMalformedException(ktxFilepath, "Invalid image dimensions.");
+        }
+
+        Dimensions ktxDimensions = new Dimensions();
+        ktxDimensions.numDimensions = 1;
+        ktxDimensions.width = pixelWidth;
+
+        if (pixelHeight > 0) {
+            ktxDimensions.numDimensions = 2;
+            ktxDimensions.height = pixelHeight;
+        }
+
+        if (pixelDepth > 0) {
+            ktxDimensions.numDimensions = 3;
+            ktxDimensions.depth = pixelDepth;
+        }
+
+        return ktxDimensions;
+    }
+
+
+    private static ByteBuffer slice(String ktxFilepath, ByteBuffer data, long offset, long length) {
+        if (offset < 0 || length < 0 || offset + length > data.capacity()) {
+            throw new KtxFileMalformedException(ktxFilepath, "The image data is truncated.");
+        }
+
+        ByteBuffer dataRange = data.duplicate();
+        dataRange.limit((int) (offset + length));
+        dataRange.position((int) offset);
+        return dataRange.slice();
+    }
+
+    private static long alignTo4(long offset) {
+        return (offset + 3) & ~3L;
+    }
+
+    ////////////////////////////////
+    private static UncheckedImageFormat getKtx1Format(String ktxFilepath, Ktx1Header ktxHeader) {
+        for (KtxFormatConv formatConv : ktxFormatConvert) {
+            if (formatConv.glInternalFormat == ktxHeader.glInternalFormat && formatConv.glFormat == ktxHeader.glFormat) {
+                // KTX1 lines of pixels are padded to 4 bytes.
+                UncheckedImageFormat ktxFormat = formatConv.uncheckedImageFormat;
+                if (ktxFormat.bitDepth == BitDepth.COMPRESSED) return ktxFormat;
+                return new UncheckedImageFormat(ktxFormat.type, ktxFormat.format, ktxFormat.order, ktxFormat.bitDepth, 4);
+            }
+        }
+
+        throw new KtxFileUnsupportedException(ktxFilepath, String.format("Could not use the GL format 0x%04x/0x%04x.",
+                ktxHeader.glInternalFormat, ktxHeader.glFormat));
+    }
+
+    private static UncheckedImageFormat getKtx2Format(String ktxFilepath, int vkFormat) {
+        for (KtxFormatConv formatConv : ktxFormatConvert) {
+            if (formatConv.vkFormat == vkFormat) return formatConv.uncheckedImageFormat;
+        }
+
+        throw new KtxFileUnsupportedException(ktxFilepath, "Could not use the Vulkan format " + vkFormat + ".");
+    }
+
+
+    private static class KtxFormatConv {
+        int vkFormat;
+        int glInternalFormat;
+        int glFormat;  // 0 for compressed formats.
+        UncheckedImageFormat uncheckedImageFormat;
+
+        KtxFormatConv(int vkFormat, int glInternalFormat, int glFormat, UncheckedImageFormat uncheckedImageFormat) {
+            this.vkFormat = vkFormat;
+            this.glInternalFormat = glInternalFormat;
+            this.glFormat = glFormat;
+            this.uncheckedImageFormat = uncheckedImageFormat;
+        }
+    }
+
+    private static class GlFormat {
+        static final int RED = 0x1903;
+        static final int RGB = 0x1907;
+        static final int RGBA = 0x1908;
+        static final int RG = 0x8227;
+        static final int BGRA = 0x80E1;
+    }
+
+
+    // Unpacked KTX2 files use the Vulkan format, KTX1 files the GL internal format and format.
+    private static KtxFormatConv ktxFormatConvert[] = {
+            new KtxFormatConv(9, 0x8229, GlFormat.RED,  // R8_UNORM, GL_R8
+                    new UncheckedImageFormat(PixelDataType.NORM_UNSIGNED_INTEGER, PixelComponents.COLOR_RED, ComponentOrder.RGBA, BitDepth.PER_COMP_8, 1)
+            ),
+
+            new KtxFormatConv(10, 0x8F94, GlFormat.RED,  // R8_SNORM, GL_R8_SNORM
+                    new UncheckedImageFormat(PixelDataType.NORM_SIGNED_INTEGER, PixelComponents.COLOR_RED, ComponentOrder.RGBA, BitDepth.PER_COMP_8, 1)
+            ),
+
+            new KtxFormatConv(16, 0x822B, GlFormat.RG,  // R8G8_UNORM, GL_RG8
+                    new UncheckedImageFormat(PixelDataType.NORM_UNSIGNED_INTEGER, PixelComponents.COLOR_RG, ComponentOrder.RGBA, BitDepth.PER_COMP_8, 1)
+            ),
+
+            new KtxFormatConv(17, 0x8F95, GlFormat.RG,  // R8G8_SNORM, GL_RG8_SNORM
+                    new UncheckedImageFormat(PixelDataType.NORM_SIGNED_INTEGER, PixelComponents.COLOR_RG, ComponentOrder.RGBA, BitDepth.PER_COMP_8, 1)
+            ),
+
+            new KtxFormatConv(23, 0x8051, GlFormat.RGB,  // R8G8B8_UNORM, GL_RGB8
+                    new UncheckedImageFormat(PixelDataType.NORM_UNSIGNED_INTEGER, PixelComponents.COLOR_RGB, ComponentOrder.RGBA, BitDepth.PER_COMP_8, 1)
+            ),
+
+            new KtxFormatConv(29, 0x8C41, GlFormat.RGB,  // R8G8B8_SRGB, GL_SRGB8
+                    new UncheckedImageFormat(PixelDataType.NORM_UNSIGNED_INTEGER, PixelComponents.COLOR_RGB_SRGB, ComponentOrder.RGBA, BitDepth.PER_COMP_8, 1)
+            ),
+
+            new KtxFormatConv(37, 0x8058, GlFormat.RGBA,  // R8G8B8A8_UNORM, GL_RGBA8
+                    new UncheckedImageFormat(PixelDataType.NORM_UNSIGNED_INTEGER, PixelComponents.COLOR_RGBA, ComponentOrder.RGBA, BitDepth.PER_COMP_8, 1)
+            ),
+
+            new KtxFormatConv(38, 0x8F97, GlFormat.RGBA,  // R8G8B8A8_SNORM, GL_RGBA8_SNORM
+                    new UncheckedImageFormat(PixelDataType.NORM_SIGNED_INTEGER, PixelComponents.COLOR_RGBA, ComponentOrder.RGBA, BitDepth.PER_COMP_8, 1)
+            ),
+
+            new KtxFormatConv(43, 0x8C43, GlFormat.RGBA,  // R8G8B8A8_SRGB, GL_SRGB8_ALPHA8
+                    new UncheckedImageFormat(PixelDataType.NORM_UNSIGNED_INTEGER, PixelComponents.COLOR_RGBA_SRGB, ComponentOrder.RGBA, BitDepth.PER_COMP_8, 1)
+            ),
+
+            new KtxFormatConv(44, 0x8058, GlFormat.BGRA,  // B8G8R8A8_UNORM, GL_RGBA8
+                    new UncheckedImageFormat(PixelDataType.NORM_UNSIGNED_INTEGER, PixelComponents.COLOR_RGBA, ComponentOrder.BGRA, BitDepth.PACKED_32_BIT_8888_REV, 1)
+            ),
+
+            new KtxFormatConv(50, 0x8C43, GlFormat.BGRA,  // B8G8R8A8_SRGB, GL_SRGB8_ALPHA8
+                    new UncheckedImageFormat(PixelDataType.NORM_UNSIGNED_INTEGER, PixelComponents.COLOR_RGBA_SRGB, ComponentOrder.BGRA, BitDepth.PACKED_32_BIT_8888_REV, 1)
+            ),
+
+            new KtxFormatConv(70, 0x822A, GlFormat.RED,  // R16_UNORM, GL_R16
+                    new UncheckedImageFormat(PixelDataType.NORM_UNSIGNED_INTEGER, PixelComponents.COLOR_RED, ComponentOrder.RGBA, BitDepth.PER_COMP_16, 1)
+            ),
+
+            new KtxFormatConv(76, 0x822D, GlFormat.RED,  // R16_SFLOAT, GL_R16F
+                    new UncheckedImageFormat(PixelDataType.FLOAT, PixelComponents.COLOR_RED, ComponentOrder.RGBA, BitDepth.PER_COMP_16, 1)
+            ),
+
+            new KtxFormatConv(77, 0x822C, GlFormat.RG,  // R16G16_UNORM, GL_RG16
+                    new UncheckedImageFormat(PixelDataType.NORM_UNSIGNED_INTEGER, PixelComponents.COLOR_RG, ComponentOrder.RGBA, BitDepth.PER_COMP_16, 1)
+            ),
+
+            new KtxFormatConv(83, 0x822F, GlFormat.RG,  // R16G16_SFLOAT, GL_RG16F
+                    new UncheckedImageFormat(PixelDataType.FLOAT, PixelComponents.COLOR_RG, ComponentOrder.RGBA, BitDepth.PER_COMP_16, 1)
+            ),
+
+            new KtxFormatConv(90, 0x881B, GlFormat.RGB,  // R16G16B16_SFLOAT, GL_RGB16F
+                    new UncheckedImageFormat(PixelDataType.FLOAT, PixelComponents.COLOR_RGB, ComponentOrder.RGBA, BitDepth.PER_COMP_16, 1)
+            ),
+
+            new KtxFormatConv(91, 0x805B, GlFormat.RGBA,  // R16G16B16A16_UNORM, GL_RGBA16
+                    new UncheckedImageFormat(PixelDataType.NORM_UNSIGNED_INTEGER, PixelComponents.COLOR_RGBA, ComponentOrder.RGBA, BitDepth.PER_COMP_16, 1)
+            ),
+
+            new KtxFormatConv(97, 0x881A, GlFormat.RGBA,  // R16G16B16A16_SFLOAT, GL_RGBA16F
+                    new UncheckedImageFormat(PixelDataType.FLOAT, PixelComponents.COLOR_RGBA, ComponentOrder.RGBA, BitDepth.PER_COMP_16, 1)
+            ),
+
+            new KtxFormatConv(100, 0x822E, GlFormat.RED,  // R32_SFLOAT, GL_R32F
+                    new UncheckedImageFormat(PixelDataType.FLOAT, PixelComponents.COLOR_RED, ComponentOrder.RGBA, BitDepth.PER_COMP_32, 1)
+            ),
+
+            new KtxFormatConv(103, 0x8230, GlFormat.RG,  // R32G32_SFLOAT, GL_RG32F
+                    new UncheckedImageFormat(PixelDataType.FLOAT, PixelComponents.COLOR_RG, ComponentOrder.RGBA, BitDepth.PER_COMP_32, 1)
+            ),
+
+            new KtxFormatConv(106, 0x8815, GlFormat.RGB,  // R32G32B32_SFLOAT, GL_RGB32F
+                    new UncheckedImageFormat(PixelDataType.FLOAT, PixelComponents.COLOR_RGB, ComponentOrder.RGBA, BitDepth.PER_COMP_32, 1)
+            ),
+
+            new KtxFormatConv(109, 0x8814, GlFormat.RGBA,  // R32G32B32A32_SFLOAT, GL_RGBA32F
+                    new UncheckedImageFormat(PixelDataType.FLOAT, PixelComponents.COLOR_RGBA, ComponentOrder.RGBA, BitDepth.PER_COMP_32, 1)
+            ),
+
+            new KtxFormatConv(122, 0x8C3A, GlFormat.RGB,  // B10G11R11_UFLOAT_PACK32, GL_R11F_G11F_B10F
+                    new UncheckedImageFormat(PixelDataType.FLOAT, PixelComponents.COLOR_RGB, ComponentOrder.RGBA, BitDepth.PACKED_32_BIT_101111_REV, 1)
+            ),
+
+            new KtxFormatConv(123, 0x8C3D, GlFormat.RGB,  // E5B9G9R9_UFLOAT_PACK32, GL_RGB9_E5
+                    new UncheckedImageFormat(PixelDataType.SHARED_EXP_FLOAT, PixelComponents.COLOR_RGB, ComponentOrder.RGBE, BitDepth.PACKED_32_BIT_5999_REV, 1)
+            ),
+
+            new KtxFormatConv(131, 0x83F0, 0,  // BC1_RGB_UNORM, GL_COMPRESSED_RGB_S3TC_DXT1
+                    new UncheckedImageFormat(PixelDataType.COMPRESSED_BC1, PixelComponents.COLOR_RGB, ComponentOrder.COMPRESSED, BitDepth.COMPRESSED, 1)
+            ),
+
+            new KtxFormatConv(132, 0x8C4C, 0,  // BC1_RGB_SRGB, GL_COMPRESSED_SRGB_S3TC_DXT1
+                    new UncheckedImageFormat(PixelDataType.COMPRESSED_BC1, PixelComponents.COLOR_RGB_SRGB, ComponentOrder.COMPRESSED, BitDepth.COMPRESSED, 1)
+            ),
+
+            new KtxFormatConv(133, 0x83F1, 0,  // BC1_RGBA_UNORM, GL_COMPRESSED_RGBA_S3TC_DXT1
+                    new UncheckedImageFormat(PixelDataType.COMPRESSED_BC1, PixelComponents.COLOR_RGBA, ComponentOrder.COMPRESSED, BitDepth.COMPRESSED, 1)
+            ),
+
+            new KtxFormatConv(134, 0x8C4D, 0,  // BC1_RGBA_SRGB, GL_COMPRESSED_SRGB_ALPHA_S3TC_DXT1
+                    new UncheckedImageFormat(PixelDataType.COMPRESSED_BC1, PixelComponents.COLOR_RGBA_SRGB, ComponentOrder.COMPRESSED, BitDepth.COMPRESSED, 1)
+            ),
+
+            new KtxFormatConv(135, 0x83F2, 0,  // BC2_UNORM, GL_COMPRESSED_RGBA_S3TC_DXT3
+                    new UncheckedImageFormat(PixelDataType.COMPRESSED_BC2, PixelComponents.COLOR_RGBA, ComponentOrder.COMPRESSED, BitDepth.COMPRESSED, 1)
+            ),
+
+            new KtxFormatConv(136, 0x8C4E, 0,  // BC2_SRGB, GL_COMPRESSED_SRGB_ALPHA_S3TC_DXT3
+                    new UncheckedImageFormat(PixelDataType.COMPRESSED_BC2, PixelComponents.COLOR_RGBA_SRGB, ComponentOrder.COMPRESSED, BitDepth.COMPRESSED, 1)
+            ),
+
+            new KtxFormatConv(137, 0x83F3, 0,  // BC3_UNORM, GL_COMPRESSED_RGBA_S3TC_DXT5
+                    new UncheckedImageFormat(PixelDataType.COMPRESSED_BC3, PixelComponents.COLOR_RGBA, ComponentOrder.COMPRESSED, BitDepth.COMPRESSED, 1)
+            ),
+
+            new KtxFormatConv(138, 0x8C4F, 0,  // BC3_SRGB, GL_COMPRESSED_SRGB_ALPHA_S3TC_DXT5
+                    new UncheckedImageFormat(PixelDataType.COMPRESSED_BC3, PixelComponents.COLOR_RGBA_SRGB, ComponentOrder.COMPRESSED, BitDepth.COMPRESSED, 1)
+            ),
+
+            new KtxFormatConv(139, 0x8DBB, 0,  // BC4_UNORM, GL_COMPRESSED_RED_RGTC1
+                    new UncheckedImageFormat(PixelDataType.COMPRESSED_UNSIGNED_BC4, PixelComponents.COLOR_RED, ComponentOrder.COMPRESSED, BitDepth.COMPRESSED, 1)
+            ),
+
+            new KtxFormatConv(140, 0x8DBC, 0,  // BC4_SNORM, GL_COMPRESSED_SIGNED_RED_RGTC1
+                    new UncheckedImageFormat(PixelDataType.COMPRESSED_SIGNED_BC4, PixelComponents.COLOR_RED, ComponentOrder.COMPRESSED, BitDepth.COMPRESSED, 1)
+            ),
+
+            new KtxFormatConv(141, 0x8DBD, 0,  // BC5_UNORM, GL_COMPRESSED_RG_RGTC2
+                    new UncheckedImageFormat(PixelDataType.COMPRESSED_UNSIGNED_BC5, PixelComponents.COLOR_RG, ComponentOrder.COMPRESSED, BitDepth.COMPRESSED, 1)
+            ),
+
+            new KtxFormatConv(142, 0x8DBE, 0,  // BC5_SNORM, GL_COMPRESSED_SIGNED_RG_RGTC2
+                    new UncheckedImageFormat(PixelDataType.COMPRESSED_SIGNED_BC5, PixelComponents.COLOR_RG, ComponentOrder.COMPRESSED, BitDepth.COMPRESSED, 1)
+            ),
+
+            new KtxFormatConv(143, 0x8E8F, 0,  // BC6H_UFLOAT, GL_COMPRESSED_RGB_BPTC_UNSIGNED_FLOAT
+                    new UncheckedImageFormat(PixelDataType.COMPRESSED_UNSIGNED_BC6H, PixelComponents.COLOR_RGB, ComponentOrder.COMPRESSED, BitDepth.COMPRESSED, 1)
+            ),
+
+            new KtxFormatConv(144, 0x8E8E, 0,  // BC6H_SFLOAT, GL_COMPRESSED_RGB_BPTC_SIGNED_FLOAT
+                    new UncheckedImageFormat(PixelDataType.COMPRESSED_SIGNED_BC6H, PixelComponents.COLOR_RGB, ComponentOrder.COMPRESSED, BitDepth.COMPRESSED, 1)
+            ),
+
+            new KtxFormatConv(145, 0x8E8C, 0,  // BC7_UNORM, GL_COMPRESSED_RGBA_BPTC_UNORM
+                    new UncheckedImageFormat(PixelDataType.COMPRESSED_BC7, PixelComponents.COLOR_RGBA, ComponentOrder.COMPRESSED, BitDepth.COMPRESSED, 1)
+            ),
+
+            new KtxFormatConv(146, 0x8E8D, 0,  // BC7_SRGB, GL_COMPRESSED_SRGB_ALPHA_BPTC_UNORM
+                    new UncheckedImageFormat(PixelDataType.COMPRESSED_BC7, PixelComponents.COLOR_RGBA_SRGB, ComponentOrder.COMPRESSED, BitDepth.COMPRESSED, 1)
+            )
+    };
+}
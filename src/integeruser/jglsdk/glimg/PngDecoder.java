@@ -0,0 +1,382 @@
+package integeruser.jglsdk.glimg;
+
+import org.lwjgl.BufferUtils;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * Streaming PNG decoder. The compressed data is inflated one scanline at a time, and every scanline is written straight
+ * to its final, bottom-up position in a direct buffer. Interlaced images are not supported.
+ */
+class PngDecoder {
+    static class DecodedImage {
+        ByteBuffer pixels;       // Bottom-up rows, without padding.
+        int width, height;
+        int numComponents;       // 1 (gray), 2 (gray, alpha), 3 (RGB) or 4 (RGBA).
+        int bytesPerComponent;   // 1 or 2. 16-bit components are stored in native byte order.
+    }
+
+
+    static class PngUnsupportedException extends IOException {
+        PngUnsupportedException(String message) {
+            super(message);
+        }
+    }
+
+    ////////////////////////////////
+    static boolean hasSignature(byte[] header) {
+        if (header.length < SIGNATURE.length) return false;
+
+        for (int i = 0; i < SIGNATURE.length; i++) {
+            if (header[i] != SIGNATURE[i]) return false;
+        }
+        return true;
+    }
+
+
+    static DecodedImage decode(InputStream inputStream) throws IOException {
+        PngDecoder decoder = new PngDecoder(new DataInputStream(inputStream));
+        decoder.readSignature();
+        decoder.readChunks();
+        return decoder.image;
+    }
+
+    ////////////////////////////////
+    static final int SIGNATURE_LENGTH = 8;
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private static final int CHUNK_IHDR = 0x49484452;
+    private static final int CHUNK_PLTE = 0x504C5445;
+    private static final int CHUNK_TRNS = 0x74524E53;
+    private static final int CHUNK_IDAT = 0x49444154;
+    private static final int CHUNK_IEND = 0x49454E44;
+
+    private static final int COLOR_GRAY = 0;
+    private static final int COLOR_RGB = 2;
+    private static final int COLOR_PALETTE = 3;
+    private static final int COLOR_GRAY_ALPHA = 4;
+    private static final int COLOR_RGBA = 6;
+
+
+    private DataInputStream inputStream;
+    private CRC32 crc = new CRC32();
+    private byte[] chunkData = new byte[8192];
+
+    private DecodedImage image;
+    private int bitDepth, colorType;
+    private int samplesPerPixel;
+    private int filterStride;             // Bytes between a byte and the one its filter refers to.
+
+    private byte[] palette;               // RGBA entries.
+    private boolean hasPaletteAlpha;
+
+    private Inflater inflater;
+    private byte[] currentRow, previousRow;
+    private int currentRowFill;
+    private byte[] outputRow;
+    private int rowIx;
+
+
+    private PngDecoder(DataInputStream inputStream) {
+        this.inputStream = inputStream;
+    }
+
+
+    private void readSignature() throws IOException {
+        byte[] signature = new byte[SIGNATURE.length];
+        inputStream.readFully(signature);
+        if (!hasSignature(signature)) throw new PngUnsupportedException("Not a PNG file.");
+    }
+
+    private void readChunks() throws IOException {
+        try {
+            while (true) {
+                int length = inputStream.readInt();
+                int type = inputStream.readInt();
+                if (length < 0) throw new IOException("Malformed PNG chunk length.");
+
+                if (chunkData.length < length) chunkData = new byte[length];
+                inputStream.readFully(chunkData, 0, length);
+
+                crc.reset();
+                crc.update(type >>> 24);
+                crc.update(type >>> 16);
+                crc.update(type >>> 8);
+                crc.update(type);
+                crc.update(chunkData, 0, length);
+                if ((int) crc.getValue() != inputStream.readInt()) throw new IOException("PNG chunk CRC mismatch.");
+
+                switch (type) {
+                    case CHUNK_IHDR:
+                        readHeader(length);
+                        break;
+
+                    case CHUNK_PLTE:
+                        readPalette(length);
+                        break;
+
+                    case CHUNK_TRNS:
+                        readTransparency(length);
+                        break;
+
+                    case CHUNK_IDAT:
+                        if (image == null) throw new IOException("PNG data before the header.");
+                        if (inflater == null) startImageData();
+                        inflateImageData(length);
+                        break;
+
+                    case CHUNK_IEND:
+                        if (image == null || rowIx != image.height) throw new IOException("Truncated PNG image data.");
+                        image.pixels.clear();
+                        return;
+
+                    default:
+                        // Ancillary chunks (gamma, text, ...) are not needed.
+                        break;
+                }
+            }
+        } finally {
+            if (inflater != null) inflater.end();
+        }
+    }
+
+    ////////////////////////////////
+    private void readHeader(int length) throws IOException {
+        if (length != 13) throw new IOException("Malformed PNG header.");
+
+        ByteBuffer header = ByteBuffer.wrap(chunkData, 0, length);
+        image = new DecodedImage();
+        image.width = header.getInt();
+        image.height = header.getInt();
+        bitDepth = header.get() & 0xFF;
+        colorType = header.get() & 0xFF;
+        int compressionMethod = header.get() & 0xFF;
+        int filterMethod = header.get() & 0xFF;
+        int interlaceMethod = header.get() & 0xFF;
+
+        if (image.width <= 0 || image.height <= 0) throw new IOException("Invalid PNG dimensions.");
+        if (compressionMethod != 0 || filterMethod != 0) throw new IOException("Unknown PNG compression or filter.");
+        if (interlaceMethod != 0) throw new PngUnsupportedException("Interlaced PNG images are not supported.");
+
+        switch (colorType) {
+            case COLOR_GRAY:
+                samplesPerPixel = 1;
+                break;
+
+            case COLOR_RGB:
+                samplesPerPixel = 3;
+                break;
+
+            case COLOR_PALETTE:
+                samplesPerPixel = 1;
+                break;
+
+            case COLOR_GRAY_ALPHA:
+                samplesPerPixel = 2;
+                break;
+
+            case COLOR_RGBA:
+                samplesPerPixel = 4;
+                break;
+
+            default:
+                throw new IOException("Unknown PNG color type " + colorType + ".");
+        }
+
+        boolean validBitDepth;
+        switch (colorType) {
+            case COLOR_GRAY:
+                validBitDepth = bitDepth == 1 || bitDepth == 2 || bitDepth == 4 || bitDepth == 8 || bitDepth == 16;
+                break;
+
+            case COLOR_PALETTE:
+                validBitDepth = bitDepth == 1 || bitDepth == 2 || bitDepth == 4 || bitDepth == 8;
+                break;
+
+            default:
+                validBitDepth = bitDepth == 8 || bitDepth == 16;
+                break;
+        }
+        if (!validBitDepth) throw new IOException("Invalid PNG bit depth " + bitDepth + " for color type " + colorType + ".");
+
+        filterStride = Math.max(1, samplesPerPixel * bitDepth / 8);
+    }
+
+    private void readPalette(int length) throws IOException {
+        if (length % 3 != 0 || length / 3 > 256) throw new IOException("Malformed PNG palette.");
+
+        palette = new byte[256 * 4];
+        for (int entry = 0; entry < length / 3; entry++) {
+            palette[entry * 4] = chunkData[entry * 3];
+            palette[entry * 4 + 1] = chunkData[entry * 3 + 1];
+            palette[entry * 4 + 2] = chunkData[entry * 3 + 2];
+            palette[entry * 4 + 3] = (byte) 0xFF;
+        }
+    }
+
+    private void readTransparency(int length) throws IOException {
+        // Color keys of gray and RGB images are ignored: only palette alpha is applied.
+        if (colorType != COLOR_PALETTE) return;
+        if (palette == null || length > 256) throw new IOException("Malformed PNG transparency.");
+
+        for (int entry = 0; entry < length; entry++) {
+            palette[entry * 4 + 3] = chunkData[entry];
+        }
+        hasPaletteAlpha = true;
+    }
+
+    ////////////////////////////////
+    private void startImageData() throws IOException {
+        if (colorType == COLOR_PALETTE) {
+            if (palette == null) throw new IOException("PNG palette missing.");
+            image.numComponents = hasPaletteAlpha ? 4 : 3;
+        } else {
+            image.numComponents = samplesPerPixel;
+        }
+        image.bytesPerComponent = bitDepth == 16 ? 2 : 1;
+
+        long rowBytes = ((long) image.width * samplesPerPixel * bitDepth + 7) / 8;
+        long outputRowBytes = (long) image.width * image.numComponents * image.bytesPerComponent;
+        if (rowBytes + 1 > Integer.MAX_VALUE || outputRowBytes * image.height > Integer.MAX_VALUE) {
+            throw new PngUnsupportedException("PNG image too large.");
+        }
+
+        currentRow = new byte[(int) rowBytes + 1];  // Filter type, then the filtered row.
+        previousRow = new byte[(int) rowBytes + 1];
+        outputRow = new byte[(int) outputRowBytes];
+        image.pixels = BufferUtils.createByteBuffer((int) outputRowBytes * image.height);
+        inflater = new Inflater();
+    }
+
+    private void inflateImageData(int length) throws IOException {
+        inflater.setInput(chunkData, 0, length);
+
+        try {
+            while (rowIx < image.height) {
+                int inflated = inflater.inflate(currentRow, currentRowFill, currentRow.length - currentRowFill);
+                if (inflated == 0) {
+                    if (inflater.needsInput() || inflater.finished()) return;
+                    if (inflater.needsDictionary()) throw new IOException("Malformed PNG image data.");
+                }
+
+                currentRowFill += inflated;
+                if (currentRowFill == currentRow.length) {
+                    unfilterRow();
+                    writeRow();
+
+                    byte[] swap = previousRow;
+                    previousRow = currentRow;
+                    currentRow = swap;
+                    currentRowFill = 0;
+                    rowIx++;
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Malformed PNG image data.", e);
+        }
+    }
+
+
+    // Byte 0 of the rows holds the filter type; previousRow is all zeros before the first row.
+    private void unfilterRow() throws IOException {
+        byte[] row = currentRow;
+        byte[] prior = previousRow;
+        int length = row.length;
+
+        switch (row[0]) {
+            case 0:
+                break;
+
+            case 1:
+                for (int i = 1 + filterStride; i < length; i++) {
+                    row[i] += row[i - filterStride];
+                }
+                break;
+
+            case 2:
+                for (int i = 1; i < length; i++) {
+                    row[i] += prior[i];
+                }
+                break;
+
+            case 3:
+                for (int i = 1; i < length; i++) {
+                    int left = i > filterStride ? row[i - filterStride] & 0xFF : 0;
+                    row[i] += (left + (prior[i] & 0xFF)) >>> 1;
+                }
+                break;
+
+            case 4:
+                for (int i = 1; i < length; i++) {
+                    int left = i > filterStride ? row[i - filterStride] & 0xFF : 0;
+                    int upperLeft = i > filterStride ? prior[i - filterStride] & 0xFF : 0;
+                    row[i] += paethPredictor(left, prior[i] & 0xFF, upperLeft);
+                }
+                break;
+
+            default:
+                throw new IOException("Unknown PNG filter type " + row[0] + ".");
+        }
+    }
+
+    private static int paethPredictor(int left, int up, int upperLeft) {
+        int estimate = left + up - upperLeft;
+        int leftDistance = Math.abs(estimate - left);
+        int upDistance = Math.abs(estimate - up);
+        int upperLeftDistance = Math.abs(estimate - upperLeft);
+
+        if (leftDistance <= upDistance && leftDistance <= upperLeftDistance) return left;
+        if (upDistance <= upperLeftDistance) return up;
+        return upperLeft;
+    }
+
+
+    private void writeRow() {
+        byte[] row = currentRow;
+        int width = image.width;
+
+        if (colorType == COLOR_PALETTE) {
+            int numComponents = image.numComponents;
+            for (int x = 0; x < width; x++) {
+                int entry = readPackedSample(row, x) * 4;
+                System.arraycopy(palette, entry, outputRow, x * numComponents, numComponents);
+            }
+        } else if (bitDepth < 8) {
+            // Scale gray samples to the whole 8-bit range.
+            int scale = 255 / ((1 << bitDepth) - 1);
+            for (int x = 0; x < width; x++) {
+                outputRow[x] = (byte) (readPackedSample(row, x) * scale);
+            }
+        } else if (bitDepth == 16 && ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN) {
+            for (int i = 0; i < outputRow.length; i += 2) {
+                outputRow[i] = row[i + 2];
+                outputRow[i + 1] = row[i + 1];
+            }
+        } else {
+            System.arraycopy(row, 1, outputRow, 0, outputRow.length);
+        }
+
+        // GL expects the bottom row first.
+        image.pixels.position((image.height - 1 - rowIx) * outputRow.length);
+        image.pixels.put(outputRow);
+    }
+
+    private int readPackedSample(byte[] row, int x) {
+        if (bitDepth == 8) return row[1 + x] & 0xFF;
+
+        int bitOffset = x * bitDepth;
+        int shift = 8 - bitDepth - (bitOffset & 7);
+        return ((row[1 + (bitOffset >>> 3)] & 0xFF) >>> shift) & ((1 << bitDepth) - 1);
+    }
+}
@@ -0,0 +1,176 @@
+package integeruser.jglsdk.glimg;
+
+import integeruser.jglsdk.glimg.ImageFormat.*;
+import integeruser.jglsdk.glimg.ImageSet.Dimensions;
+import org.lwjgl.BufferUtils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * Builds 8-bit normalized images, like lookup tables, from a function of the texel coordinates. The rows of each
+ * mipmap level are evaluated in parallel, straight into direct buffers.
+ */
+public class ProceduralImage {
+    public interface Generator {
+        /**
+         * Writes the components of a texel, each in [0, 1]. The coordinates go from 0 at the first texel to 1 at the
+         * last one of the mipmap level, so that lookup tables hit both ends of their domain.
+         */
+        void generate(float u, float v, int mipmapLevel, float[] components);
+    }
+
+    ////////////////////////////////
+    /**
+     * When parameters are given, the image is cached: they must identify the output of the generator, and have value
+     * equality. Every call returns its own copy of the cached image, which can be converted in place.
+     */
+    public static ImageSet create1D(int width, int numComponents, int mipmapCount, Generator generator,
+                                    Object... parameters) {
+        Dimensions dimensions = new Dimensions();
+        dimensions.numDimensions = 1;
+        dimensions.width = width;
+        return create(dimensions, numComponents, mipmapCount, generator, parameters);
+    }
+
+    /**
+     * When parameters are given, the image is cached: they must identify the output of the generator, and have value
+     * equality. Every call returns its own copy of the cached image, which can be converted in place.
+     */
+    public static ImageSet create2D(int width, int height, int numComponents, int mipmapCount, Generator generator,
+                                    Object... parameters) {
+        Dimensions dimensions = new Dimensions();
+        dimensions.numDimensions = 2;
+        dimensions.width = width;
+        dimensions.height = height;
+        return create(dimensions, numComponents, mipmapCount, generator, parameters);
+    }
+
+
+    /**
+     * Fills a mipmap level of the given size, from the position of the buffer. Lines are not padded.
+     */
+    public static void generate(ByteBuffer buffer, int width, int height, int numComponents, int mipmapLevel,
+                                Generator generator) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("Invalid image size.");
+        if (numComponents < 1 || numComponents > 4) throw new IllegalArgumentException("Invalid component count.");
+        if (buffer.remaining() < width * height * numComponents) throw new IllegalArgumentException("Buffer too small.");
+
+        // Each line is written to its own region of the buffer, so the lines can be generated concurrently.
+        int baseOffset = buffer.position();
+        IntStream lines = IntStream.range(0, height);
+        if (width * height >= PARALLEL_TEXEL_COUNT) lines = lines.parallel();
+        lines.forEach(y -> generateLine(buffer, baseOffset + y * width * numComponents, width, height, y,
+                numComponents, mipmapLevel, generator));
+    }
+
+
+    public static void clearCache() {
+        cache.clear();
+    }
+
+    ////////////////////////////////
+    private static final int PARALLEL_TEXEL_COUNT = 64 * 64;
+
+    // Indexed by the component count minus one.
+    private static final PixelComponents[] COMPONENTS = {
+            PixelComponents.COLOR_RED, PixelComponents.COLOR_RG, PixelComponents.COLOR_RGB, PixelComponents.COLOR_RGBA
+    };
+
+    private static Map<List<Object>, ImageSet> cache = new ConcurrentHashMap<>();
+
+
+    private static ImageSet create(Dimensions dimensions, int numComponents, int mipmapCount, Generator generator,
+                                   Object[] parameters) {
+        if (parameters.length == 0) return build(dimensions, numComponents, mipmapCount, generator);
+
+        List<Object> key = Arrays.asList(dimensions.numDimensions, dimensions.width, dimensions.height, numComponents,
+                mipmapCount, Arrays.asList(parameters));
+        return copy(cache.computeIfAbsent(key, k -> build(dimensions, numComponents, mipmapCount, generator)));
+    }
+
+    private static ImageSet copy(ImageSet imageSet) {
+        int mipmapCount = imageSet.getMipmapCount();
+        ArrayList<ByteBuffer> imageData = new ArrayList<>(mipmapCount);
+        int[] imageSizes = new int[mipmapCount];
+
+        for (int mipmapLevel = 0; mipmapLevel < mipmapCount; mipmapLevel++) {
+            ByteBuffer mipmapLevelData = imageSet.getMipmapLevelData(mipmapLevel);
+            ByteBuffer mipmapLevelCopy = BufferUtils.createByteBuffer(mipmapLevelData.remaining());
+            mipmapLevelCopy.put(mipmapLevelData).flip();
+
+            imageData.add(mipmapLevelCopy);
+            imageSizes[mipmapLevel] = imageSet.getSize(mipmapLevel);
+        }
+
+        ImageSet imageSetCopy = new ImageSet(imageSet.getFormat(), new Dimensions(imageSet.getDimensions()), mipmapCount,
+                imageSet.getArrayCount(), imageSet.getFaceCount(), imageData, imageSizes);
+        imageSetCopy.setTopLeftOrigin(imageSet.isTopLeftOrigin());
+        return imageSetCopy;
+    }
+
+    private static ImageSet build(Dimensions dimensions, int numComponents, int mipmapCount, Generator generator) {
+        if (dimensions.width <= 0 || (dimensions.numDimensions > 1 && dimensions.height <= 0)) {
+            throw new IllegalArgumentException("Invalid image size.");
+        }
+        if (numComponents < 1 || numComponents > 4) throw new IllegalArgumentException("Invalid component count.");
+        if (mipmapCount < 1 || mipmapCount > ResolutionPolicy.calcFullMipmapCount(dimensions)) {
+            throw new IllegalArgumentException("Invalid mipmap count.");
+        }
+
+        UncheckedImageFormat uncheckedImageFormat = new UncheckedImageFormat();
+        uncheckedImageFormat.type = PixelDataType.NORM_UNSIGNED_INTEGER;
+        uncheckedImageFormat.format = COMPONENTS[numComponents - 1];
+        uncheckedImageFormat.order = ComponentOrder.RGBA;
+        uncheckedImageFormat.bitDepth = BitDepth.PER_COMP_8;
+        uncheckedImageFormat.lineAlignment = 1;
+
+        ArrayList<ByteBuffer> imageData = new ArrayList<>(mipmapCount);
+        int[] imageSizes = new int[mipmapCount];
+
+        for (int mipmapLevel = 0; mipmapLevel < mipmapCount; mipmapLevel++) {
+            Dimensions mipmapLevelDimensions = Util.calcMipmapLevelDimensions(dimensions, mipmapLevel);
+            int height = dimensions.numDimensions > 1 ? mipmapLevelDimensions.height : 1;
+
+            ByteBuffer mipmapLevelData = BufferUtils.createByteBuffer(mipmapLevelDimensions.width * height * numComponents);
+            generate(mipmapLevelData, mipmapLevelDimensions.width, height, numComponents, mipmapLevel, generator);
+
+            imageData.add(mipmapLevelData);
+            imageSizes[mipmapLevel] = mipmapLevelData.capacity();
+        }
+
+        return new ImageSet(new ImageFormat(uncheckedImageFormat), new Dimensions(dimensions), mipmapCount, 1, 1,
+                imageData, imageSizes);
+    }
+
+
+    private static void generateLine(ByteBuffer buffer, int offset, int width, int height, int y, int numComponents,
+                                     int mipmapLevel, Generator generator) {
+        float[] components = new float[numComponents];
+        byte[] line = new byte[width * numComponents];
+        float v = height > 1 ? y / (float) (height - 1) : 0.0f;
+
+        int lineIx = 0;
+        for (int x = 0; x < width; x++) {
+            float u = width > 1 ? x / (float) (width - 1) : 0.0f;
+            generator.generate(u, v, mipmapLevel, components);
+
+            for (float component : components) {
+                float clampedComponent = Math.min(Math.max(component, 0.0f), 1.0f);
+                line[lineIx++] = (byte) (int) (clampedComponent * 255.0f + 0.5f);
+            }
+        }
+
+        ByteBuffer lineBuffer = buffer.duplicate();
+        lineBuffer.position(offset);
+        lineBuffer.put(line);
+    }
+}
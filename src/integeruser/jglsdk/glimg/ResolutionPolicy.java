@@ -0,0 +1,93 @@
+package integeruser.jglsdk.glimg;
+
+import integeruser.jglsdk.glimg.ImageSet.Dimensions;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * Lowers the resolution of textures at load time, to save memory: the top mipmap levels are dropped, and images
+ * without mipmaps are downsampled. The loaders use the global policy unless they are given one.
+ */
+public class ResolutionPolicy {
+    public static final ResolutionPolicy FULL_RESOLUTION = new ResolutionPolicy(0, 0);
+
+
+    /**
+     * @param skipMipmaps   the number of top mipmap levels to drop.
+     * @param maxResolution the largest dimension allowed for the base level, or 0 for no limit. Levels are dropped until
+     *                      the base level fits.
+     */
+    public ResolutionPolicy(int skipMipmaps, int maxResolution) {
+        if (skipMipmaps < 0) throw new IllegalArgumentException("skipMipmaps cannot be negative.");
+        if (maxResolution < 0) throw new IllegalArgumentException("maxResolution cannot be negative.");
+
+        this.skipMipmaps = skipMipmaps;
+        this.maxResolution = maxResolution;
+    }
+
+    ////////////////////////////////
+    public static ResolutionPolicy getGlobal() {
+        return global;
+    }
+
+    public static void setGlobal(ResolutionPolicy policy) {
+        global = policy;
+    }
+
+    ////////////////////////////////
+    public int getSkipMipmaps() {
+        return skipMipmaps;
+    }
+
+    public int getMaxResolution() {
+        return maxResolution;
+    }
+
+
+    public boolean isFullResolution() {
+        return skipMipmaps == 0 && maxResolution == 0;
+    }
+
+
+    /**
+     * Returns how many of the first mipmap levels of an image must be dropped. At least one level is always kept.
+     */
+    public int calcDroppedMipmapCount(Dimensions dimensions, int mipmapCount) {
+        int droppedMipmapCount = Math.min(skipMipmaps, mipmapCount - 1);
+
+        if (maxResolution > 0) {
+            while (droppedMipmapCount < mipmapCount - 1
+                    && calcLargestDimension(Util.calcMipmapLevelDimensions(dimensions, droppedMipmapCount)) > maxResolution) {
+                droppedMipmapCount++;
+            }
+        }
+
+        return droppedMipmapCount;
+    }
+
+    // The number of levels of a complete mipmap chain, for images that have only the base level.
+    static int calcFullMipmapCount(Dimensions dimensions) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(calcLargestDimension(dimensions));
+    }
+
+
+    @Override
+    public String toString() {
+        return "skipMipmaps=" + skipMipmaps + ", maxResolution=" + maxResolution;
+    }
+
+    ////////////////////////////////
+    private static ResolutionPolicy global = FULL_RESOLUTION;
+
+    private int skipMipmaps;
+    private int maxResolution;
+
+
+    private static int calcLargestDimension(Dimensions dimensions) {
+        int largestDimension = dimensions.width;
+        if (dimensions.numDimensions > 1) largestDimension = Math.max(largestDimension, dimensions.height);
+        if (dimensions.numDimensions > 2) largestDimension = Math.max(largestDimension, dimensions.depth);
+        return largestDimension;
+    }
+}
@@ -2,28 +2,146 @@ package integeruser.jglsdk.glimg;
 
 import integeruser.jglsdk.glimg.ImageFormat.*;
 import integeruser.jglsdk.glimg.ImageSet.Dimensions;
+import integeruser.jglsdk.glimg.PngDecoder.DecodedImage;
+import org.lwjgl.BufferUtils;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 
 /**
  * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
  */
 public class StbLoader {
-    private static ImageSet buildImageSetFromIntegerData(BufferedImage bufferedImage, int width, int height, int numComponents) {
+    public static ImageSet loadFromFile(String imagePath) throws IOException {
+        return loadFromFile(imagePath, ResolutionPolicy.getGlobal());
+    }
+
+    public static ImageSet loadFromFile(String imagePath, ResolutionPolicy resolutionPolicy) throws IOException {
+        DecodedImage decodedImage = null;
+
+        try (InputStream imageInputStream = openFile(imagePath)) {
+            imageInputStream.mark(PngDecoder.SIGNATURE_LENGTH);
+            byte[] header = new byte[PngDecoder.SIGNATURE_LENGTH];
+            int headerLength = imageInputStream.read(header);
+            imageInputStream.reset();
+
+            if (headerLength == header.length && PngDecoder.hasSignature(header)) {
+                try {
+                    decodedImage = PngDecoder.decode(imageInputStream);
+                } catch (PngDecoder.PngUnsupportedException e) {
+                    // Handled by ImageIO below.
+                }
+            }
+        }
+
+        if (decodedImage == null) {
+            try (InputStream imageInputStream = openFile(imagePath)) {
+                decodedImage = decodeWithImageIO(imagePath, imageInputStream);
+            }
+        }
+
+        return buildImageSet(decodedImage, resolutionPolicy);
+    }
+
+
+    /**
+     * Decodes the images concurrently. The image sets are in the same order as the paths.
+     */
+    public static List<ImageSet> loadFromFiles(List<String> imagePaths) throws IOException {
+        return loadFromFiles(imagePaths, ResolutionPolicy.getGlobal());
+    }
+
+    public static List<ImageSet> loadFromFiles(List<String> imagePaths, ResolutionPolicy resolutionPolicy) throws IOException {
+        if (imagePaths.size() == 1) return Collections.singletonList(loadFromFile(imagePaths.get(0), resolutionPolicy));
+
+        List<Future<ImageSet>> decodedImages = new ArrayList<>(imagePaths.size());
+        for (String imagePath : imagePaths) {
+            decodedImages.add(ForkJoinPool.commonPool().submit(() -> loadFromFile(imagePath, resolutionPolicy)));
+        }
+
+        List<ImageSet> imageSets = new ArrayList<>(imagePaths.size());
+        try {
+            for (Future<ImageSet> decodedImage : decodedImages) {
+                imageSets.add(decodedImage.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while decoding the images.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IOException(cause);
+        }
+        return imageSets;
+    }
+
+    ////////////////////////////////
+    private static InputStream openFile(String imagePath) throws IOException {
+        return new BufferedInputStream(ImageFiles.openFile(imagePath));
+    }
+
+
+    // Formats the PNG decoder doesn't handle. Pixels are read as 8-bit RGB(A), whatever the color model of the image.
+    private static DecodedImage decodeWithImageIO(String imagePath, InputStream imageInputStream) throws IOException {
+        BufferedImage bufferedImage = ImageIO.read(imageInputStream);
+        if (bufferedImage == null) throw new IOException("Unknown image format: " + imagePath);
+
+        DecodedImage decodedImage = new DecodedImage();
+        decodedImage.width = bufferedImage.getWidth();
+        decodedImage.height = bufferedImage.getHeight();
+        decodedImage.numComponents = bufferedImage.getColorModel().hasAlpha() ? 4 : 3;
+        decodedImage.bytesPerComponent = 1;
+
+        int rowSize = decodedImage.width * decodedImage.numComponents;
+        decodedImage.pixels = BufferUtils.createByteBuffer(rowSize * decodedImage.height);
+
+        int[] argbRow = new int[decodedImage.width];
+        byte[] row = new byte[rowSize];
+
+        for (int y = 0; y < decodedImage.height; y++) {
+            bufferedImage.getRGB(0, y, decodedImage.width, 1, argbRow, 0, decodedImage.width);
+
+            int rowIx = 0;
+            for (int argb : argbRow) {
+                row[rowIx++] = (byte) (argb >>> 16);
+                row[rowIx++] = (byte) (argb >>> 8);
+                row[rowIx++] = (byte) argb;
+                if (decodedImage.numComponents == 4) row[rowIx++] = (byte) (argb >>> 24);
+            }
+
+            // GL expects the bottom row first.
+            decodedImage.pixels.position((decodedImage.height - 1 - y) * rowSize);
+            decodedImage.pixels.put(row);
+        }
+
+        decodedImage.pixels.clear();
+        return decodedImage;
+    }
+
+
+    private static ImageSet buildImageSet(DecodedImage decodedImage, ResolutionPolicy resolutionPolicy) {
         Dimensions imageDimensions = new Dimensions();
         imageDimensions.numDimensions = 2;
         imageDimensions.depth = 0;
-        imageDimensions.width = width;
-        imageDimensions.height = height;
+        imageDimensions.width = decodedImage.width;
+        imageDimensions.height = decodedImage.height;
 
         UncheckedImageFormat uncheckedImageFormat = new UncheckedImageFormat();
         uncheckedImageFormat.type = PixelDataType.NORM_UNSIGNED_INTEGER;
 
-        switch (numComponents) {
+        switch (decodedImage.numComponents) {
             case 1:
                 uncheckedImageFormat.format = PixelComponents.COLOR_RED;
                 break;
@@ -42,26 +160,67 @@ public class StbLoader {
         }
 
         uncheckedImageFormat.order = ComponentOrder.RGBA;
-        uncheckedImageFormat.bitDepth = BitDepth.PER_COMP_8;
+        uncheckedImageFormat.bitDepth = decodedImage.bytesPerComponent == 2 ? BitDepth.PER_COMP_16 : BitDepth.PER_COMP_8;
         uncheckedImageFormat.lineAlignment = 1;
 
-        byte[] imageData = new byte[width * height * numComponents];
-        bufferedImage.getRaster().getDataElements(0, 0, width, height, imageData);
+        // There are no mipmaps to drop: downsample the image instead, as if it had a full mipmap chain.
+        ByteBuffer pixels = decodedImage.pixels;
+        int droppedMipmapCount = resolutionPolicy.calcDroppedMipmapCount(imageDimensions,
+                ResolutionPolicy.calcFullMipmapCount(imageDimensions));
+        for (int mipmapLevel = 0; mipmapLevel < droppedMipmapCount; mipmapLevel++) {
+            pixels = halveImage(pixels, imageDimensions, decodedImage.numComponents, decodedImage.bytesPerComponent);
+        }
 
-        ImageCreator imgCreator = new ImageCreator(new ImageFormat(uncheckedImageFormat), imageDimensions, 1, 1, 1);
-        imgCreator.setImageData(imageData, true, 0, 0, 0);
-        return imgCreator.createImage();
+        ArrayList<ByteBuffer> imageData = new ArrayList<>(1);
+        imageData.add(pixels);
+        int[] imageSizes = {pixels.capacity()};
+
+        return new ImageSet(new ImageFormat(uncheckedImageFormat), imageDimensions, 1, 1, 1, imageData, imageSizes);
     }
 
-    public static ImageSet loadFromFile(String imagePath) throws IOException {
-        InputStream imageInputStream = ClassLoader.class.getResourceAsStream(imagePath);
-        BufferedImage bufferedImage = ImageIO.read(imageInputStream);
 
-        int width = bufferedImage.getWidth();
-        int height = bufferedImage.getHeight();
-        int numComponents = bufferedImage.getColorModel().getNumComponents();
+    // Averages each 2x2 block of pixels, and updates the dimensions.
+    private static ByteBuffer halveImage(ByteBuffer pixels, Dimensions imageDimensions, int numComponents,
+                                         int bytesPerComponent) {
+        int width = imageDimensions.width;
+        int height = imageDimensions.height;
+        int halfWidth = Math.max(width / 2, 1);
+        int halfHeight = Math.max(height / 2, 1);
+
+        ByteBuffer halvedPixels = BufferUtils.createByteBuffer(halfWidth * halfHeight * numComponents * bytesPerComponent);
+        int halvedIx = 0;
+
+        for (int y = 0; y < halfHeight; y++) {
+            int line0 = (2 * y) * width;
+            int line1 = Math.min(2 * y + 1, height - 1) * width;
+
+            for (int x = 0; x < halfWidth; x++) {
+                int column0 = 2 * x;
+                int column1 = Math.min(2 * x + 1, width - 1);
+
+                for (int component = 0; component < numComponents; component++) {
+                    int sum = readSample(pixels, (line0 + column0) * numComponents + component, bytesPerComponent)
+                            + readSample(pixels, (line0 + column1) * numComponents + component, bytesPerComponent)
+                            + readSample(pixels, (line1 + column0) * numComponents + component, bytesPerComponent)
+                            + readSample(pixels, (line1 + column1) * numComponents + component, bytesPerComponent);
+
+                    if (bytesPerComponent == 2) {
+                        halvedPixels.putShort(halvedIx, (short) ((sum + 2) >> 2));
+                    } else {
+                        halvedPixels.put(halvedIx, (byte) ((sum + 2) >> 2));
+                    }
+                    halvedIx += bytesPerComponent;
+                }
+            }
+        }
+
+        imageDimensions.width = halfWidth;
+        imageDimensions.height = halfHeight;
+        return halvedPixels;
+    }
 
-        ImageSet imageSet = buildImageSetFromIntegerData(bufferedImage, width, height, numComponents);
-        return imageSet;
+    private static int readSample(ByteBuffer pixels, int sampleIx, int bytesPerComponent) {
+        if (bytesPerComponent == 2) return pixels.getShort(sampleIx * 2) & 0xFFFF;
+        return pixels.get(sampleIx) & 0xFF;
     }
 }
@@ -0,0 +1,134 @@
+package integeruser.jglsdk.glimg;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.lwjgl.opengl.GL11.glDeleteTextures;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * Groups compatible image sets (same format, dimensions, mipmap count and face count) into array textures, so that
+ * switching between them only needs a different layer index instead of a different texture binding.
+ */
+public class TextureArrayPacker {
+    public static class LayerLocation {
+        public final int texture;  // The array texture the image set was packed into.
+        public final int layer;    // The layer of the first image of the image set.
+
+        LayerLocation(int texture, int layer) {
+            this.texture = texture;
+            this.layer = layer;
+        }
+    }
+
+    ////////////////////////////////
+    public TextureArrayPacker(int forceConvertBits) {
+        this.forceConvertBits = forceConvertBits;
+        groups = new ArrayList<>();
+        names = new HashMap<>();
+        locations = new HashMap<>();
+    }
+
+    ////////////////////////////////
+    public void add(String name, ImageSet imageSet) {
+        if (isPacked) throw new AlreadyPackedException();
+        if (names.containsKey(name)) throw new RuntimeException("The image named \"" + name + "\" already exists.");
+        if (imageSet.getDimensions().numDimensions == 3) {
+            throw new RuntimeException("The image named \"" + name + "\" is 3D and cannot be part of an array texture.");
+        }
+        if (imageSet.getFaceCount() > 1) {
+            throw new RuntimeException("The image named \"" + name + "\" is a cubemap and cannot be packed.");
+        }
+
+        Group group = null;
+        for (Group existingGroup : groups) {
+            if (TextureGenerator.areArrayLayersCompatible(existingGroup.imageSets.get(0), imageSet)) {
+                group = existingGroup;
+                break;
+            }
+        }
+
+        if (group == null) {
+            group = new Group();
+            groups.add(group);
+        }
+
+        names.put(name, group);
+        group.names.add(name);
+        group.imageSets.add(imageSet);
+    }
+
+
+    /**
+     * Creates one array texture per group of compatible image sets. Image sets can't be added afterwards.
+     */
+    public void pack() {
+        if (isPacked) throw new AlreadyPackedException();
+
+        for (Group group : groups) {
+            ImageSet[] imageSets = group.imageSets.toArray(new ImageSet[group.imageSets.size()]);
+            group.texture = TextureGenerator.createArrayTexture(imageSets, forceConvertBits);
+
+            int layer = 0;
+            for (int imageIx = 0; imageIx < imageSets.length; imageIx++) {
+                locations.put(group.names.get(imageIx), new LayerLocation(group.texture, layer));
+                layer += imageSets[imageIx].getArrayCount();
+            }
+        }
+
+        isPacked = true;
+    }
+
+    public void delete() {
+        for (Group group : groups) {
+            if (group.texture != 0) {
+                glDeleteTextures(group.texture);
+                group.texture = 0;
+            }
+        }
+    }
+
+    ////////////////////////////////
+    public LayerLocation getLocation(String name) {
+        LayerLocation location = locations.get(name);
+        if (location == null) throw new RuntimeException("Could not find the packed image named: " + name);
+        return location;
+    }
+
+    public int getTexture(String name) {
+        return getLocation(name).texture;
+    }
+
+    public int getLayer(String name) {
+        return getLocation(name).layer;
+    }
+
+    public int getTextureCount() {
+        return groups.size();
+    }
+
+    ////////////////////////////////
+    private int forceConvertBits;
+    private boolean isPacked;
+
+    private ArrayList<Group> groups;
+    private Map<String, Group> names;
+    private Map<String, LayerLocation> locations;
+
+
+    private static class Group {
+        ArrayList<String> names = new ArrayList<>();
+        ArrayList<ImageSet> imageSets = new ArrayList<>();
+        int texture;
+    }
+
+
+    private static class AlreadyPackedException extends RuntimeException {
+        AlreadyPackedException() {
+            super("The images have already been packed into array textures.");
+        }
+    }
+}
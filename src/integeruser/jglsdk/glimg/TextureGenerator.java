@@ -4,13 +4,19 @@ import integeruser.jglsdk.glimg.ImageFormat.BitDepth;
 import integeruser.jglsdk.glimg.ImageFormat.ComponentOrder;
 import integeruser.jglsdk.glimg.ImageFormat.PixelComponents;
 import integeruser.jglsdk.glimg.ImageFormat.PixelDataType;
+import integeruser.jglsdk.glimg.ImageFormat.UncheckedImageFormat;
 import integeruser.jglsdk.glimg.ImageSet.Dimensions;
+import org.lwjgl.BufferUtils;
 import org.lwjgl.LWJGLUtil;
 import org.lwjgl.opengl.EXTTextureSnorm;
 import org.lwjgl.opengl.GL;
 import org.lwjgl.opengl.GL32;
+import org.lwjgl.opengl.GLCapabilities;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 
 import static org.lwjgl.opengl.ARBTextureCompressionBPTC.*;
 import static org.lwjgl.opengl.ARBTextureFloat.*;
@@ -43,7 +49,7 @@ public class TextureGenerator {
         public static int FORCE_SIGNED_FMT = 0x0040;            // Image formats that contain unsigned integers will be uploaded as signed integers. Ignored if the format is not an integer/integral format, or if it isn't BC4 or BC5 compressed.
         public static int FORCE_COLOR_RENDERABLE_FMT = 0x0080;  // NOT YET SUPPORTED! Will force the use of formats that are required to be valid render targets. This will add components if necessary, but it will throw if conversion would require fundamentally changing the basic format (from signed to unsigned, compressed textures, etc).
 
-        public static int FORCE_ARRAY_TEXTURE = 0x0004;         // NOT YET SUPPORTED! The texture will be an array texture even if the depth is not present. Ignored for formats that can't be arrays. Will throw if array textures of that type are not supported (ie: cubemap arrays, 2D arrays for lesser hardware, etc).
+        public static int FORCE_ARRAY_TEXTURE = 0x0004;         // The texture will be an array texture even if the depth is not present. Ignored for formats that can't be arrays. Will throw if array textures of that type are not supported (ie: cubemap arrays, 2D arrays for lesser hardware, etc).
         public static int USE_TEXTURE_STORAGE = 0x0100;         // If ARB_texture_storage or GL 4.2 is available, then texture storage functions will be used to create the textures. Otherwise regular glTex* functions will be used.
         public static int FORCE_TEXTURE_STORAGE = 0x0200;       // If ARB_texture_storage or GL 4.2 is available, then texture storage functions will be used to create the textures. Otherwise, an exception will be thrown.
         public static int USE_DSA = 0x0400;                     // If EXT_direct_state_access is available, then DSA functions will be used to create the texture. Otherwise, regular ones will be used.
@@ -55,7 +61,7 @@ public class TextureGenerator {
         int textureName = glGenTextures();
 
         try {
-            createTexture(textureName, imageSet, forceConvertBits);
+            createTexture(textureName, flipTopLeftOrigin(imageSet, forceConvertBits), forceConvertBits);
         } catch (Exception e) {
             e.printStackTrace();
             glDeleteTextures(textureName);
@@ -64,6 +70,118 @@ public class TextureGenerator {
         return textureName;
     }
 
+    /**
+     * Creates a texture without the top mipmap levels that the policy drops. The base level, the dimensions and
+     * GL_TEXTURE_MAX_LEVEL all refer to the levels actually uploaded. Meant for image sets loaded at full resolution: the
+     * loaders already apply the global policy.
+     */
+    public static int createTexture(ImageSet imageSet, int forceConvertBits, ResolutionPolicy resolutionPolicy) {
+        int droppedMipmapCount = resolutionPolicy.calcDroppedMipmapCount(imageSet.getDimensions(),
+                imageSet.getMipmapCount());
+        return createTexture(imageSet.dropMipmapLevels(droppedMipmapCount), forceConvertBits);
+    }
+
+    /**
+     * Creates a single array texture whose layers are the images of all the given image sets, in order.
+     * All the image sets must share the same format, dimensions, mipmap count and face count.
+     */
+    public static int createArrayTexture(ImageSet[] imageSets, int forceConvertBits) {
+        int textureName = glGenTextures();
+
+        try {
+            ImageSet[] flippedImageSets = new ImageSet[imageSets.length];
+            for (int imageSetIx = 0; imageSetIx < imageSets.length; imageSetIx++) {
+                flippedImageSets[imageSetIx] = flipTopLeftOrigin(imageSets[imageSetIx], forceConvertBits);
+            }
+            createArrayTexture(textureName, flippedImageSets, forceConvertBits | ForcedConvertFlags.FORCE_ARRAY_TEXTURE);
+        } catch (Exception e) {
+            e.printStackTrace();
+            glDeleteTextures(textureName);
+        }
+
+        return textureName;
+    }
+
+
+    /**
+     * Returns the image set with the bottom-left origin of GL, or the image set itself if it already has it. BC6H and
+     * BC7 blocks can't be flipped without re-encoding them: those images are decompressed by the driver and their rows
+     * flipped, so they take the memory of RGB16F and RGBA8 images. createTexture and createArrayTexture call it.
+     */
+    public static ImageSet flipTopLeftOrigin(ImageSet imageSet, int forceConvertBits) {
+        if (!imageSet.isTopLeftOrigin()) return imageSet;
+
+        ImageFormat compressedFormat = imageSet.getFormat();
+        boolean isFloat = compressedFormat.getPixelDataType() != PixelDataType.COMPRESSED_BC7;
+        boolean isSrgb = compressedFormat.getPixelComponents() == PixelComponents.COLOR_RGBA_SRGB;
+
+        // The decompressed values are read back from a texture that is never sRGB, so they are not decoded; the
+        // flipped image keeps the sRGB tag.
+        ImageFormat readFormat = !isSrgb ? compressedFormat : new ImageFormat(new UncheckedImageFormat(
+                compressedFormat.getPixelDataType(), PixelComponents.COLOR_RGBA, ComponentOrder.COMPRESSED,
+                BitDepth.COMPRESSED, compressedFormat.getLineAlignment()));
+        ImageFormat flippedFormat = new ImageFormat(new UncheckedImageFormat(
+                isFloat ? PixelDataType.FLOAT : PixelDataType.NORM_UNSIGNED_INTEGER,
+                isFloat ? PixelComponents.COLOR_RGB : compressedFormat.getPixelComponents(),
+                ComponentOrder.RGBA, isFloat ? BitDepth.PER_COMP_16 : BitDepth.PER_COMP_8, 1));
+
+        int mipmapCount = imageSet.getMipmapCount();
+        int imageCount = imageSet.getArrayCount() * imageSet.getFaceCount();
+
+        ArrayList<ByteBuffer> readData = new ArrayList<>(mipmapCount);
+        int[] readSizes = new int[mipmapCount];
+        for (int mipmapLevel = 0; mipmapLevel < mipmapCount; mipmapLevel++) {
+            readData.add(imageSet.getMipmapLevelData(mipmapLevel));
+            readSizes[mipmapLevel] = imageSet.getSize(mipmapLevel);
+        }
+        ImageSet readImageSet = new ImageSet(readFormat, new Dimensions(imageSet.getDimensions()), mipmapCount,
+                imageSet.getArrayCount(), imageSet.getFaceCount(), readData, readSizes);
+
+        int readBits = forceConvertBits & ForcedConvertFlags.FORCE_ARRAY_TEXTURE;
+        int textureType = getTextureType(readImageSet, readBits);
+        OpenGLPixelTransferParams download = getUploadFormatType(flippedFormat, 0);
+
+        ArrayList<ByteBuffer> imageData = new ArrayList<>(mipmapCount);
+        int[] imageSizes = new int[mipmapCount];
+
+        int readTexture = glGenTextures();
+        int packAlignment = glGetInteger(GL_PACK_ALIGNMENT);
+        try {
+            createTexture(readTexture, readImageSet, readBits);
+            glBindTexture(textureType, readTexture);
+            glPixelStorei(GL_PACK_ALIGNMENT, 1);
+
+            for (int mipmapLevel = 0; mipmapLevel < mipmapCount; mipmapLevel++) {
+                Dimensions dimensions = imageSet.getDimensions(mipmapLevel);
+                int imageSize = Util.calcMipmapLevelSize(flippedFormat, dimensions);
+                ByteBuffer mipmapLevelData = BufferUtils.createByteBuffer(imageSize * imageCount);
+
+                if (textureType == GL_TEXTURE_CUBE_MAP) {
+                    for (int faceIx = 0; faceIx < imageSet.getFaceCount(); faceIx++) {
+                        mipmapLevelData.position(faceIx * imageSize);
+                        glGetTexImage(GL_TEXTURE_CUBE_MAP_POSITIVE_X + faceIx, mipmapLevel, download.format,
+                                download.type, mipmapLevelData);
+                    }
+                    mipmapLevelData.clear();
+                } else {
+                    // Array layers and cube map faces come one after the other, as in image sets.
+                    glGetTexImage(textureType, mipmapLevel, download.format, download.type, mipmapLevelData);
+                }
+
+                flipLines(mipmapLevelData, imageCount, imageSize, dimensions.calcNumLines());
+                imageData.add(mipmapLevelData);
+                imageSizes[mipmapLevel] = imageSize;
+            }
+        } finally {
+            glPixelStorei(GL_PACK_ALIGNMENT, packAlignment);
+            glBindTexture(textureType, 0);
+            glDeleteTextures(readTexture);
+        }
+
+        return new ImageSet(flippedFormat, new Dimensions(imageSet.getDimensions()), mipmapCount,
+                imageSet.getArrayCount(), imageSet.getFaceCount(), imageData, imageSizes);
+    }
+
     ////////////////////////////////
     public static class OpenGLPixelTransferParams {
         public int format;          // The GLenum format value of pixel transfer operations.
@@ -73,6 +191,48 @@ public class TextureGenerator {
 
 
     public static int getInternalFormat(ImageFormat imageFormat, int forceConvertBits) {
+        int key = calcFormatTableKey(imageFormat, forceConvertBits);
+        FormatTable<Integer> internalFormats = getFormatTables().internalFormats;
+
+        Integer internalFormat = internalFormats.get(key);
+        if (internalFormat == null) {
+            internalFormat = resolveInternalFormat(imageFormat, forceConvertBits);
+            internalFormats.put(key, internalFormat);
+        }
+        return internalFormat;
+    }
+
+
+    public static OpenGLPixelTransferParams getUploadFormatType(ImageFormat imageFormat, int forceConvertBits) {
+        int key = calcFormatTableKey(imageFormat, forceConvertBits);
+        FormatTable<OpenGLPixelTransferParams> uploadFormats = getFormatTables().uploadFormats;
+
+        OpenGLPixelTransferParams upload = uploadFormats.get(key);
+        if (upload == null) {
+            upload = resolveUploadFormatType(imageFormat, forceConvertBits);
+            uploadFormats.put(key, upload);
+        }
+
+        // The table entry is shared, so hand out a copy.
+        OpenGLPixelTransferParams uploadCopy = new OpenGLPixelTransferParams();
+        uploadCopy.format = upload.format;
+        uploadCopy.type = upload.type;
+        uploadCopy.blockByteCount = upload.blockByteCount;
+        return uploadCopy;
+    }
+
+
+    public static int getTextureType(ImageSet imageSet, int forceConvertBits) {
+        int numDimensions = imageSet.getDimensions().numDimensions;
+        if (numDimensions < 1 || numDimensions > 3) return -1;
+
+        int arrayIx = isArrayTexture(imageSet, forceConvertBits) ? 1 : 0;
+        int cubemapIx = imageSet.getFaceCount() > 1 ? 1 : 0;
+        return textureTypes[numDimensions - 1][arrayIx][cubemapIx];
+    }
+
+    ////////////////////////////////
+    private static int resolveInternalFormat(ImageFormat imageFormat, int forceConvertBits) {
         int internalFormat = getStandardOpenGLFormat(imageFormat, forceConvertBits);
 
         boolean convertToLA = useLAInsteadOfRG(forceConvertBits);
@@ -146,7 +306,7 @@ public class TextureGenerator {
     }
 
 
-    public static OpenGLPixelTransferParams getUploadFormatType(ImageFormat imageFormat, int forceConvertBits) {
+    private static OpenGLPixelTransferParams resolveUploadFormatType(ImageFormat imageFormat, int forceConvertBits) {
         OpenGLPixelTransferParams upload = new OpenGLPixelTransferParams();
         upload.type = 0xFFFFFFFF;
         upload.format = 0xFFFFFFFF;
@@ -185,43 +345,14 @@ public class TextureGenerator {
     }
 
 
-    public static int getTextureType(ImageSet imageSet, int forceConvertBits) {
-        Dimensions dims = imageSet.getDimensions();
-
-        switch (dims.numDimensions) {
-            case 1:
-                // May be 1D or 1D array.
-                if (isArrayTexture(imageSet, forceConvertBits)) {
-                    return GL_TEXTURE_1D_ARRAY;
-                } else {
-                    return GL_TEXTURE_1D;
-                }
-
-            case 2:
-                // 2D, 2D array, 2D cube, or 2D array cube.
-                if (isArrayTexture(imageSet, forceConvertBits)) {
-                    if (imageSet.getFaceCount() > 1) {
-                        return GL_TEXTURE_CUBE_MAP_ARRAY;
-                    } else {
-                        return GL_TEXTURE_2D_ARRAY;
-                    }
-                } else {
-                    if (imageSet.getFaceCount() > 1) {
-                        return GL_TEXTURE_CUBE_MAP;
-                    } else {
-                        return GL_TEXTURE_2D;
-                    }
-                }
-
-            case 3:
-                // 3D.
-                return GL_TEXTURE_3D;
-        }
-
-        return -1;
-    }
-
     ////////////////////////////////
+    // Indexed by [numDimensions - 1][isArray][isCubemap]. There are no 3D arrays or cubemaps, nor 1D cubemaps.
+    private static int[][][] textureTypes = {
+            {{GL_TEXTURE_1D, GL_TEXTURE_1D}, {GL_TEXTURE_1D_ARRAY, GL_TEXTURE_1D_ARRAY}},
+            {{GL_TEXTURE_2D, GL_TEXTURE_CUBE_MAP}, {GL_TEXTURE_2D_ARRAY, GL_TEXTURE_CUBE_MAP_ARRAY}},
+            {{GL_TEXTURE_3D, GL_TEXTURE_3D}, {GL_TEXTURE_3D, GL_TEXTURE_3D}},
+    };
+
     private static int[] packedTypes = {
             GL_UNSIGNED_SHORT_5_6_5,          // BitDepth.PACKED_16_BIT_565
             GL_UNSIGNED_SHORT_5_5_5_1,        // BitDepth.PACKED_16_BIT_5551
@@ -425,27 +556,17 @@ public class TextureGenerator {
 
 
     private static boolean isTypeSigned(PixelDataType pixelDataType) {
-        PixelDataType[] signedIntegerFormats = {PixelDataType.SIGNED_INTEGRAL, PixelDataType.NORM_SIGNED_INTEGER};
-        return Util.isOneOfThese(pixelDataType, signedIntegerFormats);
+        return pixelDataType == PixelDataType.SIGNED_INTEGRAL || pixelDataType == PixelDataType.NORM_SIGNED_INTEGER;
     }
 
     private static boolean isTypeIntegral(PixelDataType pixelDataType) {
-        PixelDataType[] integralIntegerFormats = {PixelDataType.SIGNED_INTEGRAL, PixelDataType.UNSIGNED_INTEGRAL};
-        return Util.isOneOfThese(pixelDataType, integralIntegerFormats);
+        return pixelDataType == PixelDataType.SIGNED_INTEGRAL || pixelDataType == PixelDataType.UNSIGNED_INTEGRAL;
     }
 
 
     private static int getComponentCount(ImageFormat imageFormat, int forceConvertBits) {
         // TODO: Forceconv.
-        PixelComponents[] twoCompFormats = {PixelComponents.COLOR_RG, PixelComponents.DEPTH_X};
-        PixelComponents[] threeCompFormats = {PixelComponents.COLOR_RGB, PixelComponents.COLOR_RGB_SRGB};
-        PixelComponents[] fourCompFormats = {PixelComponents.COLOR_RGBX, PixelComponents.COLOR_RGBA,
-                PixelComponents.COLOR_RGBX_SRGB, PixelComponents.COLOR_RGBA_SRGB};
-
-        if (Util.isOneOfThese(imageFormat.getPixelComponents(), twoCompFormats)) return 2;
-        if (Util.isOneOfThese(imageFormat.getPixelComponents(), threeCompFormats)) return 3;
-        if (Util.isOneOfThese(imageFormat.getPixelComponents(), fourCompFormats)) return 4;
-        return 1;
+        return Util.calcComponentCount(imageFormat.getPixelComponents());
     }
 
     private static boolean useLAInsteadOfRG(int forceConvertBits) {
@@ -467,6 +588,106 @@ public class TextureGenerator {
         return false;
     }
 
+
+    ////////////////////////////////
+    // The translations depend only on the format, on these flags and on the capabilities of the context, so they are
+    // resolved once and then looked up. Like the current context, the tables belong to a thread, so they are never shared;
+    // they are dropped whenever a different context becomes current on it.
+    private static final int FORMAT_TABLE_FLAGS = ForcedConvertFlags.FORCE_SRGB_COLORSPACE_FMT
+            | ForcedConvertFlags.FORCE_BC1_ALPHA_FMT
+            | ForcedConvertFlags.FORCE_LUMINANCE_FMT
+            | ForcedConvertFlags.FORCE_INTEGRAL_FMT
+            | ForcedConvertFlags.FORCE_SIGNED_FMT
+            | ForcedConvertFlags.FORCE_COLOR_RENDERABLE_FMT;
+
+    private static final ThreadLocal<FormatTables> formatTables = new ThreadLocal<>();
+
+
+    private static class FormatTables {
+        GLCapabilities capabilities;
+        FormatTable<Integer> internalFormats = new FormatTable<>();
+        FormatTable<OpenGLPixelTransferParams> uploadFormats = new FormatTable<>();
+    }
+
+
+    // Open addressing map from non-negative int keys to values, so that lookups neither box nor allocate.
+    private static class FormatTable<V> {
+        V get(int key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key) & mask; keys[slot] != EMPTY_KEY; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    @SuppressWarnings("unchecked")
+                    V value = (V) values[slot];
+                    return value;
+                }
+            }
+            return null;
+        }
+
+        void put(int key, V value) {
+            if ((size + 1) * 2 > keys.length) {
+                int[] oldKeys = keys;
+                Object[] oldValues = values;
+
+                keys = newKeys(oldKeys.length * 2);
+                values = new Object[oldValues.length * 2];
+                size = 0;
+
+                for (int slot = 0; slot < oldKeys.length; slot++) {
+                    if (oldKeys[slot] != EMPTY_KEY) insert(oldKeys[slot], oldValues[slot]);
+                }
+            }
+
+            insert(key, value);
+        }
+
+        ////////////////////////////////
+        private static final int EMPTY_KEY = -1;
+
+        private int[] keys = newKeys(64);
+        private Object[] values = new Object[64];
+        private int size;
+
+
+        private static int[] newKeys(int length) {
+            int[] keys = new int[length];
+            Arrays.fill(keys, EMPTY_KEY);
+            return keys;
+        }
+
+        private static int hash(int key) {
+            return (key * 0x9E3779B9) >>> 16 ^ key;
+        }
+
+        private void insert(int key, Object value) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (keys[slot] != EMPTY_KEY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+
+            if (keys[slot] == EMPTY_KEY) size++;
+            keys[slot] = key;
+            values[slot] = value;
+        }
+    }
+
+
+    private static int calcFormatTableKey(ImageFormat imageFormat, int forceConvertBits) {
+        return imageFormat.getKey() | (forceConvertBits & FORMAT_TABLE_FLAGS) << ImageFormat.KEY_BITS;
+    }
+
+    private static FormatTables getFormatTables() {
+        GLCapabilities capabilities = GL.getCapabilities();
+        FormatTables tables = formatTables.get();
+        if (tables == null || tables.capabilities != capabilities) {
+            tables = new FormatTables();
+            tables.capabilities = capabilities;
+            formatTables.set(tables);
+        }
+        return tables;
+    }
+
     ////////////////////////////////
     private static class ImageFormatUnsupportedException extends RuntimeException {
         public ImageFormatUnsupportedException() {
@@ -613,6 +834,22 @@ public class TextureGenerator {
         }
     }
 
+    private static void throwIfArrayTextureNotSupported() {
+        if (!GL.getCapabilities().OpenGL30) {
+            if (!GL.getCapabilities().GL_EXT_texture_array) {
+                throw new ImageFormatUnsupportedException("Array textures not supported.");
+            }
+        }
+    }
+
+    private static void throwIfCubemapArrayNotSupported() {
+        if (!GL.getCapabilities().OpenGL40) {
+            if (!GL.getCapabilities().GL_ARB_texture_cube_map_array) {
+                throw new ImageFormatUnsupportedException("Cubemap array textures not supported.");
+            }
+        }
+    }
+
     private static void throwIfForceRendertarget(int forceConvertBits) {
         if ((forceConvertBits & ForcedConvertFlags.FORCE_COLOR_RENDERABLE_FMT) != 0) {
             throw new CannotForceRenderTargetException();
@@ -881,7 +1118,7 @@ public class TextureGenerator {
 
             case COMPRESSED_SIGNED_BC6H:
                 throwIfBPTCNotSupported();
-                return GL_COMPRESSED_RGB_BPTC_UNSIGNED_FLOAT_ARB;
+                return GL_COMPRESSED_RGB_BPTC_SIGNED_FLOAT_ARB;
 
             case COMPRESSED_BC7:
                 throwIfBPTCNotSupported();
@@ -897,25 +1134,27 @@ public class TextureGenerator {
     }
 
 
-    private static boolean isSRGBFormat(ImageFormat imageFormat, int forceConvertBits) {
-        PixelComponents[] srgbFormats = {PixelComponents.COLOR_RGB_SRGB, PixelComponents.COLOR_RGBX_SRGB, PixelComponents.COLOR_RGBA_SRGB};
+    private static EnumSet<PixelComponents> srgbFormats = EnumSet.of(PixelComponents.COLOR_RGB_SRGB,
+            PixelComponents.COLOR_RGBX_SRGB, PixelComponents.COLOR_RGBA_SRGB);
+    private static EnumSet<PixelDataType> srgbTypes = EnumSet.of(PixelDataType.NORM_UNSIGNED_INTEGER,
+            PixelDataType.COMPRESSED_BC1, PixelDataType.COMPRESSED_BC2, PixelDataType.COMPRESSED_BC3,
+            PixelDataType.COMPRESSED_BC7);
+    private static EnumSet<PixelComponents> srgbConvertableFormats = EnumSet.of(PixelComponents.COLOR_RGB,
+            PixelComponents.COLOR_RGBX, PixelComponents.COLOR_RGBA);
 
-        if (Util.isOneOfThese(imageFormat.getPixelComponents(), srgbFormats)) return true;
-        if ((forceConvertBits & ForcedConvertFlags.FORCE_SRGB_COLORSPACE_FMT) == 0) return false;
 
-        PixelDataType[] srgbTypes = {PixelDataType.NORM_UNSIGNED_INTEGER, PixelDataType.COMPRESSED_BC1,
-                PixelDataType.COMPRESSED_BC2, PixelDataType.COMPRESSED_BC3, PixelDataType.COMPRESSED_BC7};
+    private static boolean isSRGBFormat(ImageFormat imageFormat, int forceConvertBits) {
+        if (srgbFormats.contains(imageFormat.getPixelComponents())) return true;
+        if ((forceConvertBits & ForcedConvertFlags.FORCE_SRGB_COLORSPACE_FMT) == 0) return false;
 
-        if (Util.isOneOfThese(imageFormat.getPixelDataType(), srgbTypes)) {
+        if (srgbTypes.contains(imageFormat.getPixelDataType())) {
             if (imageFormat.getPixelDataType() != PixelDataType.NORM_UNSIGNED_INTEGER) return true;
         } else {
             return false;
         }
 
         // Unsigned normalized integers. Check for RGB or RGBA components.
-        PixelComponents convertableFormats[] = {PixelComponents.COLOR_RGB, PixelComponents.COLOR_RGBX, PixelComponents.COLOR_RGBA};
-        if (Util.isOneOfThese(imageFormat.getPixelComponents(), convertableFormats)) return true;
-        return false;
+        return srgbConvertableFormats.contains(imageFormat.getPixelComponents());
     }
 
     private static int perComponentSize(ImageFormat imageFormat, int forceConvertBits) {
@@ -1031,8 +1270,112 @@ public class TextureGenerator {
         }
     }
 
+    private static class IncompatibleArrayLayersException extends RuntimeException {
+        private IncompatibleArrayLayersException(String message) {
+            super(message);
+        }
+    }
+
 
     private static void createTexture(int textureName, ImageSet imageSet, int forceConvertBits) {
+        forceConvertBits = checkCreationFlags(forceConvertBits);
+
+        ImageFormat imageFormat = imageSet.getFormat();
+        int internalFormat = getInternalFormat(imageFormat, forceConvertBits);
+        OpenGLPixelTransferParams upload = getUploadFormatType(imageFormat, forceConvertBits);
+
+        switch (getTextureType(imageSet, forceConvertBits)) {
+            case GL_TEXTURE_2D:
+                build2DTexture(textureName, imageSet, forceConvertBits, internalFormat, upload);
+                break;
+
+            case GL_TEXTURE_CUBE_MAP:
+                buildCubemapTexture(textureName, imageSet, forceConvertBits, internalFormat, upload);
+                break;
+
+            case GL_TEXTURE_1D_ARRAY:
+            case GL_TEXTURE_2D_ARRAY:
+            case GL_TEXTURE_CUBE_MAP_ARRAY:
+                buildArrayTexture(textureName, new ImageSet[]{imageSet}, forceConvertBits, internalFormat, upload);
+                break;
+
+            default:
+                Util.throwNotYetPortedException();
+                break;
+        }
+    }
+
+    private static void createArrayTexture(int textureName, ImageSet[] imageSets, int forceConvertBits) {
+        if (imageSets.length == 0) {
+            throw new IncompatibleArrayLayersException("At least one image set is needed to build an array texture.");
+        }
+
+        ImageSet firstImageSet = imageSets[0];
+        for (ImageSet imageSet : imageSets) {
+            if (!areArrayLayersCompatible(firstImageSet, imageSet)) {
+                throw new IncompatibleArrayLayersException("The layers of an array texture must share format, " +
+                        "dimensions, mipmap count and face count.");
+            }
+        }
+
+        forceConvertBits = checkCreationFlags(forceConvertBits);
+
+        ImageFormat imageFormat = firstImageSet.getFormat();
+        int internalFormat = getInternalFormat(imageFormat, forceConvertBits);
+        OpenGLPixelTransferParams upload = getUploadFormatType(imageFormat, forceConvertBits);
+
+        switch (getTextureType(firstImageSet, forceConvertBits)) {
+            case GL_TEXTURE_1D_ARRAY:
+            case GL_TEXTURE_2D_ARRAY:
+            case GL_TEXTURE_CUBE_MAP_ARRAY:
+                buildArrayTexture(textureName, imageSets, forceConvertBits, internalFormat, upload);
+                break;
+
+            default:
+                Util.throwNotYetPortedException();
+                break;
+        }
+    }
+
+    // Reverses the order of the lines of each image.
+    private static void flipLines(ByteBuffer data, int imageCount, int imageSize, int numLines) {
+        int lineSize = imageSize / numLines;
+        byte[] line = new byte[lineSize];
+        byte[] otherLine = new byte[lineSize];
+
+        for (int imageIx = 0; imageIx < imageCount; imageIx++) {
+            for (int lineIx = 0; lineIx < numLines / 2; lineIx++) {
+                int lineOffset = imageIx * imageSize + lineIx * lineSize;
+                int otherLineOffset = imageIx * imageSize + (numLines - 1 - lineIx) * lineSize;
+
+                data.position(lineOffset);
+                data.get(line);
+                data.position(otherLineOffset);
+                data.get(otherLine);
+
+                data.position(otherLineOffset);
+                data.put(line);
+                data.position(lineOffset);
+                data.put(otherLine);
+            }
+        }
+        data.clear();
+    }
+
+    static boolean areArrayLayersCompatible(ImageSet imageSet, ImageSet otherImageSet) {
+        Dimensions dims = imageSet.getDimensions();
+        Dimensions otherDims = otherImageSet.getDimensions();
+
+        return imageSet.getFormat().equals(otherImageSet.getFormat())
+                && dims.numDimensions == otherDims.numDimensions
+                && dims.width == otherDims.width
+                && (dims.numDimensions < 2 || dims.height == otherDims.height)
+                && imageSet.getMipmapCount() == otherImageSet.getMipmapCount()
+                && imageSet.getFaceCount() == otherImageSet.getFaceCount();
+    }
+
+
+    private static int checkCreationFlags(int forceConvertBits) {
         if ((forceConvertBits & ForcedConvertFlags.FORCE_TEXTURE_STORAGE) != 0) {
             if (!isTextureStorageSupported()) {
                 throw new CannotForceTextureStorage();
@@ -1061,19 +1404,7 @@ public class TextureGenerator {
             }
         }
 
-        ImageFormat imageFormat = imageSet.getFormat();
-        int internalFormat = getInternalFormat(imageFormat, forceConvertBits);
-        OpenGLPixelTransferParams upload = getUploadFormatType(imageFormat, forceConvertBits);
-
-        switch (getTextureType(imageSet, forceConvertBits)) {
-            case GL_TEXTURE_2D:
-                build2DTexture(textureName, imageSet, forceConvertBits, internalFormat, upload);
-                break;
-
-            default:
-                Util.throwNotYetPortedException();
-                break;
-        }
+        return forceConvertBits;
     }
 
 
@@ -1112,6 +1443,91 @@ public class TextureGenerator {
         finalizeTexture(textureName, GL_TEXTURE_2D, imageSet);
     }
 
+    private static void buildCubemapTexture(int textureName, ImageSet imageSet, int forceConvertBits, int internalFormat,
+                                            OpenGLPixelTransferParams upload) {
+        setupUploadState(imageSet.getFormat(), forceConvertBits);
+        TextureBinder textureBinder = new TextureBinder();
+
+        if ((forceConvertBits & ForcedConvertFlags.USE_DSA) != 0) {
+            Util.throwNotYetPortedException();
+        }
+
+        textureBinder.bind(GL_TEXTURE_CUBE_MAP, textureName);
+
+        if ((forceConvertBits & ForcedConvertFlags.USE_TEXTURE_STORAGE) != 0) {
+            Util.throwNotYetPortedException();
+        }
+
+        int numMipmaps = imageSet.getMipmapCount();
+        for (int mipmapLevel = 0; mipmapLevel < numMipmaps; mipmapLevel++) {
+            Dimensions imageDimensions = imageSet.getDimensions(mipmapLevel);
+
+            for (int faceIx = 0; faceIx < 6; faceIx++) {
+                glTexImage2D(GL_TEXTURE_CUBE_MAP_POSITIVE_X + faceIx, mipmapLevel, internalFormat, imageDimensions.width,
+                        imageDimensions.height, 0, upload.format, upload.type, (ByteBuffer) null);
+
+                ByteBuffer imageDataBuffer = imageSet.getImageData(mipmapLevel, 0, faceIx);
+                texSubImage(GL_TEXTURE_CUBE_MAP_POSITIVE_X + faceIx, mipmapLevel, internalFormat, imageDimensions,
+                        upload, imageDataBuffer, imageSet.getSize(mipmapLevel));
+            }
+        }
+
+        finalizeTexture(GL_TEXTURE_CUBE_MAP, imageSet);
+    }
+
+
+    // Every array count of every image set becomes a layer, in order. Cubemap arrays store six layer-faces per layer.
+    private static void buildArrayTexture(int textureName, ImageSet[] imageSets, int forceConvertBits, int internalFormat,
+                                          OpenGLPixelTransferParams upload) {
+        throwIfArrayTextureNotSupported();
+
+        ImageSet firstImageSet = imageSets[0];
+        int numFaces = firstImageSet.getFaceCount();
+
+        int textureTarget;
+        if (numFaces > 1) {
+            throwIfCubemapArrayNotSupported();
+            textureTarget = GL_TEXTURE_CUBE_MAP_ARRAY;
+        } else {
+            textureTarget = firstImageSet.getDimensions().numDimensions == 1 ? GL_TEXTURE_1D_ARRAY : GL_TEXTURE_2D_ARRAY;
+        }
+
+        setupUploadState(firstImageSet.getFormat(), forceConvertBits);
+        TextureBinder textureBinder = new TextureBinder();
+
+        if ((forceConvertBits & ForcedConvertFlags.USE_DSA) == 0) {
+            textureBinder.bind(textureTarget, textureName);
+            textureName = 0;
+        }
+
+        int numLayers = 0;
+        for (ImageSet imageSet : imageSets) {
+            numLayers += imageSet.getArrayCount() * numFaces;
+        }
+
+        int numMipmaps = firstImageSet.getMipmapCount();
+        texStorageArray(textureTarget, forceConvertBits, firstImageSet.getDimensions(), numMipmaps, numLayers,
+                internalFormat, upload, textureName);
+
+        int layer = 0;
+        for (ImageSet imageSet : imageSets) {
+            for (int arrayIx = 0; arrayIx < imageSet.getArrayCount(); arrayIx++) {
+                for (int faceIx = 0; faceIx < numFaces; faceIx++) {
+                    for (int mipmapLevel = 0; mipmapLevel < numMipmaps; mipmapLevel++) {
+                        Dimensions imageDimensions = imageSet.getDimensions(mipmapLevel);
+                        ByteBuffer imageDataBuffer = imageSet.getImageData(mipmapLevel, arrayIx, faceIx);
+                        texSubImageLayer(textureName, textureTarget, mipmapLevel, layer, internalFormat, imageDimensions,
+                                upload, imageDataBuffer);
+                    }
+
+                    layer++;
+                }
+            }
+        }
+
+        finalizeTexture(textureName, textureTarget, firstImageSet);
+    }
+
     private static void setupUploadState(ImageFormat imageFormat, int forceConvertBits) {
         glPixelStorei(GL_UNPACK_SWAP_BYTES, GL_FALSE);
         glPixelStorei(GL_UNPACK_LSB_FIRST, GL_FALSE);
@@ -1168,6 +1584,66 @@ public class TextureGenerator {
     }
 
 
+    // Only works for TEXTURE_1D_ARRAY and 2D_ARRAY.
+    private static void texStorageArray(int textureTarget, int forceConvertBits, Dimensions imageDimensions, int numMipmaps,
+                                        int numLayers, int internalFormat, OpenGLPixelTransferParams upload, int textureName) {
+        if ((forceConvertBits & ForcedConvertFlags.USE_TEXTURE_STORAGE) != 0) {
+            Util.throwNotYetPortedException();
+        }
+
+        // Zero means bound, so no DSA.
+        if (textureName != 0) {
+            Util.throwNotYetPortedException();
+        }
+
+        for (int mipmap = 0; mipmap < numMipmaps; mipmap++) {
+            Dimensions levelDims = Util.calcMipmapLevelDimensions(imageDimensions, mipmap);
+            switch (imageDimensions.numDimensions) {
+                case 1:
+                    glTexImage2D(textureTarget, mipmap, internalFormat, levelDims.width, numLayers, 0,
+                            upload.format, upload.type, (ByteBuffer) null);
+                    break;
+
+                case 2:
+                    glTexImage3D(textureTarget, mipmap, internalFormat, levelDims.width, levelDims.height, numLayers, 0,
+                            upload.format, upload.type, (ByteBuffer) null);
+                    break;
+            }
+        }
+    }
+
+
+    private static void texSubImageLayer(int texture, int textureTarget, int mipmapLevel, int layer, int internalFormat,
+                                         Dimensions imageDimensions, OpenGLPixelTransferParams upload, ByteBuffer imageData) {
+        // Zero means bound, so no DSA.
+        if (texture != 0) {
+            Util.throwNotYetPortedException();
+        }
+
+        switch (imageDimensions.numDimensions) {
+            case 1:
+                if (upload.blockByteCount != 0) {
+                    glCompressedTexSubImage2D(textureTarget, mipmapLevel, 0, layer, imageDimensions.width, 1,
+                            internalFormat, imageData);
+                } else {
+                    glTexSubImage2D(textureTarget, mipmapLevel, 0, layer, imageDimensions.width, 1,
+                            upload.format, upload.type, imageData);
+                }
+                break;
+
+            case 2:
+                if (upload.blockByteCount != 0) {
+                    glCompressedTexSubImage3D(textureTarget, mipmapLevel, 0, 0, layer, imageDimensions.width,
+                            imageDimensions.height, 1, internalFormat, imageData);
+                } else {
+                    glTexSubImage3D(textureTarget, mipmapLevel, 0, 0, layer, imageDimensions.width,
+                            imageDimensions.height, 1, upload.format, upload.type, imageData);
+                }
+                break;
+        }
+    }
+
+
     private static void texSubImage(int texture, int textureTarget, int mipmapLevel, int internalFormat, Dimensions imageDimensions,
                                     OpenGLPixelTransferParams upload, ByteBuffer imageData, int imageSize) {
         // Zero means bound, so no DSA.
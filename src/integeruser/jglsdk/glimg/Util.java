@@ -10,22 +10,16 @@ import integeruser.jglsdk.glimg.ImageSet.Dimensions;
  * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
  */
 class Util {
-    static <T> boolean isOneOfThese(T testValue, T[] testArray) {
-        for (T arrayElement : testArray) {
-            if (arrayElement.equals(testValue)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-
     static Dimensions calcMipmapLevelDimensions(Dimensions ddsDimensions, int mipmapLevel) {
         Dimensions mipmapLevelDimensions = new Dimensions(ddsDimensions);
         for (int i = 0; i < mipmapLevel; i++) {
-            mipmapLevelDimensions.width /= 2;
-            mipmapLevelDimensions.height /= 2;
-            mipmapLevelDimensions.depth /= 2;
+            mipmapLevelDimensions.width = Math.max(mipmapLevelDimensions.width / 2, 1);
+            if (mipmapLevelDimensions.numDimensions > 1) {
+                mipmapLevelDimensions.height = Math.max(mipmapLevelDimensions.height / 2, 1);
+            }
+            if (mipmapLevelDimensions.numDimensions > 2) {
+                mipmapLevelDimensions.depth = Math.max(mipmapLevelDimensions.depth / 2, 1);
+            }
         }
         return mipmapLevelDimensions;
     }
@@ -110,14 +104,24 @@ class Util {
     }
 
     static int calcComponentCount(PixelComponents component) {
-        PixelComponents[] twoCompFormats = {PixelComponents.COLOR_RG, PixelComponents.DEPTH_X};
-        PixelComponents[] threeCompFormats = {PixelComponents.COLOR_RGB, PixelComponents.COLOR_RGB_SRGB};
-        PixelComponents[] fourCompFormats = {PixelComponents.COLOR_RGBX, PixelComponents.COLOR_RGBA, PixelComponents.COLOR_RGBX_SRGB, PixelComponents.COLOR_RGBA_SRGB};
-
-        if (isOneOfThese(component, twoCompFormats)) return 2;
-        if (isOneOfThese(component, threeCompFormats)) return 3;
-        if (isOneOfThese(component, fourCompFormats)) return 4;
-        return 1;
+        switch (component) {
+            case COLOR_RG:
+            case DEPTH_X:
+                return 2;
+
+            case COLOR_RGB:
+            case COLOR_RGB_SRGB:
+                return 3;
+
+            case COLOR_RGBX:
+            case COLOR_RGBA:
+            case COLOR_RGBX_SRGB:
+            case COLOR_RGBA_SRGB:
+                return 4;
+
+            default:
+                return 1;
+        }
     }
 
     ////////////////////////////////
@@ -185,6 +189,38 @@ class Util {
         }
     }
 
+    ////////////////////////////////
+    // Rounds to the nearest half float, ties to even. Overflows become infinity, NaNs stay NaNs.
+    static short floatToHalf(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int exponent = (bits >>> 23) & 0xFF;
+        int mantissa = bits & 0x7FFFFF;
+
+        if (exponent == 0xFF) return (short) (sign | 0x7C00 | (mantissa != 0 ? 0x200 : 0));
+
+        int halfExponent = exponent - 127 + 15;
+        if (halfExponent >= 0x1F) return (short) (sign | 0x7C00);
+
+        if (halfExponent <= 0) {
+            // Denormal half, or zero.
+            if (halfExponent < -10) return (short) sign;
+
+            mantissa |= 0x800000;
+            int shift = 14 - halfExponent;
+            int halfMantissa = mantissa >>> shift;
+            int roundBit = 1 << (shift - 1);
+            if ((mantissa & roundBit) != 0 && (mantissa & (3 * roundBit - 1)) != 0) halfMantissa++;
+            return (short) (sign | halfMantissa);
+        }
+
+        // A carry out of the mantissa correctly bumps the exponent, up to infinity.
+        int half = sign | halfExponent << 10 | mantissa >>> 13;
+        int roundBits = mantissa & 0x1FFF;
+        if (roundBits > 0x1000 || (roundBits == 0x1000 && (half & 1) != 0)) half++;
+        return (short) half;
+    }
+
     ////////////////////////////////
     public static void throwNotYetPortedException() {
         throw new RuntimeException("The feature requested isn't supported at the moment. " +
@@ -0,0 +1,188 @@
+package integeruser.jglsdk.glutil;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GLCapabilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL41.*;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * Stores linked programs on disk with glGetProgramBinary, so that following runs restore them with glProgramBinary
+ * instead of compiling and linking the shaders again. Entries are keyed by the source and type of every stage and by
+ * the driver strings; a binary rejected by the driver is rebuilt from the sources.
+ */
+public class ProgramBinaryCache {
+    public ProgramBinaryCache(File cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+
+        if (!cacheDirectory.isDirectory() && !cacheDirectory.mkdirs()) {
+            throw new RuntimeException("Could not create the program cache directory " + cacheDirectory);
+        }
+    }
+
+
+    // Requires a current context.
+    public static boolean isSupported() {
+        GLCapabilities capabilities = GL.getCapabilities();
+        if (!capabilities.OpenGL41 && !capabilities.GL_ARB_get_program_binary) return false;
+
+        return glGetInteger(GL_NUM_PROGRAM_BINARY_FORMATS) > 0;
+    }
+
+    ////////////////////////////////
+    /**
+     * Links the shaders into a new program. The shaders can be created with Shader.createShader: they are compiled
+     * only if the program isn't in the cache. The shaders are not deleted.
+     */
+    public int linkProgram(ArrayList<Integer> shaders) {
+        File cacheFile = new File(cacheDirectory, calcKey(shaders) + FILE_EXTENSION);
+
+        if (cacheFile.isFile()) {
+            int program = readCacheFile(cacheFile);
+            if (program != 0) return program;
+
+            // Rejected by the driver, or truncated: rebuild it.
+            cacheFile.delete();
+        }
+
+        for (Integer shader : shaders) {
+            if (glGetShaderi(shader, GL_COMPILE_STATUS) == GL_FALSE) Shader.compileShader(shader);
+        }
+
+        int program = glCreateProgram();
+        glProgramParameteri(program, GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL_TRUE);
+        Shader.linkProgram(program, shaders);
+
+        try {
+            writeCacheFile(cacheFile, program);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return program;
+    }
+
+    ////////////////////////////////
+    private static final String FILE_EXTENSION = ".progbin";
+
+    private static final int MAGIC_NUMBER = 0x4e494250;  // "PBIN"
+    private static final int VERSION = 1;
+
+    // Magic number, version, binary format and binary length.
+    private static final int HEADER_SIZE = 4 * (Integer.SIZE / 8);
+
+
+    private File cacheDirectory;
+
+    ////////////////////////////////
+    private static String calcKey(ArrayList<Integer> shaders) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+
+        // A driver update invalidates the binaries.
+        for (int name : new int[]{GL_VENDOR, GL_RENDERER, GL_VERSION}) {
+            digest.update(glGetString(name).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+
+        for (Integer shader : shaders) {
+            digest.update(Integer.toString(glGetShaderi(shader, GL_SHADER_TYPE)).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(glGetShaderSource(shader).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(String.format("%02x", b));
+        }
+        return key.toString();
+    }
+
+
+    // Returns 0 if the file is malformed or the driver rejects the binary.
+    private static int readCacheFile(File cacheFile) {
+        ByteBuffer file;
+        try {
+            file = ByteBuffer.wrap(Files.readAllBytes(cacheFile.toPath()));
+        } catch (IOException e) {
+            return 0;
+        }
+        file.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (file.remaining() < HEADER_SIZE) return 0;
+        if (file.getInt() != MAGIC_NUMBER) return 0;
+        if (file.getInt() != VERSION) return 0;
+
+        int binaryFormat = file.getInt();
+        int binaryLength = file.getInt();
+        if (binaryLength <= 0 || binaryLength != file.remaining()) return 0;
+
+        ByteBuffer binary = BufferUtils.createByteBuffer(binaryLength);
+        binary.put(file);
+        binary.flip();
+
+        int program = glCreateProgram();
+        glProgramBinary(program, binaryFormat, binary);
+
+        if (glGetProgrami(program, GL_LINK_STATUS) == GL_FALSE) {
+            glDeleteProgram(program);
+            return 0;
+        }
+
+        return program;
+    }
+
+    private static void writeCacheFile(File cacheFile, int program) throws IOException {
+        int binaryLength = glGetProgrami(program, GL_PROGRAM_BINARY_LENGTH);
+        if (binaryLength <= 0) return;
+
+        IntBuffer binaryFormat = BufferUtils.createIntBuffer(1);
+        ByteBuffer binary = BufferUtils.createByteBuffer(binaryLength);
+        glGetProgramBinary(program, null, binaryFormat, binary);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC_NUMBER);
+        header.putInt(VERSION);
+        header.putInt(binaryFormat.get(0));
+        header.putInt(binaryLength);
+        header.flip();
+
+        // Write to a temporary file first, so that an interrupted run never leaves a truncated entry behind.
+        File tempFile = File.createTempFile("progbin", ".tmp", cacheFile.getParentFile());
+        try {
+            try (RandomAccessFile file = new RandomAccessFile(tempFile, "rw"); FileChannel channel = file.getChannel()) {
+                while (header.hasRemaining()) channel.write(header);
+                while (binary.hasRemaining()) channel.write(binary);
+                channel.force(false);
+            }
+
+            Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+}
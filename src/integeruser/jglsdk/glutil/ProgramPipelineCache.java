@@ -0,0 +1,124 @@
+package integeruser.jglsdk.glutil;
+
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GLCapabilities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.lwjgl.opengl.GL11.GL_FALSE;
+import static org.lwjgl.opengl.GL11.GL_TRUE;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL32.GL_GEOMETRY_SHADER;
+import static org.lwjgl.opengl.GL40.GL_TESS_CONTROL_SHADER;
+import static org.lwjgl.opengl.GL40.GL_TESS_EVALUATION_SHADER;
+import static org.lwjgl.opengl.GL41.*;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * Links each shader stage once, as a separable program, and combines stage programs into program pipelines. With N
+ * vertex and M fragment variants, N + M programs are linked instead of N * M; the pipelines are cheap to create, and
+ * are cached as well. Uniforms must be set per stage program, with glProgramUniform or glActiveShaderProgram.
+ */
+public class ProgramPipelineCache {
+    // Requires a current context.
+    public static boolean isSupported() {
+        GLCapabilities capabilities = GL.getCapabilities();
+        return capabilities.OpenGL41 || capabilities.GL_ARB_separate_shader_objects;
+    }
+
+    ////////////////////////////////
+    /**
+     * Returns the separable program made of the shader alone, linking it if needed. The shader is compiled if it was
+     * only created.
+     */
+    public int getStageProgram(int shader) {
+        Integer stageProgram = stagePrograms.get(shader);
+        if (stageProgram == null) {
+            if (glGetShaderi(shader, GL_COMPILE_STATUS) == GL_FALSE) Shader.compileShader(shader);
+
+            ArrayList<Integer> shaders = new ArrayList<>();
+            shaders.add(shader);
+
+            stageProgram = glCreateProgram();
+            glProgramParameteri(stageProgram, GL_PROGRAM_SEPARABLE, GL_TRUE);
+            Shader.linkProgram(stageProgram, shaders);
+
+            stagePrograms.put(shader, stageProgram);
+            stageBits.put(stageProgram, getStageBit(glGetShaderi(shader, GL_SHADER_TYPE)));
+        }
+        return stageProgram;
+    }
+
+    /**
+     * Returns the pipeline using the given stage programs, which must have been returned by getStageProgram and must
+     * be for different stages.
+     */
+    public int getPipeline(int... stagePrograms) {
+        List<Integer> key = new ArrayList<>(stagePrograms.length);
+        for (int stageProgram : stagePrograms) {
+            if (!stageBits.containsKey(stageProgram)) {
+                throw new IllegalArgumentException("The program " + stageProgram + " is not a stage program.");
+            }
+            key.add(stageProgram);
+        }
+
+        Integer pipeline = pipelines.get(key);
+        if (pipeline == null) {
+            pipeline = glGenProgramPipelines();
+            for (int stageProgram : stagePrograms) {
+                glUseProgramStages(pipeline, stageBits.get(stageProgram), stageProgram);
+            }
+            pipelines.put(key, pipeline);
+        }
+        return pipeline;
+    }
+
+
+    // Deletes all the pipelines and stage programs.
+    public void clear() {
+        for (Integer pipeline : pipelines.values()) {
+            glDeleteProgramPipelines(pipeline);
+        }
+        for (Integer stageProgram : stagePrograms.values()) {
+            glDeleteProgram(stageProgram);
+        }
+
+        pipelines.clear();
+        stagePrograms.clear();
+        stageBits.clear();
+    }
+
+    ////////////////////////////////
+    private Map<Integer, Integer> stagePrograms = new HashMap<>();  // Shader to stage program.
+    private Map<Integer, Integer> stageBits = new HashMap<>();      // Stage program to its stage bit.
+    private Map<List<Integer>, Integer> pipelines = new HashMap<>();
+
+
+    private static int getStageBit(int shaderType) {
+        switch (shaderType) {
+            case GL_VERTEX_SHADER:
+                return GL_VERTEX_SHADER_BIT;
+
+            case GL_TESS_CONTROL_SHADER:
+                return GL_TESS_CONTROL_SHADER_BIT;
+
+            case GL_TESS_EVALUATION_SHADER:
+                return GL_TESS_EVALUATION_SHADER_BIT;
+
+            case GL_GEOMETRY_SHADER:
+                return GL_GEOMETRY_SHADER_BIT;
+
+            case GL_FRAGMENT_SHADER:
+                return GL_FRAGMENT_SHADER_BIT;
+
+            default:
+                throw new IllegalArgumentException("Unsupported shader type: " + shaderType);
+        }
+    }
+}
@@ -24,45 +24,78 @@ public class Shader {
         private static final long serialVersionUID = 7321217286524434327L;
 
         CompileLinkProgramException(int program) {
-            super(glGetShaderInfoLog(
+            super(glGetProgramInfoLog(
                     program,
-                    glGetShaderi(program, GL_INFO_LOG_LENGTH)));
+                    glGetProgrami(program, GL_INFO_LOG_LENGTH)));
         }
     }
 
 
     public static int compileShader(int shaderType, String shaderCode) {
-        int shader = glCreateShader(shaderType);
+        int shader = createShader(shaderType, shaderCode);
+        compileShader(shader);
+        return shader;
+    }
 
+    // Creates the shader without compiling it.
+    public static int createShader(int shaderType, String shaderCode) {
+        int shader = glCreateShader(shaderType);
         glShaderSource(shader, shaderCode);
+        return shader;
+    }
+
+    public static void compileShader(int shader) {
         glCompileShader(shader);
 
-        int status = glGetShaderi(shader, GL_COMPILE_STATUS);
-        if (status == GL_FALSE) {
+        try {
+            checkCompileStatus(shader);
+        } catch (CompileLinkShaderException e) {
             glDeleteShader(shader);
-            throw new CompileLinkShaderException(shader);
+            throw e;
         }
+    }
 
+    /**
+     * Starts compiling the shader, without waiting for the result. Check it with checkCompileStatus, as late as
+     * possible.
+     */
+    public static int submitShader(int shaderType, String shaderCode) {
+        int shader = createShader(shaderType, shaderCode);
+        glCompileShader(shader);
         return shader;
     }
 
 
+    // Throws with the info log if the compilation failed.
+    public static void checkCompileStatus(int shader) {
+        int status = glGetShaderi(shader, GL_COMPILE_STATUS);
+        if (status == GL_FALSE) throw new CompileLinkShaderException(shader);
+    }
+
+    // Throws with the info log if the linking failed.
+    public static void checkLinkStatus(int program) {
+        int status = glGetProgrami(program, GL_LINK_STATUS);
+        if (status == GL_FALSE) throw new CompileLinkProgramException(program);
+    }
+
+
     public static int linkProgram(ArrayList<Integer> shaders) {
         int program = glCreateProgram();
         return linkProgram(program, shaders);
     }
 
-    private static int linkProgram(int program, ArrayList<Integer> shaders) {
+    public static int linkProgram(int program, ArrayList<Integer> shaders) {
         for (Integer shader : shaders) {
             glAttachShader(program, shader);
         }
 
         glLinkProgram(program);
 
-        int status = glGetProgrami(program, GL_LINK_STATUS);
-        if (status == GL_FALSE) {
+        try {
+            checkLinkStatus(program);
+        } catch (CompileLinkProgramException e) {
             glDeleteProgram(program);
-            throw new CompileLinkProgramException(program);
+            throw e;
         }
 
         for (Integer shader : shaders) {
@@ -0,0 +1,120 @@
+package integeruser.jglsdk.glutil;
+
+import org.lwjgl.opengl.GL;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static org.lwjgl.opengl.ARBParallelShaderCompile.*;
+import static org.lwjgl.opengl.GL11.GL_FALSE;
+import static org.lwjgl.opengl.GL20.*;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * Compiles and links many programs without waiting for each one: the status of every object is queried only in
+ * finish, once all the work has been handed to the driver. With ARB_parallel_shader_compile the driver compiles on
+ * its own threads, and finish polls for completion instead of blocking on the first query.
+ */
+public class ShaderBatch {
+    // Requires a current context.
+    public ShaderBatch() {
+        parallelCompile = GL.getCapabilities().GL_ARB_parallel_shader_compile;
+
+        // Let the driver pick its maximum number of threads.
+        if (parallelCompile) glMaxShaderCompilerThreadsARB(0xFFFFFFFF);
+    }
+
+    ////////////////////////////////
+    public int addShader(int shaderType, String shaderCode) {
+        int shader = Shader.submitShader(shaderType, shaderCode);
+        shaders.add(shader);
+        return shader;
+    }
+
+    /**
+     * Starts linking the shaders, which must have been submitted for compilation. The program can't be used before
+     * finish returns.
+     */
+    public int addProgram(ArrayList<Integer> programShaders) {
+        int program = glCreateProgram();
+        for (Integer shader : programShaders) {
+            glAttachShader(program, shader);
+        }
+        glLinkProgram(program);
+
+        shaders.addAll(programShaders);
+        linkedShaders.addAll(programShaders);
+        programs.add(program);
+        programsShaders.add(programShaders);
+        return program;
+    }
+
+
+    /**
+     * Waits for all the shaders and programs of the batch. If any fails, all the programs of the batch are deleted and
+     * the info log of the first failure is thrown. The shaders are not deleted.
+     */
+    public void finish() {
+        if (parallelCompile) {
+            while (!isComplete()) {
+                Thread.yield();
+            }
+        }
+
+        RuntimeException failure = null;
+        try {
+            for (Integer shader : shaders) {
+                Shader.checkCompileStatus(shader);
+            }
+            for (Integer program : programs) {
+                Shader.checkLinkStatus(program);
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+
+        // Detach before deleting: the names of deleted programs are no longer valid.
+        for (int programIx = 0; programIx < programs.size(); programIx++) {
+            for (Integer shader : programsShaders.get(programIx)) {
+                glDetachShader(programs.get(programIx), shader);
+            }
+        }
+        if (failure != null) {
+            for (Integer program : programs) {
+                glDeleteProgram(program);
+            }
+        }
+
+        shaders.clear();
+        linkedShaders.clear();
+        programs.clear();
+        programsShaders.clear();
+
+        if (failure != null) throw failure;
+    }
+
+    ////////////////////////////////
+    private boolean parallelCompile;
+
+    private Set<Integer> shaders = new LinkedHashSet<>();
+    private Set<Integer> linkedShaders = new HashSet<>();
+    private ArrayList<Integer> programs = new ArrayList<>();
+    private ArrayList<ArrayList<Integer>> programsShaders = new ArrayList<>();
+
+
+    // Linking waits for the shaders, so it's enough to check the programs, plus the shaders not linked to any.
+    private boolean isComplete() {
+        for (Integer program : programs) {
+            if (glGetProgrami(program, GL_COMPLETION_STATUS_ARB) == GL_FALSE) return false;
+        }
+        for (Integer shader : shaders) {
+            if (linkedShaders.contains(shader)) continue;
+            if (glGetShaderi(shader, GL_COMPLETION_STATUS_ARB) == GL_FALSE) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,88 @@
+package integeruser.jglsdk.glutil;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.lwjgl.opengl.GL11.GL_FALSE;
+import static org.lwjgl.opengl.GL20.*;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * Shares shader objects between programs: a stage whose source was already seen, with the same type, is compiled only
+ * once. Sources should be normalized with ShaderPreprocessor, so that layout differences don't defeat the cache. The
+ * cache owns its shaders: they must not be deleted, except through clear. Shaders that fail to compile are removed by
+ * removeFailed, so that a later program never gets a failed or deleted shader.
+ */
+public class ShaderCache {
+    /**
+     * Returns the shader with the given type and source, creating it if needed. New shaders are submitted for
+     * compilation, unless compile is false.
+     */
+    public int getShader(int shaderType, String shaderCode, boolean compile) {
+        String key = calcKey(shaderType, shaderCode);
+
+        Integer shader = shaders.get(key);
+        if (shader == null) {
+            shader = compile ? Shader.submitShader(shaderType, shaderCode) : Shader.createShader(shaderType, shaderCode);
+            shaders.put(key, shader);
+            keys.put(shader, key);
+        }
+        return shader;
+    }
+
+    /**
+     * Removes the shaders that failed to compile or were deleted, deleting those still alive. Call it with the shaders
+     * of a program whose compilation or linking failed.
+     */
+    public void removeFailed(Collection<Integer> programShaders) {
+        for (Integer shader : programShaders) {
+            if (glIsShader(shader)) {
+                if (glGetShaderi(shader, GL_COMPILE_STATUS) != GL_FALSE) continue;
+                glDeleteShader(shader);
+            }
+
+            String key = keys.remove(shader);
+            if (key != null) shaders.remove(key);
+        }
+    }
+
+
+    public int size() {
+        return shaders.size();
+    }
+
+    // Programs linked with the shaders are not affected.
+    public void clear() {
+        for (Integer shader : shaders.values()) {
+            glDeleteShader(shader);
+        }
+        shaders.clear();
+        keys.clear();
+    }
+
+    ////////////////////////////////
+    private Map<String, Integer> shaders = new HashMap<>();
+    private Map<Integer, String> keys = new HashMap<>();
+
+
+    private static String calcKey(int shaderType, String shaderCode) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+
+        StringBuilder key = new StringBuilder(String.format("%04x_", shaderType));
+        for (byte b : digest.digest(shaderCode.getBytes(StandardCharsets.UTF_8))) {
+            key.append(String.format("%02x", b));
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,133 @@
+package integeruser.jglsdk.glutil;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * Expands #include "file" directives and adds #define lines after the #version one, so that a single source can be
+ * compiled in several variants. The output is normalized: comments, indentation and blank lines are removed and
+ * whitespace is collapsed, so that sources differing only in layout produce the same text.
+ */
+public class ShaderPreprocessor {
+    public interface SourceLoader {
+        String loadSource(String fileName);
+    }
+
+    ////////////////////////////////
+    public ShaderPreprocessor(SourceLoader sourceLoader) {
+        this.sourceLoader = sourceLoader;
+    }
+
+    ////////////////////////////////
+    /**
+     * Returns the normalized source of the file, with its includes expanded and the defines added. A define with an
+     * empty value is defined without one.
+     */
+    public String process(String fileName, Map<String, String> defines) {
+        ArrayList<String> lines = new ArrayList<>();
+        expandFile(fileName, lines, new ArrayDeque<>());
+
+        ArrayList<String> defineLines = new ArrayList<>();
+        for (Map.Entry<String, String> define : new TreeMap<>(defines).entrySet()) {
+            if (!IDENTIFIER.matcher(define.getKey()).matches()) {
+                throw new IllegalArgumentException("Invalid define name: " + define.getKey());
+            }
+
+            String value = normalizeLine(define.getValue());
+            defineLines.add(value.isEmpty() ? "#define " + define.getKey() : "#define " + define.getKey() + " " + value);
+        }
+
+        // The version must come before anything else.
+        int versionLineIx = 0;
+        while (versionLineIx < lines.size() && !VERSION.matcher(lines.get(versionLineIx)).matches()) {
+            versionLineIx++;
+        }
+        lines.addAll(versionLineIx < lines.size() ? versionLineIx + 1 : 0, defineLines);
+
+        StringBuilder source = new StringBuilder();
+        for (String line : lines) {
+            source.append(line).append('\n');
+        }
+        return source.toString();
+    }
+
+
+    public static String normalize(String source) {
+        StringBuilder normalizedSource = new StringBuilder();
+        for (String line : stripComments(source).split("\r\n|\r|\n")) {
+            line = normalizeLine(line);
+            if (!line.isEmpty()) normalizedSource.append(line).append('\n');
+        }
+        return normalizedSource.toString();
+    }
+
+    ////////////////////////////////
+    private static final Pattern INCLUDE = Pattern.compile("#\\s*include\\s*[\"<]([^\">]+)[\">]");
+    private static final Pattern VERSION = Pattern.compile("#\\s*version\\b.*");
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+    private static final Pattern WHITESPACE = Pattern.compile("[ \t\f]+");
+
+
+    private SourceLoader sourceLoader;
+
+
+    private void expandFile(String fileName, ArrayList<String> lines, Deque<String> includeStack) {
+        if (includeStack.contains(fileName)) {
+            throw new RuntimeException("Recursive include of " + fileName + " from " + includeStack.peek());
+        }
+        includeStack.push(fileName);
+
+        for (String line : normalize(sourceLoader.loadSource(fileName)).split("\n")) {
+            Matcher includeMatcher = INCLUDE.matcher(line);
+            if (includeMatcher.matches()) {
+                expandFile(includeMatcher.group(1), lines, includeStack);
+            } else if (!line.isEmpty()) {
+                lines.add(line);
+            }
+        }
+
+        includeStack.pop();
+    }
+
+
+    private static String normalizeLine(String line) {
+        return WHITESPACE.matcher(line).replaceAll(" ").trim();
+    }
+
+    // Comments are replaced by a space, as the GLSL preprocessor does.
+    private static String stripComments(String source) {
+        StringBuilder strippedSource = new StringBuilder(source.length());
+
+        int charIx = 0;
+        while (charIx < source.length()) {
+            char c = source.charAt(charIx);
+            char next = charIx + 1 < source.length() ? source.charAt(charIx + 1) : 0;
+
+            if (c == '/' && next == '/') {
+                while (charIx < source.length() && source.charAt(charIx) != '\n' && source.charAt(charIx) != '\r') {
+                    charIx++;
+                }
+                strippedSource.append(' ');
+            } else if (c == '/' && next == '*') {
+                int endIx = source.indexOf("*/", charIx + 2);
+                if (endIx == -1) throw new RuntimeException("Unterminated comment in shader source.");
+
+                strippedSource.append(' ');
+                charIx = endIx + 2;
+            } else {
+                strippedSource.append(c);
+                charIx++;
+            }
+        }
+
+        return strippedSource.toString();
+    }
+}
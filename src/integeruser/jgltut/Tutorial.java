@@ -4,6 +4,10 @@ import integeruser.jgltut.commons.LightBlock;
 import integeruser.jgltut.commons.MaterialBlock;
 import integeruser.jgltut.commons.ProjectionBlock;
 import integeruser.jgltut.commons.UnprojectionBlock;
+import integeruser.jgltut.framework.Clock;
+import integeruser.jgltut.framework.FixedStepScheduler;
+import integeruser.jgltut.framework.FrameProfiler;
+import integeruser.jgltut.framework.Framework;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.LWJGLUtil;
 import org.lwjgl.glfw.*;
@@ -37,12 +41,19 @@ public abstract class Tutorial {
     private GLFWErrorCallback errorCallback;
     private GLFWFramebufferSizeCallback framebufferSizeCallback;
 
-    // Measured in seconds
+    // After a long stall, the steps beyond it are dropped rather than run in one frame.
+    private static final int MAX_FIXED_STEPS_PER_FRAME = 8;
+    private static final long TITLE_REFRESH_NANOS = Clock.NANOS_PER_SECOND / 2;
+
+    // Ticked once per frame, before update. Timers registered with it are advanced by it.
+    protected final Clock clock = new Clock();
+    protected final FixedStepScheduler fixedStepScheduler = new FixedStepScheduler(
+            Clock.NANOS_PER_SECOND / Framework.FIXED_STEP_RATE, MAX_FIXED_STEPS_PER_FRAME);
+
+    // Measured in seconds, from the clock. Float copies for the tutorials: use the clock for long-running animations.
     protected float elapsedTime;
     protected float lastFrameDuration;
 
-    private double lastFrameTimestamp;
-
     protected FloatBuffer vec4Buffer = BufferUtils.createFloatBuffer(4);
     protected FloatBuffer mat3Buffer = BufferUtils.createFloatBuffer(9);
     protected FloatBuffer mat4Buffer = BufferUtils.createFloatBuffer(16);
@@ -78,22 +89,59 @@ public abstract class Tutorial {
                 }
             });
 
+            FrameProfiler profiler = Framework.getFrameProfiler();
+            int frameScope = profiler.getScope("frame");
+            int updateScope = profiler.getScope("update");
+            int displayScope = profiler.getScope("display");
+            int swapScope = profiler.getScope("swap");
+            int pollScope = profiler.getScope("poll");
+            long lastTitleNanos = 0;
+
             // Start main loop
-            long startTime = System.nanoTime();
             while (glfwWindowShouldClose(window) == GL_FALSE) {
-                elapsedTime = (float) ((System.nanoTime() - startTime) / 1000000000.0);
-
-                double now = System.nanoTime();
-                lastFrameDuration = (float) ((now - lastFrameTimestamp) / 1000000000.0);
-                lastFrameTimestamp = now;
-
+                profiler.beginCpu(frameScope);
+                clock.tick();
+                elapsedTime = (float) clock.getTime();
+                lastFrameDuration = (float) clock.getDelta();
+
+                profiler.beginCpu(updateScope);
+                int steps = fixedStepScheduler.advance(clock.getDeltaNanos());
+                for (int step = 0; step < steps; step++) {
+                    fixedUpdate();
+                }
                 update();
+                profiler.endCpu(updateScope);
+
+                profiler.beginCpu(displayScope);
                 display();
+                Framework.getTextureResidency().endFrame();
+                profiler.endCpu(displayScope);
 
+                profiler.beginCpu(swapScope);
                 glfwSwapBuffers(window);
+                profiler.endCpu(swapScope);
+
+                profiler.beginCpu(pollScope);
                 glfwPollEvents();
+                profiler.endCpu(pollScope);
+
+                profiler.endFrame();
+                profiler.endCpu(frameScope);
+
+                if (Framework.PROFILE_TITLE && clock.getRealTimeNanos() - lastTitleNanos > TITLE_REFRESH_NANOS) {
+                    lastTitleNanos = clock.getRealTimeNanos();
+                    glfwSetWindowTitle(window, getClass().getSimpleName() + " - p50/p95/p99: "
+                            + profiler.getRecentSummary(frameScope, false) + ", "
+                            + profiler.getRecentSummary(displayScope, false));
+                }
             }
 
+            if (Framework.PROFILE_PATH != null) {
+                profiler.export(Framework.PROFILE_PATH);
+                System.out.format("%-18s%s\n", "Profile:", Framework.PROFILE_PATH);
+            }
+            profiler.release();
+
             glfwDestroyWindow(window);
             keyCallback.release();
             if (mouseCallback != null) mouseCallback.release();
@@ -173,6 +221,13 @@ public abstract class Tutorial {
 
     protected abstract void update();
 
+    /**
+     * Called every fixedStepScheduler.getStepSeconds() of clock time, zero or more times per frame before update.
+     * The part of a step left for the next frame is fixedStepScheduler.getAlpha().
+     */
+    protected void fixedUpdate() {
+    }
+
     ////////////////////////////////
 
     protected final boolean isKeyPressed(int key) {
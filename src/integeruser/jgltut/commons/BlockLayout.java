@@ -0,0 +1,419 @@
+package integeruser.jgltut.commons;
+
+import org.joml.Matrix3f;
+import org.joml.Matrix4f;
+import org.joml.Vector2i;
+import org.joml.Vector3f;
+import org.joml.Vector4f;
+import org.lwjgl.BufferUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.lwjgl.opengl.GL31.*;
+import static org.lwjgl.system.MemoryUtil.memAddress;
+import static org.lwjgl.system.MemoryUtil.memPutFloat;
+import static org.lwjgl.system.MemoryUtil.memPutInt;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * The memory layout of a uniform or storage block, computed with the std140 or std430 rules from a list of members,
+ * declared in the same order as in GLSL. Each member comes with a function reading its value from a Java object, so
+ * that the layout can write the whole block: the offsets are computed once, and writing only stores the values at
+ * their offsets, without moving the position of the buffer, checking each store, or allocating.
+ * <p>
+ * A layout can also be checked against the offsets the driver reports for a block of a linked program.
+ */
+public class BlockLayout<T> {
+    public enum Packing {
+        STD140,
+        STD430
+    }
+
+    public interface FloatGetter<T> {
+        float get(T block);
+    }
+
+    public interface IntGetter<T> {
+        int get(T block);
+    }
+
+
+    public static class Builder<T> {
+        public Builder(Packing packing) {
+            this.packing = packing;
+            alignment = packing == Packing.STD140 ? VEC4_ALIGNMENT : 0;
+        }
+
+        ////////////////////////////////
+        public Builder<T> floatMember(String name, FloatGetter<T> getter) {
+            int offset = addMember(name, Float.BYTES, Float.BYTES, null, 0, 0);
+            writers.add((block, buffer, address, base) -> putFloat(buffer, address, base + offset, getter.get(block)));
+            return this;
+        }
+
+        public Builder<T> intMember(String name, IntGetter<T> getter) {
+            int offset = addMember(name, Integer.BYTES, Integer.BYTES, null, 0, 0);
+            writers.add((block, buffer, address, base) -> putInt(buffer, address, base + offset, getter.get(block)));
+            return this;
+        }
+
+        public Builder<T> ivec2(String name, Function<T, Vector2i> getter) {
+            int offset = addMember(name, 2 * Integer.BYTES, 2 * Integer.BYTES, null, 0, 0);
+            writers.add((block, buffer, address, base) -> {
+                Vector2i vector = getter.apply(block);
+                putInt(buffer, address, base + offset, vector.x);
+                putInt(buffer, address, base + offset + 4, vector.y);
+            });
+            return this;
+        }
+
+        public Builder<T> vec3(String name, Function<T, Vector3f> getter) {
+            int offset = addMember(name, VEC4_ALIGNMENT, 3 * Float.BYTES, null, 0, 0);
+            writers.add((block, buffer, address, base) -> putVec3(buffer, address, base + offset, getter.apply(block)));
+            return this;
+        }
+
+        public Builder<T> vec4(String name, Function<T, Vector4f> getter) {
+            int offset = addMember(name, VEC4_ALIGNMENT, 4 * Float.BYTES, null, 0, 0);
+            writers.add((block, buffer, address, base) -> {
+                Vector4f vector = getter.apply(block);
+                putFloat(buffer, address, base + offset, vector.x);
+                putFloat(buffer, address, base + offset + 4, vector.y);
+                putFloat(buffer, address, base + offset + 8, vector.z);
+                putFloat(buffer, address, base + offset + 12, vector.w);
+            });
+            return this;
+        }
+
+        // Column-major: each column takes the space of a vec4, with both packings.
+        public Builder<T> mat3(String name, Function<T, Matrix3f> getter) {
+            int offset = addMember(name, VEC4_ALIGNMENT, 3 * VEC4_ALIGNMENT, null, 0, 0);
+            writers.add((block, buffer, address, base) -> {
+                Matrix3f matrix = getter.apply(block);
+                putVec3(buffer, address, base + offset, matrix.m00, matrix.m01, matrix.m02);
+                putVec3(buffer, address, base + offset + 16, matrix.m10, matrix.m11, matrix.m12);
+                putVec3(buffer, address, base + offset + 32, matrix.m20, matrix.m21, matrix.m22);
+            });
+            return this;
+        }
+
+        public Builder<T> mat4(String name, Function<T, Matrix4f> getter) {
+            int offset = addMember(name, VEC4_ALIGNMENT, 4 * VEC4_ALIGNMENT, null, 0, 0);
+            writers.add((block, buffer, address, base) -> {
+                Matrix4f matrix = getter.apply(block);
+                putFloat(buffer, address, base + offset, matrix.m00);
+                putFloat(buffer, address, base + offset + 4, matrix.m01);
+                putFloat(buffer, address, base + offset + 8, matrix.m02);
+                putFloat(buffer, address, base + offset + 12, matrix.m03);
+                putFloat(buffer, address, base + offset + 16, matrix.m10);
+                putFloat(buffer, address, base + offset + 20, matrix.m11);
+                putFloat(buffer, address, base + offset + 24, matrix.m12);
+                putFloat(buffer, address, base + offset + 28, matrix.m13);
+                putFloat(buffer, address, base + offset + 32, matrix.m20);
+                putFloat(buffer, address, base + offset + 36, matrix.m21);
+                putFloat(buffer, address, base + offset + 40, matrix.m22);
+                putFloat(buffer, address, base + offset + 44, matrix.m23);
+                putFloat(buffer, address, base + offset + 48, matrix.m30);
+                putFloat(buffer, address, base + offset + 52, matrix.m31);
+                putFloat(buffer, address, base + offset + 56, matrix.m32);
+                putFloat(buffer, address, base + offset + 60, matrix.m33);
+            });
+            return this;
+        }
+
+        public <S> Builder<T> struct(String name, BlockLayout<S> structLayout, Function<T, S> getter) {
+            checkPacking(structLayout);
+
+            int offset = addMember(name, structLayout.alignment, structLayout.size, structLayout, 0, 0);
+            writers.add((block, buffer, address, base) -> {
+                S struct = getter.apply(block);
+                if (struct != null) structLayout.writeStruct(struct, buffer, address, base + offset);
+            });
+            return this;
+        }
+
+        /**
+         * The writer stops at the first null element, leaving the following ones as they are in the buffer.
+         */
+        public <S> Builder<T> structArray(String name, BlockLayout<S> structLayout, int length, Function<T, S[]> getter) {
+            checkPacking(structLayout);
+
+            // The size of a struct is already rounded up to its alignment.
+            int stride = structLayout.size;
+            int offset = addMember(name, structLayout.alignment, stride * length, structLayout, length, stride);
+            writers.add((block, buffer, address, base) -> {
+                S[] structs = getter.apply(block);
+                int count = Math.min(structs.length, length);
+                for (int structIx = 0; structIx < count; structIx++) {
+                    if (structs[structIx] == null) break;
+                    structLayout.writeStruct(structs[structIx], buffer, address, base + offset + structIx * stride);
+                }
+            });
+            return this;
+        }
+
+
+        public BlockLayout<T> build() {
+            // The size of a block, or of a struct, is rounded up to its alignment, which with std140 is at least the
+            // one of a vec4.
+            int blockAlignment = Math.max(alignment, Float.BYTES);
+            return new BlockLayout<>(packing, blockAlignment, alignUp(end, blockAlignment), members, writers);
+        }
+
+        ////////////////////////////////
+        private Packing packing;
+        private int alignment;
+        private int end;
+
+        private Map<String, Member> members = new HashMap<>();
+        private ArrayList<MemberWriter<T>> writers = new ArrayList<>();
+
+
+        private int addMember(String name, int memberAlignment, int memberSize, BlockLayout<?> structLayout,
+                              int arrayLength, int arrayStride) {
+            if (members.containsKey(name)) throw new IllegalArgumentException("Duplicate member: " + name);
+
+            // With std140, arrays and structs are aligned at least like a vec4, and so is the member following them.
+            if (packing == Packing.STD140 && (structLayout != null || arrayLength > 0)) {
+                memberAlignment = Math.max(memberAlignment, VEC4_ALIGNMENT);
+            }
+
+            int offset = alignUp(end, memberAlignment);
+            members.put(name, new Member(offset, structLayout, arrayLength, arrayStride));
+
+            end = offset + memberSize;
+            if (packing == Packing.STD140 && (structLayout != null || arrayLength > 0)) {
+                end = alignUp(end, VEC4_ALIGNMENT);
+            }
+            alignment = Math.max(alignment, memberAlignment);
+            return offset;
+        }
+
+        private void checkPacking(BlockLayout<?> structLayout) {
+            if (structLayout.packing != packing) {
+                throw new IllegalArgumentException("The struct uses " + structLayout.packing + ", not " + packing);
+            }
+        }
+    }
+
+    ////////////////////////////////
+    public Packing getPacking() {
+        return packing;
+    }
+
+    // Including the padding at the end: the stride of an array of these blocks.
+    public int getSize() {
+        return size;
+    }
+
+    public int getAlignment() {
+        return alignment;
+    }
+
+    /**
+     * Returns the offset of a member, named like in GLSL: for example ambientIntensity, lights[2] or
+     * lights[2].lightIntensity.
+     */
+    public int getOffset(String memberPath) {
+        int offset = findOffset(memberPath);
+        if (offset == -1) throw new IllegalArgumentException("No member named " + memberPath);
+        return offset;
+    }
+
+
+    /**
+     * Writes the block at the position of the buffer, which must have getSize bytes remaining. The position is moved
+     * past the block.
+     */
+    public ByteBuffer write(T block, ByteBuffer buffer) {
+        int position = buffer.position();
+        if (buffer.remaining() < size) {
+            throw new IllegalArgumentException("The buffer has " + buffer.remaining() + " bytes left, " + size + " needed.");
+        }
+
+        writeStruct(block, buffer, buffer.isDirect() ? memAddress(buffer, 0) : 0, position);
+        buffer.position(position + size);
+        return buffer;
+    }
+
+
+    /**
+     * Checks the layout against the offsets of the active members of a uniform block of the program, and the size of
+     * the block, as reported by the driver. Members declared only in Java are ignored.
+     */
+    public void validate(int program, String blockName) {
+        int blockIndex = glGetUniformBlockIndex(program, blockName);
+        if (blockIndex == GL_INVALID_INDEX) {
+            throw new BlockLayoutMismatchException(blockName, "The program " + program + " has no such uniform block.");
+        }
+
+        int blockSize = glGetActiveUniformBlocki(program, blockIndex, GL_UNIFORM_BLOCK_DATA_SIZE);
+        if (blockSize > size) {
+            throw new BlockLayoutMismatchException(blockName, "The block takes " + blockSize + " bytes, not " + size + ".");
+        }
+
+        int uniformCount = glGetActiveUniformBlocki(program, blockIndex, GL_UNIFORM_BLOCK_ACTIVE_UNIFORMS);
+        IntBuffer uniformIndices = BufferUtils.createIntBuffer(uniformCount);
+        glGetActiveUniformBlockiv(program, blockIndex, GL_UNIFORM_BLOCK_ACTIVE_UNIFORM_INDICES, uniformIndices);
+
+        for (int uniformIx = 0; uniformIx < uniformCount; uniformIx++) {
+            int uniformIndex = uniformIndices.get(uniformIx);
+            String uniformName = glGetActiveUniformName(program, uniformIndex);
+            int uniformOffset = glGetActiveUniformsi(program, uniformIndex, GL_UNIFORM_OFFSET);
+
+            // Members of blocks with an instance name are prefixed by the block name.
+            String memberPath = uniformName.startsWith(blockName + ".")
+                    ? uniformName.substring(blockName.length() + 1)
+                    : uniformName;
+
+            int offset = findOffset(memberPath);
+            if (offset == -1 && memberPath.endsWith("[0]")) {
+                // Arrays of basic types are reported by their first element.
+                offset = findOffset(memberPath.substring(0, memberPath.length() - 3));
+            }
+
+            if (offset == -1) {
+                throw new BlockLayoutMismatchException(blockName, "The member " + memberPath + " is not in the layout.");
+            }
+            if (offset != uniformOffset) {
+                throw new BlockLayoutMismatchException(blockName, "The member " + memberPath + " is at offset "
+                        + uniformOffset + ", not " + offset + ".");
+            }
+        }
+    }
+
+    ////////////////////////////////
+    private static final int VEC4_ALIGNMENT = 4 * Float.BYTES;
+
+
+    private Packing packing;
+    private int alignment;
+    private int size;
+
+    private Map<String, Member> members;
+    private MemberWriter<T>[] writers;
+
+
+    private static class Member {
+        Member(int offset, BlockLayout<?> structLayout, int arrayLength, int arrayStride) {
+            this.offset = offset;
+            this.structLayout = structLayout;
+            this.arrayLength = arrayLength;
+            this.arrayStride = arrayStride;
+        }
+
+        ////////////////////////////////
+        private int offset;
+        private BlockLayout<?> structLayout;
+        private int arrayLength;
+        private int arrayStride;
+    }
+
+    private interface MemberWriter<T> {
+        // The address is 0 if the buffer is not direct; the offset is from the start of the buffer.
+        void write(T block, ByteBuffer buffer, long address, int offset);
+    }
+
+
+    private static class BlockLayoutMismatchException extends RuntimeException {
+        private static final long serialVersionUID = 4628137503417734519L;
+
+        private BlockLayoutMismatchException(String blockName, String message) {
+            super("Uniform block " + blockName + ": " + message);
+        }
+    }
+
+    ////////////////////////////////
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private BlockLayout(Packing packing, int alignment, int size, Map<String, Member> members,
+                        ArrayList<MemberWriter<T>> writers) {
+        this.packing = packing;
+        this.alignment = alignment;
+        this.size = size;
+        this.members = new HashMap<>(members);
+        this.writers = writers.toArray(new MemberWriter[writers.size()]);
+    }
+
+
+    private void writeStruct(T block, ByteBuffer buffer, long address, int offset) {
+        for (MemberWriter<T> writer : writers) {
+            writer.write(block, buffer, address, offset);
+        }
+    }
+
+    // Returns -1 if there is no such member.
+    private int findOffset(String memberPath) {
+        int nameEnd = 0;
+        while (nameEnd < memberPath.length() && memberPath.charAt(nameEnd) != '[' && memberPath.charAt(nameEnd) != '.') {
+            nameEnd++;
+        }
+
+        Member member = members.get(memberPath.substring(0, nameEnd));
+        if (member == null) return -1;
+
+        int offset = member.offset;
+        String rest = memberPath.substring(nameEnd);
+
+        if (rest.startsWith("[")) {
+            int indexEnd = rest.indexOf(']');
+            if (member.arrayLength == 0 || indexEnd == -1) return -1;
+
+            int elementIx;
+            try {
+                elementIx = Integer.parseInt(rest.substring(1, indexEnd));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+            if (elementIx < 0 || elementIx >= member.arrayLength) return -1;
+
+            offset += elementIx * member.arrayStride;
+            rest = rest.substring(indexEnd + 1);
+        } else if (member.arrayLength > 0 && !rest.isEmpty()) {
+            return -1;
+        }
+
+        if (rest.isEmpty()) return offset;
+        if (!rest.startsWith(".") || member.structLayout == null) return -1;
+
+        int structOffset = member.structLayout.findOffset(rest.substring(1));
+        return structOffset == -1 ? -1 : offset + structOffset;
+    }
+
+
+    private static int alignUp(int offset, int alignment) {
+        return (offset + alignment - 1) / alignment * alignment;
+    }
+
+    private static void putFloat(ByteBuffer buffer, long address, int offset, float value) {
+        if (address != 0) {
+            memPutFloat(address + offset, value);
+        } else {
+            buffer.putFloat(offset, value);
+        }
+    }
+
+    private static void putInt(ByteBuffer buffer, long address, int offset, int value) {
+        if (address != 0) {
+            memPutInt(address + offset, value);
+        } else {
+            buffer.putInt(offset, value);
+        }
+    }
+
+    private static void putVec3(ByteBuffer buffer, long address, int offset, Vector3f vector) {
+        putVec3(buffer, address, offset, vector.x, vector.y, vector.z);
+    }
+
+    private static void putVec3(ByteBuffer buffer, long address, int offset, float x, float y, float z) {
+        putFloat(buffer, address, offset, x);
+        putFloat(buffer, address, offset + 4, y);
+        putFloat(buffer, address, offset + 8, z);
+    }
+}
@@ -10,30 +10,22 @@ import java.nio.ByteBuffer;
  */
 public class LightBlock implements Bufferable {
     public static final int MAX_NUMBER_OF_LIGHTS = 5;
-    public static final int SIZE_IN_BYTES = Float.BYTES * (4 + 1 + 1 + 2) + PerLight.SIZE_IN_BYTES * MAX_NUMBER_OF_LIGHTS;
+
+    public static final BlockLayout<LightBlock> LAYOUT = new BlockLayout.Builder<LightBlock>(BlockLayout.Packing.STD140)
+            .vec4("ambientIntensity", block -> block.ambientIntensity)
+            .floatMember("lightAttenuation", block -> block.lightAttenuation)
+            .floatMember("maxIntensity", block -> block.maxIntensity)
+            .structArray("lights", PerLight.LAYOUT, MAX_NUMBER_OF_LIGHTS, block -> block.lights)
+            .build();
+    public static final int SIZE_IN_BYTES = LAYOUT.getSize();
 
     public Vector4f ambientIntensity;
     public float lightAttenuation;
     public float maxIntensity;
-    public float padding[] = new float[2];
     public PerLight lights[] = new PerLight[MAX_NUMBER_OF_LIGHTS];
 
     @Override
     public ByteBuffer get(ByteBuffer buffer) {
-        ambientIntensity.get(buffer);
-        buffer.position(buffer.position() + Float.BYTES * 4);
-
-        buffer.putFloat(lightAttenuation);
-
-        buffer.putFloat(maxIntensity);
-
-        buffer.putFloat(padding[0]);
-        buffer.putFloat(padding[1]);
-
-        for (PerLight light : lights) {
-            if (light == null) break;
-            light.get(buffer);
-        }
-        return buffer;
+        return LAYOUT.write(this, buffer);
     }
 }
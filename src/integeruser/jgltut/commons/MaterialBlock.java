@@ -9,26 +9,19 @@ import java.nio.ByteBuffer;
  * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
  */
 public class MaterialBlock implements Bufferable {
-    public static final int SIZE_IN_BYTES = Float.BYTES * (4 + 4 + 1 + 3);
+    public static final BlockLayout<MaterialBlock> LAYOUT = new BlockLayout.Builder<MaterialBlock>(BlockLayout.Packing.STD140)
+            .vec4("diffuseColor", block -> block.diffuseColor)
+            .vec4("specularColor", block -> block.specularColor)
+            .floatMember("specularShininess", block -> block.specularShininess)
+            .build();
+    public static final int SIZE_IN_BYTES = LAYOUT.getSize();
 
     public Vector4f diffuseColor;
     public Vector4f specularColor;
     public float specularShininess;
-    public float padding[] = new float[3];
 
     @Override
     public ByteBuffer get(ByteBuffer buffer) {
-        diffuseColor.get(buffer);
-        buffer.position(buffer.position() + Float.BYTES * 4);
-
-        specularColor.get(buffer);
-        buffer.position(buffer.position() + Float.BYTES * 4);
-
-        buffer.putFloat(specularShininess);
-
-        buffer.putFloat(padding[0]);
-        buffer.putFloat(padding[1]);
-        buffer.putFloat(padding[2]);
-        return buffer;
+        return LAYOUT.write(this, buffer);
     }
 }
@@ -9,18 +9,17 @@ import java.nio.ByteBuffer;
  * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
  */
 public class PerLight implements Bufferable {
-    public static final int SIZE_IN_BYTES = Float.BYTES * (4 + 4);
+    public static final BlockLayout<PerLight> LAYOUT = new BlockLayout.Builder<PerLight>(BlockLayout.Packing.STD140)
+            .vec4("cameraSpaceLightPos", light -> light.cameraSpaceLightPos)
+            .vec4("lightIntensity", light -> light.lightIntensity)
+            .build();
+    public static final int SIZE_IN_BYTES = LAYOUT.getSize();
 
     public Vector4f cameraSpaceLightPos;
     public Vector4f lightIntensity;
 
     @Override
     public ByteBuffer get(ByteBuffer buffer) {
-        cameraSpaceLightPos.get(buffer);
-        buffer.position(buffer.position() + Float.BYTES * 4);
-
-        lightIntensity.get(buffer);
-        buffer.position(buffer.position() + Float.BYTES * 4);
-        return buffer;
+        return LAYOUT.write(this, buffer);
     }
 }
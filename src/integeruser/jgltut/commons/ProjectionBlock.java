@@ -9,14 +9,15 @@ import java.nio.ByteBuffer;
  * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
  */
 public class ProjectionBlock implements Bufferable {
-    public static final int SIZE_IN_BYTES = Float.BYTES * (16);
+    public static final BlockLayout<ProjectionBlock> LAYOUT = new BlockLayout.Builder<ProjectionBlock>(BlockLayout.Packing.STD140)
+            .mat4("cameraToClipMatrix", block -> block.cameraToClipMatrix)
+            .build();
+    public static final int SIZE_IN_BYTES = LAYOUT.getSize();
 
     public Matrix4f cameraToClipMatrix;
 
     @Override
     public ByteBuffer get(ByteBuffer buffer) {
-        cameraToClipMatrix.get(buffer);
-        buffer.position(buffer.position() + Float.BYTES * 16);
-        return buffer;
+        return LAYOUT.write(this, buffer);
     }
 }
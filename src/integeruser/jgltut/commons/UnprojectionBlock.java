@@ -10,18 +10,17 @@ import java.nio.ByteBuffer;
  * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
  */
 public class UnprojectionBlock implements Bufferable {
-    public static final int SIZE_IN_BYTES = Float.BYTES * (16) + Integer.BYTES * (2);
+    public static final BlockLayout<UnprojectionBlock> LAYOUT = new BlockLayout.Builder<UnprojectionBlock>(BlockLayout.Packing.STD140)
+            .mat4("clipToCameraMatrix", block -> block.clipToCameraMatrix)
+            .ivec2("windowSize", block -> block.windowSize)
+            .build();
+    public static final int SIZE_IN_BYTES = LAYOUT.getSize();
 
     public Matrix4f clipToCameraMatrix;
     public Vector2i windowSize;
 
     @Override
     public ByteBuffer get(ByteBuffer buffer) {
-        clipToCameraMatrix.get(buffer);
-        buffer.position(buffer.position() + Float.BYTES * 16);
-
-        windowSize.get(buffer);
-        buffer.position(buffer.position() + Integer.BYTES * 2);
-        return buffer;
+        return LAYOUT.write(this, buffer);
     }
 }
@@ -0,0 +1,184 @@
+package integeruser.jgltut.framework;
+
+import integeruser.jglsdk.glimg.ImageFiles;
+import integeruser.jglsdk.glimg.ImageSet;
+import integeruser.jglsdk.glimg.ImageSetCache;
+import integeruser.jglsdk.glimg.ResolutionPolicy;
+import integeruser.jglsdk.glutil.ShaderPreprocessor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * Where and how the files of a tutorial are loaded: the folders searched, in order, the asset pack, the image loaders,
+ * the resolution policy and the texture cache. A context is immutable, so it can be shared by loader threads, and
+ * tutorials running side by side in the same JVM each use their own. The with methods return a modified copy.
+ * <p>
+ * GL objects are not part of it: they belong to the GL context current on the thread creating them.
+ */
+public class AssetContext {
+    public AssetContext(String... searchPaths) {
+        this(Arrays.asList(searchPaths), null, Collections.emptyMap(), ResolutionPolicy.getGlobal(), null);
+    }
+
+    ////////////////////////////////
+    // The folder is searched after the others.
+    public AssetContext withSearchPath(String searchPath) {
+        List<String> newSearchPaths = new ArrayList<>(searchPaths);
+        newSearchPaths.add(searchPath);
+        return new AssetContext(newSearchPaths, assetPack, imageLoaders, resolutionPolicy, textureCache);
+    }
+
+    // Files not in the pack are read from the classpath. Null to only use the classpath.
+    public AssetContext withAssetPack(AssetPack assetPack) {
+        return new AssetContext(searchPaths, assetPack, imageLoaders, resolutionPolicy, textureCache);
+    }
+
+    public AssetContext withImageLoader(String fileExtension, ImageSetCache.Loader loader) {
+        return withImageLoaders(Collections.singletonMap(fileExtension, loader));
+    }
+
+    // The loaders replace the ones already registered for the same extensions.
+    public AssetContext withImageLoaders(Map<String, ImageSetCache.Loader> loaders) {
+        Map<String, ImageSetCache.Loader> newImageLoaders = new HashMap<>(imageLoaders);
+        for (Map.Entry<String, ImageSetCache.Loader> loader : loaders.entrySet()) {
+            newImageLoaders.put(loader.getKey().toLowerCase(Locale.ROOT), loader.getValue());
+        }
+        return new AssetContext(searchPaths, assetPack, newImageLoaders, resolutionPolicy, textureCache);
+    }
+
+    public AssetContext withResolutionPolicy(ResolutionPolicy resolutionPolicy) {
+        return new AssetContext(searchPaths, assetPack, imageLoaders, resolutionPolicy, textureCache);
+    }
+
+    // Null to disable the cache.
+    public AssetContext withTextureCache(ImageSetCache textureCache) {
+        return new AssetContext(searchPaths, assetPack, imageLoaders, resolutionPolicy, textureCache);
+    }
+
+
+    public List<String> getSearchPaths() {
+        return searchPaths;
+    }
+
+    public AssetPack getAssetPack() {
+        return assetPack;
+    }
+
+    public ResolutionPolicy getResolutionPolicy() {
+        return resolutionPolicy;
+    }
+
+    public ImageSetCache getTextureCache() {
+        return textureCache;
+    }
+
+    ////////////////////////////////
+    public String findFileOrThrow(String fileName) {
+        for (String searchPath : searchPaths) {
+            if (fileExists(searchPath + fileName)) return searchPath + fileName;
+        }
+
+        throw new RuntimeException("Could not find the file " + fileName);
+    }
+
+    /**
+     * Opens a file returned by findFileOrThrow, from the asset pack if there is one.
+     */
+    public InputStream openFile(String filePath) throws IOException {
+        if (assetPack != null && assetPack.contains(filePath)) return assetPack.openFile(filePath);
+
+        InputStream fileStream = ClassLoader.class.getResourceAsStream(filePath);
+        if (fileStream == null) throw new IOException("Could not open the file " + filePath);
+        return fileStream;
+    }
+
+
+    /**
+     * Returns the source of the shader, with its includes expanded and the defines added. Includes are searched like
+     * the shader itself.
+     */
+    public String preprocessShader(String shaderFilename, Map<String, String> defines) {
+        return shaderPreprocessor.process(shaderFilename, defines);
+    }
+
+
+    /**
+     * Returns the loader registered for the extension of the file (without the dot), or null if there is none.
+     */
+    public ImageSetCache.Loader getImageLoader(String fileExtension) {
+        return imageLoaders.get(fileExtension.toLowerCase(Locale.ROOT));
+    }
+
+    public ImageSet loadImageSet(String filePath, int forceConvertBits, ImageSetCache.Loader loader) throws IOException {
+        return loadImageSet(filePath, forceConvertBits, resolutionPolicy, loader);
+    }
+
+    public ImageSet loadImageSet(String filePath, int forceConvertBits, ResolutionPolicy resolutionPolicy,
+                                 ImageSetCache.Loader loader) throws IOException {
+        // The loaders read from the pack of this context, whatever the other threads use.
+        ImageFiles.Provider previousProvider = ImageFiles.setThreadProvider(assetPack == null ? null : assetPack::findFile);
+        try {
+            if (textureCache == null) return loader.loadFromFile(filePath, resolutionPolicy);
+            return textureCache.loadFromFile(filePath, forceConvertBits, resolutionPolicy, loader);
+        } finally {
+            ImageFiles.setThreadProvider(previousProvider);
+        }
+    }
+
+    ////////////////////////////////
+    private final List<String> searchPaths;
+    private final AssetPack assetPack;
+    private final Map<String, ImageSetCache.Loader> imageLoaders;
+    private final ResolutionPolicy resolutionPolicy;
+    private final ImageSetCache textureCache;
+
+    private final ShaderPreprocessor shaderPreprocessor;
+
+    ////////////////////////////////
+    private AssetContext(List<String> searchPaths, AssetPack assetPack, Map<String, ImageSetCache.Loader> imageLoaders,
+                         ResolutionPolicy resolutionPolicy, ImageSetCache textureCache) {
+        this.searchPaths = Collections.unmodifiableList(new ArrayList<>(searchPaths));
+        this.assetPack = assetPack;
+        this.imageLoaders = Collections.unmodifiableMap(new HashMap<>(imageLoaders));
+        this.resolutionPolicy = resolutionPolicy;
+        this.textureCache = textureCache;
+
+        shaderPreprocessor = new ShaderPreprocessor(shaderFilename -> loadShaderFile(findFileOrThrow(shaderFilename)));
+    }
+
+
+    private boolean fileExists(String filePath) {
+        if (assetPack != null && assetPack.contains(filePath)) return true;
+
+        // Resolving the URL doesn't open the file.
+        return ClassLoader.class.getResource(filePath) != null;
+    }
+
+    private String loadShaderFile(String shaderFilePath) {
+        StringBuilder text = new StringBuilder();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(openFile(shaderFilePath)))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                text.append(line).append("\n");
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return text.toString();
+    }
+}
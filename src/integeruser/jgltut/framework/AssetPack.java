@@ -0,0 +1,298 @@
+package integeruser.jgltut.framework;
+
+import integeruser.jglsdk.glimg.ByteBufferInputStream;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * A single file bundling the data folders of the tutorials. Files with the same content are stored once, and a sorted
+ * index maps resource paths, like /integeruser/jgltut/tut08/data/UnitSphere.xml, to their data. The pack is memory
+ * mapped once: looking up a file is a binary search on the index, returning a slice of the mapping.
+ * <p>
+ * Build it from the classpath root containing the integeruser folder with:
+ * java integeruser.jgltut.framework.AssetPack [classpath root] [pack file]
+ */
+public class AssetPack {
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: AssetPack <classpath root> <pack file>");
+            System.exit(-1);
+        }
+
+        Path rootDirectory = new File(args[0]).toPath();
+        SortedMap<String, byte[]> files = new TreeMap<>();
+
+        List<Path> filePaths;
+        try (Stream<Path> paths = Files.walk(rootDirectory)) {
+            filePaths = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+
+        for (Path filePath : filePaths) {
+            Path relativePath = rootDirectory.relativize(filePath);
+            if (!isInDataFolder(relativePath)) continue;
+
+            StringBuilder resourcePath = new StringBuilder();
+            for (Path name : relativePath) {
+                resourcePath.append('/').append(name);
+            }
+            files.put(resourcePath.toString(), Files.readAllBytes(filePath));
+        }
+
+        File packFile = new File(args[1]);
+        write(packFile, files);
+
+        AssetPack assetPack = open(packFile);
+        System.out.printf("Packed %d files, %d unique, in %d bytes.%n", assetPack.getFileCount(),
+                assetPack.getUniqueFileCount(), packFile.length());
+    }
+
+    ////////////////////////////////
+    public static AssetPack open(File packFile) throws IOException {
+        MappedByteBuffer mappedFile;
+        try (RandomAccessFile file = new RandomAccessFile(packFile, "r"); FileChannel channel = file.getChannel()) {
+            mappedFile = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        mappedFile.order(ByteOrder.LITTLE_ENDIAN);
+
+        return new AssetPack(packFile, mappedFile);
+    }
+
+    /**
+     * Writes the files, keyed by resource path, to a new pack.
+     */
+    public static void write(File packFile, SortedMap<String, byte[]> files) throws IOException {
+        int fileCount = files.size();
+        byte[][] names = new byte[fileCount][];
+        long[] dataOffsets = new long[fileCount];
+
+        int namesSize = 0;
+        int fileIx = 0;
+        for (String filePath : files.keySet()) {
+            names[fileIx] = filePath.getBytes(StandardCharsets.UTF_8);
+            namesSize += names[fileIx].length;
+            fileIx++;
+        }
+
+        // Identical files point to the same data.
+        long dataSize = 0;
+        long dataStart = alignOffset(HEADER_SIZE + (long) fileCount * INDEX_ENTRY_SIZE + namesSize);
+        Map<String, Long> dataOffsetsByHash = new HashMap<>();
+        List<byte[]> uniqueFiles = new ArrayList<>();
+
+        fileIx = 0;
+        for (byte[] fileData : files.values()) {
+            String hash = calcHash(fileData);
+            Long dataOffset = dataOffsetsByHash.get(hash);
+            if (dataOffset == null) {
+                dataOffset = dataStart + dataSize;
+                dataOffsetsByHash.put(hash, dataOffset);
+                uniqueFiles.add(fileData);
+                dataSize = alignOffset(dataSize + fileData.length);
+            }
+            dataOffsets[fileIx++] = dataOffset;
+        }
+
+        // Write to a temporary file first, so that an interrupted run never leaves a truncated pack behind.
+        File tempFile = File.createTempFile("assetpack", ".tmp", packFile.getAbsoluteFile().getParentFile());
+        try {
+            try (RandomAccessFile file = new RandomAccessFile(tempFile, "rw"); FileChannel channel = file.getChannel()) {
+                MappedByteBuffer mappedFile = channel.map(FileChannel.MapMode.READ_WRITE, 0, dataStart + dataSize);
+                mappedFile.order(ByteOrder.LITTLE_ENDIAN);
+
+                mappedFile.putInt(MAGIC_NUMBER);
+                mappedFile.putInt(VERSION);
+                mappedFile.putInt(fileCount);
+                mappedFile.putInt(namesSize);
+
+                int nameOffset = 0;
+                fileIx = 0;
+                for (byte[] fileData : files.values()) {
+                    mappedFile.putInt(nameOffset);
+                    mappedFile.putInt(names[fileIx].length);
+                    mappedFile.putLong(dataOffsets[fileIx]);
+                    mappedFile.putInt(fileData.length);
+
+                    nameOffset += names[fileIx].length;
+                    fileIx++;
+                }
+
+                for (byte[] name : names) {
+                    mappedFile.put(name);
+                }
+
+                long dataOffset = dataStart;
+                for (byte[] fileData : uniqueFiles) {
+                    mappedFile.position((int) dataOffset);
+                    mappedFile.put(fileData);
+                    dataOffset = alignOffset(dataOffset + fileData.length);
+                }
+
+                mappedFile.force();
+            }
+
+            Files.move(tempFile.toPath(), packFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    ////////////////////////////////
+    public boolean contains(String filePath) {
+        return Arrays.binarySearch(filePaths, filePath) >= 0;
+    }
+
+    /**
+     * Returns a read-only slice of the pack with the content of the file, or null if the pack doesn't have it.
+     */
+    public ByteBuffer findFile(String filePath) {
+        int fileIx = Arrays.binarySearch(filePaths, filePath);
+        if (fileIx < 0) return null;
+
+        ByteBuffer fileData = mappedFile.duplicate();
+        fileData.limit((int) (dataOffsets[fileIx] + dataLengths[fileIx]));
+        fileData.position((int) dataOffsets[fileIx]);
+        return fileData.slice();
+    }
+
+    public InputStream openFile(String filePath) throws IOException {
+        ByteBuffer fileData = findFile(filePath);
+        if (fileData == null) throw new IOException("Could not find the file " + filePath + " in " + packFile);
+        return new ByteBufferInputStream(fileData);
+    }
+
+
+    public int getFileCount() {
+        return filePaths.length;
+    }
+
+    public int getUniqueFileCount() {
+        return (int) Arrays.stream(dataOffsets).distinct().count();
+    }
+
+    ////////////////////////////////
+    private static final int MAGIC_NUMBER = 0x4b41504a;  // "JPAK"
+    private static final int VERSION = 1;
+
+    // Magic number, version, file count and size of the names.
+    private static final int HEADER_SIZE = 4 * (Integer.SIZE / 8);
+
+    // Name offset, name length, data offset and data length.
+    private static final int INDEX_ENTRY_SIZE = 3 * (Integer.SIZE / 8) + Long.SIZE / 8;
+
+    // File data starts at this alignment.
+    private static final int DATA_ALIGNMENT = 16;
+
+
+    private File packFile;
+    private ByteBuffer mappedFile;
+
+    private String[] filePaths;
+    private long[] dataOffsets;
+    private int[] dataLengths;
+
+
+    private static class AssetPackMalformedException extends RuntimeException {
+        private AssetPackMalformedException(File packFile, String message) {
+            super(packFile + ": " + message);
+        }
+    }
+
+    ////////////////////////////////
+    private AssetPack(File packFile, ByteBuffer mappedFile) {
+        this.packFile = packFile;
+        this.mappedFile = mappedFile;
+
+        if (mappedFile.remaining() < HEADER_SIZE) throw new AssetPackMalformedException(packFile, "The file is too small.");
+        if (mappedFile.getInt() != MAGIC_NUMBER) throw new AssetPackMalformedException(packFile, "Wrong magic number.");
+        if (mappedFile.getInt() != VERSION) throw new AssetPackMalformedException(packFile, "Unsupported version.");
+
+        int fileCount = mappedFile.getInt();
+        int namesSize = mappedFile.getInt();
+        long namesOffset = HEADER_SIZE + (long) fileCount * INDEX_ENTRY_SIZE;
+        if (fileCount < 0 || namesSize < 0 || namesOffset + namesSize > mappedFile.capacity()) {
+            throw new AssetPackMalformedException(packFile, "The index is truncated.");
+        }
+
+        filePaths = new String[fileCount];
+        dataOffsets = new long[fileCount];
+        dataLengths = new int[fileCount];
+
+        for (int fileIx = 0; fileIx < fileCount; fileIx++) {
+            int nameOffset = mappedFile.getInt();
+            int nameLength = mappedFile.getInt();
+            dataOffsets[fileIx] = mappedFile.getLong();
+            dataLengths[fileIx] = mappedFile.getInt();
+
+            if (nameOffset < 0 || nameLength < 0 || (long) nameOffset + nameLength > namesSize) {
+                throw new AssetPackMalformedException(packFile, "Invalid name of file " + fileIx + ".");
+            }
+            if (dataOffsets[fileIx] < 0 || dataLengths[fileIx] < 0
+                    || dataOffsets[fileIx] + dataLengths[fileIx] > mappedFile.capacity()) {
+                throw new AssetPackMalformedException(packFile, "Invalid data of file " + fileIx + ".");
+            }
+
+            byte[] name = new byte[nameLength];
+            ByteBuffer names = mappedFile.duplicate();
+            names.position((int) (namesOffset + nameOffset));
+            names.get(name);
+            filePaths[fileIx] = new String(name, StandardCharsets.UTF_8);
+
+            // The lookups rely on the order.
+            if (fileIx > 0 && filePaths[fileIx - 1].compareTo(filePaths[fileIx]) >= 0) {
+                throw new AssetPackMalformedException(packFile, "The index is not sorted.");
+            }
+        }
+    }
+
+
+    private static boolean isInDataFolder(Path relativePath) {
+        for (int nameIx = 0; nameIx < relativePath.getNameCount() - 1; nameIx++) {
+            if (relativePath.getName(nameIx).toString().equals("data")) return true;
+        }
+        return false;
+    }
+
+    private static long alignOffset(long offset) {
+        return (offset + (DATA_ALIGNMENT - 1)) / DATA_ALIGNMENT * DATA_ALIGNMENT;
+    }
+
+    private static String calcHash(byte[] fileData) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+
+        StringBuilder hash = new StringBuilder();
+        for (byte b : digest.digest(fileData)) {
+            hash.append(String.format("%02x", b));
+        }
+        return hash.toString();
+    }
+}
@@ -0,0 +1,136 @@
+package integeruser.jgltut.framework;
+
+import java.util.ArrayList;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * The time of the application, read once per frame by tick and kept in long nanoseconds. The simulation time follows
+ * the real time multiplied by the time scale, and stops while paused; the timers registered with the clock are advanced
+ * by it, all in one pass.
+ */
+public class Clock {
+    public static final long NANOS_PER_SECOND = 1000000000L;
+
+
+    public static long toNanos(double seconds) {
+        return Math.round(seconds * NANOS_PER_SECOND);
+    }
+
+    public static double toSeconds(long nanos) {
+        return nanos / (double) NANOS_PER_SECOND;
+    }
+
+    ////////////////////////////////
+    /**
+     * Reads the current time, and advances the simulation time and the registered timers. The first tick starts the
+     * clock, with a delta of 0.
+     */
+    public void tick() {
+        tick(System.nanoTime());
+    }
+
+    public void tick(long nowNanos) {
+        if (startNanos == -1) {
+            startNanos = nowNanos;
+            lastTickNanos = nowNanos;
+        }
+
+        realDeltaNanos = nowNanos - lastTickNanos;
+        lastTickNanos = nowNanos;
+
+        if (isPaused) {
+            deltaNanos = 0;
+        } else {
+            // The part of a nanosecond lost by the scaling is carried to the next tick.
+            double scaledNanos = realDeltaNanos * timeScale + scaleRemainder;
+            deltaNanos = (long) Math.floor(scaledNanos);
+            scaleRemainder = scaledNanos - deltaNanos;
+        }
+        timeNanos += deltaNanos;
+
+        for (int timerIx = 0; timerIx < timers.size(); timerIx++) {
+            timers.get(timerIx).advance(deltaNanos);
+        }
+    }
+
+
+    // Returns the timer.
+    public Timer register(Timer timer) {
+        timers.add(timer);
+        return timer;
+    }
+
+    public void unregister(Timer timer) {
+        timers.remove(timer);
+    }
+
+    ////////////////////////////////
+    // Simulation time since the first tick.
+    public long getTimeNanos() {
+        return timeNanos;
+    }
+
+    // Simulation time between the last two ticks.
+    public long getDeltaNanos() {
+        return deltaNanos;
+    }
+
+    public long getRealTimeNanos() {
+        return startNanos == -1 ? 0 : lastTickNanos - startNanos;
+    }
+
+    public long getRealDeltaNanos() {
+        return realDeltaNanos;
+    }
+
+
+    public double getTime() {
+        return toSeconds(timeNanos);
+    }
+
+    public double getDelta() {
+        return toSeconds(deltaNanos);
+    }
+
+    ////////////////////////////////
+    public double getTimeScale() {
+        return timeScale;
+    }
+
+    // 1 is real time, 0.5 half speed.
+    public void setTimeScale(double timeScale) {
+        if (timeScale < 0.0) throw new RuntimeException("The time scale can't be negative: " + timeScale);
+        this.timeScale = timeScale;
+    }
+
+
+    public boolean isPaused() {
+        return isPaused;
+    }
+
+    public void setPause(boolean pause) {
+        isPaused = pause;
+    }
+
+    // Returns true if the clock is paused after the toggling.
+    public boolean togglePause() {
+        isPaused = !isPaused;
+        return isPaused;
+    }
+
+    ////////////////////////////////
+    private long startNanos = -1;
+    private long lastTickNanos;
+    private long realDeltaNanos;
+
+    private long timeNanos;
+    private long deltaNanos;
+
+    private double timeScale = 1.0;
+    private double scaleRemainder;
+    private boolean isPaused;
+
+    private ArrayList<Timer> timers = new ArrayList<>();
+}
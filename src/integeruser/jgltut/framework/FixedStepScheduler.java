@@ -0,0 +1,69 @@
+package integeruser.jgltut.framework;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * Runs the simulation in steps of a fixed duration, whatever the frame rate: each frame adds its duration to an
+ * accumulator, and advance returns how many whole steps fit in it. What is left, as a fraction of a step, is the alpha
+ * to interpolate between the last two simulation states when rendering.
+ */
+public class FixedStepScheduler {
+    /**
+     * @param maxStepsPerFrame bound on the steps of a single frame, so that a slow frame can't make the next ones
+     *                         slower; the time beyond it is dropped
+     */
+    public FixedStepScheduler(long stepNanos, int maxStepsPerFrame) {
+        if (stepNanos <= 0) throw new RuntimeException("The step must be positive: " + stepNanos);
+
+        this.stepNanos = stepNanos;
+        this.maxStepsPerFrame = maxStepsPerFrame;
+    }
+
+    ////////////////////////////////
+    /**
+     * Adds the duration of the frame, and returns the number of steps to run.
+     */
+    public int advance(long frameNanos) {
+        accumulatorNanos += frameNanos;
+
+        int steps = (int) Math.min(accumulatorNanos / stepNanos, maxStepsPerFrame);
+        accumulatorNanos -= steps * stepNanos;
+        if (steps == maxStepsPerFrame && accumulatorNanos >= stepNanos) {
+            accumulatorNanos %= stepNanos;
+        }
+
+        stepCount += steps;
+        return steps;
+    }
+
+    public void reset() {
+        accumulatorNanos = 0;
+    }
+
+
+    // The part of a step accumulated since the last one, in [0, 1).
+    public float getAlpha() {
+        return accumulatorNanos / (float) stepNanos;
+    }
+
+    public long getStepNanos() {
+        return stepNanos;
+    }
+
+    public float getStepSeconds() {
+        return (float) Clock.toSeconds(stepNanos);
+    }
+
+    // Steps run since the creation of the scheduler.
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    ////////////////////////////////
+    private final long stepNanos;
+    private final int maxStepsPerFrame;
+
+    private long accumulatorNanos;
+    private long stepCount;
+}
@@ -0,0 +1,279 @@
+package integeruser.jgltut.framework;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Locale;
+
+import static org.lwjgl.opengl.GL11.GL_FALSE;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL33.GL_TIME_ELAPSED;
+import static org.lwjgl.opengl.GL33.glGetQueryObjectui64;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * Per-frame timings of named scopes, recorded in histograms. CPU scopes measure System.nanoTime and can be nested. GPU
+ * scopes are GL_TIME_ELAPSED queries, which can't be nested or overlap; their results are read when available, usually
+ * two or three frames later, so the CPU never waits for them. A GPU scope whose queries are all still in flight is
+ * skipped for that frame.
+ * <p>
+ * A disabled profiler ignores every call: scopes can be left in the code.
+ */
+public class FrameProfiler {
+    public FrameProfiler(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Returns the scope with the given name, created on first use. Look it up once, not every frame.
+    public int getScope(String name) {
+        Integer scope = scopeIndices.get(name);
+        if (scope != null) return scope;
+
+        scope = scopes.size();
+        scopes.add(new ProfilerScope(name));
+        scopeIndices.put(name, scope);
+        return scope;
+    }
+
+    ////////////////////////////////
+    public void beginCpu(int scope) {
+        if (!enabled) return;
+
+        scopes.get(scope).cpuStartNanos = System.nanoTime();
+    }
+
+    public void endCpu(int scope) {
+        if (!enabled) return;
+
+        ProfilerScope profilerScope = scopes.get(scope);
+        profilerScope.record(System.nanoTime() - profilerScope.cpuStartNanos, true);
+    }
+
+
+    public void beginGpu(int scope) {
+        if (!enabled) return;
+        if (activeGpuScope != null) {
+            throw new RuntimeException("GPU scope " + scopes.get(scope).name + " started inside " + activeGpuScope.name + ": GPU scopes can't be nested.");
+        }
+
+        ProfilerScope profilerScope = scopes.get(scope);
+        if (profilerScope.queries == null) profilerScope.createQueries();
+
+        activeGpuScope = profilerScope;
+        activeGpuQuery = profilerScope.beginQuery();
+    }
+
+    public void endGpu() {
+        if (!enabled) return;
+        if (activeGpuScope == null) throw new RuntimeException("No GPU scope to end.");
+
+        if (activeGpuQuery != -1) glEndQuery(GL_TIME_ELAPSED);
+        activeGpuScope = null;
+    }
+
+
+    // Collects the GPU timings that are available. Call it once per frame, after the last scope.
+    public void endFrame() {
+        if (!enabled) return;
+
+        for (int scopeIx = 0; scopeIx < scopes.size(); scopeIx++) {
+            scopes.get(scopeIx).collectQueries();
+        }
+    }
+
+    ////////////////////////////////
+    public int getScopeCount() {
+        return scopes.size();
+    }
+
+    public String getScopeName(int scope) {
+        return scopes.get(scope).name;
+    }
+
+    // Null if the scope has no timings of this kind.
+    public LatencyHistogram getCpuHistogram(int scope) {
+        return scopes.get(scope).cpuHistogram;
+    }
+
+    public LatencyHistogram getGpuHistogram(int scope) {
+        return scopes.get(scope).gpuHistogram;
+    }
+
+
+    /**
+     * Returns p50/p95/p99 of the scope since the last call, for example to show in the window title.
+     */
+    public String getRecentSummary(int scope, boolean gpu) {
+        ProfilerScope profilerScope = scopes.get(scope);
+        LatencyHistogram recent = gpu ? profilerScope.recentGpuHistogram : profilerScope.recentCpuHistogram;
+        if (recent == null || recent.getCount() == 0) return profilerScope.name + " -";
+
+        String summary = String.format(Locale.ROOT, "%s %.2f/%.2f/%.2f ms", profilerScope.name,
+                toMillis(recent.getValueAtPercentile(50.0)), toMillis(recent.getValueAtPercentile(95.0)),
+                toMillis(recent.getValueAtPercentile(99.0)));
+        recent.reset();
+        return summary;
+    }
+
+    ////////////////////////////////
+    /**
+     * Writes the statistics of every scope, as JSON if the file name ends with .json, as CSV otherwise.
+     */
+    public void export(String filePath) {
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(filePath), "UTF-8"))) {
+            if (filePath.toLowerCase(Locale.ROOT).endsWith(".json")) {
+                exportJson(writer);
+            } else {
+                exportCsv(writer);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write the profile to " + filePath + ".", e);
+        }
+    }
+
+    public void exportCsv(PrintWriter writer) {
+        writer.println("scope,timer,count,mean_ms,min_ms,p50_ms,p95_ms,p99_ms,max_ms");
+        for (ProfilerScope scope : scopes) {
+            if (scope.cpuHistogram != null) exportCsv(writer, scope.name, "cpu", scope.cpuHistogram);
+            if (scope.gpuHistogram != null) exportCsv(writer, scope.name, "gpu", scope.gpuHistogram);
+        }
+    }
+
+    public void exportJson(PrintWriter writer) {
+        writer.println("{");
+        writer.println("  \"scopes\": [");
+        boolean first = true;
+        for (ProfilerScope scope : scopes) {
+            for (int timer = 0; timer < 2; timer++) {
+                LatencyHistogram histogram = timer == 0 ? scope.cpuHistogram : scope.gpuHistogram;
+                if (histogram == null) continue;
+
+                if (!first) writer.println(",");
+                first = false;
+                writer.printf(Locale.ROOT, "    {\"scope\": \"%s\", \"timer\": \"%s\", \"count\": %d, \"mean_ms\": %.4f, "
+                                + "\"min_ms\": %.4f, \"p50_ms\": %.4f, \"p95_ms\": %.4f, \"p99_ms\": %.4f, \"max_ms\": %.4f}",
+                        escapeJson(scope.name), timer == 0 ? "cpu" : "gpu", histogram.getCount(),
+                        histogram.getMean() / NANOS_PER_MILLI, toMillis(histogram.getMin()),
+                        toMillis(histogram.getValueAtPercentile(50.0)), toMillis(histogram.getValueAtPercentile(95.0)),
+                        toMillis(histogram.getValueAtPercentile(99.0)), toMillis(histogram.getMax()));
+            }
+        }
+        writer.println();
+        writer.println("  ]");
+        writer.println("}");
+    }
+
+
+    // Deletes the GPU queries: call it while the context is current.
+    public void release() {
+        for (ProfilerScope scope : scopes) {
+            if (scope.queries != null) glDeleteQueries(scope.queries);
+            scope.queries = null;
+        }
+    }
+
+    ////////////////////////////////
+    // Queries per GPU scope: frames a timing can take to be available before the scope is skipped.
+    private static final int QUERY_RING_SIZE = 4;
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private final boolean enabled;
+
+    private ArrayList<ProfilerScope> scopes = new ArrayList<>();
+    private HashMap<String, Integer> scopeIndices = new HashMap<>();
+
+    private ProfilerScope activeGpuScope;
+    private int activeGpuQuery;
+
+
+    private static double toMillis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+
+    private static String escapeJson(String string) {
+        return string.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static void exportCsv(PrintWriter writer, String name, String timer, LatencyHistogram histogram) {
+        writer.printf(Locale.ROOT, "\"%s\",%s,%d,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f\n", name.replace("\"", "\"\""), timer,
+                histogram.getCount(), histogram.getMean() / NANOS_PER_MILLI, toMillis(histogram.getMin()),
+                toMillis(histogram.getValueAtPercentile(50.0)), toMillis(histogram.getValueAtPercentile(95.0)),
+                toMillis(histogram.getValueAtPercentile(99.0)), toMillis(histogram.getMax()));
+    }
+
+
+    private static class ProfilerScope {
+        ProfilerScope(String name) {
+            this.name = name;
+        }
+
+        ////////////////////////////////
+        private final String name;
+
+        private long cpuStartNanos;
+        private LatencyHistogram cpuHistogram, recentCpuHistogram;
+        private LatencyHistogram gpuHistogram, recentGpuHistogram;
+
+        // A ring of queries: the pending ones go from oldestQuery to oldestQuery + pendingQueries.
+        private int[] queries;
+        private int oldestQuery;
+        private int pendingQueries;
+
+
+        private void record(long nanos, boolean cpu) {
+            if (cpu) {
+                if (cpuHistogram == null) {
+                    cpuHistogram = new LatencyHistogram();
+                    recentCpuHistogram = new LatencyHistogram();
+                }
+                cpuHistogram.record(nanos);
+                recentCpuHistogram.record(nanos);
+            } else {
+                if (gpuHistogram == null) {
+                    gpuHistogram = new LatencyHistogram();
+                    recentGpuHistogram = new LatencyHistogram();
+                }
+                gpuHistogram.record(nanos);
+                recentGpuHistogram.record(nanos);
+            }
+        }
+
+        private void createQueries() {
+            queries = new int[QUERY_RING_SIZE];
+            glGenQueries(queries);
+        }
+
+        // Returns the query begun, or -1 if they are all in flight.
+        private int beginQuery() {
+            if (pendingQueries == QUERY_RING_SIZE) collectQueries();
+            if (pendingQueries == QUERY_RING_SIZE) return -1;
+
+            int query = queries[(oldestQuery + pendingQueries) % QUERY_RING_SIZE];
+            pendingQueries++;
+            glBeginQuery(GL_TIME_ELAPSED, query);
+            return query;
+        }
+
+        // Reads the results available, oldest first, without waiting.
+        private void collectQueries() {
+            while (pendingQueries > 0) {
+                int query = queries[oldestQuery];
+                if (glGetQueryObjecti(query, GL_QUERY_RESULT_AVAILABLE) == GL_FALSE) break;
+
+                record(glGetQueryObjectui64(query, GL_QUERY_RESULT), false);
+                oldestQuery = (oldestQuery + 1) % QUERY_RING_SIZE;
+                pendingQueries--;
+            }
+        }
+    }
+}
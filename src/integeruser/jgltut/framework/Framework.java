@@ -1,14 +1,28 @@
 package integeruser.jgltut.framework;
 
-import integeruser.jglsdk.glutil.Shader;
+import integeruser.jglsdk.glimg.DdsLoader;
+import integeruser.jglsdk.glimg.HdrLoader;
+import integeruser.jglsdk.glimg.ImageFiles;
+import integeruser.jglsdk.glimg.ImageSet;
+import integeruser.jglsdk.glimg.ImageSetCache;
+import integeruser.jglsdk.glimg.KtxLoader;
+import integeruser.jglsdk.glimg.ResolutionPolicy;
+import integeruser.jglsdk.glimg.StbLoader;
+import integeruser.jglsdk.glutil.ProgramBinaryCache;
+import integeruser.jglsdk.glutil.ProgramPipelineCache;
+import integeruser.jglsdk.glutil.ShaderBatch;
+import integeruser.jglsdk.glutil.ShaderCache;
 
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
-
-import static org.lwjgl.opengl.GL20.glDeleteShader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -16,56 +30,322 @@ import static org.lwjgl.opengl.GL20.glDeleteShader;
  */
 public class Framework {
     public static String COMMON_DATAPATH = "/integeruser/jgltut/data/";
+
+    // Searched by the methods without an asset context, on threads without one. Use setAssetContext instead.
+    @Deprecated
     public static String CURRENT_TUTORIAL_DATAPATH = null;
 
+    // Asset pack built with AssetPack, set with -Djgltut.assetPack=<file>. Files not in the pack are read from the classpath.
+    public static String ASSET_PACK_PATH = System.getProperty("jgltut.assetPack");
+
+    // Directory of the on-disk texture cache, set with -Djgltut.textureCache=<dir>. Disabled if null.
+    public static String TEXTURE_CACHE_PATH = System.getProperty("jgltut.textureCache");
+
+    // Low-memory texture loading, set with -Djgltut.skipMips=<levels> and -Djgltut.maxResolution=<texels>.
+    static {
+        ResolutionPolicy.setGlobal(new ResolutionPolicy(Integer.getInteger("jgltut.skipMips", 0),
+                Integer.getInteger("jgltut.maxResolution", 0)));
+    }
+
+    // Directory of the on-disk program binary cache, set with -Djgltut.programCache=<dir>. Disabled if null.
+    public static String PROGRAM_CACHE_PATH = System.getProperty("jgltut.programCache");
+
+    // Texture memory budget in megabytes, set with -Djgltut.textureBudget=<MB>. Unlimited if not set.
+    public static long TEXTURE_BUDGET_MB = Long.getLong("jgltut.textureBudget", Long.MAX_VALUE / (1024 * 1024));
+
+    // Rate of Tutorial.fixedUpdate in steps per second, set with -Djgltut.fixedStepRate=<Hz>.
+    public static int FIXED_STEP_RATE = Integer.getInteger("jgltut.fixedStepRate", 60);
+
+    // Frame timings written at exit, set with -Djgltut.profile=<file> (JSON if it ends with .json, CSV otherwise).
+    public static String PROFILE_PATH = System.getProperty("jgltut.profile");
+
+    // Frame timings shown in the window title, set with -Djgltut.profileTitle=true.
+    public static boolean PROFILE_TITLE = Boolean.getBoolean("jgltut.profileTitle");
+
+    // GPU timing of every node of the framework scenes, set with -Djgltut.profileSceneNodes=true. The scenes must not
+    // be rendered inside another GPU scope.
+    public static boolean PROFILE_SCENE_NODES = Boolean.getBoolean("jgltut.profileSceneNodes");
+
+
+    /**
+     * Returns a context searching the data folder of the tutorial, then the common one, with the asset pack, texture
+     * cache, resolution policy and image loaders configured globally. The folder of the tutorial can be null.
+     */
+    public static AssetContext createAssetContext(String tutorialDataPath) {
+        AssetContext assetContext = tutorialDataPath == null
+                ? new AssetContext(COMMON_DATAPATH)
+                : new AssetContext(tutorialDataPath, COMMON_DATAPATH);
+
+        return assetContext
+                .withAssetPack(getAssetPack())
+                .withTextureCache(getTextureCache())
+                .withResolutionPolicy(ResolutionPolicy.getGlobal())
+                .withImageLoaders(imageLoaders);
+    }
+
+    /**
+     * Sets the context used by the methods without one, on the current thread and the threads it starts from now on.
+     */
+    public static void setAssetContext(AssetContext assetContext) {
+        threadAssetContext.set(assetContext);
+    }
+
+    /**
+     * Falls back on a context searching CURRENT_TUTORIAL_DATAPATH, created once for each of its values. It is created
+     * again if the global resolution policy or the image loaders have changed since.
+     */
+    public static AssetContext getAssetContext() {
+        AssetContext assetContext = threadAssetContext.get();
+        if (assetContext != null) return assetContext;
+
+        return fallbackAssetContexts.compute(CURRENT_TUTORIAL_DATAPATH, (dataPath, fallbackAssetContext) ->
+                fallbackAssetContext != null && fallbackAssetContext.getResolutionPolicy() == ResolutionPolicy.getGlobal()
+                        ? fallbackAssetContext : createAssetContext(dataPath));
+    }
+
+    private static InheritableThreadLocal<AssetContext> threadAssetContext = new InheritableThreadLocal<>();
+    // Synchronized rather than concurrent, because the data path can be null. Asset contexts are immutable.
+    private static Map<String, AssetContext> fallbackAssetContexts = Collections.synchronizedMap(new HashMap<>());
+
 
     public static String findFileOrThrow(String fileName) {
-        // search the file in '/jgltut/tut##/data/'
-        InputStream fileStream = ClassLoader.class.getResourceAsStream(CURRENT_TUTORIAL_DATAPATH + fileName);
-        if (fileStream != null) return CURRENT_TUTORIAL_DATAPATH + fileName;
+        return getAssetContext().findFileOrThrow(fileName);
+    }
+
+    /**
+     * Opens a file returned by findFileOrThrow, from the asset pack if there is one.
+     */
+    public static InputStream openFile(String filePath) throws IOException {
+        return getAssetContext().openFile(filePath);
+    }
+
+
+    // The image loaders called directly, without an asset context, read from the pack as well.
+    private static synchronized AssetPack getAssetPack() {
+        if (ASSET_PACK_PATH == null) return null;
+
+        if (assetPack == null) {
+            try {
+                assetPack = AssetPack.open(new File(ASSET_PACK_PATH));
+            } catch (IOException e) {
+                throw new RuntimeException("Could not open the asset pack " + ASSET_PACK_PATH, e);
+            }
+            ImageFiles.setProvider(assetPack::findFile);
+        }
+        return assetPack;
+    }
+
+    private static AssetPack assetPack;
+
+    ////////////////////////////////
+    public static ImageSet loadImageSet(String filePath, int forceConvertBits, ImageSetCache.Loader loader) throws IOException {
+        return getAssetContext().loadImageSet(filePath, forceConvertBits, loader);
+    }
+
+    public static ImageSet loadImageSet(String filePath, int forceConvertBits, ResolutionPolicy resolutionPolicy,
+                                        ImageSetCache.Loader loader) throws IOException {
+        return getAssetContext().loadImageSet(filePath, forceConvertBits, resolutionPolicy, loader);
+    }
+
+    private static synchronized ImageSetCache getTextureCache() {
+        if (TEXTURE_CACHE_PATH == null) return null;
+
+        if (textureCache == null) {
+            textureCache = new ImageSetCache(new File(TEXTURE_CACHE_PATH));
+        }
+        return textureCache;
+    }
+
+    private static ImageSetCache textureCache;
+
+
+    /**
+     * Returns the loader registered for the extension of the file (without the dot), or null if there is none.
+     */
+    public static ImageSetCache.Loader getImageLoader(String fileExtension) {
+        return getAssetContext().getImageLoader(fileExtension);
+    }
+
+    // Used by the contexts created from now on.
+    public static void registerImageLoader(String fileExtension, ImageSetCache.Loader loader) {
+        imageLoaders.put(fileExtension.toLowerCase(Locale.ROOT), loader);
+        fallbackAssetContexts.clear();
+    }
+
+    private static Map<String, ImageSetCache.Loader> imageLoaders = new ConcurrentHashMap<>();
+
+    static {
+        registerImageLoader("dds", DdsLoader::loadFromFile);
+        registerImageLoader("ktx", KtxLoader::loadFromFile);
+        registerImageLoader("ktx2", KtxLoader::loadFromFile);
+        registerImageLoader("hdr", HdrLoader::loadFromFile);
+        for (String fileExtension : new String[]{"png", "jpg", "jpeg", "bmp", "gif"}) {
+            registerImageLoader(fileExtension, StbLoader::loadFromFile);
+        }
+    }
+
 
-        // search the file in '/jgltut/data/'
-        fileStream = ClassLoader.class.getResourceAsStream(COMMON_DATAPATH + fileName);
-        if (fileStream != null) return COMMON_DATAPATH + fileName;
+    // Of the GL context current on the calling thread.
+    public static TextureResidency getTextureResidency() {
+        GLObjects objects = glObjects.get();
+        if (objects.textureResidency == null) {
+            objects.textureResidency = new TextureResidency(TEXTURE_BUDGET_MB * 1024 * 1024);
+        }
+        return objects.textureResidency;
+    }
 
-        throw new RuntimeException("Could not find the file " + fileName);
+    // Of the GL context current on the calling thread. Disabled unless a profile option is set.
+    public static FrameProfiler getFrameProfiler() {
+        GLObjects objects = glObjects.get();
+        if (objects.frameProfiler == null) {
+            objects.frameProfiler = new FrameProfiler(PROFILE_PATH != null || PROFILE_TITLE || PROFILE_SCENE_NODES);
+        }
+        return objects.frameProfiler;
     }
 
     ////////////////////////////////
     public static int loadShader(int shaderType, String shaderFilename) {
-        String filePath = Framework.findFileOrThrow(shaderFilename);
-        String shaderCode = loadShaderFile(filePath);
-        return Shader.compileShader(shaderType, shaderCode);
+        return loadShader(getAssetContext(), shaderType, shaderFilename, Collections.emptyMap());
     }
 
-    private static String loadShaderFile(String shaderFilePath) {
-        StringBuilder text = new StringBuilder();
+    public static int loadShader(int shaderType, String shaderFilename, Map<String, String> defines) {
+        return loadShader(getAssetContext(), shaderType, shaderFilename, defines);
+    }
 
-        try {
-            BufferedReader reader = new BufferedReader(new InputStreamReader(ClassLoader.class.getResourceAsStream(shaderFilePath)));
+    public static int loadShader(AssetContext assetContext, int shaderType, String shaderFilename) {
+        return loadShader(assetContext, shaderType, shaderFilename, Collections.emptyMap());
+    }
 
-            String line;
-            while ((line = reader.readLine()) != null) {
-                text.append(line).append("\n");
+    /**
+     * Loads a variant of the shader, with the given defines. Includes are searched like the shader itself. Stages with
+     * the same preprocessed source share the same shader object, which must not be deleted.
+     * <p>
+     * The compilation is only started: errors are reported by createProgram. With the program cache enabled, the
+     * shader is compiled by createProgram, and only if the program isn't cached.
+     */
+    public static int loadShader(AssetContext assetContext, int shaderType, String shaderFilename,
+                                 Map<String, String> defines) {
+        String shaderCode = assetContext.preprocessShader(shaderFilename, defines);
+        return glObjects.get().shaderCache.getShader(shaderType, shaderCode, getProgramCache() == null);
+    }
+
+    /**
+     * Deletes the shaders shared by the programs created so far in the GL context of the calling thread, and the stage
+     * programs and pipelines made from them: GL can reuse the names of deleted shaders, which key the stage programs.
+     */
+    public static void clearShaderCache() {
+        GLObjects objects = glObjects.get();
+        objects.shaderCache.clear();
+        if (objects.pipelineCache != null) objects.pipelineCache.clear();
+    }
+
+
+    public static int createProgram(ArrayList<Integer> shaders) {
+        return createPrograms(Collections.singletonList(shaders))[0];
+    }
+
+    /**
+     * Links all the programs before checking any of them, so that the driver can compile and link them concurrently.
+     */
+    public static int[] createPrograms(List<ArrayList<Integer>> programsShaders) {
+        int[] programs = new int[programsShaders.size()];
+
+        ShaderCache shaderCache = glObjects.get().shaderCache;
+
+        ProgramBinaryCache programCache = getProgramCache();
+        if (programCache != null) {
+            for (int programIx = 0; programIx < programs.length; programIx++) {
+                try {
+                    programs[programIx] = programCache.linkProgram(programsShaders.get(programIx));
+                } catch (RuntimeException e) {
+                    shaderCache.removeFailed(programsShaders.get(programIx));
+                    throw e;
+                }
             }
+            return programs;
+        }
 
-            reader.close();
-        } catch (IOException e) {
-            e.printStackTrace();
+        ShaderBatch shaderBatch = new ShaderBatch();
+        for (int programIx = 0; programIx < programs.length; programIx++) {
+            programs[programIx] = shaderBatch.addProgram(programsShaders.get(programIx));
         }
+        try {
+            shaderBatch.finish();
+        } catch (RuntimeException e) {
+            for (ArrayList<Integer> programShaders : programsShaders) {
+                shaderCache.removeFailed(programShaders);
+            }
+            throw e;
+        }
+        return programs;
+    }
+
+
+    public static int loadStageProgram(int shaderType, String shaderFilename) {
+        return loadStageProgram(getAssetContext(), shaderType, shaderFilename, Collections.emptyMap());
+    }
 
-        return text.toString();
+    public static int loadStageProgram(int shaderType, String shaderFilename, Map<String, String> defines) {
+        return loadStageProgram(getAssetContext(), shaderType, shaderFilename, defines);
     }
 
+    public static int loadStageProgram(AssetContext assetContext, int shaderType, String shaderFilename) {
+        return loadStageProgram(assetContext, shaderType, shaderFilename, Collections.emptyMap());
+    }
 
-    public static int createProgram(ArrayList<Integer> shaders) {
+    /**
+     * Loads the shader as a separable program, to be combined with getProgramPipeline. Stage programs are shared like
+     * shaders, so they must not be deleted, and uniforms set on them affect every pipeline using them. Requires
+     * OpenGL 4.1 or ARB_separate_shader_objects.
+     */
+    public static int loadStageProgram(AssetContext assetContext, int shaderType, String shaderFilename,
+                                       Map<String, String> defines) {
+        int shader = loadShader(assetContext, shaderType, shaderFilename, defines);
         try {
-            int prog = Shader.linkProgram(shaders);
-            return prog;
-        } finally {
-            for (Integer shader : shaders) {
-                glDeleteShader(shader);
+            return getPipelineCache().getStageProgram(shader);
+        } catch (RuntimeException e) {
+            glObjects.get().shaderCache.removeFailed(Collections.singletonList(shader));
+            throw e;
+        }
+    }
+
+    // The pipeline is cached, and must not be deleted.
+    public static int getProgramPipeline(int... stagePrograms) {
+        return getPipelineCache().getPipeline(stagePrograms);
+    }
+
+    private static ProgramPipelineCache getPipelineCache() {
+        GLObjects objects = glObjects.get();
+        if (objects.pipelineCache == null) {
+            if (!ProgramPipelineCache.isSupported()) {
+                throw new RuntimeException("Program pipelines require OpenGL 4.1 or ARB_separate_shader_objects.");
             }
+            objects.pipelineCache = new ProgramPipelineCache();
         }
+        return objects.pipelineCache;
     }
+
+
+    // Null if the cache is disabled, or the driver can't retrieve program binaries.
+    private static ProgramBinaryCache getProgramCache() {
+        if (PROGRAM_CACHE_PATH == null) return null;
+
+        GLObjects objects = glObjects.get();
+        if (objects.programCache == null && ProgramBinaryCache.isSupported()) {
+            objects.programCache = new ProgramBinaryCache(new File(PROGRAM_CACHE_PATH));
+        }
+        return objects.programCache;
+    }
+
+    ////////////////////////////////
+    // GL objects belong to the GL context current on the thread creating them, so each thread caches its own.
+    private static class GLObjects {
+        private ShaderCache shaderCache = new ShaderCache();
+        private ProgramPipelineCache pipelineCache;
+        private ProgramBinaryCache programCache;
+        private TextureResidency textureResidency;
+        private FrameProfiler frameProfiler;
+    }
+
+    private static ThreadLocal<GLObjects> glObjects = ThreadLocal.withInitial(GLObjects::new);
 }
@@ -4,142 +4,453 @@ import org.joml.Vector3f;
 import org.joml.Vector4f;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 
 /**
  * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * Curves through keys sorted by weight, stored in primitive arrays. The segment of the last evaluation is remembered,
+ * so curves evaluated at slowly increasing alphas rarely search for it; otherwise it is found by binary search.
+ * Evaluating into a destination allocates nothing. A curve must not be evaluated by several threads at once.
  */
 public class Interpolators {
-    public static class WeightedLinearInterpolatorFloat {
-        public ArrayList<Data> values = new ArrayList<>();
+    public enum Mode {
+        LINEAR,
+        // Smooth through the keys, with tangents computed from the neighbouring keys.
+        CATMULL_ROM,
+        // Smooth through the keys, with the tangents set by setTangent.
+        HERMITE
+    }
+
 
-        public class Data {
-            public float data;
-            public float weight;
+    /**
+     * Evaluates count curves, each at its own alpha, and writes their values one after the other in dest.
+     */
+    public static void interpolate(WeightedInterpolator[] curves, float[] alphas, int count, float[] dest) {
+        int destIx = 0;
+        for (int curveIx = 0; curveIx < count; curveIx++) {
+            WeightedInterpolator curve = curves[curveIx];
+            curve.interpolate(alphas[curveIx], dest, destIx);
+            destIx += curve.components;
         }
+    }
 
+    ////////////////////////////////
+    public static abstract class WeightedInterpolator {
+        WeightedInterpolator(int components) {
+            this.components = components;
+            weights = new float[INITIAL_CAPACITY];
+            values = new float[INITIAL_CAPACITY * components];
+        }
 
-        public float interpolate(float alpha) {
-            if (values.isEmpty()) return 0.0f;
 
-            if (values.size() == 1) return values.get(0).data;
+        public void clear() {
+            keyCount = 0;
+            segmentHint = 1;
+            keysChanged();
+        }
+
+
+        public int getKeyCount() {
+            return keyCount;
+        }
+
+        public float getWeight(int key) {
+            return weights[key];
+        }
+
+        public void setWeight(int key, float weight) {
+            weights[key] = weight;
+            keysChanged();
+        }
+
 
-            // Find which segment we are within.
-            int segment = 1;
-            for (; segment < values.size(); segment++) {
-                if (alpha < values.get(segment).weight) break;
+        public Mode getMode() {
+            return mode;
+        }
+
+        // The tangents set for HERMITE are replaced by the computed ones in CATMULL_ROM mode.
+        public void setMode(Mode mode) {
+            this.mode = mode;
+            keysChanged();
+        }
+
+        ////////////////////////////////
+        final int components;
+
+        float[] weights;
+        float[] values;
+        // Change of value per unit of weight; computed for CATMULL_ROM, set by the user for HERMITE.
+        float[] tangents;
+        int keyCount;
+
+        private static final int INITIAL_CAPACITY = 8;
+
+        private Mode mode = Mode.LINEAR;
+        private boolean tangentsDirty;
+        private int segmentHint = 1;
+
+
+        int addKey(float weight) {
+            if (keyCount == weights.length) {
+                weights = Arrays.copyOf(weights, keyCount * 2);
+                values = Arrays.copyOf(values, keyCount * 2 * components);
+                if (tangents != null) tangents = Arrays.copyOf(tangents, keyCount * 2 * components);
             }
-            if (segment == values.size()) return values.get(segment - 1).data;
 
-            float sectionAlpha = alpha - values.get(segment - 1).weight;
-            sectionAlpha /= values.get(segment).weight - values.get(segment - 1).weight;
+            int key = keyCount++;
+            weights[key] = weight;
+            keysChanged();
+            return key;
+        }
 
-            float invSecAlpha = 1.0f - sectionAlpha;
-            return values.get(segment - 1).data * invSecAlpha + values.get(segment).data * sectionAlpha;
+        void keysChanged() {
+            tangentsDirty = true;
         }
-    }
 
+        float[] getTangents() {
+            if (tangents == null || tangents.length < values.length) {
+                tangents = tangents == null ? new float[values.length] : Arrays.copyOf(tangents, values.length);
+            }
+            return tangents;
+        }
 
-    public static class WeightedLinearInterpolatorVec3 {
-        public ArrayList<Data> values = new ArrayList<>();
 
-        public class Data {
-            Vector3f data;
-            float weight;
+        // Writes the value of the curve at alpha in dest, from destIx.
+        void interpolate(float alpha, float[] dest, int destIx) {
+            if (keyCount == 0) {
+                Arrays.fill(dest, destIx, destIx + components, 0.0f);
+                return;
+            }
+
+            int segment = keyCount == 1 ? keyCount : findSegment(alpha);
+            if (segment == keyCount) {
+                System.arraycopy(values, (keyCount - 1) * components, dest, destIx, components);
+                return;
+            }
+
+            float segmentWidth = weights[segment] - weights[segment - 1];
+            float sectionAlpha = (alpha - weights[segment - 1]) / segmentWidth;
+            int value0Ix = (segment - 1) * components;
+            int value1Ix = segment * components;
+
+            if (mode == Mode.LINEAR) {
+                float invSecAlpha = 1.0f - sectionAlpha;
+                for (int component = 0; component < components; component++) {
+                    dest[destIx + component] = values[value0Ix + component] * invSecAlpha + values[value1Ix + component] * sectionAlpha;
+                }
+                return;
+            }
+
+            if (mode == Mode.CATMULL_ROM && tangentsDirty) computeCatmullRomTangents();
+            float[] tangents = getTangents();
+
+            // Cubic Hermite basis, with the tangents scaled to the width of the segment.
+            float t = sectionAlpha;
+            float t2 = t * t;
+            float t3 = t2 * t;
+            float h00 = 2.0f * t3 - 3.0f * t2 + 1.0f;
+            float h10 = (t3 - 2.0f * t2 + t) * segmentWidth;
+            float h01 = -2.0f * t3 + 3.0f * t2;
+            float h11 = (t3 - t2) * segmentWidth;
+            for (int component = 0; component < components; component++) {
+                dest[destIx + component] = values[value0Ix + component] * h00 + tangents[value0Ix + component] * h10
+                        + values[value1Ix + component] * h01 + tangents[value1Ix + component] * h11;
+            }
         }
 
 
-        public Vector3f interpolate(float alpha) {
-            if (values.isEmpty()) return new Vector3f();
+        // Returns the first key with a weight greater than alpha (at least 1), or keyCount if there is none.
+        private int findSegment(float alpha) {
+            int hint = segmentHint;
+            if (hint < keyCount && isSegmentOf(hint, alpha)) return hint;
+            if (hint + 1 < keyCount && isSegmentOf(hint + 1, alpha)) return segmentHint = hint + 1;
+
+            int low = 1;
+            int high = keyCount;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (alpha < weights[mid]) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+
+            if (low < keyCount) segmentHint = low;
+            return low;
+        }
 
-            if (values.size() == 1) return new Vector3f(values.get(0).data);
+        private boolean isSegmentOf(int segment, float alpha) {
+            return alpha < weights[segment] && (segment == 1 || alpha >= weights[segment - 1]);
+        }
 
-            // Find which segment we are within.
-            int segment = 1;
-            for (; segment < values.size(); segment++) {
-                if (alpha < values.get(segment).weight) break;
+        private void computeCatmullRomTangents() {
+            float[] tangents = getTangents();
+            for (int key = 0; key < keyCount; key++) {
+                // One-sided at the ends.
+                int prevKey = Math.max(key - 1, 0);
+                int nextKey = Math.min(key + 1, keyCount - 1);
+                float width = weights[nextKey] - weights[prevKey];
+
+                for (int component = 0; component < components; component++) {
+                    float delta = values[nextKey * components + component] - values[prevKey * components + component];
+                    tangents[key * components + component] = width > 0.0f ? delta / width : 0.0f;
+                }
             }
-            if (segment == values.size()) return new Vector3f(values.get(segment - 1).data);
 
-            float sectionAlpha = alpha - values.get(segment - 1).weight;
-            sectionAlpha /= values.get(segment).weight - values.get(segment - 1).weight;
+            tangentsDirty = false;
+        }
+    }
 
-            float invSecAlpha = 1.0f - sectionAlpha;
-            return new Vector3f(values.get(segment - 1).data).mul(invSecAlpha).add(new Vector3f(values.get(segment).data).mul(sectionAlpha));
+    ////////////////////////////////
+    public static class WeightedLinearInterpolatorFloat extends WeightedInterpolator {
+        public WeightedLinearInterpolatorFloat() {
+            super(1);
         }
+
+
+        public int add(float value, float weight) {
+            int key = addKey(weight);
+            values[key] = value;
+            return key;
+        }
+
+        public float getValue(int key) {
+            return values[key];
+        }
+
+        public void setTangent(int key, float tangent) {
+            getTangents()[key] = tangent;
+        }
+
+
+        public float interpolate(float alpha) {
+            interpolate(alpha, result, 0);
+            return result[0];
+        }
+
+        ////////////////////////////////
+        private final float[] result = new float[1];
     }
 
-    public static class ConstVelLinearInterpolatorVec3 extends WeightedLinearInterpolatorVec3 {
-        float totalDist;
 
+    public static class WeightedLinearInterpolatorVec3 extends WeightedInterpolator {
+        public WeightedLinearInterpolatorVec3() {
+            super(3);
+        }
+
+
+        public int add(Vector3f value, float weight) {
+            int key = addKey(weight);
+            values[key * 3] = value.x;
+            values[key * 3 + 1] = value.y;
+            values[key * 3 + 2] = value.z;
+            return key;
+        }
+
+        public Vector3f getValue(int key, Vector3f dest) {
+            return dest.set(values[key * 3], values[key * 3 + 1], values[key * 3 + 2]);
+        }
+
+        public void setTangent(int key, Vector3f tangent) {
+            float[] tangents = getTangents();
+            tangents[key * 3] = tangent.x;
+            tangents[key * 3 + 1] = tangent.y;
+            tangents[key * 3 + 2] = tangent.z;
+        }
+
+
+        public Vector3f interpolate(float alpha) {
+            return interpolate(alpha, new Vector3f());
+        }
+
+        public Vector3f interpolate(float alpha, Vector3f dest) {
+            interpolate(alpha, result, 0);
+            return dest.set(result[0], result[1], result[2]);
+        }
+
+        ////////////////////////////////
+        private final float[] result = new float[3];
+    }
+
+    /**
+     * A path through the keys at constant speed: the weights are the normalized distances along the path. The curved
+     * modes are reparameterized by a table of the length of the path, sampled ARC_SAMPLES_PER_SEGMENT times per segment.
+     */
+    public static class ConstVelLinearInterpolatorVec3 extends WeightedLinearInterpolatorVec3 {
         public void setValues(ArrayList<Vector3f> data) {
             setValues(data, true);
         }
 
         public void setValues(ArrayList<Vector3f> data, boolean isLoop) {
-            values.clear();
+            clear();
 
             for (Vector3f curr : data) {
-                Data currData = new Data();
-                currData.data = new Vector3f(curr);
-                currData.weight = 0.0f;
-                values.add(currData);
+                add(curr, 0.0f);
             }
-
             if (isLoop) {
-                Data currData = new Data();
-                currData.data = new Vector3f(data.get(0));
-                currData.weight = 0.0f;
-                values.add(currData);
+                add(data.get(0), 0.0f);
             }
 
             // Compute the distances of each segment.
             totalDist = 0.0f;
-
-            for (int valueIndex = 1; valueIndex < values.size(); valueIndex++) {
-                totalDist += distance(values.get(valueIndex - 1).data, values.get(valueIndex).data);
-                values.get(valueIndex).weight = totalDist;
+            for (int key = 1; key < keyCount; key++) {
+                totalDist += distance(key - 1, key);
+                weights[key] = totalDist;
             }
 
             // Compute the alpha value that represents when to use this segment.
-            for (int iLoop = 1; iLoop < values.size(); iLoop++) {
-                values.get(iLoop).weight /= totalDist;
+            if (totalDist > 0.0f) {
+                for (int key = 1; key < keyCount; key++) {
+                    weights[key] /= totalDist;
+                }
             }
+            keysChanged();
         }
 
 
-        float distance(Vector3f lhs, Vector3f rhs) {
-            return new Vector3f(rhs).sub(lhs).length();
+        public float getTotalDistance() {
+            return totalDist;
         }
-    }
 
 
-    public static class WeightedLinearInterpolatorVec4 {
-        public ArrayList<Data> values = new ArrayList<>();
+        @Override
+        void interpolate(float alpha, float[] dest, int destIx) {
+            if (getMode() != Mode.LINEAR && keyCount > 1) {
+                if (arcTableDirty) computeArcTable();
+                alpha = toCurveAlpha(alpha);
+            }
+            super.interpolate(alpha, dest, destIx);
+        }
+
+        ////////////////////////////////
+        private static final int ARC_SAMPLES_PER_SEGMENT = 16;
+
+        private float totalDist;
+
+        // Alphas along the curve, and the normalized length of the curve up to them.
+        private float[] arcAlphas = new float[0];
+        private float[] arcLengths = new float[0];
+        private int arcSampleCount;
+        private boolean arcTableDirty = true;
 
-        public class Data {
-            public Vector4f data;
-            public float weight;
+        private final float[] sample = new float[3];
+
+
+        @Override
+        void keysChanged() {
+            super.keysChanged();
+            arcTableDirty = true;
         }
 
+        private float distance(int lhsKey, int rhsKey) {
+            float dx = values[rhsKey * 3] - values[lhsKey * 3];
+            float dy = values[rhsKey * 3 + 1] - values[lhsKey * 3 + 1];
+            float dz = values[rhsKey * 3 + 2] - values[lhsKey * 3 + 2];
+            return (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        }
 
-        public Vector4f interpolate(float alpha) {
-            if (values.isEmpty()) return new Vector4f();
+        private void computeArcTable() {
+            arcSampleCount = (keyCount - 1) * ARC_SAMPLES_PER_SEGMENT + 1;
+            if (arcAlphas.length < arcSampleCount) {
+                arcAlphas = new float[arcSampleCount];
+                arcLengths = new float[arcSampleCount];
+            }
+
+            arcTableDirty = false;
+
+            float prevX = values[0], prevY = values[1], prevZ = values[2];
+            float length = 0.0f;
+            arcAlphas[0] = weights[0];
+            arcLengths[0] = 0.0f;
+            for (int sampleIx = 1; sampleIx < arcSampleCount; sampleIx++) {
+                int segment = (sampleIx - 1) / ARC_SAMPLES_PER_SEGMENT + 1;
+                float t = (sampleIx - (segment - 1) * ARC_SAMPLES_PER_SEGMENT) / (float) ARC_SAMPLES_PER_SEGMENT;
+                float alpha = weights[segment - 1] + (weights[segment] - weights[segment - 1]) * t;
+
+                super.interpolate(alpha, sample, 0);
+
+                float dx = sample[0] - prevX, dy = sample[1] - prevY, dz = sample[2] - prevZ;
+                length += (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+                prevX = sample[0];
+                prevY = sample[1];
+                prevZ = sample[2];
+
+                arcAlphas[sampleIx] = alpha;
+                arcLengths[sampleIx] = length;
+            }
 
-            if (values.size() == 1) return new Vector4f(values.get(0).data);
+            if (length > 0.0f) {
+                for (int sampleIx = 1; sampleIx < arcSampleCount; sampleIx++) {
+                    arcLengths[sampleIx] /= length;
+                }
+            }
+        }
 
-            // Find which segment we are within.
-            int segment = 1;
-            for (; segment < values.size(); segment++) {
-                if (alpha < values.get(segment).weight) break;
+        // Maps a fraction of the length of the curve to the alpha of the curve there.
+        private float toCurveAlpha(float alpha) {
+            if (alpha <= 0.0f) return arcAlphas[0];
+            if (alpha >= 1.0f) return arcAlphas[arcSampleCount - 1];
+
+            int low = 1;
+            int high = arcSampleCount - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (alpha < arcLengths[mid]) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
             }
-            if (segment == values.size()) return new Vector4f(values.get(segment - 1).data);
 
-            float sectionAlpha = alpha - values.get(segment - 1).weight;
-            sectionAlpha /= values.get(segment).weight - values.get(segment - 1).weight;
+            float sampleLength = arcLengths[low] - arcLengths[low - 1];
+            if (sampleLength <= 0.0f) return arcAlphas[low];
+            float t = (alpha - arcLengths[low - 1]) / sampleLength;
+            return arcAlphas[low - 1] + (arcAlphas[low] - arcAlphas[low - 1]) * t;
+        }
+    }
+
 
-            float invSecAlpha = 1.0f - sectionAlpha;
-            return new Vector4f(values.get(segment - 1).data).mul(invSecAlpha).add(new Vector4f(values.get(segment).data).mul(sectionAlpha));
+    public static class WeightedLinearInterpolatorVec4 extends WeightedInterpolator {
+        public WeightedLinearInterpolatorVec4() {
+            super(4);
         }
+
+
+        public int add(Vector4f value, float weight) {
+            int key = addKey(weight);
+            values[key * 4] = value.x;
+            values[key * 4 + 1] = value.y;
+            values[key * 4 + 2] = value.z;
+            values[key * 4 + 3] = value.w;
+            return key;
+        }
+
+        public Vector4f getValue(int key, Vector4f dest) {
+            return dest.set(values[key * 4], values[key * 4 + 1], values[key * 4 + 2], values[key * 4 + 3]);
+        }
+
+        public void setTangent(int key, Vector4f tangent) {
+            float[] tangents = getTangents();
+            tangents[key * 4] = tangent.x;
+            tangents[key * 4 + 1] = tangent.y;
+            tangents[key * 4 + 2] = tangent.z;
+            tangents[key * 4 + 3] = tangent.w;
+        }
+
+
+        public Vector4f interpolate(float alpha) {
+            return interpolate(alpha, new Vector4f());
+        }
+
+        public Vector4f interpolate(float alpha, Vector4f dest) {
+            interpolate(alpha, result, 0);
+            return dest.set(result[0], result[1], result[2], result[3]);
+        }
+
+        ////////////////////////////////
+        private final float[] result = new float[4];
     }
 }
@@ -0,0 +1,93 @@
+package integeruser.jgltut.framework;
+
+import java.util.Arrays;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * Histogram of durations in nanoseconds, with buckets of constant relative width, as in HdrHistogram: each power of two
+ * is split in SUB_BUCKET_HALF_COUNT linear sub-buckets, so percentiles are within 1/SUB_BUCKET_HALF_COUNT of the
+ * recorded values, from nanoseconds to hours, in a fixed array. Recording allocates nothing.
+ */
+public class LatencyHistogram {
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+
+        counts[getIndex(nanos)]++;
+        count++;
+        sum += nanos;
+        if (nanos < min) min = nanos;
+        if (nanos > max) max = nanos;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    ////////////////////////////////
+    public long getCount() {
+        return count;
+    }
+
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0.0 : sum / (double) count;
+    }
+
+
+    /**
+     * Returns the value below which the given percentage of the recorded values fall: the largest value of their
+     * bucket, capped at the largest recorded value.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) return 0;
+
+        long targetCount = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long cumulativeCount = 0;
+        for (int index = 0; index < counts.length; index++) {
+            cumulativeCount += counts[index];
+            if (cumulativeCount >= targetCount) return Math.min(getHighestValue(index), max);
+        }
+        return max;
+    }
+
+    ////////////////////////////////
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+    private static final int MAX_SHIFT = 63 - (SUB_BUCKET_BITS - 1);
+
+    // Values below SUB_BUCKET_COUNT have a bucket each; above, value >>> shift is in the upper half of the sub-buckets.
+    private final long[] counts = new long[MAX_SHIFT * SUB_BUCKET_HALF_COUNT + SUB_BUCKET_COUNT];
+
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+
+    private static int getIndex(long nanos) {
+        int shift = Math.max(0, (63 - Long.numberOfLeadingZeros(nanos)) - (SUB_BUCKET_BITS - 1));
+        return shift * SUB_BUCKET_HALF_COUNT + (int) (nanos >>> shift);
+    }
+
+    private static long getHighestValue(int index) {
+        if (index < SUB_BUCKET_COUNT) return index;
+
+        int shift = index / SUB_BUCKET_HALF_COUNT - 1;
+        long subBucket = index - shift * SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,219 @@
+package integeruser.jgltut.framework;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * Clustered light assignment on the CPU. The view frustum is split in tilesX * tilesY screen tiles and in depth slices
+ * growing exponentially from the near plane, and each cluster (froxel) gets the list of the point lights whose sphere
+ * of influence may reach it. The lists are packed one after the other in a single index array, so a shader only loops
+ * over the lights of the cluster of the fragment.
+ * <p>
+ * Directional lights reach every cluster, and are left to the shader. Nothing is allocated by assign.
+ */
+public class LightClusters {
+    public LightClusters(int tilesX, int tilesY, int slices, int maxLightIndices) {
+        this.tilesX = tilesX;
+        this.tilesY = tilesY;
+        this.slices = slices;
+        this.maxLightIndices = maxLightIndices;
+
+        int clusterCount = tilesX * tilesY * slices;
+        lightOffsets = new int[clusterCount];
+        lightCounts = new int[clusterCount];
+        lightIndices = new int[maxLightIndices];
+    }
+
+    ////////////////////////////////
+    // Must match the projection the lights are rendered with.
+    public void setPerspective(float fovYDeg, float aspectRatio, float zNear, float zFar) {
+        float tanHalfFovY = (float) Math.tan(Math.toRadians(fovYDeg) / 2.0);
+        invTanHalfFovX = 1.0f / (tanHalfFovY * aspectRatio);
+        invTanHalfFovY = 1.0f / tanHalfFovY;
+        this.zNear = zNear;
+        this.zFar = zFar;
+        sliceScale = slices / (float) Math.log(zFar / zNear);
+    }
+
+
+    /**
+     * Assigns the point lights of the store to the clusters, from their camera space positions: call it after
+     * transformToCamera. If the lists need more than maxLightIndices indices, the last clusters lose some of their
+     * lights, and hasOverflowed returns true until the next assignment.
+     */
+    public void assign(LightStore lights) {
+        int lightCount = lights.getCount();
+        if (lightBounds.length < lightCount * 6) lightBounds = new int[lights.getCapacity() * 6];
+
+        // First pass: the range of clusters of each light, and the number of lights of each cluster.
+        Arrays.fill(lightCounts, 0);
+        for (int light = 0; light < lightCount; light++) {
+            int boundsIx = light * 6;
+            if (!computeBounds(lights, light, boundsIx)) {
+                lightBounds[boundsIx] = -1;
+                continue;
+            }
+
+            for (int slice = lightBounds[boundsIx + 4]; slice <= lightBounds[boundsIx + 5]; slice++) {
+                for (int tileY = lightBounds[boundsIx + 2]; tileY <= lightBounds[boundsIx + 3]; tileY++) {
+                    int rowIndex = (slice * tilesY + tileY) * tilesX;
+                    for (int tileX = lightBounds[boundsIx]; tileX <= lightBounds[boundsIx + 1]; tileX++) {
+                        lightCounts[rowIndex + tileX]++;
+                    }
+                }
+            }
+        }
+
+        int offset = 0;
+        for (int cluster = 0; cluster < lightCounts.length; cluster++) {
+            lightOffsets[cluster] = offset;
+            offset += lightCounts[cluster];
+            lightCounts[cluster] = 0;
+        }
+        overflowed = offset > maxLightIndices;
+        lightIndexCount = Math.min(offset, maxLightIndices);
+
+        // Second pass: the lists, counted again while being filled.
+        for (int light = 0; light < lightCount; light++) {
+            int boundsIx = light * 6;
+            if (lightBounds[boundsIx] == -1) continue;
+
+            for (int slice = lightBounds[boundsIx + 4]; slice <= lightBounds[boundsIx + 5]; slice++) {
+                for (int tileY = lightBounds[boundsIx + 2]; tileY <= lightBounds[boundsIx + 3]; tileY++) {
+                    int rowIndex = (slice * tilesY + tileY) * tilesX;
+                    for (int tileX = lightBounds[boundsIx]; tileX <= lightBounds[boundsIx + 1]; tileX++) {
+                        int cluster = rowIndex + tileX;
+                        int indexIx = lightOffsets[cluster] + lightCounts[cluster];
+                        if (indexIx >= maxLightIndices) continue;
+
+                        lightIndices[indexIx] = light;
+                        lightCounts[cluster]++;
+                    }
+                }
+            }
+        }
+    }
+
+
+    public boolean hasOverflowed() {
+        return overflowed;
+    }
+
+    ////////////////////////////////
+    public int getClusterIndex(int tileX, int tileY, int slice) {
+        return (slice * tilesY + tileY) * tilesX + tileX;
+    }
+
+    // Of a point in front of the camera, at the given distance along the view direction.
+    public int getSlice(float depth) {
+        if (depth <= zNear) return 0;
+        return Math.min((int) ((float) Math.log(depth / zNear) * sliceScale), slices - 1);
+    }
+
+    public int getClusterCount() {
+        return lightCounts.length;
+    }
+
+    public int getLightOffset(int cluster) {
+        return lightOffsets[cluster];
+    }
+
+    public int getLightCount(int cluster) {
+        return lightCounts[cluster];
+    }
+
+    public int getLightIndex(int indexIx) {
+        return lightIndices[indexIx];
+    }
+
+    public int getLightIndexCount() {
+        return lightIndexCount;
+    }
+
+    ////////////////////////////////
+    /**
+     * Writes the offset and count of the list of each cluster, as a uvec2 array.
+     */
+    public ByteBuffer writeClusterGrid(ByteBuffer buffer) {
+        for (int cluster = 0; cluster < lightCounts.length; cluster++) {
+            buffer.putInt(lightOffsets[cluster]);
+            buffer.putInt(lightCounts[cluster]);
+        }
+        return buffer;
+    }
+
+    /**
+     * Writes the lists of all the clusters, as a uint array.
+     */
+    public ByteBuffer writeLightIndices(ByteBuffer buffer) {
+        for (int indexIx = 0; indexIx < lightIndexCount; indexIx++) {
+            buffer.putInt(lightIndices[indexIx]);
+        }
+        return buffer;
+    }
+
+
+    public int getClusterGridSize() {
+        return lightCounts.length * 2 * Integer.BYTES;
+    }
+
+    public int getMaxLightIndicesSize() {
+        return maxLightIndices * Integer.BYTES;
+    }
+
+    ////////////////////////////////
+    private final int tilesX, tilesY, slices;
+    private final int maxLightIndices;
+
+    private float invTanHalfFovX, invTanHalfFovY;
+    private float zNear, zFar;
+    private float sliceScale;
+
+    private final int[] lightOffsets;
+    private final int[] lightCounts;
+    private final int[] lightIndices;
+    private int lightIndexCount;
+    private boolean overflowed;
+
+    // Per light: first and last tile in x, in y, and first and last slice.
+    private int[] lightBounds = new int[0];
+
+
+    // Returns false if the light reaches no cluster.
+    private boolean computeBounds(LightStore lights, int light, int boundsIx) {
+        if (lights.worldW[light] == 0.0f) return false;
+
+        float radius = lights.radius[light];
+        float x = lights.cameraX[light];
+        float y = lights.cameraY[light];
+        float depth = -lights.cameraZ[light];
+
+        float minDepth = Math.max(depth - radius, zNear);
+        float maxDepth = Math.min(depth + radius, zFar);
+        if (minDepth > maxDepth) return false;
+
+        // The projection of the box around the sphere, between its nearest and farthest depth in the frustum,
+        // contains the projection of the sphere.
+        float minX = Math.min((x - radius) / minDepth, (x - radius) / maxDepth) * invTanHalfFovX;
+        float maxX = Math.max((x + radius) / minDepth, (x + radius) / maxDepth) * invTanHalfFovX;
+        float minY = Math.min((y - radius) / minDepth, (y - radius) / maxDepth) * invTanHalfFovY;
+        float maxY = Math.max((y + radius) / minDepth, (y + radius) / maxDepth) * invTanHalfFovY;
+        if (maxX < -1.0f || minX > 1.0f || maxY < -1.0f || minY > 1.0f) return false;
+
+        lightBounds[boundsIx] = toTile(minX, tilesX);
+        lightBounds[boundsIx + 1] = toTile(maxX, tilesX);
+        lightBounds[boundsIx + 2] = toTile(minY, tilesY);
+        lightBounds[boundsIx + 3] = toTile(maxY, tilesY);
+        lightBounds[boundsIx + 4] = getSlice(minDepth);
+        lightBounds[boundsIx + 5] = getSlice(maxDepth);
+        return true;
+    }
+
+    private static int toTile(float ndc, int tiles) {
+        int tile = (int) ((ndc * 0.5f + 0.5f) * tiles);
+        return Math.max(0, Math.min(tile, tiles - 1));
+    }
+}
@@ -0,0 +1,221 @@
+package integeruser.jgltut.framework;
+
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.joml.Vector4f;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * Lights stored as structure of arrays: one array per component, so that transforming thousands of them is a few tight
+ * loops over contiguous floats, split between the threads of the common pool. Positions with w = 0 are directions.
+ * Nothing is allocated after construction.
+ */
+public class LightStore {
+    public LightStore(int capacity) {
+        this.capacity = capacity;
+
+        worldX = new float[capacity];
+        worldY = new float[capacity];
+        worldZ = new float[capacity];
+        worldW = new float[capacity];
+        cameraX = new float[capacity];
+        cameraY = new float[capacity];
+        cameraZ = new float[capacity];
+        cameraW = new float[capacity];
+        intensityR = new float[capacity];
+        intensityG = new float[capacity];
+        intensityB = new float[capacity];
+        intensityA = new float[capacity];
+        radius = new float[capacity];
+
+        transformChunks = new TransformChunk[(capacity + CHUNK_SIZE - 1) / CHUNK_SIZE];
+        for (int chunkIx = 0; chunkIx < transformChunks.length; chunkIx++) {
+            transformChunks[chunkIx] = new TransformChunk(chunkIx * CHUNK_SIZE);
+        }
+        transformAll = new TransformAll();
+    }
+
+    ////////////////////////////////
+    // Returns the index of the light.
+    public int addPointLight(Vector3f position, Vector4f intensity, float radius) {
+        return addLight(position.x, position.y, position.z, 1.0f, intensity, radius);
+    }
+
+    // Directional lights have no radius: they reach everything.
+    public int addDirectionalLight(Vector4f direction, Vector4f intensity) {
+        return addLight(direction.x, direction.y, direction.z, 0.0f, intensity, Float.POSITIVE_INFINITY);
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    ////////////////////////////////
+    public void setPosition(int light, Vector3f position) {
+        worldX[light] = position.x;
+        worldY[light] = position.y;
+        worldZ[light] = position.z;
+    }
+
+    public void setDirection(int light, Vector4f direction) {
+        worldX[light] = direction.x;
+        worldY[light] = direction.y;
+        worldZ[light] = direction.z;
+    }
+
+    public void setIntensity(int light, Vector4f intensity) {
+        intensityR[light] = intensity.x;
+        intensityG[light] = intensity.y;
+        intensityB[light] = intensity.z;
+        intensityA[light] = intensity.w;
+    }
+
+    public void setRadius(int light, float radius) {
+        this.radius[light] = radius;
+    }
+
+
+    public boolean isDirectional(int light) {
+        return worldW[light] == 0.0f;
+    }
+
+    public Vector4f getWorldPosition(int light, Vector4f dest) {
+        return dest.set(worldX[light], worldY[light], worldZ[light], worldW[light]);
+    }
+
+    // As of the last transformToCamera.
+    public Vector4f getCameraPosition(int light, Vector4f dest) {
+        return dest.set(cameraX[light], cameraY[light], cameraZ[light], cameraW[light]);
+    }
+
+    public Vector4f getIntensity(int light, Vector4f dest) {
+        return dest.set(intensityR[light], intensityG[light], intensityB[light], intensityA[light]);
+    }
+
+    public float getRadius(int light) {
+        return radius[light];
+    }
+
+    ////////////////////////////////
+    /**
+     * Computes the camera space positions of all the lights. Stores with more than PARALLEL_THRESHOLD lights are split
+     * between the threads of the common fork-join pool.
+     */
+    public void transformToCamera(Matrix4f worldToCamera) {
+        m00 = worldToCamera.m00();
+        m01 = worldToCamera.m01();
+        m02 = worldToCamera.m02();
+        m03 = worldToCamera.m03();
+        m10 = worldToCamera.m10();
+        m11 = worldToCamera.m11();
+        m12 = worldToCamera.m12();
+        m13 = worldToCamera.m13();
+        m20 = worldToCamera.m20();
+        m21 = worldToCamera.m21();
+        m22 = worldToCamera.m22();
+        m23 = worldToCamera.m23();
+        m30 = worldToCamera.m30();
+        m31 = worldToCamera.m31();
+        m32 = worldToCamera.m32();
+        m33 = worldToCamera.m33();
+
+        if (count <= PARALLEL_THRESHOLD) {
+            transform(0, count);
+        } else {
+            transformAll.reinitialize();
+            ForkJoinPool.commonPool().invoke(transformAll);
+        }
+    }
+
+    ////////////////////////////////
+    // Below it, handing the work to other threads costs more than it saves.
+    private static final int PARALLEL_THRESHOLD = 2048;
+    private static final int CHUNK_SIZE = 1024;
+
+
+    private final int capacity;
+    private int count;
+
+    // Package-private: LightClusters reads the camera space positions and radii.
+    final float[] worldX, worldY, worldZ, worldW;
+    final float[] cameraX, cameraY, cameraZ, cameraW;
+    final float[] intensityR, intensityG, intensityB, intensityA;
+    final float[] radius;
+
+    // The matrix of the transform in progress, column-major like JOML.
+    private float m00, m01, m02, m03, m10, m11, m12, m13, m20, m21, m22, m23, m30, m31, m32, m33;
+
+    private final TransformChunk[] transformChunks;
+    private final TransformAll transformAll;
+
+
+    private int addLight(float x, float y, float z, float w, Vector4f intensity, float radius) {
+        if (count == capacity) throw new RuntimeException("The light store is full (" + capacity + " lights).");
+
+        int light = count++;
+        worldX[light] = x;
+        worldY[light] = y;
+        worldZ[light] = z;
+        worldW[light] = w;
+        setIntensity(light, intensity);
+        this.radius[light] = radius;
+        return light;
+    }
+
+    private void transform(int begin, int end) {
+        for (int light = begin; light < end; light++) {
+            float x = worldX[light], y = worldY[light], z = worldZ[light], w = worldW[light];
+            cameraX[light] = m00 * x + m10 * y + m20 * z + m30 * w;
+            cameraY[light] = m01 * x + m11 * y + m21 * z + m31 * w;
+            cameraZ[light] = m02 * x + m12 * y + m22 * z + m32 * w;
+            cameraW[light] = m03 * x + m13 * y + m23 * z + m33 * w;
+        }
+    }
+
+
+    // The tasks are created once and reinitialized every frame.
+    private class TransformAll extends RecursiveAction {
+        @Override
+        protected void compute() {
+            int chunkCount = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            for (int chunkIx = 1; chunkIx < chunkCount; chunkIx++) {
+                transformChunks[chunkIx].reinitialize();
+                transformChunks[chunkIx].fork();
+            }
+
+            transformChunks[0].reinitialize();
+            transformChunks[0].invoke();
+
+            for (int chunkIx = 1; chunkIx < chunkCount; chunkIx++) {
+                transformChunks[chunkIx].join();
+            }
+        }
+    }
+
+    private class TransformChunk extends RecursiveAction {
+        TransformChunk(int begin) {
+            this.begin = begin;
+        }
+
+        @Override
+        protected void compute() {
+            transform(begin, Math.min(begin + CHUNK_SIZE, count));
+        }
+
+        private final int begin;
+    }
+}
@@ -8,6 +8,7 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.*;
 import java.util.*;
 
@@ -23,6 +24,10 @@ import static org.lwjgl.opengl.GL30.*;
  */
 public class Mesh {
     public Mesh(String filename) {
+        this(Framework.getAssetContext(), filename);
+    }
+
+    public Mesh(AssetContext assetContext, String filename) {
         ArrayList<Attribute> attribs = new ArrayList<>(16);
         ArrayList<IndexData> indexData = new ArrayList<>();
         ArrayList<NamedVAO> namedVaoList = new ArrayList<>();
@@ -32,8 +37,10 @@ public class Mesh {
             DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
             DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
 
-            String meshPath = Framework.findFileOrThrow(filename);
-            doc = dBuilder.parse(ClassLoader.class.getResourceAsStream(meshPath));
+            String meshPath = assetContext.findFileOrThrow(filename);
+            try (InputStream meshInputStream = assetContext.openFile(meshPath)) {
+                doc = dBuilder.parse(meshInputStream);
+            }
         } catch (ParserConfigurationException | SAXException | IOException e) {
             e.printStackTrace();
             System.exit(-1);
@@ -1,7 +1,8 @@
 package integeruser.jgltut.framework;
 
-import integeruser.jglsdk.glimg.DdsLoader;
 import integeruser.jglsdk.glimg.ImageSet;
+import integeruser.jglsdk.glimg.ImageSetCache;
+import integeruser.jglsdk.glimg.ResolutionPolicy;
 import integeruser.jglsdk.glimg.TextureGenerator;
 import org.joml.Matrix3f;
 import org.joml.Matrix4f;
@@ -21,6 +22,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.FloatBuffer;
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static org.lwjgl.opengl.EXTTextureFilterAnisotropic.GL_MAX_TEXTURE_MAX_ANISOTROPY_EXT;
 import static org.lwjgl.opengl.EXTTextureFilterAnisotropic.GL_TEXTURE_MAX_ANISOTROPY_EXT;
@@ -32,6 +34,7 @@ import static org.lwjgl.opengl.GL20.*;
 import static org.lwjgl.opengl.GL31.*;
 import static org.lwjgl.opengl.GL32.GL_GEOMETRY_SHADER;
 import static org.lwjgl.opengl.GL33.*;
+import static org.lwjgl.opengl.GL41.*;
 
 
 /**
@@ -39,6 +42,11 @@ import static org.lwjgl.opengl.GL33.*;
  */
 public class Scene {
     public Scene(String filename) {
+        this(Framework.getAssetContext(), filename);
+    }
+
+    public Scene(AssetContext assetContext, String filename) {
+        this.assetContext = assetContext;
         sceneImpl = new SceneImpl(filename);
     }
 
@@ -61,6 +69,7 @@ public class Scene {
     }
 
     ////////////////////////////////
+    private AssetContext assetContext;
     private SceneImpl sceneImpl;
 
     private FloatBuffer mat3Buffer = BufferUtils.createFloatBuffer(9);
@@ -69,7 +78,7 @@ public class Scene {
     ////////////////////////////////
     private class SceneMesh {
         SceneMesh(String filename) {
-            mesh = new Mesh(filename);
+            mesh = new Mesh(assetContext, filename);
         }
 
 
@@ -88,50 +97,46 @@ public class Scene {
 
 
     private class SceneTexture {
-        SceneTexture(String filename, int creationFlags) {
-            String filePath = Framework.findFileOrThrow(filename);
-            ImageSet imageSet = null;
-
-            String fileExtension = filename.substring(filename.lastIndexOf('.') + 1);
-            if (fileExtension.equals("dds")) {
-                try {
-                    imageSet = DdsLoader.loadFromFile(filePath);
-                } catch (IOException e) {
-                    e.printStackTrace();
-                    System.exit(-1);
-                }
-            } else {
-                // ImageSet.reset(glimg::loaders::stb::LoadFromFile(pathname.c_str()));
-                assert false : fileExtension + " loader not yet implemented";
-            }
-
-            textureObj = TextureGenerator.createTexture(imageSet, creationFlags);
-            textureType = TextureGenerator.getTextureType(imageSet, creationFlags);
+        SceneTexture(ImageSet imageSet, int creationFlags) {
+            textureResidency = Framework.getTextureResidency();
+            residentTexture = textureResidency.add(imageSet, creationFlags);
         }
 
         @Override
         protected void finalize() throws Throwable {
             super.finalize();
-            glDeleteTextures(textureObj);
+            textureResidency.remove(residentTexture);
         }
 
 
+        // Marks the texture as used: only call it to bind the texture.
         int getTexture() {
-            return textureObj;
+            return residentTexture.getTexture();
         }
 
         int getType() {
-            return textureType;
+            return residentTexture.getType();
         }
 
         ////////////////////////////////
-        private int textureObj, textureType;
+        private TextureResidency textureResidency;
+        private TextureResidency.ResidentTexture residentTexture;
     }
 
 
     private class SceneProgram {
         SceneProgram(int programObj, int matrixLoc, int normalMatLoc) {
             this.programObj = programObj;
+            this.matrixProgramObj = programObj;
+            this.matrixLoc = matrixLoc;
+            this.normalMatLoc = normalMatLoc;
+        }
+
+        // The matrices are in the vertex stage program; other uniforms are set through the active program.
+        SceneProgram(int pipelineObj, int vertexProgramObj, int activeProgramObj, int matrixLoc, int normalMatLoc) {
+            this.pipelineObj = pipelineObj;
+            this.programObj = activeProgramObj;
+            this.matrixProgramObj = vertexProgramObj;
             this.matrixLoc = matrixLoc;
             this.normalMatLoc = normalMatLoc;
         }
@@ -139,19 +144,44 @@ public class Scene {
         @Override
         protected void finalize() throws Throwable {
             super.finalize();
-            glDeleteProgram(programObj);
+            // Pipelines and their stage programs are shared through the framework caches.
+            if (pipelineObj == 0) glDeleteProgram(programObj);
         }
 
 
         void useProgram() {
-            glUseProgram(programObj);
+            if (pipelineObj == 0) {
+                glUseProgram(programObj);
+            } else {
+                glUseProgram(0);
+                glBindProgramPipeline(pipelineObj);
+                glActiveShaderProgram(pipelineObj, programObj);
+            }
+        }
+
+        void unuseProgram() {
+            glUseProgram(0);
+            if (pipelineObj != 0) glBindProgramPipeline(0);
         }
 
 
-        int getMatrixLoc() {
-            return matrixLoc;
+        void setMatrix(Matrix4f objMat) {
+            if (pipelineObj == 0) {
+                glUniformMatrix4fv(matrixLoc, false, objMat.get(mat4Buffer));
+            } else {
+                glProgramUniformMatrix4fv(matrixProgramObj, matrixLoc, false, objMat.get(mat4Buffer));
+            }
+        }
+
+        void setNormalMatrix(Matrix3f normMat) {
+            if (pipelineObj == 0) {
+                glUniformMatrix3fv(normalMatLoc, false, normMat.get(mat3Buffer));
+            } else {
+                glProgramUniformMatrix3fv(matrixProgramObj, normalMatLoc, false, normMat.get(mat3Buffer));
+            }
         }
 
+
         int getNormalMatLoc() {
             return normalMatLoc;
         }
@@ -161,7 +191,7 @@ public class Scene {
         }
 
         ////////////////////////////////
-        private int programObj, matrixLoc, normalMatLoc;
+        private int pipelineObj, programObj, matrixProgramObj, matrixLoc, normalMatLoc;
     }
 
 
@@ -204,11 +234,11 @@ public class Scene {
             Matrix4f objMat = new Matrix4f(baseMat).mul(objTransform.getMatrix());
 
             program.useProgram();
-            glUniformMatrix4fv(program.getMatrixLoc(), false, objMat.get(mat4Buffer));
+            program.setMatrix(objMat);
 
             if (program.getNormalMatLoc() != -1) {
                 Matrix3f normMat = new Matrix3f(objMat).invert().transpose();
-                glUniformMatrix3fv(program.getNormalMatLoc(), false, normMat.get(mat3Buffer));
+                program.setNormalMatrix(normMat);
             }
 
             for (SceneBinders.StateBinder stateBinder : stateBinders) {
@@ -233,7 +263,7 @@ public class Scene {
                 stateBinder.unbindState(program.getProgram());
             }
 
-            glUseProgram(0);
+            program.unuseProgram();
         }
 
 
@@ -256,6 +286,9 @@ public class Scene {
 
         private Transform nodeTransform;
         private Transform objTransform;
+
+        // Its GPU scope, when the nodes are profiled.
+        private int profilerScope = -1;
     }
 
     ////////////////////////////////
@@ -379,9 +412,10 @@ public class Scene {
                 DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
                 DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
 
-                String xmlPath = Framework.findFileOrThrow(filename);
-                InputStream xmlInputStream = ClassLoader.class.getResourceAsStream(xmlPath);
-                document = documentBuilder.parse(xmlInputStream);
+                String xmlPath = assetContext.findFileOrThrow(filename);
+                try (InputStream xmlInputStream = assetContext.openFile(xmlPath)) {
+                    document = documentBuilder.parse(xmlInputStream);
+                }
             } catch (SAXException | ParserConfigurationException | IOException e) {
                 e.printStackTrace();
                 System.exit(-1);
@@ -409,11 +443,28 @@ public class Scene {
         ////////////////////////////////
 
         private void render(Matrix4f cameraMat) {
+            if (Framework.PROFILE_SCENE_NODES) {
+                renderProfiled(cameraMat);
+                return;
+            }
+
             for (SceneNode sceneNode : nodes.values()) {
                 sceneNode.render(samplers, cameraMat);
             }
         }
 
+        private void renderProfiled(Matrix4f cameraMat) {
+            FrameProfiler profiler = Framework.getFrameProfiler();
+            for (Map.Entry<String, SceneNode> node : nodes.entrySet()) {
+                SceneNode sceneNode = node.getValue();
+                if (sceneNode.profilerScope == -1) sceneNode.profilerScope = profiler.getScope("node " + node.getKey());
+
+                profiler.beginGpu(sceneNode.profilerScope);
+                sceneNode.render(samplers, cameraMat);
+                profiler.endGpu();
+            }
+        }
+
         ////////////////////////////////
 
         private SceneNode findNode(String nodeName) {
@@ -465,81 +516,139 @@ public class Scene {
         private void readTextures(Element sceneNode) {
             ArrayList<Element> textureElements = getElementsByTagName(sceneNode, "texture");
 
+            Set<String> textureNames = new HashSet<>();
             for (Element element : textureElements) {
-                readTexture(element);
+                validateTexture(element, textureNames);
+            }
+
+            // Decode the images in parallel; the textures are created on this thread, where the GL context is current.
+            List<ImageSet> imageSets = textureElements.parallelStream()
+                    .map(this::loadTextureImage)
+                    .collect(Collectors.toList());
+
+            for (int textureIx = 0; textureIx < textureElements.size(); textureIx++) {
+                Element element = textureElements.get(textureIx);
+                SceneTexture texture = new SceneTexture(imageSets.get(textureIx), getTextureCreationFlags(element));
+                textures.put(element.getAttribute("xml:id"), texture);
             }
         }
 
-        private void readTexture(Element textureNode) {
+        private void validateTexture(Element textureNode, Set<String> textureNames) {
             String nameNode = textureNode.getAttribute("xml:id");
             String filenameNode = textureNode.getAttribute("file");
 
-            {
-                if (nameNode.equals("")) throw new RuntimeException("Texture found with no `xml:id` name specified.");
-                if (filenameNode.equals(""))
-                    throw new RuntimeException("Texture found with no `file` filename specified.");
+            if (nameNode.equals("")) throw new RuntimeException("Texture found with no `xml:id` name specified.");
+            if (filenameNode.equals(""))
+                throw new RuntimeException("Texture found with no `file` filename specified.");
+
+            if (textures.containsKey(nameNode) || !textureNames.add(nameNode))
+                throw new RuntimeException("The texture named \"" + nameNode + "\" already exists.");
+        }
+
+        // Only uses the asset context, so it can run on any thread.
+        private ImageSet loadTextureImage(Element textureNode) {
+            String filenameNode = textureNode.getAttribute("file");
 
-                if (textures.containsKey(nameNode))
-                    throw new RuntimeException("The texture named \"" + nameNode + "\" already exists.");
+            // Optional, they override the resolution policy of the asset context.
+            ResolutionPolicy resolutionPolicy = assetContext.getResolutionPolicy();
+            String skipMipsNode = textureNode.getAttribute("skip-mips");
+            String maxResolutionNode = textureNode.getAttribute("max-resolution");
+            if (!skipMipsNode.equals("") || !maxResolutionNode.equals("")) {
+                resolutionPolicy = new ResolutionPolicy(
+                        skipMipsNode.equals("") ? resolutionPolicy.getSkipMipmaps() : Integer.parseInt(skipMipsNode),
+                        maxResolutionNode.equals("") ? resolutionPolicy.getMaxResolution() : Integer.parseInt(maxResolutionNode));
             }
 
+            String filePath = assetContext.findFileOrThrow(filenameNode);
+            String fileExtension = filenameNode.substring(filenameNode.lastIndexOf('.') + 1);
+            ImageSetCache.Loader loader = assetContext.getImageLoader(fileExtension);
+            if (loader == null) throw new RuntimeException("No image loader for the file " + filenameNode);
+
+            ImageSet imageSet = null;
+            try {
+                imageSet = assetContext.loadImageSet(filePath, getTextureCreationFlags(textureNode), resolutionPolicy, loader);
+            } catch (IOException e) {
+                e.printStackTrace();
+                System.exit(-1);
+            }
+            return imageSet;
+        }
+
+        private int getTextureCreationFlags(Element textureNode) {
             int creationFlags = 0;
             if (textureNode.getAttribute("srgb").equals("true")) {
                 creationFlags = creationFlags | TextureGenerator.ForcedConvertFlags.FORCE_SRGB_COLORSPACE_FMT;
             }
-
-            SceneTexture texture = new SceneTexture(filenameNode, creationFlags);
-            textures.put(nameNode, texture);
+            return creationFlags;
         }
 
 
         private void readPrograms(Element sceneNode) {
             ArrayList<Element> programElements = getElementsByTagName(sceneNode, "prog");
+
+            // Submit all the programs before using any, so that the driver can build them concurrently.
+            ArrayList<Element> linkedProgramElements = new ArrayList<>();
+            ArrayList<ArrayList<Integer>> programsShaders = new ArrayList<>();
+            Set<String> programNames = new HashSet<>();
             for (Element element : programElements) {
-                readProgram(element);
+                validateProgram(element, programNames);
+
+                if (element.getAttribute("separable").equals("true")) {
+                    readSeparableProgram(element);
+                } else {
+                    linkedProgramElements.add(element);
+                    programsShaders.add(loadProgramShaders(element));
+                }
+            }
+
+            int[] programObjs = Framework.createPrograms(programsShaders);
+            for (int programIx = 0; programIx < programObjs.length; programIx++) {
+                readProgram(linkedProgramElements.get(programIx), programObjs[programIx]);
             }
         }
 
-        private void readProgram(Element programNode) {
+        private void validateProgram(Element programNode, Set<String> programNames) {
             String nameNode = programNode.getAttribute("xml:id");
             String vertexShaderNode = programNode.getAttribute("vert");
             String fragmentShaderNode = programNode.getAttribute("frag");
             String modelMatrixNode = programNode.getAttribute("model-to-camera");
 
+            if (nameNode.equals("")) throw new RuntimeException("Program found with no `xml:id` name specified.");
+            if (vertexShaderNode.equals(""))
+                throw new RuntimeException("Program found with no `vert` filename specified.");
+            if (fragmentShaderNode.equals(""))
+                throw new RuntimeException("Program found with no `frag` name specified.");
+            if (modelMatrixNode.equals(""))
+                throw new RuntimeException("Program found with no `model-to-camera` filename specified.");
+
+            if (programs.containsKey(nameNode) || !programNames.add(nameNode))
+                throw new RuntimeException("The program named \"" + nameNode + "\" already exists.");
+        }
+
+        private ArrayList<Integer> loadProgramShaders(Element programNode) {
+            String vertexShaderNode = programNode.getAttribute("vert");
+            String fragmentShaderNode = programNode.getAttribute("frag");
+
             // Optional.
-            String normalMatrixNode = programNode.getAttribute("normal-model-to-camera");
             String geometryShaderNode = programNode.getAttribute("geom");
 
-            {
-                if (nameNode.equals("")) throw new RuntimeException("Program found with no `xml:id` name specified.");
-                if (vertexShaderNode.equals(""))
-                    throw new RuntimeException("Program found with no `vert` filename specified.");
-                if (fragmentShaderNode.equals(""))
-                    throw new RuntimeException("Program found with no `frag` name specified.");
-                if (modelMatrixNode.equals(""))
-                    throw new RuntimeException("Program found with no `model-to-camera` filename specified.");
+            ArrayList<Integer> shaders = new ArrayList<>();
+            shaders.add(Framework.loadShader(assetContext, GL_VERTEX_SHADER, vertexShaderNode));
+            shaders.add(Framework.loadShader(assetContext, GL_FRAGMENT_SHADER, fragmentShaderNode));
 
-                if (programs.containsKey(nameNode))
-                    throw new RuntimeException("The program named \"" + nameNode + "\" already exists.");
+            if (!geometryShaderNode.equals("")) {
+                shaders.add(Framework.loadShader(assetContext, GL_GEOMETRY_SHADER, geometryShaderNode));
             }
 
-            int program;
-
-            {
-                ArrayList<Integer> shaders = new ArrayList<>();
-                shaders.add(Framework.loadShader(GL_VERTEX_SHADER, vertexShaderNode));
-                shaders.add(Framework.loadShader(GL_FRAGMENT_SHADER, fragmentShaderNode));
-
-                if (!geometryShaderNode.equals("")) {
-                    shaders.add(Framework.loadShader(GL_GEOMETRY_SHADER, geometryShaderNode));
-                }
+            return shaders;
+        }
 
-                program = Framework.createProgram(shaders);
+        private void readProgram(Element programNode, int program) {
+            String nameNode = programNode.getAttribute("xml:id");
+            String modelMatrixNode = programNode.getAttribute("model-to-camera");
 
-                for (Integer integer : shaders) {
-                    glDeleteShader(integer);
-                }
-            }
+            // Optional.
+            String normalMatrixNode = programNode.getAttribute("normal-model-to-camera");
 
             int matrixLoc = glGetUniformLocation(program, modelMatrixNode);
             if (matrixLoc == -1) {
@@ -558,10 +667,50 @@ public class Scene {
 
             programs.put(nameNode, new SceneProgram(program, matrixLoc, normalMatLoc));
 
-            readProgramContents(program, programNode);
+            readProgramContents(new int[]{program}, programNode);
+        }
+
+        // The stages are shared with the other pipelines using the same shaders, and so are their uniforms and bindings.
+        private void readSeparableProgram(Element programNode) {
+            String nameNode = programNode.getAttribute("xml:id");
+            String modelMatrixNode = programNode.getAttribute("model-to-camera");
+
+            // Optional.
+            String normalMatrixNode = programNode.getAttribute("normal-model-to-camera");
+            String geometryShaderNode = programNode.getAttribute("geom");
+
+            int vertexProgram = Framework.loadStageProgram(assetContext, GL_VERTEX_SHADER, programNode.getAttribute("vert"));
+            int fragmentProgram = Framework.loadStageProgram(assetContext, GL_FRAGMENT_SHADER, programNode.getAttribute("frag"));
+
+            int[] stagePrograms;
+            if (geometryShaderNode.equals("")) {
+                stagePrograms = new int[]{vertexProgram, fragmentProgram};
+            } else {
+                int geometryProgram = Framework.loadStageProgram(assetContext, GL_GEOMETRY_SHADER, geometryShaderNode);
+                stagePrograms = new int[]{vertexProgram, geometryProgram, fragmentProgram};
+            }
+            int pipeline = Framework.getProgramPipeline(stagePrograms);
+
+            int matrixLoc = glGetUniformLocation(vertexProgram, modelMatrixNode);
+            if (matrixLoc == -1) {
+                throw new RuntimeException("Could not find the matrix uniform " + modelMatrixNode + " in the vertex stage of program " + nameNode);
+            }
+
+            int normalMatLoc = -1;
+            if (!normalMatrixNode.equals("")) {
+                normalMatLoc = glGetUniformLocation(vertexProgram, normalMatrixNode);
+                if (normalMatLoc == -1) {
+                    throw new RuntimeException("Could not find the normal matrix uniform " + normalMatrixNode + " in the vertex stage of program " + nameNode);
+                }
+            }
+
+            // Uniforms set by the tutorials and the state binders go to the fragment stage.
+            programs.put(nameNode, new SceneProgram(pipeline, vertexProgram, fragmentProgram, matrixLoc, normalMatLoc));
+
+            readProgramContents(stagePrograms, programNode);
         }
 
-        private void readProgramContents(int program, Element programNode) {
+        private void readProgramContents(int[] programObjs, Element programNode) {
             Set<String> blockBindings = new HashSet<>();
             Set<String> samplerBindings = new HashSet<>();
 
@@ -591,13 +740,20 @@ public class Scene {
                                 }
                             }
 
-                            int blockIx = glGetUniformBlockIndex(program, nameNode);
-                            if (blockIx == GL_INVALID_INDEX) {
-                                System.out.println("Warning: the uniform block " + nameNode + " could not be found.");
+                            int bindPoint = Integer.parseInt(bindingNode);
+                            boolean found = false;
+
+                            for (int program : programObjs) {
+                                int blockIx = glGetUniformBlockIndex(program, nameNode);
+                                if (blockIx != GL_INVALID_INDEX) {
+                                    glUniformBlockBinding(program, blockIx, bindPoint);
+                                    found = true;
+                                }
                             }
 
-                            int bindPoint = Integer.parseInt(bindingNode);
-                            glUniformBlockBinding(program, blockIx, bindPoint);
+                            if (!found) {
+                                System.out.println("Warning: the uniform block " + nameNode + " could not be found.");
+                            }
                         }
                     }
                 }
@@ -627,15 +783,22 @@ public class Scene {
                                 }
                             }
 
-                            int samplerLoc = glGetUniformLocation(program, nameNode);
-                            if (samplerLoc == -1) {
-                                System.out.println("Warning: the sampler " + nameNode + " could not be found.");
+                            int textureUnit = Integer.parseInt(texunitNode);
+                            boolean found = false;
+
+                            for (int program : programObjs) {
+                                int samplerLoc = glGetUniformLocation(program, nameNode);
+                                if (samplerLoc != -1) {
+                                    glUseProgram(program);
+                                    glUniform1i(samplerLoc, textureUnit);
+                                    glUseProgram(0);
+                                    found = true;
+                                }
                             }
 
-                            int textureUnit = Integer.parseInt(texunitNode);
-                            glUseProgram(program);
-                            glUniform1i(samplerLoc, textureUnit);
-                            glUseProgram(0);
+                            if (!found) {
+                                System.out.println("Warning: the sampler " + nameNode + " could not be found.");
+                            }
                         }
                     }
                 }
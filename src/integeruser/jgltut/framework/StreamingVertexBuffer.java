@@ -0,0 +1,244 @@
+package integeruser.jgltut.framework;
+
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GLCapabilities;
+
+import java.nio.ByteBuffer;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.glVertexAttribPointer;
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL32.*;
+import static org.lwjgl.opengl.GL44.*;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * Vertex data generated on the CPU every frame, appended at a write cursor which wraps around at the end of the
+ * buffer. Draw calls source the data at the offset returned by unmap, either by rebinding the attributes with
+ * bindVertexArray, or with a first vertex of offset / stride.
+ * <p>
+ * With the ORPHAN strategy the data is written with unsynchronized maps, and the storage is orphaned on wrap-around,
+ * letting the driver keep the old one alive while the GPU reads it. With the PERSISTENT strategy (OpenGL 4.4 or
+ * ARB_buffer_storage) the buffer stays mapped, and the fences placed by endFrame tell when the GPU is done with the
+ * data the cursor is about to overwrite.
+ */
+public class StreamingVertexBuffer {
+    public enum Strategy {
+        ORPHAN,
+        PERSISTENT
+    }
+
+
+    public static class Attribute {
+        public Attribute(int index, int size, int type, boolean normalized, int relativeOffset) {
+            this.index = index;
+            this.size = size;
+            this.type = type;
+            this.normalized = normalized;
+            this.relativeOffset = relativeOffset;
+        }
+
+        private final int index;
+        private final int size;
+        private final int type;
+        private final boolean normalized;
+        private final int relativeOffset;
+    }
+
+
+    // Requires a current context. Uses the persistent strategy if available.
+    public StreamingVertexBuffer(int capacity) {
+        this(capacity, isPersistentSupported() ? Strategy.PERSISTENT : Strategy.ORPHAN);
+    }
+
+    public StreamingVertexBuffer(int capacity, Strategy strategy) {
+        if (strategy == Strategy.PERSISTENT && !isPersistentSupported()) {
+            throw new RuntimeException("Persistent mapping requires OpenGL 4.4 or ARB_buffer_storage.");
+        }
+
+        this.capacity = capacity;
+        this.strategy = strategy;
+
+        bufferObject = glGenBuffers();
+        glBindBuffer(GL_ARRAY_BUFFER, bufferObject);
+        if (strategy == Strategy.PERSISTENT) {
+            int flags = GL_MAP_WRITE_BIT | GL_MAP_PERSISTENT_BIT | GL_MAP_COHERENT_BIT;
+            glBufferStorage(GL_ARRAY_BUFFER, capacity, flags);
+            mappedBuffer = glMapBufferRange(GL_ARRAY_BUFFER, 0, capacity, flags);
+        } else {
+            glBufferData(GL_ARRAY_BUFFER, capacity, GL_STREAM_DRAW);
+        }
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+    }
+
+
+    public static boolean isPersistentSupported() {
+        GLCapabilities capabilities = GL.getCapabilities();
+        return capabilities.OpenGL44 || capabilities.GL_ARB_buffer_storage;
+    }
+
+    ////////////////////////////////
+    /**
+     * Reserves size bytes at the cursor, at an offset multiple of the alignment (usually the vertex stride), and returns
+     * a buffer whose remaining bytes are the reserved ones. The data is written with relative puts, then committed by
+     * unmap. The buffer must not be kept after it.
+     */
+    public ByteBuffer map(int size, int alignment) {
+        if (mapOffset != -1) throw new RuntimeException("The buffer is already mapped.");
+        if (size > capacity) throw new RuntimeException("Could not stream " + size + " bytes in a buffer of " + capacity + ".");
+
+        int offset = UniformRingBuffer.alignOffset(cursor, alignment);
+        boolean wrap = offset + size > capacity;
+        if (wrap) offset = 0;
+
+        if (strategy == Strategy.PERSISTENT) {
+            // The bytes skipped at the end of the buffer are used too, until the GPU is done with the frame.
+            int reservedBytes = (wrap ? capacity - cursor : offset - cursor) + size;
+            while (capacity - usedBytes < reservedBytes) {
+                if (pendingFrames == 0) {
+                    throw new RuntimeException("The vertex data of the frame takes more than " + capacity + " bytes.");
+                }
+                waitOldestFrame();
+            }
+            usedBytes += reservedBytes;
+            frameBytes += reservedBytes;
+
+            mappedBuffer.limit(offset + size).position(offset);
+        } else {
+            glBindBuffer(GL_ARRAY_BUFFER, bufferObject);
+            if (wrap) {
+                // Orphan the storage: the GPU keeps reading the old one.
+                glBufferData(GL_ARRAY_BUFFER, capacity, GL_STREAM_DRAW);
+            }
+            int access = GL_MAP_WRITE_BIT | GL_MAP_INVALIDATE_RANGE_BIT | GL_MAP_UNSYNCHRONIZED_BIT;
+            mappedBuffer = glMapBufferRange(GL_ARRAY_BUFFER, offset, size, access, mappedBuffer);
+            glBindBuffer(GL_ARRAY_BUFFER, 0);
+        }
+
+        mapOffset = offset;
+        cursor = offset + size;
+        return mappedBuffer;
+    }
+
+    /**
+     * Commits the data written in the buffer returned by map, and returns its offset in the buffer object.
+     */
+    public int unmap() {
+        if (mapOffset == -1) throw new RuntimeException("The buffer is not mapped.");
+
+        if (strategy == Strategy.PERSISTENT) {
+            // Coherent mapping: nothing to flush.
+            mappedBuffer.clear();
+        } else {
+            glBindBuffer(GL_ARRAY_BUFFER, bufferObject);
+            glUnmapBuffer(GL_ARRAY_BUFFER);
+            glBindBuffer(GL_ARRAY_BUFFER, 0);
+        }
+
+        int offset = mapOffset;
+        mapOffset = -1;
+        return offset;
+    }
+
+    /**
+     * Copies the remaining bytes of the data, and returns their offset in the buffer object. The position of the data
+     * is not changed.
+     */
+    public int write(ByteBuffer data, int alignment) {
+        ByteBuffer buffer = map(data.remaining(), alignment);
+        buffer.put(data.duplicate());
+        return unmap();
+    }
+
+
+    /**
+     * Call it once the draw calls reading the data written so far have been issued. Only needed by the persistent
+     * strategy; the data of a frame is never overwritten before its fence is signaled.
+     */
+    public void endFrame() {
+        if (strategy != Strategy.PERSISTENT || frameBytes == 0) return;
+
+        if (pendingFrames == MAX_PENDING_FRAMES) waitOldestFrame();
+
+        int frameIx = (oldestFrameIx + pendingFrames) % MAX_PENDING_FRAMES;
+        fences[frameIx] = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        fencedBytes[frameIx] = frameBytes;
+        pendingFrames++;
+
+        frameBytes = 0;
+    }
+
+
+    /**
+     * Binds the VAO, and points its attributes at the vertices written at the offset. The VAO is left bound, and the
+     * attribute arrays must already be enabled.
+     */
+    public void bindVertexArray(int vao, int offset, int stride, Attribute... attributes) {
+        glBindVertexArray(vao);
+        glBindBuffer(GL_ARRAY_BUFFER, bufferObject);
+        for (Attribute attribute : attributes) {
+            glVertexAttribPointer(attribute.index, attribute.size, attribute.type, attribute.normalized, stride,
+                    offset + attribute.relativeOffset);
+        }
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+    }
+
+
+    public int getBufferObject() {
+        return bufferObject;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    ////////////////////////////////
+    private static final int MAX_PENDING_FRAMES = 8;
+
+    // Waits are repeated until the fence is signaled; the timeout only bounds each call.
+    private static final long FENCE_TIMEOUT_NS = 1000000000L;
+
+
+    private final int capacity;
+    private final Strategy strategy;
+    private int bufferObject;
+
+    private ByteBuffer mappedBuffer;
+    private int mapOffset = -1;
+    private int cursor;
+
+    // Bytes between the data of the oldest frame the GPU may be reading and the cursor.
+    private int usedBytes;
+    private int frameBytes;
+
+    private long[] fences = new long[MAX_PENDING_FRAMES];
+    private int[] fencedBytes = new int[MAX_PENDING_FRAMES];
+    private int oldestFrameIx;
+    private int pendingFrames;
+
+
+    private void waitOldestFrame() {
+        long fence = fences[oldestFrameIx];
+
+        // Flush, or the fence could never be signaled.
+        int waitFlags = GL_SYNC_FLUSH_COMMANDS_BIT;
+        while (true) {
+            int waitResult = glClientWaitSync(fence, waitFlags, FENCE_TIMEOUT_NS);
+            if (waitResult == GL_ALREADY_SIGNALED || waitResult == GL_CONDITION_SATISFIED) break;
+            if (waitResult == GL_WAIT_FAILED) throw new RuntimeException("Could not wait for the vertex buffer fence.");
+            waitFlags = 0;
+        }
+        glDeleteSync(fence);
+
+        usedBytes -= fencedBytes[oldestFrameIx];
+        fences[oldestFrameIx] = 0;
+        oldestFrameIx = (oldestFrameIx + 1) % MAX_PENDING_FRAMES;
+        pendingFrames--;
+    }
+}
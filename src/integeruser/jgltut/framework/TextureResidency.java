@@ -0,0 +1,204 @@
+package integeruser.jgltut.framework;
+
+import integeruser.jglsdk.glimg.ImageSet;
+import integeruser.jglsdk.glimg.TextureGenerator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.lwjgl.opengl.GL11.glDeleteTextures;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * Keeps the memory taken by textures under a budget. When the budget is exceeded, the textures that were bound least
+ * recently lose their top mipmap levels and, as a last resort, their GL texture. They get them back once they are
+ * bound again and there is room for them. Image sets are kept in memory to re-stream the dropped levels.
+ * <p>
+ * Only remove can be called from any thread, for example by a finalizer: the texture is deleted by the next endFrame.
+ */
+public class TextureResidency {
+    public class ResidentTexture {
+        ResidentTexture(ImageSet imageSet, int forceConvertBits) {
+            // Flipped once here, so the sizes are those of the uploaded image.
+            this.imageSet = TextureGenerator.flipTopLeftOrigin(imageSet, forceConvertBits);
+            this.forceConvertBits = forceConvertBits;
+
+            textureType = TextureGenerator.getTextureType(this.imageSet, forceConvertBits);
+
+            // byteCounts[i] is the size of the texture without its first i mipmap levels.
+            int mipmapCount = this.imageSet.getMipmapCount();
+            byteCounts = new long[mipmapCount + 1];
+            for (int mipmapLevel = mipmapCount - 1; mipmapLevel >= 0; mipmapLevel--) {
+                byteCounts[mipmapLevel] = byteCounts[mipmapLevel + 1] + this.imageSet.calcMipmapLevelByteCount(mipmapLevel);
+            }
+        }
+
+        ////////////////////////////////
+        /**
+         * Returns the GL texture, marking it as used in the current frame. Call it every time the texture is bound: the
+         * name changes whenever mipmap levels are dropped or restored.
+         */
+        public int getTexture() {
+            lastUsedFrame = frameIx;
+            if (textureObj == 0) upload(this, droppedMipmapCount);
+            return textureObj;
+        }
+
+        public int getType() {
+            return textureType;
+        }
+
+
+        public int getDroppedMipmapCount() {
+            return droppedMipmapCount;
+        }
+
+        public boolean isResident() {
+            return textureObj != 0;
+        }
+
+        ////////////////////////////////
+        private ImageSet imageSet;
+        private int forceConvertBits;
+        private long[] byteCounts;
+
+        private int textureObj, textureType;
+        private int droppedMipmapCount;
+        private long lastUsedFrame = -1;
+
+
+        private int getMaxDroppedMipmapCount() {
+            return imageSet.getMipmapCount() - 1;
+        }
+    }
+
+    ////////////////////////////////
+    public TextureResidency(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+        textures = new ArrayList<>();
+    }
+
+    ////////////////////////////////
+    public ResidentTexture add(ImageSet imageSet, int forceConvertBits) {
+        ResidentTexture texture = new ResidentTexture(imageSet, forceConvertBits);
+        upload(texture, 0);
+        textures.add(texture);
+        return texture;
+    }
+
+    public void remove(ResidentTexture texture) {
+        removedTextures.add(texture);
+    }
+
+
+    /**
+     * Enforces the budget, then restores the textures used during the frame if they fit. Call it once per frame, after
+     * rendering.
+     */
+    public void endFrame() {
+        releaseRemovedTextures();
+
+        if (residentBytes > budgetBytes) {
+            textures.sort(LEAST_RECENTLY_USED_FIRST);
+            demoteColdTextures();
+            if (residentBytes > budgetBytes) evictColdTextures();
+        }
+
+        promoteHotTextures();
+        frameIx++;
+    }
+
+    ////////////////////////////////
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    public void setBudgetBytes(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+
+    public long getResidentBytes() {
+        return residentBytes;
+    }
+
+    ////////////////////////////////
+    private static final Comparator<ResidentTexture> LEAST_RECENTLY_USED_FIRST =
+            (texture, otherTexture) -> Long.compare(texture.lastUsedFrame, otherTexture.lastUsedFrame);
+
+
+    private long budgetBytes;
+    private long residentBytes;
+    private long frameIx;
+
+    private ArrayList<ResidentTexture> textures;
+    // Removed textures, deleted on the GL thread.
+    private ConcurrentLinkedQueue<ResidentTexture> removedTextures = new ConcurrentLinkedQueue<>();
+
+    ////////////////////////////////
+    private void releaseRemovedTextures() {
+        ResidentTexture texture;
+        while ((texture = removedTextures.poll()) != null) {
+            if (textures.remove(texture)) release(texture);
+        }
+    }
+
+
+    // Textures must be sorted from the least recently used. Textures used in the current frame are never demoted.
+    private void demoteColdTextures() {
+        for (ResidentTexture texture : textures) {
+            if (residentBytes <= budgetBytes || texture.lastUsedFrame == frameIx) return;
+            if (!texture.isResident() || texture.droppedMipmapCount == texture.getMaxDroppedMipmapCount()) continue;
+
+            // Drop just as many levels as needed, then upload once.
+            int droppedMipmapCount = texture.droppedMipmapCount;
+            long otherBytes = residentBytes - texture.byteCounts[texture.droppedMipmapCount];
+            while (droppedMipmapCount < texture.getMaxDroppedMipmapCount()
+                    && otherBytes + texture.byteCounts[droppedMipmapCount] > budgetBytes) {
+                droppedMipmapCount++;
+            }
+
+            upload(texture, droppedMipmapCount);
+        }
+    }
+
+    private void evictColdTextures() {
+        for (ResidentTexture texture : textures) {
+            if (residentBytes <= budgetBytes || texture.lastUsedFrame == frameIx) return;
+            if (texture.isResident()) release(texture);
+        }
+    }
+
+    private void promoteHotTextures() {
+        for (ResidentTexture texture : textures) {
+            if (texture.lastUsedFrame != frameIx || texture.droppedMipmapCount == 0) continue;
+
+            long otherBytes = residentBytes - texture.byteCounts[texture.droppedMipmapCount];
+            if (otherBytes + texture.byteCounts[0] <= budgetBytes) {
+                upload(texture, 0);
+            }
+        }
+    }
+
+
+    private void upload(ResidentTexture texture, int droppedMipmapCount) {
+        ImageSet imageSet = texture.imageSet.dropMipmapLevels(droppedMipmapCount);
+        int textureObj = TextureGenerator.createTexture(imageSet, texture.forceConvertBits);
+
+        release(texture);
+        texture.textureObj = textureObj;
+        texture.droppedMipmapCount = droppedMipmapCount;
+        residentBytes += texture.byteCounts[droppedMipmapCount];
+    }
+
+    private void release(ResidentTexture texture) {
+        if (texture.textureObj == 0) return;
+
+        glDeleteTextures(texture.textureObj);
+        texture.textureObj = 0;
+        residentBytes -= texture.byteCounts[texture.droppedMipmapCount];
+    }
+}
@@ -5,6 +5,9 @@ import integeruser.jglsdk.glm.Glm;
 
 /**
  * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * The time is accumulated in long nanoseconds, so loop timers don't lose precision however long they run. Timers
+ * registered with a Clock are advanced by it every frame.
  */
 public class Timer {
     public enum Type {
@@ -15,7 +18,10 @@ public class Timer {
     ////////////////////////////////
     public Timer(Type type, float duration) {
         this.type = type;
-        secDuration = duration;
+        durationNanos = Clock.toNanos(duration);
+
+        // Also rejects NaN and durations below half a nanosecond, which round to 0.
+        if (durationNanos <= 0) throw new IllegalArgumentException("The duration must be positive: " + duration);
     }
 
     ////////////////////////////////
@@ -24,30 +30,30 @@ public class Timer {
      * Updates the time for the timer. Returns true if the timer has reached the end.
      * Will only return true for SINGLE timers that have reached their duration.
      *
-     * @param elapsedTime the time passed since the application start (in milliseconds)
+     * @param elapsedTime the time passed since the application start (in seconds)
      */
     public boolean update(float elapsedTime) {
-        float absCurrTime = elapsedTime;
+        long absCurrTime = Clock.toNanos(elapsedTime);
 
         if (!hasUpdated) {
             absPrevTime = absCurrTime;
             hasUpdated = true;
         }
 
-        if (isPaused) {
-            absPrevTime = absCurrTime;
-            return false;
-        }
-
-        float deltaTime = absCurrTime - absPrevTime;
-        secAccumTime += deltaTime;
-
+        long deltaTime = absCurrTime - absPrevTime;
         absPrevTime = absCurrTime;
-        if (type == Type.SINGLE) {
-            return secAccumTime > secDuration;
-        }
+        return advance(deltaTime);
+    }
+
+    /**
+     * Adds deltaNanos to the current time, unless paused. Returns true if the timer has reached the end.
+     * Will only return true for SINGLE timers that have reached their duration.
+     */
+    public boolean advance(long deltaNanos) {
+        if (isPaused) return false;
 
-        return false;
+        accumNanos += deltaNanos;
+        return isFinished();
     }
 
 
@@ -55,10 +61,10 @@ public class Timer {
      * Subtracts secRewind from the current time and continues from there.
      */
     public void rewind(float secRewind) {
-        secAccumTime -= secRewind;
+        accumNanos -= Clock.toNanos(secRewind);
 
-        if (secAccumTime < 0.0f) {
-            secAccumTime = 0.0f;
+        if (accumNanos < 0) {
+            accumNanos = 0;
         }
     }
 
@@ -66,7 +72,7 @@ public class Timer {
      * Adds secRewind to the current time and continues from there.
      */
     public void fastForward(float secFF) {
-        secAccumTime += secFF;
+        accumNanos += Clock.toNanos(secFF);
     }
 
 
@@ -93,6 +99,14 @@ public class Timer {
     }
 
 
+    /**
+     * Returns true for SINGLE timers that have reached their duration.
+     */
+    public boolean isFinished() {
+        return type == Type.SINGLE && accumNanos > durationNanos;
+    }
+
+
     /**
      * Returns a number [0, 1], representing progress through the duration.
      * Only used for SINGLE and LOOP timers.
@@ -100,10 +114,10 @@ public class Timer {
     public float getAlpha() {
         switch (type) {
             case LOOP:
-                return (secAccumTime % secDuration) / secDuration;
+                return (accumNanos % durationNanos) / (float) durationNanos;
 
             case SINGLE:
-                return Glm.clamp(secAccumTime / secDuration, 0.0f, 1.0f);
+                return Glm.clamp(accumNanos / (float) durationNanos, 0.0f, 1.0f);
 
             default:
                 break;
@@ -115,11 +129,11 @@ public class Timer {
     ////////////////////////////////
 
     private Type type;
-    private float secDuration;
+    private long durationNanos;
 
     private boolean hasUpdated;
     private boolean isPaused;
 
-    private float absPrevTime;
-    private float secAccumTime;
+    private long absPrevTime;
+    private long accumNanos;
 }
@@ -20,11 +20,9 @@ public class UniformBlockArray<T extends Bufferable> {
         this.blockSize = blockSize;
 
         int uniformBufferAlignSize = glGetInteger(GL_UNIFORM_BUFFER_OFFSET_ALIGNMENT);
+        blockOffset = UniformRingBuffer.alignOffset(blockSize, uniformBufferAlignSize);
 
-        blockOffset = blockSize;
-        blockOffset += uniformBufferAlignSize - (blockOffset % uniformBufferAlignSize);
-
-        storage = new byte[arrayCount * blockOffset];
+        storage = BufferUtils.createByteBuffer(arrayCount * blockOffset);
     }
 
     ////////////////////////////////
@@ -32,30 +30,30 @@ public class UniformBlockArray<T extends Bufferable> {
         int bufferObject = glGenBuffers();
         glBindBuffer(GL_UNIFORM_BUFFER, bufferObject);
 
-        ByteBuffer storageBuffer = BufferUtils.createByteBuffer(storage.length);
-        storageBuffer.put(storage);
-        storageBuffer.flip();
-
-        glBufferData(GL_UNIFORM_BUFFER, storageBuffer, GL_STATIC_DRAW);
+        storage.clear();
+        glBufferData(GL_UNIFORM_BUFFER, storage, GL_STATIC_DRAW);
         glBindBuffer(GL_UNIFORM_BUFFER, 0);
 
         return bufferObject;
     }
 
+    /**
+     * Writes the whole array in the region of the current frame, for arrays changing every frame. Returns the offset
+     * of the first block; the others follow every getArrayOffset bytes.
+     */
+    public int write(UniformRingBuffer uniformRingBuffer) {
+        storage.clear();
+        return uniformRingBuffer.write(storage);
+    }
+
 
     /**
      * copy data in storage[index]
      */
     public void set(int index, T data) {
-        ByteBuffer tempByteBuffer = BufferUtils.createByteBuffer(blockSize);
-        data.getAndFlip(tempByteBuffer);
-
-        byte temp[] = new byte[blockSize];
-        for (int i = 0; i < temp.length; i++) {
-            temp[i] = tempByteBuffer.get(i);
-        }
-
-        System.arraycopy(temp, 0, storage, index * blockOffset, blockSize);
+        storage.limit(index * blockOffset + blockSize).position(index * blockOffset);
+        data.get(storage);
+        storage.clear();
     }
 
 
@@ -64,7 +62,7 @@ public class UniformBlockArray<T extends Bufferable> {
     }
 
     ////////////////////////////////
-    private byte[] storage;
+    private ByteBuffer storage;
     private int blockOffset;
     private int arrayCount;
     private int blockSize;
@@ -0,0 +1,187 @@
+package integeruser.jgltut.framework;
+
+import integeruser.jgltut.commons.Bufferable;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GLCapabilities;
+
+import java.nio.ByteBuffer;
+
+import static org.lwjgl.opengl.GL11.glGetInteger;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL30.GL_MAP_WRITE_BIT;
+import static org.lwjgl.opengl.GL30.glBindBufferRange;
+import static org.lwjgl.opengl.GL30.glMapBufferRange;
+import static org.lwjgl.opengl.GL31.GL_UNIFORM_BUFFER;
+import static org.lwjgl.opengl.GL31.GL_UNIFORM_BUFFER_OFFSET_ALIGNMENT;
+import static org.lwjgl.opengl.GL32.*;
+import static org.lwjgl.opengl.GL44.*;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * Uniform data written every frame, in a single buffer split into one region per frame in flight. Each frame writes
+ * its blocks one after the other in its own region, and a fence tells when the GPU is done reading the region, so the
+ * CPU never writes data the GPU may still be reading, and never waits for the GPU unless it is more than
+ * FRAMES_IN_FLIGHT frames behind.
+ * <p>
+ * With OpenGL 4.4 or ARB_buffer_storage, the buffer stays mapped and blocks are written in place. Otherwise each block
+ * is uploaded with glBufferSubData, still to a region the GPU is not reading.
+ */
+public class UniformRingBuffer {
+    public static final int FRAMES_IN_FLIGHT = 3;
+
+
+    // Requires a current context. The frame size is the space available to the blocks of each frame.
+    public UniformRingBuffer(int frameSize) {
+        offsetAlignment = glGetInteger(GL_UNIFORM_BUFFER_OFFSET_ALIGNMENT);
+        regionSize = alignOffset(frameSize, offsetAlignment);
+
+        GLCapabilities capabilities = GL.getCapabilities();
+        boolean persistent = capabilities.OpenGL44 || capabilities.GL_ARB_buffer_storage;
+
+        bufferObject = glGenBuffers();
+        glBindBuffer(GL_UNIFORM_BUFFER, bufferObject);
+        if (persistent) {
+            int flags = GL_MAP_WRITE_BIT | GL_MAP_PERSISTENT_BIT | GL_MAP_COHERENT_BIT;
+            glBufferStorage(GL_UNIFORM_BUFFER, (long) regionSize * FRAMES_IN_FLIGHT, flags);
+            mappedBuffer = glMapBufferRange(GL_UNIFORM_BUFFER, 0, (long) regionSize * FRAMES_IN_FLIGHT, flags);
+        } else {
+            glBufferData(GL_UNIFORM_BUFFER, (long) regionSize * FRAMES_IN_FLIGHT, GL_STREAM_DRAW);
+            stagingBuffer = BufferUtils.createByteBuffer(regionSize);
+        }
+        glBindBuffer(GL_UNIFORM_BUFFER, 0);
+
+        regionStart = 0;
+        regionEnd = regionSize;
+        cursor = regionEnd;  // Nothing can be written before beginFrame.
+    }
+
+    ////////////////////////////////
+    /**
+     * Moves to the region of the next frame, waiting for the GPU to finish reading it if needed.
+     */
+    public void beginFrame() {
+        regionIx = (regionIx + 1) % FRAMES_IN_FLIGHT;
+
+        long fence = fences[regionIx];
+        if (fence != 0) {
+            // Flush, or the fence could never be signaled.
+            int waitFlags = GL_SYNC_FLUSH_COMMANDS_BIT;
+            while (true) {
+                int waitResult = glClientWaitSync(fence, waitFlags, FENCE_TIMEOUT_NS);
+                if (waitResult == GL_ALREADY_SIGNALED || waitResult == GL_CONDITION_SATISFIED) break;
+                if (waitResult == GL_WAIT_FAILED) throw new RuntimeException("Could not wait for the uniform buffer fence.");
+                waitFlags = 0;
+            }
+
+            glDeleteSync(fence);
+            fences[regionIx] = 0;
+        }
+
+        regionStart = regionIx * regionSize;
+        regionEnd = regionStart + regionSize;
+        cursor = regionStart;
+    }
+
+    // Call it once the draw calls reading the blocks of the frame have been issued.
+    public void endFrame() {
+        fences[regionIx] = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+    }
+
+
+    /**
+     * Writes the block in the region of the current frame, and returns its offset in the buffer object. The size must
+     * cover the whole block; the offset is suitably aligned for glBindBufferRange.
+     */
+    public int write(Bufferable block, int size) {
+        int offset = allocate(size);
+
+        if (mappedBuffer != null) {
+            mappedBuffer.limit(offset + size).position(offset);
+            block.get(mappedBuffer);
+            mappedBuffer.clear();
+        } else {
+            stagingBuffer.clear().limit(size);
+            block.get(stagingBuffer);
+            stagingBuffer.clear().limit(size);
+            upload(offset, stagingBuffer);
+        }
+
+        return offset;
+    }
+
+    /**
+     * Copies the remaining bytes of the data in the region of the current frame, and returns their offset in the
+     * buffer object. The position of the data is not changed.
+     */
+    public int write(ByteBuffer data) {
+        int size = data.remaining();
+        int offset = allocate(size);
+
+        if (mappedBuffer != null) {
+            mappedBuffer.position(offset);
+            mappedBuffer.put(data.duplicate());
+            mappedBuffer.clear();
+        } else {
+            upload(offset, data);
+        }
+
+        return offset;
+    }
+
+
+    public void bindRange(int bindingIndex, int offset, int size) {
+        glBindBufferRange(GL_UNIFORM_BUFFER, bindingIndex, bufferObject, offset, size);
+    }
+
+    public int getBufferObject() {
+        return bufferObject;
+    }
+
+    public int getOffsetAlignment() {
+        return offsetAlignment;
+    }
+
+
+    static int alignOffset(int offset, int alignment) {
+        return (offset + alignment - 1) / alignment * alignment;
+    }
+
+    ////////////////////////////////
+    // Waits are repeated until the fence is signaled; the timeout only bounds each call.
+    private static final long FENCE_TIMEOUT_NS = 1000000000L;
+
+
+    private int offsetAlignment;
+    private int regionSize;
+    private int bufferObject;
+
+    private ByteBuffer mappedBuffer;   // Null if the buffer can't stay mapped.
+    private ByteBuffer stagingBuffer;  // Only used if it can't.
+
+    private long[] fences = new long[FRAMES_IN_FLIGHT];
+    private int regionIx = FRAMES_IN_FLIGHT - 1;
+    private int regionStart;
+    private int regionEnd;
+    private int cursor;
+
+
+    private int allocate(int size) {
+        if (cursor + size > regionEnd) {
+            throw new RuntimeException("The uniform data of the frame takes more than " + regionSize + " bytes, or "
+                    + "beginFrame was not called.");
+        }
+
+        int offset = cursor;
+        cursor = Math.min(alignOffset(cursor + size, offsetAlignment), regionEnd);
+        return offset;
+    }
+
+    private void upload(int offset, ByteBuffer data) {
+        glBindBuffer(GL_UNIFORM_BUFFER, bufferObject);
+        glBufferSubData(GL_UNIFORM_BUFFER, offset, data);
+        glBindBuffer(GL_UNIFORM_BUFFER, 0);
+    }
+}
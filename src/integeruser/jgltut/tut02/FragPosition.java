@@ -22,7 +22,7 @@ import static org.lwjgl.opengl.GL30.glGenVertexArrays;
  */
 public class FragPosition extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut02/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut02/data/"));
         new FragPosition().start(500, 500);
     }
 
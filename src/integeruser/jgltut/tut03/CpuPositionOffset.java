@@ -2,11 +2,10 @@ package integeruser.jgltut.tut03;
 
 import integeruser.jgltut.Tutorial;
 import integeruser.jgltut.framework.Framework;
-import org.lwjgl.BufferUtils;
+import integeruser.jgltut.framework.StreamingVertexBuffer;
 
-import java.nio.FloatBuffer;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Arrays;
 
 import static org.lwjgl.opengl.GL11.*;
 import static org.lwjgl.opengl.GL15.*;
@@ -23,7 +22,7 @@ import static org.lwjgl.opengl.GL30.glGenVertexArrays;
  */
 public class CpuPositionOffset extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut03/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut03/data/"));
         new CpuPositionOffset().start(500, 500);
     }
 
@@ -49,14 +48,16 @@ public class CpuPositionOffset extends Tutorial {
 
         glUseProgram(theProgram);
 
-        glBindBuffer(GL_ARRAY_BUFFER, positionBufferObject);
+        glBindBuffer(GL_ARRAY_BUFFER, positionVertices.getBufferObject());
         glEnableVertexAttribArray(0);
-        glVertexAttribPointer(0, 4, GL_FLOAT, false, 0, 0);
+        glVertexAttribPointer(0, 4, GL_FLOAT, false, 0, positionOffset);
 
         glDrawArrays(GL_TRIANGLES, 0, 3);
 
         glDisableVertexAttribArray(0);
         glUseProgram(0);
+
+        positionVertices.endFrame();
     }
 
     @Override
@@ -86,18 +87,13 @@ public class CpuPositionOffset extends Tutorial {
             -0.25f, -0.25f, 0.0f, 1.0f
     };
 
-    private int positionBufferObject;
+    private StreamingVertexBuffer positionVertices;
+    private int positionOffset;
 
 
     private void initializeVertexBuffer() {
-        FloatBuffer vertexPositionsBuffer = BufferUtils.createFloatBuffer(vertexPositions.length);
-        vertexPositionsBuffer.put(vertexPositions);
-        vertexPositionsBuffer.flip();
-
-        positionBufferObject = glGenBuffers();
-        glBindBuffer(GL_ARRAY_BUFFER, positionBufferObject);
-        glBufferData(GL_ARRAY_BUFFER, vertexPositionsBuffer, GL_STREAM_DRAW);
-        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        // The positions are written every frame: room for a few frames, so that writing never waits for the GPU.
+        positionVertices = new StreamingVertexBuffer(vertexPositions.length * Float.BYTES * 4);
     }
 
     ////////////////////////////////
@@ -113,18 +109,13 @@ public class CpuPositionOffset extends Tutorial {
     }
 
     private void adjustVertexData() {
-        float newData[] = Arrays.copyOf(vertexPositions, vertexPositions.length);
+        ByteBuffer newDataBuffer = positionVertices.map(vertexPositions.length * Float.BYTES, 4 * Float.BYTES);
         for (int vertex = 0; vertex < vertexPositions.length; vertex += 4) {
-            newData[vertex] += xOffset;
-            newData[vertex + 1] += yOffset;
+            newDataBuffer.putFloat(vertexPositions[vertex] + xOffset);
+            newDataBuffer.putFloat(vertexPositions[vertex + 1] + yOffset);
+            newDataBuffer.putFloat(vertexPositions[vertex + 2]);
+            newDataBuffer.putFloat(vertexPositions[vertex + 3]);
         }
-
-        FloatBuffer newDataBuffer = BufferUtils.createFloatBuffer(newData.length);
-        newDataBuffer.put(newData);
-        newDataBuffer.flip();
-
-        glBindBuffer(GL_ARRAY_BUFFER, positionBufferObject);
-        glBufferSubData(GL_ARRAY_BUFFER, 0, newDataBuffer);
-        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        positionOffset = positionVertices.unmap();
     }
 }
@@ -22,7 +22,7 @@ import static org.lwjgl.opengl.GL30.glGenVertexArrays;
  */
 public class FragChangeColor extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut03/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut03/data/"));
         new FragChangeColor().start(500, 500);
     }
 
@@ -22,7 +22,7 @@ import static org.lwjgl.opengl.GL30.glGenVertexArrays;
  */
 public class AspectRatio extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut04/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut04/data/"));
         new AspectRatio().start(500, 500);
     }
 
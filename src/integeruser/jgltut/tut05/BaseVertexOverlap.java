@@ -24,7 +24,7 @@ import static org.lwjgl.opengl.GL32.glDrawElementsBaseVertex;
  */
 public class BaseVertexOverlap extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut05/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut05/data/"));
         new BaseVertexOverlap().start(500, 500);
     }
 
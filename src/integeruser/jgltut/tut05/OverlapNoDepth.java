@@ -23,7 +23,7 @@ import static org.lwjgl.opengl.GL30.glGenVertexArrays;
  */
 public class OverlapNoDepth extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut05/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut05/data/"));
         new OverlapNoDepth().start(500, 500);
     }
 
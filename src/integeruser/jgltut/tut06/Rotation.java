@@ -26,7 +26,7 @@ import static org.lwjgl.opengl.GL30.glGenVertexArrays;
  */
 public class Rotation extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut06/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut06/data/"));
         new Rotation().start(500, 500);
     }
 
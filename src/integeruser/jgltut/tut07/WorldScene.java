@@ -37,7 +37,7 @@ import static org.lwjgl.opengl.GL32.GL_DEPTH_CLAMP;
  */
 public class WorldScene extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut07/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut07/data/"));
         new WorldScene().start(700, 700);
     }
 
@@ -35,7 +35,7 @@ import static org.lwjgl.opengl.GL20.*;
  */
 public class CameraRelative extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut08/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut08/data/"));
         new CameraRelative().start(500, 500);
     }
 
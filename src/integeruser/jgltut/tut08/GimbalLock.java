@@ -28,7 +28,7 @@ import static org.lwjgl.opengl.GL20.*;
  */
 public class GimbalLock extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut08/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut08/data/"));
         new GimbalLock().start(500, 500);
     }
 
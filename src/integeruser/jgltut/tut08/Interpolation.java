@@ -29,7 +29,7 @@ import static org.lwjgl.opengl.GL20.*;
  */
 public class Interpolation extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut08/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut08/data/"));
         new Interpolation().start(500, 500);
     }
 
@@ -204,12 +204,16 @@ public class Interpolation extends Tutorial {
 
 
             boolean updateTime() {
-                return currTimer.update(elapsedTime);
+                if (!currTimer.isFinished()) return false;
+
+                clock.unregister(currTimer);
+                return true;
             }
 
             void startAnimation(int destinationIndex, float duration) {
                 finalOrientIndex = destinationIndex;
-                currTimer = new Timer(Timer.Type.SINGLE, duration);
+                if (currTimer != null) clock.unregister(currTimer);
+                currTimer = clock.register(new Timer(Timer.Type.SINGLE, duration));
             }
 
 
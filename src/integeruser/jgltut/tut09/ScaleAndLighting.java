@@ -44,7 +44,7 @@ import static org.lwjgl.opengl.GL32.GL_DEPTH_CLAMP;
  */
 public class ScaleAndLighting extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut09/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut09/data/"));
         new ScaleAndLighting().start(500, 500);
     }
 
@@ -53,7 +53,7 @@ import static org.lwjgl.opengl.GL32.GL_DEPTH_CLAMP;
  */
 public class PhongLighting extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut11/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut11/data/"));
         new PhongLighting().start(500, 500);
     }
 
@@ -207,8 +207,6 @@ public class PhongLighting extends Tutorial {
 
     @Override
     protected void display() {
-        lightTimer.update(elapsedTime);
-
         glClearColor(0.0f, 0.0f, 0.0f, 0.0f);
         glClearDepth(1.0f);
         glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
@@ -474,7 +472,7 @@ public class PhongLighting extends Tutorial {
 
     private float lightHeight = 1.5f;
     private float lightRadius = 1.0f;
-    private Timer lightTimer = new Timer(Timer.Type.LOOP, 5.0f);
+    private Timer lightTimer = clock.register(new Timer(Timer.Type.LOOP, 5.0f));
     private float shininessFactor = 4.0f;
 
     private boolean drawColoredCyl;
@@ -0,0 +1,383 @@
+package integeruser.jgltut.tut12;
+
+import integeruser.jgltut.framework.Framework;
+import integeruser.jgltut.framework.LightStore;
+import integeruser.jgltut.framework.Mesh;
+import org.joml.Matrix4f;
+import org.joml.Vector4f;
+import org.lwjgl.BufferUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.GL_TEXTURE_MAX_LEVEL;
+import static org.lwjgl.opengl.GL13.GL_TEXTURE0;
+import static org.lwjgl.opengl.GL13.glActiveTexture;
+import static org.lwjgl.opengl.GL14.*;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL31.GL_INVALID_INDEX;
+import static org.lwjgl.opengl.GL31.glGetUniformBlockIndex;
+import static org.lwjgl.opengl.GL31.glUniformBlockBinding;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * Deferred shading of the scenes lit by LightManager. The geometry pass writes the surface of each pixel (diffuse
+ * color, specular color and shininess, normal and position, in camera space) to the G-buffer. The lighting pass then
+ * adds the ambient light and the directional lights over the whole screen, and each point light over the pixels
+ * inside its volume only: a UnitSphere around the light, as large as the distance where it falls below 1/256.
+ * <p>
+ * The pixels inside a volume are found with the stencil buffer: the back faces of the volume behind the surface
+ * increment it, the front faces behind the surface decrement it, so only the surfaces between the two are left with a
+ * nonzero value. The cost of a light is then its screen coverage, whatever the number of objects. The pixels covered
+ * by the scene are marked with the highest stencil bit, so the background is never lit.
+ * <p>
+ * The lighting is accumulated in a floating-point buffer, divided by the maximum intensity like the forward HDR
+ * shaders do, and copied to the default framebuffer by blitToScreen.
+ */
+class DeferredRenderer {
+    DeferredRenderer(int materialBlockIndex, int projectionBlockIndex) {
+        this.materialBlockIndex = materialBlockIndex;
+        this.projectionBlockIndex = projectionBlockIndex;
+
+        initializePrograms();
+
+        framebuffer = glGenFramebuffers();
+        for (int targetIx = 0; targetIx < TARGET_COUNT; targetIx++) {
+            targetTextures[targetIx] = glGenTextures();
+        }
+        depthStencilBuffer = glGenRenderbuffers();
+
+        // The fullscreen passes generate their triangle from gl_VertexID, but a VAO must be bound.
+        emptyVAO = glGenVertexArrays();
+
+        geometryDrawBuffers.put(new int[]{GL_COLOR_ATTACHMENT0, GL_COLOR_ATTACHMENT1, GL_COLOR_ATTACHMENT2,
+                GL_COLOR_ATTACHMENT3});
+        geometryDrawBuffers.flip();
+    }
+
+    ////////////////////////////////
+    void resize(int width, int height) {
+        if (width == 0 || height == 0) return;  // Minimized.
+
+        this.width = width;
+        this.height = height;
+
+        for (int targetIx = 0; targetIx < TARGET_COUNT; targetIx++) {
+            glBindTexture(GL_TEXTURE_2D, targetTextures[targetIx]);
+            glTexImage2D(GL_TEXTURE_2D, 0, TARGET_FORMATS[targetIx], width, height, 0, GL_RGBA, GL_FLOAT, (ByteBuffer) null);
+            glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+            glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+            glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAX_LEVEL, 0);
+        }
+        glBindTexture(GL_TEXTURE_2D, 0);
+
+        glBindRenderbuffer(GL_RENDERBUFFER, depthStencilBuffer);
+        glRenderbufferStorage(GL_RENDERBUFFER, GL_DEPTH24_STENCIL8, width, height);
+        glBindRenderbuffer(GL_RENDERBUFFER, 0);
+
+        glBindFramebuffer(GL_FRAMEBUFFER, framebuffer);
+        for (int targetIx = 0; targetIx < TARGET_COUNT; targetIx++) {
+            glFramebufferTexture2D(GL_FRAMEBUFFER, GL_COLOR_ATTACHMENT0 + targetIx, GL_TEXTURE_2D,
+                    targetTextures[targetIx], 0);
+        }
+        glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_DEPTH_STENCIL_ATTACHMENT, GL_RENDERBUFFER, depthStencilBuffer);
+
+        int status = glCheckFramebufferStatus(GL_FRAMEBUFFER);
+        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+        if (status != GL_FRAMEBUFFER_COMPLETE) {
+            throw new RuntimeException("The G-buffer is incomplete: 0x" + Integer.toHexString(status));
+        }
+    }
+
+
+    // Used by the scene during the geometry pass.
+    Scene.ProgramData getGeometryProgram(Scene.LightingProgramTypes lightingProgramType) {
+        return geometryPrograms[lightingProgramType.ordinal()];
+    }
+
+    ////////////////////////////////
+    /**
+     * Binds the G-buffer for the geometry pass. Draw the scene with the geometry programs, then call shadeLights.
+     */
+    void beginGeometryPass() {
+        glBindFramebuffer(GL_FRAMEBUFFER, framebuffer);
+        glDrawBuffers(geometryDrawBuffers);
+
+        glClearColor(0.0f, 0.0f, 0.0f, 0.0f);
+        glClearDepth(1.0f);
+        glClearStencil(0);
+        glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT | GL_STENCIL_BUFFER_BIT);
+
+        // Mark the pixels covered by the scene.
+        glEnable(GL_STENCIL_TEST);
+        glStencilMask(SCENE_STENCIL_BIT);
+        glStencilFunc(GL_ALWAYS, SCENE_STENCIL_BIT, SCENE_STENCIL_BIT);
+        glStencilOp(GL_KEEP, GL_KEEP, GL_REPLACE);
+    }
+
+    /**
+     * Lights the G-buffer with the lights of the store, in camera space. The G-buffer stays bound, with the
+     * accumulation buffer as the only draw buffer, so that unlit objects can be drawn over the result before calling
+     * blitToScreen.
+     */
+    void shadeLights(LightStore lights, Vector4f ambientIntensity, float lightAttenuation, float maxIntensity,
+                     Vector4f backgroundColor, Mesh sphereMesh) {
+        glDrawBuffer(GL_COLOR_ATTACHMENT0 + ACCUMULATION_TARGET);
+        glClearBufferfv(GL_COLOR, 0, backgroundColor.get(clearColorBuffer));
+
+        for (int targetIx = 0; targetIx < ACCUMULATION_TARGET; targetIx++) {
+            glActiveTexture(GL_TEXTURE0 + targetIx);
+            glBindTexture(GL_TEXTURE_2D, targetTextures[targetIx]);
+        }
+
+        glDepthMask(false);
+        glBlendEquation(GL_FUNC_ADD);
+        glBlendFunc(GL_ONE, GL_ONE);
+
+        // The ambient light, and the directional lights, over the pixels of the scene.
+        glDisable(GL_DEPTH_TEST);
+        glStencilMask(0);
+        glStencilFunc(GL_EQUAL, SCENE_STENCIL_BIT, SCENE_STENCIL_BIT);
+
+        glUseProgram(directionalProgram.theProgram);
+        glUniform1f(directionalProgram.maxIntensityUnif, maxIntensity);
+        glUniform4f(directionalProgram.ambientIntensityUnif, ambientIntensity.x, ambientIntensity.y,
+                ambientIntensity.z, ambientIntensity.w);
+        glBindVertexArray(emptyVAO);
+
+        // The first pass replaces the background with the ambient light, the others add to it.
+        glDisable(GL_BLEND);
+        glUniform4f(directionalProgram.lightIntensityUnif, 0.0f, 0.0f, 0.0f, 0.0f);
+        int directionalLightCount = 0;
+        for (int light = 0; light < lights.getCount(); light++) {
+            if (!lights.isDirectional(light)) continue;
+
+            lights.getCameraPosition(light, lightVector);
+            glUniform3f(directionalProgram.cameraSpaceLightDirUnif, lightVector.x, lightVector.y, lightVector.z);
+            lights.getIntensity(light, lightVector);
+            glUniform4f(directionalProgram.lightIntensityUnif, lightVector.x, lightVector.y, lightVector.z, lightVector.w);
+            drawFullscreenPass(directionalLightCount++ == 0);
+        }
+        if (directionalLightCount == 0) drawFullscreenPass(true);
+        glBindVertexArray(0);
+
+        // The point lights, over the pixels inside their volume.
+        glUseProgram(pointLightProgram.theProgram);
+        glUniform1f(pointLightProgram.maxIntensityUnif, maxIntensity);
+        glUniform1f(pointLightProgram.lightAttenuationUnif, lightAttenuation);
+
+        for (int light = 0; light < lights.getCount(); light++) {
+            if (lights.isDirectional(light)) continue;
+
+            lights.getCameraPosition(light, lightVector);
+            float volumeScale = 2.0f * lights.getRadius(light) * VOLUME_SCALE;
+            volumeMatrix.translation(lightVector.x, lightVector.y, lightVector.z).scale(volumeScale);
+            volumeMatrix.get(mat4Buffer);
+
+            // Stencil pass: count the volume faces behind the surface.
+            glUseProgram(stencilProgram.theProgram);
+            glUniformMatrix4fv(stencilProgram.modelToCameraMatrixUnif, false, mat4Buffer);
+
+            glColorMask(false, false, false, false);
+            glEnable(GL_DEPTH_TEST);
+            glDisable(GL_CULL_FACE);
+            glStencilMask(VOLUME_STENCIL_MASK);
+            glStencilFunc(GL_ALWAYS, 0, 0);
+            glStencilOpSeparate(GL_BACK, GL_KEEP, GL_INCR_WRAP, GL_KEEP);
+            glStencilOpSeparate(GL_FRONT, GL_KEEP, GL_DECR_WRAP, GL_KEEP);
+            sphereMesh.render();
+
+            // Lighting pass: shade the marked pixels, resetting them for the next light. Drawing the back faces
+            // works with the camera inside the volume too.
+            glUseProgram(pointLightProgram.theProgram);
+            glUniformMatrix4fv(pointLightProgram.modelToCameraMatrixUnif, false, mat4Buffer);
+            glUniform3f(pointLightProgram.cameraSpaceLightPosUnif, lightVector.x, lightVector.y, lightVector.z);
+            lights.getIntensity(light, lightVector);
+            glUniform4f(pointLightProgram.lightIntensityUnif, lightVector.x, lightVector.y, lightVector.z, lightVector.w);
+
+            glColorMask(true, true, true, true);
+            glDisable(GL_DEPTH_TEST);
+            glEnable(GL_CULL_FACE);
+            glCullFace(GL_FRONT);
+            glStencilFunc(GL_NOTEQUAL, 0, VOLUME_STENCIL_MASK);
+            glStencilOp(GL_KEEP, GL_KEEP, GL_ZERO);
+            sphereMesh.render();
+            glCullFace(GL_BACK);
+        }
+
+        glUseProgram(0);
+        for (int targetIx = ACCUMULATION_TARGET - 1; targetIx >= 0; targetIx--) {
+            glActiveTexture(GL_TEXTURE0 + targetIx);
+            glBindTexture(GL_TEXTURE_2D, 0);
+        }
+
+        glDisable(GL_BLEND);
+        glDisable(GL_STENCIL_TEST);
+        glStencilMask(0xFF);
+        glEnable(GL_DEPTH_TEST);
+        glDepthMask(true);
+    }
+
+    /**
+     * Copies the lit image to the default framebuffer, and binds it.
+     */
+    void blitToScreen() {
+        glBindFramebuffer(GL_READ_FRAMEBUFFER, framebuffer);
+        glReadBuffer(GL_COLOR_ATTACHMENT0 + ACCUMULATION_TARGET);
+        glBindFramebuffer(GL_DRAW_FRAMEBUFFER, 0);
+        glBlitFramebuffer(0, 0, width, height, 0, 0, width, height, GL_COLOR_BUFFER_BIT, GL_NEAREST);
+        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+    }
+
+    ////////////////////////////////
+    // Diffuse color, specular color and shininess, normal, position, and the accumulated lighting.
+    private static final int TARGET_COUNT = 5;
+    private static final int ACCUMULATION_TARGET = 4;
+    private static final int[] TARGET_FORMATS = {GL_RGBA8, GL_RGBA16F, GL_RGBA16F, GL_RGBA32F, GL_RGBA16F};
+
+    private static final int SCENE_STENCIL_BIT = 0x80;
+    private static final int VOLUME_STENCIL_MASK = 0x7F;
+
+    // The faces of the UnitSphere mesh are inside the sphere: scaled up, they enclose it.
+    private static final float VOLUME_SCALE = 1.1f;
+
+
+    private final int materialBlockIndex;
+    private final int projectionBlockIndex;
+
+    private int framebuffer;
+    private int[] targetTextures = new int[TARGET_COUNT];
+    private int depthStencilBuffer;
+    private int width, height;
+
+    private int emptyVAO;
+
+    private IntBuffer geometryDrawBuffers = BufferUtils.createIntBuffer(ACCUMULATION_TARGET);
+    private FloatBuffer clearColorBuffer = BufferUtils.createFloatBuffer(4);
+    private FloatBuffer mat4Buffer = BufferUtils.createFloatBuffer(16);
+
+    private final Matrix4f volumeMatrix = new Matrix4f();
+    private final Vector4f lightVector = new Vector4f();
+
+    ////////////////////////////////
+    private Scene.ProgramData[] geometryPrograms = new Scene.ProgramData[Scene.LightingProgramTypes.MAX_LIGHTING_PROGRAM_TYPES.ordinal()];
+    private DirectionalProgData directionalProgram;
+    private PointLightProgData pointLightProgram;
+    private Scene.ProgramData stencilProgram;
+
+    private static class DirectionalProgData {
+        int theProgram;
+
+        int maxIntensityUnif;
+        int ambientIntensityUnif;
+        int cameraSpaceLightDirUnif;
+        int lightIntensityUnif;
+    }
+
+    private static class PointLightProgData {
+        int theProgram;
+
+        int modelToCameraMatrixUnif;
+        int maxIntensityUnif;
+        int cameraSpaceLightPosUnif;
+        int lightIntensityUnif;
+        int lightAttenuationUnif;
+    }
+
+
+    private void drawFullscreenPass(boolean firstPass) {
+        glDrawArrays(GL_TRIANGLES, 0, 3);
+
+        if (firstPass) {
+            glEnable(GL_BLEND);
+            glUniform4f(directionalProgram.ambientIntensityUnif, 0.0f, 0.0f, 0.0f, 0.0f);
+        }
+    }
+
+
+    private void initializePrograms() {
+        geometryPrograms[Scene.LightingProgramTypes.VERT_COLOR_DIFFUSE_SPECULAR.ordinal()] =
+                loadGeometryProgram("PCN.vert", true, true);
+        geometryPrograms[Scene.LightingProgramTypes.VERT_COLOR_DIFFUSE.ordinal()] =
+                loadGeometryProgram("PCN.vert", true, false);
+        geometryPrograms[Scene.LightingProgramTypes.MTL_COLOR_DIFFUSE_SPECULAR.ordinal()] =
+                loadGeometryProgram("PN.vert", false, true);
+        geometryPrograms[Scene.LightingProgramTypes.MTL_COLOR_DIFFUSE.ordinal()] =
+                loadGeometryProgram("PN.vert", false, false);
+
+        int program = createProgram("FullscreenTriangle.vert", "DeferredDirectional.frag");
+        directionalProgram = new DirectionalProgData();
+        directionalProgram.theProgram = program;
+        directionalProgram.maxIntensityUnif = glGetUniformLocation(program, "maxIntensity");
+        directionalProgram.ambientIntensityUnif = glGetUniformLocation(program, "ambientIntensity");
+        directionalProgram.cameraSpaceLightDirUnif = glGetUniformLocation(program, "cameraSpaceLightDir");
+        directionalProgram.lightIntensityUnif = glGetUniformLocation(program, "lightIntensity");
+        bindGBufferSamplers(program);
+
+        program = createProgram("PosTransform.vert", "DeferredPointLight.frag");
+        pointLightProgram = new PointLightProgData();
+        pointLightProgram.theProgram = program;
+        pointLightProgram.modelToCameraMatrixUnif = glGetUniformLocation(program, "modelToCameraMatrix");
+        pointLightProgram.maxIntensityUnif = glGetUniformLocation(program, "maxIntensity");
+        pointLightProgram.cameraSpaceLightPosUnif = glGetUniformLocation(program, "cameraSpaceLightPos");
+        pointLightProgram.lightIntensityUnif = glGetUniformLocation(program, "lightIntensity");
+        pointLightProgram.lightAttenuationUnif = glGetUniformLocation(program, "lightAttenuation");
+        bindGBufferSamplers(program);
+        glUniformBlockBinding(program, glGetUniformBlockIndex(program, "Projection"), projectionBlockIndex);
+
+        // The color writes are masked during the stencil pass: any fragment shader will do.
+        program = createProgram("PosTransform.vert", "UniformColor.frag");
+        stencilProgram = new Scene.ProgramData();
+        stencilProgram.theProgram = program;
+        stencilProgram.modelToCameraMatrixUnif = glGetUniformLocation(program, "modelToCameraMatrix");
+        glUniformBlockBinding(program, glGetUniformBlockIndex(program, "Projection"), projectionBlockIndex);
+    }
+
+    private Scene.ProgramData loadGeometryProgram(String vertexShaderFileName, boolean vertexColor, boolean specular) {
+        HashMap<String, String> defines = new HashMap<>();
+        if (vertexColor) defines.put("VERT_COLOR", "");
+        if (specular) defines.put("SPECULAR", "");
+
+        ArrayList<Integer> shaderList = new ArrayList<>();
+        shaderList.add(Framework.loadShader(GL_VERTEX_SHADER, vertexShaderFileName));
+        shaderList.add(Framework.loadShader(GL_FRAGMENT_SHADER, "GBuffer.frag", defines));
+
+        Scene.ProgramData data = new Scene.ProgramData();
+        data.theProgram = Framework.createProgram(shaderList);
+        data.modelToCameraMatrixUnif = glGetUniformLocation(data.theProgram, "modelToCameraMatrix");
+        data.normalModelToCameraMatrixUnif = glGetUniformLocation(data.theProgram, "normalModelToCameraMatrix");
+
+        int materialBlock = glGetUniformBlockIndex(data.theProgram, "Material");
+        int projectionBlock = glGetUniformBlockIndex(data.theProgram, "Projection");
+
+        if (materialBlock != GL_INVALID_INDEX) {  // Can be optimized out.
+            glUniformBlockBinding(data.theProgram, materialBlock, materialBlockIndex);
+        }
+        glUniformBlockBinding(data.theProgram, projectionBlock, projectionBlockIndex);
+
+        return data;
+    }
+
+    private int createProgram(String vertexShaderFileName, String fragmentShaderFileName) {
+        ArrayList<Integer> shaderList = new ArrayList<>();
+        shaderList.add(Framework.loadShader(GL_VERTEX_SHADER, vertexShaderFileName));
+        shaderList.add(Framework.loadShader(GL_FRAGMENT_SHADER, fragmentShaderFileName));
+        return Framework.createProgram(shaderList);
+    }
+
+    private void bindGBufferSamplers(int program) {
+        glUseProgram(program);
+        glUniform1i(glGetUniformLocation(program, "diffuseTexture"), 0);
+        glUniform1i(glGetUniformLocation(program, "specularTexture"), 1);
+        glUniform1i(glGetUniformLocation(program, "normalTexture"), 2);
+        glUniform1i(glGetUniformLocation(program, "positionTexture"), 3);
+        glUseProgram(0);
+    }
+}
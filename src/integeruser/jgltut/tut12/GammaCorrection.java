@@ -6,6 +6,7 @@ import integeruser.jgltut.commons.ProjectionBlock;
 import integeruser.jgltut.framework.Framework;
 import integeruser.jgltut.framework.MousePole;
 import integeruser.jgltut.framework.Timer;
+import integeruser.jgltut.framework.UniformRingBuffer;
 import org.joml.*;
 import org.lwjgl.glfw.GLFWCursorPosCallback;
 import org.lwjgl.glfw.GLFWKeyCallback;
@@ -50,7 +51,7 @@ import static org.lwjgl.opengl.GL32.GL_DEPTH_CLAMP;
  */
 public class GammaCorrection extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut12/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut12/data/"));
         new GammaCorrection().start(700, 700);
     }
 
@@ -89,17 +90,14 @@ public class GammaCorrection extends Tutorial {
         glEnable(GL_DEPTH_CLAMP);
 
         // Setup our Uniform Buffers
-        lightUniformBuffer = glGenBuffers();
-        glBindBuffer(GL_UNIFORM_BUFFER, lightUniformBuffer);
-        GL15.glBufferData(GL_UNIFORM_BUFFER, LightManager.LightBlockGamma.SIZE, GL_DYNAMIC_DRAW);
+        // The light block changes every frame: it is streamed, and bound in display.
+        lightUniformRing = new UniformRingBuffer(LightManager.LightBlockGamma.SIZE);
 
         projectionUniformBuffer = glGenBuffers();
         glBindBuffer(GL_UNIFORM_BUFFER, projectionUniformBuffer);
         GL15.glBufferData(GL_UNIFORM_BUFFER, ProjectionBlock.SIZE_IN_BYTES, GL_DYNAMIC_DRAW);
 
         // Bind the static buffers.
-        glBindBufferRange(GL_UNIFORM_BUFFER, lightBlockIndex, lightUniformBuffer, 0, LightManager.LightBlockGamma.SIZE);
-
         glBindBufferRange(GL_UNIFORM_BUFFER, projectionBlockIndex, projectionUniformBuffer, 0, ProjectionBlock.SIZE_IN_BYTES);
 
         glBindBuffer(GL_UNIFORM_BUFFER, 0);
@@ -220,8 +218,6 @@ public class GammaCorrection extends Tutorial {
 
     @Override
     protected void display() {
-        lights.updateTime(elapsedTime);
-
         float gamma = isGammaCorrect ? gammaValue : 1.0f;
 
         Vector4f bkg = gammaCorrect(lights.getBackgroundColor(), gamma);
@@ -237,9 +233,9 @@ public class GammaCorrection extends Tutorial {
         LightManager.LightBlockGamma lightData = lights.getLightInformationGamma(worldToCamMat);
         lightData.gamma = gamma;
 
-        glBindBuffer(GL_UNIFORM_BUFFER, lightUniformBuffer);
-        GL15.glBufferSubData(GL_UNIFORM_BUFFER, 0, lightData.getAndFlip(lightBlockBuffer));
-        glBindBuffer(GL_UNIFORM_BUFFER, 0);
+        lightUniformRing.beginFrame();
+        int lightDataOffset = lightUniformRing.write(lightData, LightManager.LightBlockGamma.SIZE);
+        lightUniformRing.bindRange(lightBlockIndex, lightDataOffset, LightManager.LightBlockGamma.SIZE);
 
         {
             modelMatrix.pushMatrix();
@@ -311,6 +307,8 @@ public class GammaCorrection extends Tutorial {
 
             modelMatrix.popMatrix();
         }
+
+        lightUniformRing.endFrame();
     }
 
     @Override
@@ -363,7 +361,7 @@ public class GammaCorrection extends Tutorial {
     private final int materialBlockIndex = 0;
     private final int lightBlockIndex = 1;
 
-    private int lightUniformBuffer;
+    private UniformRingBuffer lightUniformRing;
 
     private Scene.ProgramData[] programs = new Scene.ProgramData[Scene.LightingProgramTypes.MAX_LIGHTING_PROGRAM_TYPES.ordinal()];
     private Shaders[] shaderFileNames = new Shaders[]{
@@ -424,6 +422,10 @@ public class GammaCorrection extends Tutorial {
         glUniformBlockBinding(data.theProgram, lightBlock, lightBlockIndex);
         glUniformBlockBinding(data.theProgram, projectionBlock, projectionBlockIndex);
 
+        // The blocks are written from Java, so the offsets must match the ones of the driver.
+        LightManager.LightBlockGamma.LAYOUT.validate(data.theProgram, "Light");
+        ProjectionBlock.LAYOUT.validate(data.theProgram, "Projection");
+
         return data;
     }
 
@@ -446,7 +448,7 @@ public class GammaCorrection extends Tutorial {
     ////////////////////////////////
     private Scene scene;
 
-    private LightManager lights = new LightManager();
+    private LightManager lights = new LightManager(clock);
     private final Vector4f skyDaylightColor = new Vector4f(0.65f, 0.65f, 1.0f, 1.0f);
 
     private LightManager.TimerTypes timerMode = LightManager.TimerTypes.ALL;
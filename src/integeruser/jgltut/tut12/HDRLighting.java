@@ -6,9 +6,11 @@ import integeruser.jglsdk.glutil.MousePoles.ViewPole;
 import integeruser.jglsdk.glutil.MousePoles.ViewScale;
 import integeruser.jgltut.Tutorial;
 import integeruser.jgltut.commons.ProjectionBlock;
+import integeruser.jgltut.framework.FrameProfiler;
 import integeruser.jgltut.framework.Framework;
 import integeruser.jgltut.framework.MousePole;
 import integeruser.jgltut.framework.Timer;
+import integeruser.jgltut.framework.UniformRingBuffer;
 import org.joml.*;
 import org.lwjgl.glfw.GLFWCursorPosCallback;
 import org.lwjgl.glfw.GLFWKeyCallback;
@@ -43,6 +45,7 @@ import static org.lwjgl.opengl.GL32.GL_DEPTH_CLAMP;
  * 1,2,3    - timer commands affect both the sun and the other lights/only the sun/only the other lights.
  * L        - switch to day-optimized lighting. Pressing SHIFT+L will switch to a night-time optimized version.
  * K        - switch to HDR lighting.
+ * F        - toggle between forward and deferred shading.
  * SPACE    - print out the current sun-based time, in 24-hour notation.
  * <p>
  * LEFT   CLICKING and DRAGGING         - rotate the camera around the target point, both horizontally and vertically.
@@ -52,7 +55,7 @@ import static org.lwjgl.opengl.GL32.GL_DEPTH_CLAMP;
  */
 public class HDRLighting extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut12/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut12/data/"));
         new HDRLighting().start(700, 700);
     }
 
@@ -65,6 +68,7 @@ public class HDRLighting extends Tutorial {
             scene = new Scene() {
                 @Override
                 ProgramData getProgram(LightingProgramTypes lightingProgramType) {
+                    if (useDeferredShading) return deferredRenderer.getGeometryProgram(lightingProgramType);
                     return programs[lightingProgramType.ordinal()];
                 }
             };
@@ -91,21 +95,24 @@ public class HDRLighting extends Tutorial {
         glEnable(GL_DEPTH_CLAMP);
 
         // Setup our Uniform Buffers
-        lightUniformBuffer = glGenBuffers();
-        glBindBuffer(GL_UNIFORM_BUFFER, lightUniformBuffer);
-        GL15.glBufferData(GL_UNIFORM_BUFFER, LightManager.LightBlockHDR.SIZE, GL_DYNAMIC_DRAW);
+        // The light block changes every frame: it is streamed, and bound in display.
+        lightUniformRing = new UniformRingBuffer(LightManager.LightBlockHDR.SIZE);
 
         projectionUniformBuffer = glGenBuffers();
         glBindBuffer(GL_UNIFORM_BUFFER, projectionUniformBuffer);
         GL15.glBufferData(GL_UNIFORM_BUFFER, ProjectionBlock.SIZE_IN_BYTES, GL_DYNAMIC_DRAW);
 
         // Bind the static buffers.
-        glBindBufferRange(GL_UNIFORM_BUFFER, lightBlockIndex, lightUniformBuffer, 0, LightManager.LightBlockHDR.SIZE);
-
         glBindBufferRange(GL_UNIFORM_BUFFER, projectionBlockIndex, projectionUniformBuffer, 0, ProjectionBlock.SIZE_IN_BYTES);
 
         glBindBuffer(GL_UNIFORM_BUFFER, 0);
 
+        deferredRenderer = new DeferredRenderer(materialBlockIndex, projectionBlockIndex);
+
+        profiler = Framework.getFrameProfiler();
+        scenePassScope = profiler.getScope("scene pass");
+        lightingPassScope = profiler.getScope("deferred lighting pass");
+
 
         glfwSetKeyCallback(window, keyCallback = new GLFWKeyCallback() {
             @Override
@@ -155,6 +162,11 @@ public class HDRLighting extends Tutorial {
                             setupHDRLighting();
                             break;
 
+                        case GLFW_KEY_F:
+                            useDeferredShading = !useDeferredShading;
+                            System.out.printf(useDeferredShading ? "Deferred shading\n" : "Forward shading\n");
+                            break;
+
                         case GLFW_KEY_SPACE:
                             float sunAlpha = lights.getSunTime();
                             float sunTimeHours = sunAlpha * 24.0f + 12.0f;
@@ -204,13 +216,16 @@ public class HDRLighting extends Tutorial {
 
     @Override
     protected void display() {
-        lights.updateTime(elapsedTime);
-
         Vector4f bkg = lights.getBackgroundColor();
 
-        glClearColor(bkg.x, bkg.y, bkg.z, bkg.w);
-        glClearDepth(1.0f);
-        glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+        if (useDeferredShading) {
+            // The background is filled by the lighting pass.
+            deferredRenderer.beginGeometryPass();
+        } else {
+            glClearColor(bkg.x, bkg.y, bkg.z, bkg.w);
+            glClearDepth(1.0f);
+            glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+        }
 
         MatrixStackf modelMatrix = new MatrixStackf(10);
         modelMatrix.mul(viewPole.calcMatrix());
@@ -218,18 +233,27 @@ public class HDRLighting extends Tutorial {
         final Matrix4f worldToCamMat = modelMatrix;
         LightManager.LightBlockHDR lightData = lights.getLightInformationHDR(worldToCamMat);
 
-        glBindBuffer(GL_UNIFORM_BUFFER, lightUniformBuffer);
-        GL15.glBufferSubData(GL_UNIFORM_BUFFER, 0, lightData.getAndFlip(lightBlockBuffer));
-        glBindBuffer(GL_UNIFORM_BUFFER, 0);
+        lightUniformRing.beginFrame();
+        int lightDataOffset = lightUniformRing.write(lightData, LightManager.LightBlockHDR.SIZE);
+        lightUniformRing.bindRange(lightBlockIndex, lightDataOffset, LightManager.LightBlockHDR.SIZE);
 
         {
             modelMatrix.pushMatrix();
 
+            profiler.beginGpu(scenePassScope);
             scene.draw(modelMatrix, materialBlockIndex, lights.getTimerValue("tetra"));
+            profiler.endGpu();
 
             modelMatrix.popMatrix();
         }
 
+        if (useDeferredShading) {
+            profiler.beginGpu(lightingPassScope);
+            deferredRenderer.shadeLights(lights.getLightStore(), lightData.ambientIntensity, lightData.lightAttenuation,
+                    lightData.maxIntensity, bkg, scene.getSphereMesh());
+            profiler.endGpu();
+        }
+
         {
             modelMatrix.pushMatrix();
 
@@ -292,6 +316,10 @@ public class HDRLighting extends Tutorial {
 
             modelMatrix.popMatrix();
         }
+
+        if (useDeferredShading) deferredRenderer.blitToScreen();
+
+        lightUniformRing.endFrame();
     }
 
     @Override
@@ -309,6 +337,8 @@ public class HDRLighting extends Tutorial {
         glBindBuffer(GL_UNIFORM_BUFFER, 0);
 
         glViewport(0, 0, w, h);
+
+        deferredRenderer.resize(w, h);
     }
 
     @Override
@@ -344,7 +374,7 @@ public class HDRLighting extends Tutorial {
     private final int materialBlockIndex = 0;
     private final int lightBlockIndex = 1;
 
-    private int lightUniformBuffer;
+    private UniformRingBuffer lightUniformRing;
 
     private Scene.ProgramData[] programs = new Scene.ProgramData[Scene.LightingProgramTypes.MAX_LIGHTING_PROGRAM_TYPES.ordinal()];
     private Shaders[] shaderFileNames = new Shaders[]{
@@ -405,6 +435,10 @@ public class HDRLighting extends Tutorial {
         glUniformBlockBinding(data.theProgram, lightBlock, lightBlockIndex);
         glUniformBlockBinding(data.theProgram, projectionBlock, projectionBlockIndex);
 
+        // The blocks are written from Java, so the offsets must match the ones of the driver.
+        LightManager.LightBlockHDR.LAYOUT.validate(data.theProgram, "Light");
+        ProjectionBlock.LAYOUT.validate(data.theProgram, "Projection");
+
         return data;
     }
 
@@ -427,7 +461,13 @@ public class HDRLighting extends Tutorial {
     ////////////////////////////////
     private Scene scene;
 
-    private LightManager lights = new LightManager();
+    private DeferredRenderer deferredRenderer;
+    private boolean useDeferredShading;
+
+    private FrameProfiler profiler;
+    private int scenePassScope, lightingPassScope;
+
+    private LightManager lights = new LightManager(clock);
     private final Vector4f skyDaylightColor = new Vector4f(0.65f, 0.65f, 1.0f, 1.0f);
 
     private LightManager.TimerTypes timerMode = LightManager.TimerTypes.ALL;
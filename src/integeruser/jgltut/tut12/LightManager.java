@@ -1,11 +1,16 @@
 package integeruser.jgltut.tut12;
 
+import integeruser.jgltut.commons.BlockLayout;
 import integeruser.jgltut.commons.Bufferable;
 import integeruser.jgltut.commons.LightBlock;
 import integeruser.jgltut.commons.PerLight;
+import integeruser.jgltut.framework.Clock;
+import integeruser.jgltut.framework.Interpolators;
 import integeruser.jgltut.framework.Interpolators.ConstVelLinearInterpolatorVec3;
 import integeruser.jgltut.framework.Interpolators.WeightedLinearInterpolatorFloat;
 import integeruser.jgltut.framework.Interpolators.WeightedLinearInterpolatorVec4;
+import integeruser.jgltut.framework.LightClusters;
+import integeruser.jgltut.framework.LightStore;
 import integeruser.jgltut.framework.Timer;
 import org.joml.Matrix4f;
 import org.joml.Vector3f;
@@ -20,8 +25,10 @@ import java.util.HashMap;
  * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
  */
 class LightManager {
-    LightManager() {
-        sunTimer = new Timer(Timer.Type.LOOP, 30.0f);
+    // The timers are advanced by the clock.
+    LightManager(Clock clock) {
+        this.clock = clock;
+        sunTimer = clock.register(new Timer(Timer.Type.LOOP, 30.0f));
 
         ambientInterpolator = new TimedLinearInterpolatorVec4();
         backgroundInterpolator = new TimedLinearInterpolatorVec4();
@@ -29,7 +36,6 @@ class LightManager {
         maxIntensityInterpolator = new TimedLinearInterpolatorFloat();
 
         lightPos = new ArrayList<>();
-        lightIntensity = new ArrayList<>();
         lightTimers = new ArrayList<>();
 
         extraTimers = new HashMap<>();
@@ -38,8 +44,22 @@ class LightManager {
         lightPos.add(new ConstVelLinearInterpolatorVec3());
         lightPos.add(new ConstVelLinearInterpolatorVec3());
 
+        // The sun is the first light of the store, the point lights follow.
+        lightStore = new LightStore(NUMBER_OF_LIGHTS);
+        lightStore.addDirectionalLight(new Vector4f(0.0f, 1.0f, 0.0f, 0.0f), new Vector4f(0.0f));
         for (int i = 0; i < NUMBER_OF_POINT_LIGHTS; i++) {
-            lightIntensity.add(new Vector4f(0.2f, 0.2f, 0.2f, 1.0f));
+            lightStore.addPointLight(new Vector3f(), new Vector4f(0.2f, 0.2f, 0.2f, 1.0f), lightRadius);
+        }
+
+        lightBlock.ambientIntensity = new Vector4f();
+        lightBlockHDR.ambientIntensity = new Vector4f();
+        lightBlockGamma.ambientIntensity = new Vector4f();
+        for (PerLight[] blockLights : new PerLight[][]{lightBlock.lights, lightBlockHDR.lights, lightBlockGamma.lights}) {
+            for (int light = 0; light < NUMBER_OF_LIGHTS; light++) {
+                blockLights[light] = new PerLight();
+                blockLights[light].cameraSpaceLightPos = new Vector4f();
+                blockLights[light].lightIntensity = new Vector4f();
+            }
         }
 
         ArrayList<Vector3f> posValues = new ArrayList<>();
@@ -53,7 +73,7 @@ class LightManager {
         posValues.add(new Vector3f(70.0f, 30.0f, 50.0f));
         posValues.add(new Vector3f(50.0f, 30.0f, 70.0f));
         lightPos.get(0).setValues(posValues);
-        lightTimers.add(new Timer(Timer.Type.LOOP, 15.0f));
+        lightTimers.add(clock.register(new Timer(Timer.Type.LOOP, 15.0f)));
 
         // Right-side light.
         posValues = new ArrayList<>();
@@ -80,7 +100,7 @@ class LightManager {
         posValues.add(new Vector3f(72.0f, 44.0f, -90.0f));
 
         lightPos.get(1).setValues(posValues);
-        lightTimers.add(new Timer(Timer.Type.LOOP, 25.0f));
+        lightTimers.add(clock.register(new Timer(Timer.Type.LOOP, 25.0f)));
 
         // Left-side light.
         posValues = new ArrayList<>();
@@ -109,13 +129,19 @@ class LightManager {
         posValues.add(new Vector3f(-40.0f, 25.0f, 90.0f));
 
         lightPos.get(2).setValues(posValues);
-        lightTimers.add(new Timer(Timer.Type.LOOP, 15.0f));
+        lightTimers.add(clock.register(new Timer(Timer.Type.LOOP, 15.0f)));
+
+        lightPosCurves = lightPos.toArray(new ConstVelLinearInterpolatorVec3[NUMBER_OF_POINT_LIGHTS]);
     }
 
     ////////////////////////////////
     private final float halfLightDistance = 70.0f;
     private final float lightAttenuation = 1.0f / (halfLightDistance * halfLightDistance);
 
+    // Where the attenuation of the lights falls below 1/256: beyond it, they are left out of the clusters.
+    private final float lightRadius = (float) Math.sqrt(255.0f / lightAttenuation);
+
+    private final Clock clock;
     private Timer sunTimer;
 
     private TimedLinearInterpolatorVec4 ambientInterpolator;
@@ -124,9 +150,25 @@ class LightManager {
     private TimedLinearInterpolatorFloat maxIntensityInterpolator;
 
     private ArrayList<ConstVelLinearInterpolatorVec3> lightPos;
-    private ArrayList<Vector4f> lightIntensity;
     private ArrayList<Timer> lightTimers;
 
+    // The paths of the point lights, evaluated together every frame.
+    private ConstVelLinearInterpolatorVec3[] lightPosCurves;
+    private final float[] lightAlphas = new float[NUMBER_OF_POINT_LIGHTS];
+    private final float[] worldLightPositions = new float[NUMBER_OF_POINT_LIGHTS * 3];
+
+    private LightStore lightStore;
+
+    // Filled in place every frame.
+    private final LightBlock lightBlock = new LightBlock();
+    private final LightBlockHDR lightBlockHDR = new LightBlockHDR();
+    private final LightBlockGamma lightBlockGamma = new LightBlockGamma();
+
+    private final Matrix4f sunRotation = new Matrix4f().rotate((float) Math.toRadians(5.0f), 0.0f, 1.0f, 0.0f);
+    private final Vector4f sunDirection = new Vector4f();
+    private final Vector4f sunIntensity = new Vector4f();
+    private final Vector3f worldLightPos = new Vector3f();
+
     private HashMap<String, Timer> extraTimers;
 
 
@@ -163,14 +205,14 @@ class LightManager {
 
     ////////////////////////////////
     Vector4f getSunlightDirection() {
+        return getSunlightDirection(new Vector4f());
+    }
+
+    Vector4f getSunlightDirection(Vector4f dest) {
         float angle = 2.0f * 3.14159f * sunTimer.getAlpha();
-        Vector4f sunDirection = new Vector4f(0.0f);
-        sunDirection.x = (float) Math.sin(angle);
-        sunDirection.y = (float) Math.cos(angle);
+        dest.set((float) Math.sin(angle), (float) Math.cos(angle), 0.0f, 0.0f);
         // Keep the sun from being perfectly centered overhead.
-        Matrix4f rotationMat = new Matrix4f().rotate((float) Math.toRadians(5.0f), 0.0f, 1.0f, 0.0f);
-        rotationMat.transform(sunDirection);
-        return sunDirection;
+        return sunRotation.transform(dest);
     }
 
     Vector4f getSunlightIntensity() {
@@ -189,11 +231,41 @@ class LightManager {
 
 
     void setPointLightIntensity(int lightIndex, Vector4f intensity) {
-        lightIntensity.set(lightIndex, intensity);
+        lightStore.setIntensity(lightIndex + 1, intensity);
     }
 
     Vector4f getPointLightIntensity(int lightIndex) {
-        return lightIntensity.get(lightIndex);
+        return lightStore.getIntensity(lightIndex + 1, new Vector4f());
+    }
+
+
+    /**
+     * Returns the lights of the scene, as of the last getLightInformation call or updateLights.
+     */
+    LightStore getLightStore() {
+        return lightStore;
+    }
+
+    // Moves the lights to their current positions, in world and camera space.
+    void updateLights(Matrix4f worldToCameraMat) {
+        lightStore.setDirection(0, getSunlightDirection(sunDirection));
+        lightStore.setIntensity(0, sunlightInterpolator.interpolate(sunTimer.getAlpha(), sunIntensity));
+
+        for (int light = 0; light < NUMBER_OF_POINT_LIGHTS; light++) {
+            lightAlphas[light] = lightTimers.get(light).getAlpha();
+        }
+        Interpolators.interpolate(lightPosCurves, lightAlphas, NUMBER_OF_POINT_LIGHTS, worldLightPositions);
+        for (int light = 0; light < NUMBER_OF_POINT_LIGHTS; light++) {
+            worldLightPos.set(worldLightPositions[light * 3], worldLightPositions[light * 3 + 1], worldLightPositions[light * 3 + 2]);
+            lightStore.setPosition(light + 1, worldLightPos);
+        }
+
+        lightStore.transformToCamera(worldToCameraMat);
+    }
+
+    // Call it after updateLights.
+    void assignLightClusters(LightClusters lightClusters) {
+        lightClusters.assign(lightStore);
     }
 
 
@@ -205,117 +277,90 @@ class LightManager {
     private static final int NUMBER_OF_LIGHTS = 4;
     private static final int NUMBER_OF_POINT_LIGHTS = NUMBER_OF_LIGHTS - 1;
 
-    class LightBlockHDR implements Bufferable {
-        static final int SIZE = 4 * (4 + 1 + 1 + 2) + PerLight.SIZE_IN_BYTES * NUMBER_OF_LIGHTS;
+    static class LightBlockHDR implements Bufferable {
+        static final BlockLayout<LightBlockHDR> LAYOUT = new BlockLayout.Builder<LightBlockHDR>(BlockLayout.Packing.STD140)
+                .vec4("ambientIntensity", block -> block.ambientIntensity)
+                .floatMember("lightAttenuation", block -> block.lightAttenuation)
+                .floatMember("maxIntensity", block -> block.maxIntensity)
+                .structArray("lights", PerLight.LAYOUT, NUMBER_OF_LIGHTS, block -> block.lights)
+                .build();
+        static final int SIZE = LAYOUT.getSize();
 
         Vector4f ambientIntensity;
         float lightAttenuation;
         float maxIntensity;
-        float padding[] = new float[2];
         PerLight lights[] = new PerLight[NUMBER_OF_LIGHTS];
 
         @Override
         public ByteBuffer get(ByteBuffer buffer) {
-            buffer.putFloat(ambientIntensity.x);
-            buffer.putFloat(ambientIntensity.y);
-            buffer.putFloat(ambientIntensity.z);
-            buffer.putFloat(ambientIntensity.w);
-            buffer.putFloat(lightAttenuation);
-            buffer.putFloat(maxIntensity);
-            buffer.putFloat(padding[0]);
-            buffer.putFloat(padding[1]);
-            for (PerLight light : lights) {
-                if (light == null) break;
-                light.get(buffer);
-            }
-            return buffer;
+            return LAYOUT.write(this, buffer);
         }
     }
 
-    class LightBlockGamma implements Bufferable {
-        static final int SIZE = 4 * (4 + 1 + 1 + 2) + PerLight.SIZE_IN_BYTES * NUMBER_OF_LIGHTS;
+    static class LightBlockGamma implements Bufferable {
+        static final BlockLayout<LightBlockGamma> LAYOUT = new BlockLayout.Builder<LightBlockGamma>(BlockLayout.Packing.STD140)
+                .vec4("ambientIntensity", block -> block.ambientIntensity)
+                .floatMember("lightAttenuation", block -> block.lightAttenuation)
+                .floatMember("maxIntensity", block -> block.maxIntensity)
+                .floatMember("gamma", block -> block.gamma)
+                .structArray("lights", PerLight.LAYOUT, NUMBER_OF_LIGHTS, block -> block.lights)
+                .build();
+        static final int SIZE = LAYOUT.getSize();
 
         Vector4f ambientIntensity;
         float lightAttenuation;
         float maxIntensity;
         float gamma;
-        float padding;
         PerLight lights[] = new PerLight[NUMBER_OF_LIGHTS];
 
         @Override
         public ByteBuffer get(ByteBuffer buffer) {
-            buffer.putFloat(ambientIntensity.x);
-            buffer.putFloat(ambientIntensity.y);
-            buffer.putFloat(ambientIntensity.z);
-            buffer.putFloat(ambientIntensity.w);
-            buffer.putFloat(lightAttenuation);
-            buffer.putFloat(maxIntensity);
-            buffer.putFloat(gamma);
-            buffer.putFloat(padding);
-            for (PerLight light : lights) {
-                if (light == null) break;
-                light.get(buffer);
-            }
-            return buffer;
+            return LAYOUT.write(this, buffer);
         }
     }
 
 
+    // The block is reused by the next call.
     LightBlock getLightInformation(Matrix4f worldToCameraMat) {
-        LightBlock lightData = new LightBlock();
-
-        lightData.ambientIntensity = ambientInterpolator.interpolate(sunTimer.getAlpha());
-        lightData.lightAttenuation = lightAttenuation;
+        updateLights(worldToCameraMat);
 
-        lightData.lights[0] = new PerLight();
-        lightData.lights[0].cameraSpaceLightPos = worldToCameraMat.transform(new Vector4f(getSunlightDirection()));
-        lightData.lights[0].lightIntensity = sunlightInterpolator.interpolate(sunTimer.getAlpha());
-
-        for (int light = 0; light < NUMBER_OF_POINT_LIGHTS; light++) {
-            Vector4f worldLightPos = new Vector4f(lightPos.get(light).interpolate(lightTimers.get(light).getAlpha()), 1.0f);
-            Vector4f lightPosCameraSpace = worldToCameraMat.transform(new Vector4f(worldLightPos));
+        ambientInterpolator.interpolate(sunTimer.getAlpha(), lightBlock.ambientIntensity);
+        lightBlock.lightAttenuation = lightAttenuation;
+        getPerLights(lightBlock.lights);
 
-            lightData.lights[light + 1] = new PerLight();
-            lightData.lights[light + 1].cameraSpaceLightPos = lightPosCameraSpace;
-            lightData.lights[light + 1].lightIntensity = new Vector4f(lightIntensity.get(light));
-        }
-
-        return lightData;
+        return lightBlock;
     }
 
+    // The block is reused by the next call.
     LightBlockHDR getLightInformationHDR(Matrix4f worldToCameraMat) {
-        LightBlockHDR lightData = new LightBlockHDR();
+        updateLights(worldToCameraMat);
 
-        lightData.ambientIntensity = ambientInterpolator.interpolate(sunTimer.getAlpha());
-        lightData.lightAttenuation = lightAttenuation;
-        lightData.maxIntensity = maxIntensityInterpolator.interpolate(sunTimer.getAlpha());
+        ambientInterpolator.interpolate(sunTimer.getAlpha(), lightBlockHDR.ambientIntensity);
+        lightBlockHDR.lightAttenuation = lightAttenuation;
+        lightBlockHDR.maxIntensity = maxIntensityInterpolator.interpolate(sunTimer.getAlpha());
+        getPerLights(lightBlockHDR.lights);
 
-        lightData.lights[0] = new PerLight();
-        lightData.lights[0].cameraSpaceLightPos = worldToCameraMat.transform(new Vector4f(getSunlightDirection()));
-        lightData.lights[0].lightIntensity = sunlightInterpolator.interpolate(sunTimer.getAlpha());
+        return lightBlockHDR;
+    }
 
-        for (int light = 0; light < NUMBER_OF_POINT_LIGHTS; light++) {
-            Vector4f worldLightPos = new Vector4f(lightPos.get(light).interpolate(lightTimers.get(light).getAlpha()), 1.0f);
-            Vector4f lightPosCameraSpace = worldToCameraMat.transform(new Vector4f(worldLightPos));
+    // The block is reused by the next call.
+    LightBlockGamma getLightInformationGamma(Matrix4f worldToCameraMat) {
+        updateLights(worldToCameraMat);
 
-            lightData.lights[light + 1] = new PerLight();
-            lightData.lights[light + 1].cameraSpaceLightPos = lightPosCameraSpace;
-            lightData.lights[light + 1].lightIntensity = new Vector4f(lightIntensity.get(light));
-        }
+        ambientInterpolator.interpolate(sunTimer.getAlpha(), lightBlockGamma.ambientIntensity);
+        lightBlockGamma.lightAttenuation = lightAttenuation;
+        lightBlockGamma.maxIntensity = maxIntensityInterpolator.interpolate(sunTimer.getAlpha());
+        getPerLights(lightBlockGamma.lights);
 
-        return lightData;
+        return lightBlockGamma;
     }
 
-    LightBlockGamma getLightInformationGamma(Matrix4f worldToCameraMat) {
-        LightBlockHDR lightDataHdr = getLightInformationHDR(worldToCameraMat);
-        LightBlockGamma lightData = new LightBlockGamma();
-
-        lightData.ambientIntensity = lightDataHdr.ambientIntensity;
-        lightData.lightAttenuation = lightDataHdr.lightAttenuation;
-        lightData.maxIntensity = lightDataHdr.maxIntensity;
-        lightData.lights = lightDataHdr.lights;
 
-        return lightData;
+    private void getPerLights(PerLight[] blockLights) {
+        for (int light = 0; light < NUMBER_OF_LIGHTS; light++) {
+            lightStore.getCameraPosition(light, blockLights[light].cameraSpaceLightPos);
+            lightStore.getIntensity(light, blockLights[light].lightIntensity);
+        }
     }
 
     ////////////////////////////////
@@ -325,28 +370,20 @@ class LightManager {
         }
 
         void setValues(ArrayList<MaxIntensityData> data, boolean isLooping) {
-            values.clear();
+            clear();
 
             for (MaxIntensityData curr : data) {
-                Data temp = new Data();
-                temp.data = getValue(curr);
-                temp.weight = LightManager.getTime(curr);
-
-                values.add(temp);
+                add(LightManager.this.getValue(curr), LightManager.getTime(curr));
             }
 
-            if (isLooping && !values.isEmpty()) {
-                Data temp = new Data();
-                temp.data = values.get(0).data;
-                temp.weight = values.get(0).weight;
-
-                values.add(temp);
+            if (isLooping && getKeyCount() != 0) {
+                add(getValue(0), getWeight(0));
             }
 
             // Ensure first is weight 0, and last is weight 1.
-            if (!values.isEmpty()) {
-                values.get(0).weight = 0.0f;
-                values.get(values.size() - 1).weight = 1.0f;
+            if (getKeyCount() != 0) {
+                setWeight(0, 0.0f);
+                setWeight(getKeyCount() - 1, 1.0f);
             }
         }
     }
@@ -357,30 +394,24 @@ class LightManager {
         }
 
         void setValues(ArrayList<LightData> data, boolean isLooping) {
-            values.clear();
+            clear();
 
             for (LightData curr : data) {
-                Data temp = new Data();
-                temp.data = new Vector4f(LightManager.getValue(curr));
-                temp.weight = LightManager.getTime(curr);
-
-                values.add(temp);
+                add(LightManager.getValue(curr), LightManager.getTime(curr));
             }
 
-            if (isLooping && !values.isEmpty()) {
-                Data temp = new Data();
-                temp.data = new Vector4f(values.get(0).data);
-                temp.weight = values.get(0).weight;
-
-                values.add(temp);
+            if (isLooping && getKeyCount() != 0) {
+                add(getValue(0, firstValue), getWeight(0));
             }
 
             // Ensure first is weight 0, and last is weight 1.
-            if (!values.isEmpty()) {
-                values.get(0).weight = 0.0f;
-                values.get(values.size() - 1).weight = 1.0f;
+            if (getKeyCount() != 0) {
+                setWeight(0, 0.0f);
+                setWeight(getKeyCount() - 1, 1.0f);
             }
         }
+
+        private final Vector4f firstValue = new Vector4f();
     }
 
     ////////////////////////////////
@@ -473,7 +504,8 @@ class LightManager {
 
 
     void createTimer(String timerName, Timer.Type timerType, float duration) {
-        extraTimers.put(timerName, new Timer(timerType, duration));
+        Timer previousTimer = extraTimers.put(timerName, clock.register(new Timer(timerType, duration)));
+        if (previousTimer != null) clock.unregister(previousTimer);
     }
 
     float getTimerValue(String timerName) {
@@ -482,19 +514,6 @@ class LightManager {
     }
 
 
-    void updateTime(float elapsedTime) {
-        sunTimer.update(elapsedTime);
-
-        for (Timer timer : lightTimers) {
-            timer.update(elapsedTime);
-        }
-
-        for (Timer timer : extraTimers.values()) {
-            timer.update(elapsedTime);
-        }
-    }
-
-
     void setPause(TimerTypes timerType, boolean pause) {
         if (timerType == TimerTypes.ALL || timerType == TimerTypes.LIGHTS) {
             for (Timer timer : lightTimers) {
@@ -0,0 +1,366 @@
+package integeruser.jgltut.tut12;
+
+import integeruser.jgltut.Tutorial;
+import integeruser.jgltut.commons.BlockLayout;
+import integeruser.jgltut.commons.Bufferable;
+import integeruser.jgltut.commons.PerLight;
+import integeruser.jgltut.commons.ProjectionBlock;
+import integeruser.jgltut.framework.Framework;
+import integeruser.jgltut.framework.LightStore;
+import org.joml.Matrix4f;
+import org.joml.MatrixStackf;
+import org.joml.Vector3f;
+import org.joml.Vector4f;
+import org.lwjgl.BufferUtils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.lwjgl.glfw.GLFW.glfwSetWindowShouldClose;
+import static org.lwjgl.glfw.GLFW.glfwSwapInterval;
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL30.glBindBufferRange;
+import static org.lwjgl.opengl.GL31.*;
+import static org.lwjgl.opengl.GL32.GL_DEPTH_CLAMP;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * Forward and deferred shading of the tut12 scene, timed with 10, 100 and 1000 animated point lights. The forward
+ * shaders are compiled for each light count, with all the lights in the Light block, so their cost grows with
+ * lights * objects; the deferred renderer shades each light over the pixels inside its volume only.
+ * <p>
+ * Each run renders WARMUP_FRAMES frames, then times MEASURED_FRAMES ones, from the start of the frame to the end of
+ * glFinish, with v-sync off. The results are printed, then the window closes. To time a software Mesa context, run
+ * with LIBGL_ALWAYS_SOFTWARE=1 (the renderer is printed with the results).
+ */
+public class LightingBenchmark extends Tutorial {
+    public static void main(String[] args) {
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut12/data/"));
+        new LightingBenchmark().start(800, 600);
+    }
+
+
+    @Override
+    protected void init() {
+        glfwSwapInterval(0);
+
+        scene = new Scene() {
+            @Override
+            ProgramData getProgram(LightingProgramTypes lightingProgramType) {
+                if (deferred) return deferredRenderer.getGeometryProgram(lightingProgramType);
+                return forwardPrograms[lightingProgramType.ordinal()];
+            }
+        };
+
+        glEnable(GL_CULL_FACE);
+        glCullFace(GL_BACK);
+        glFrontFace(GL_CW);
+
+        glEnable(GL_DEPTH_TEST);
+        glDepthMask(true);
+        glDepthFunc(GL_LEQUAL);
+        glDepthRange(0.0f, 1.0f);
+        glEnable(GL_DEPTH_CLAMP);
+
+        projectionUniformBuffer = glGenBuffers();
+        glBindBuffer(GL_UNIFORM_BUFFER, projectionUniformBuffer);
+        glBufferData(GL_UNIFORM_BUFFER, ProjectionBlock.SIZE_IN_BYTES, GL_DYNAMIC_DRAW);
+        glBindBufferRange(GL_UNIFORM_BUFFER, projectionBlockIndex, projectionUniformBuffer, 0, ProjectionBlock.SIZE_IN_BYTES);
+
+        lightUniformBuffer = glGenBuffers();
+        glBindBuffer(GL_UNIFORM_BUFFER, 0);
+
+        deferredRenderer = new DeferredRenderer(materialBlockIndex, projectionBlockIndex);
+
+        createLights();
+        startRun();
+    }
+
+    @Override
+    protected void display() {
+        long frameStart = System.nanoTime();
+
+        // Fixed time steps: every run sees the same animation.
+        animateLights(frameIx / 60.0f);
+        lightStore.transformToCamera(worldToCamera);
+
+        MatrixStackf modelMatrix = new MatrixStackf(10);
+        modelMatrix.mul(worldToCamera);
+
+        if (deferred) {
+            deferredRenderer.beginGeometryPass();
+            scene.draw(modelMatrix, materialBlockIndex, 0.0f);
+            deferredRenderer.shadeLights(lightStore, ambientIntensity, lightAttenuation, maxIntensity, backgroundColor,
+                    scene.getSphereMesh());
+            deferredRenderer.blitToScreen();
+        } else {
+            for (int light = 0; light < lightStore.getCount(); light++) {
+                lightStore.getCameraPosition(light, forwardLightBlock.lights[light].cameraSpaceLightPos);
+                lightStore.getIntensity(light, forwardLightBlock.lights[light].lightIntensity);
+            }
+            glBindBuffer(GL_UNIFORM_BUFFER, lightUniformBuffer);
+            glBufferSubData(GL_UNIFORM_BUFFER, 0, forwardLightBlock.getAndFlip(forwardLightBuffer));
+            glBindBuffer(GL_UNIFORM_BUFFER, 0);
+            glBindBufferRange(GL_UNIFORM_BUFFER, lightBlockIndex, lightUniformBuffer, 0, forwardLightBlock.layout.getSize());
+
+            glClearColor(backgroundColor.x, backgroundColor.y, backgroundColor.z, backgroundColor.w);
+            glClearDepth(1.0f);
+            glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+            scene.draw(modelMatrix, materialBlockIndex, 0.0f);
+        }
+
+        glFinish();
+
+        if (frameIx >= WARMUP_FRAMES) frameTimes[frameIx - WARMUP_FRAMES] = System.nanoTime() - frameStart;
+        frameIx++;
+        if (frameIx == WARMUP_FRAMES + MEASURED_FRAMES) endRun();
+    }
+
+    @Override
+    protected void reshape(int w, int h) {
+        Matrix4f persMatrix = new Matrix4f();
+        persMatrix.perspective((float) Math.toRadians(45.0f), (w / (float) h), 1.0f, 1000.0f);
+
+        ProjectionBlock projData = new ProjectionBlock();
+        projData.cameraToClipMatrix = persMatrix;
+
+        glBindBuffer(GL_UNIFORM_BUFFER, projectionUniformBuffer);
+        glBufferSubData(GL_UNIFORM_BUFFER, 0, projData.getAndFlip(projectionBlockBuffer));
+        glBindBuffer(GL_UNIFORM_BUFFER, 0);
+
+        glViewport(0, 0, w, h);
+
+        deferredRenderer.resize(w, h);
+    }
+
+    @Override
+    protected void update() {
+    }
+
+    ////////////////////////////////
+    private static final int[] LIGHT_COUNTS = {10, 100, 1000};
+    private static final int WARMUP_FRAMES = 30;
+    private static final int MEASURED_FRAMES = 120;
+
+    private final int materialBlockIndex = 0;
+    private final int lightBlockIndex = 1;
+    private final int projectionBlockIndex = 2;
+
+    private int projectionUniformBuffer;
+    private int lightUniformBuffer;
+
+    private Scene scene;
+    private DeferredRenderer deferredRenderer;
+    private Scene.ProgramData[] forwardPrograms = new Scene.ProgramData[Scene.LightingProgramTypes.MAX_LIGHTING_PROGRAM_TYPES.ordinal()];
+
+    // The scene seen from above its center, the same for every run.
+    private final Matrix4f worldToCamera = new Matrix4f().lookAt(0.0f, 90.0f, 190.0f, 0.0f, 0.0f, 0.0f, 0.0f, 1.0f, 0.0f);
+
+    private int runIx;
+    private boolean deferred;
+    private int frameIx;
+    private long[] frameTimes = new long[MEASURED_FRAMES];
+    private double[][] results = new double[LIGHT_COUNTS.length][2];
+
+
+    private void startRun() {
+        int lightCount = LIGHT_COUNTS[runIx / 2];
+        deferred = runIx % 2 == 1;
+        frameIx = 0;
+
+        lightStore.clear();
+        lightStore.addDirectionalLight(new Vector4f(0.2f, 0.9f, 0.4f, 0.0f).normalize3(), new Vector4f(0.6f, 0.6f, 0.6f, 1.0f));
+        for (int light = 0; light < lightCount; light++) {
+            lightStore.addPointLight(new Vector3f(), lightIntensities[light], lightRadii[light]);
+        }
+
+        if (!deferred && !loadForwardPrograms(lightStore.getCount())) {
+            System.out.printf("%d lights: the Light block doesn't fit in a uniform block, skipping forward shading.\n",
+                    lightCount);
+            results[runIx / 2][0] = Double.NaN;
+            nextRun();
+        }
+    }
+
+    private void endRun() {
+        long[] sortedFrameTimes = Arrays.copyOf(frameTimes, frameTimes.length);
+        Arrays.sort(sortedFrameTimes);
+        results[runIx / 2][deferred ? 1 : 0] = sortedFrameTimes[sortedFrameTimes.length / 2] / 1000000.0;
+
+        nextRun();
+    }
+
+    private void nextRun() {
+        runIx++;
+        if (runIx < LIGHT_COUNTS.length * 2) {
+            startRun();
+            return;
+        }
+
+        System.out.printf("\nMedian frame time (ms), %s\n", glGetString(GL_RENDERER));
+        System.out.printf("%8s%12s%12s\n", "lights", "forward", "deferred");
+        for (int countIx = 0; countIx < LIGHT_COUNTS.length; countIx++) {
+            System.out.printf("%8d%12.2f%12.2f\n", LIGHT_COUNTS[countIx], results[countIx][0], results[countIx][1]);
+        }
+        glfwSetWindowShouldClose(window, GL_TRUE);
+    }
+
+    ////////////////////////////////
+    private final Vector4f ambientIntensity = new Vector4f(0.2f, 0.2f, 0.2f, 1.0f);
+    private final Vector4f backgroundColor = new Vector4f(0.65f, 0.65f, 1.0f, 1.0f);
+    private final float maxIntensity = 1.0f;
+
+    private final float halfLightDistance = 10.0f;
+    private final float lightAttenuation = 1.0f / (halfLightDistance * halfLightDistance);
+
+    private final int maxLightCount = LIGHT_COUNTS[LIGHT_COUNTS.length - 1];
+    private LightStore lightStore = new LightStore(1 + maxLightCount);
+
+    // The point lights circle around their center, at their own speed.
+    private float[] lightCentersX, lightCentersY, lightCentersZ;
+    private float[] lightOrbitRadii, lightAngularSpeeds;
+    private Vector4f[] lightIntensities;
+    private float[] lightRadii;
+
+    private final Vector3f lightPosition = new Vector3f();
+
+
+    private void createLights() {
+        Random random = new Random(12);
+
+        lightCentersX = new float[maxLightCount];
+        lightCentersY = new float[maxLightCount];
+        lightCentersZ = new float[maxLightCount];
+        lightOrbitRadii = new float[maxLightCount];
+        lightAngularSpeeds = new float[maxLightCount];
+        lightIntensities = new Vector4f[maxLightCount];
+        lightRadii = new float[maxLightCount];
+
+        for (int light = 0; light < maxLightCount; light++) {
+            lightCentersX[light] = random.nextFloat() * 200.0f - 100.0f;
+            lightCentersY[light] = random.nextFloat() * 20.0f + 2.0f;
+            lightCentersZ[light] = random.nextFloat() * 200.0f - 100.0f;
+            lightOrbitRadii[light] = random.nextFloat() * 10.0f + 2.0f;
+            lightAngularSpeeds[light] = random.nextFloat() * 2.0f - 1.0f;
+
+            lightIntensities[light] = new Vector4f(random.nextFloat(), random.nextFloat(), random.nextFloat(), 1.0f)
+                    .mul(0.25f);
+            lightIntensities[light].w = 1.0f;
+
+            // Where the brightest component falls below 1/256.
+            float maxComponent = Math.max(lightIntensities[light].x, Math.max(lightIntensities[light].y, lightIntensities[light].z));
+            lightRadii[light] = (float) Math.sqrt(Math.max(maxComponent * 256.0f - 1.0f, 0.0f) / lightAttenuation);
+        }
+    }
+
+    private void animateLights(float time) {
+        // The sun is the first light.
+        for (int light = 1; light < lightStore.getCount(); light++) {
+            int pointLight = light - 1;
+            float angle = time * lightAngularSpeeds[pointLight];
+            lightPosition.set(
+                    lightCentersX[pointLight] + (float) Math.cos(angle) * lightOrbitRadii[pointLight],
+                    lightCentersY[pointLight],
+                    lightCentersZ[pointLight] + (float) Math.sin(angle) * lightOrbitRadii[pointLight]);
+            lightStore.setPosition(light, lightPosition);
+        }
+    }
+
+    ////////////////////////////////
+    // The Light block of the forward shaders compiled for a given number of lights.
+    private static class ForwardLightBlock implements Bufferable {
+        ForwardLightBlock(int lightCount) {
+            layout = new BlockLayout.Builder<ForwardLightBlock>(BlockLayout.Packing.STD140)
+                    .vec4("ambientIntensity", block -> block.ambientIntensity)
+                    .floatMember("lightAttenuation", block -> block.lightAttenuation)
+                    .floatMember("maxIntensity", block -> block.maxIntensity)
+                    .structArray("lights", PerLight.LAYOUT, lightCount, block -> block.lights)
+                    .build();
+
+            lights = new PerLight[lightCount];
+            for (int light = 0; light < lightCount; light++) {
+                lights[light] = new PerLight();
+                lights[light].cameraSpaceLightPos = new Vector4f();
+                lights[light].lightIntensity = new Vector4f();
+            }
+        }
+
+        final BlockLayout<ForwardLightBlock> layout;
+
+        Vector4f ambientIntensity;
+        float lightAttenuation;
+        float maxIntensity;
+        PerLight lights[];
+
+        @Override
+        public ByteBuffer get(ByteBuffer buffer) {
+            return layout.write(this, buffer);
+        }
+    }
+
+    private ForwardLightBlock forwardLightBlock;
+    private ByteBuffer forwardLightBuffer;
+
+    private String[][] forwardShaderFileNames = {
+            {"PCN.vert", "DiffuseSpecularHDR.frag"},
+            {"PCN.vert", "DiffuseOnlyHDR.frag"},
+            {"PN.vert", "DiffuseSpecularMtlHDR.frag"},
+            {"PN.vert", "DiffuseOnlyMtlHDR.frag"}
+    };
+
+
+    // Returns false if the Light block is too large for this driver.
+    private boolean loadForwardPrograms(int lightCount) {
+        forwardLightBlock = new ForwardLightBlock(lightCount);
+        if (forwardLightBlock.layout.getSize() > glGetInteger(GL_MAX_UNIFORM_BLOCK_SIZE)) return false;
+
+        forwardLightBlock.ambientIntensity = ambientIntensity;
+        forwardLightBlock.lightAttenuation = lightAttenuation;
+        forwardLightBlock.maxIntensity = maxIntensity;
+        forwardLightBuffer = BufferUtils.createByteBuffer(forwardLightBlock.layout.getSize());
+
+        glBindBuffer(GL_UNIFORM_BUFFER, lightUniformBuffer);
+        glBufferData(GL_UNIFORM_BUFFER, forwardLightBlock.layout.getSize(), GL_STREAM_DRAW);
+        glBindBuffer(GL_UNIFORM_BUFFER, 0);
+
+        for (int progIndex = 0; progIndex < forwardPrograms.length; progIndex++) {
+            if (forwardPrograms[progIndex] != null) glDeleteProgram(forwardPrograms[progIndex].theProgram);
+            forwardPrograms[progIndex] = loadForwardProgram(forwardShaderFileNames[progIndex][0],
+                    forwardShaderFileNames[progIndex][1], lightCount);
+        }
+        return true;
+    }
+
+    private Scene.ProgramData loadForwardProgram(String vertexShaderFileName, String fragmentShaderFileName, int lightCount) {
+        ArrayList<Integer> shaderList = new ArrayList<>();
+        shaderList.add(Framework.loadShader(GL_VERTEX_SHADER, vertexShaderFileName));
+        shaderList.add(Framework.loadShader(GL_FRAGMENT_SHADER, fragmentShaderFileName,
+                Collections.singletonMap("NUMBER_OF_LIGHTS", Integer.toString(lightCount))));
+
+        Scene.ProgramData data = new Scene.ProgramData();
+        data.theProgram = Framework.createProgram(shaderList);
+        data.modelToCameraMatrixUnif = glGetUniformLocation(data.theProgram, "modelToCameraMatrix");
+        data.normalModelToCameraMatrixUnif = glGetUniformLocation(data.theProgram, "normalModelToCameraMatrix");
+
+        int materialBlock = glGetUniformBlockIndex(data.theProgram, "Material");
+        int lightBlock = glGetUniformBlockIndex(data.theProgram, "Light");
+        int projectionBlock = glGetUniformBlockIndex(data.theProgram, "Projection");
+
+        if (materialBlock != GL_INVALID_INDEX) {  // Can be optimized out.
+            glUniformBlockBinding(data.theProgram, materialBlock, materialBlockIndex);
+        }
+        glUniformBlockBinding(data.theProgram, lightBlock, lightBlockIndex);
+        glUniformBlockBinding(data.theProgram, projectionBlock, projectionBlockIndex);
+
+        forwardLightBlock.layout.validate(data.theProgram, "Light");
+
+        return data;
+    }
+}
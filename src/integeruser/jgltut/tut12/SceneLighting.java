@@ -10,12 +10,12 @@ import integeruser.jgltut.commons.ProjectionBlock;
 import integeruser.jgltut.framework.Framework;
 import integeruser.jgltut.framework.MousePole;
 import integeruser.jgltut.framework.Timer;
+import integeruser.jgltut.framework.UniformRingBuffer;
 import org.joml.*;
 import org.lwjgl.glfw.GLFWCursorPosCallback;
 import org.lwjgl.glfw.GLFWKeyCallback;
 import org.lwjgl.glfw.GLFWMouseButtonCallback;
 import org.lwjgl.glfw.GLFWScrollCallback;
-import org.lwjgl.opengl.GL15;
 
 import java.util.ArrayList;
 
@@ -53,7 +53,7 @@ import static org.lwjgl.opengl.GL32.GL_DEPTH_CLAMP;
  */
 public class SceneLighting extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut12/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut12/data/"));
         new SceneLighting().start(700, 700);
     }
 
@@ -92,17 +92,14 @@ public class SceneLighting extends Tutorial {
         glEnable(GL_DEPTH_CLAMP);
 
         // Setup our Uniform Buffers
-        lightUniformBuffer = glGenBuffers();
-        glBindBuffer(GL_UNIFORM_BUFFER, lightUniformBuffer);
-        GL15.glBufferData(GL_UNIFORM_BUFFER, LightBlock.SIZE_IN_BYTES, GL_DYNAMIC_DRAW);
+        // The light block changes every frame: it is streamed, and bound in display.
+        lightUniformRing = new UniformRingBuffer(LightBlock.SIZE_IN_BYTES);
 
         projectionUniformBuffer = glGenBuffers();
         glBindBuffer(GL_UNIFORM_BUFFER, projectionUniformBuffer);
         glBufferData(GL_UNIFORM_BUFFER, ProjectionBlock.SIZE_IN_BYTES, GL_DYNAMIC_DRAW);
 
         // Bind the static buffers.
-        glBindBufferRange(GL_UNIFORM_BUFFER, lightBlockIndex, lightUniformBuffer, 0, LightBlock.SIZE_IN_BYTES);
-
         glBindBufferRange(GL_UNIFORM_BUFFER, projectionBlockIndex, projectionUniformBuffer, 0, ProjectionBlock.SIZE_IN_BYTES);
 
         glBindBuffer(GL_UNIFORM_BUFFER, 0);
@@ -201,8 +198,6 @@ public class SceneLighting extends Tutorial {
 
     @Override
     protected void display() {
-        lights.updateTime(elapsedTime);
-
         Vector4f bkg = lights.getBackgroundColor();
         glClearColor(bkg.x, bkg.y, bkg.z, bkg.w);
         glClearDepth(1.0f);
@@ -214,9 +209,9 @@ public class SceneLighting extends Tutorial {
         final Matrix4f worldToCamMat = modelMatrix;
         LightBlock lightData = lights.getLightInformation(worldToCamMat);
 
-        glBindBuffer(GL_UNIFORM_BUFFER, lightUniformBuffer);
-        glBufferSubData(GL_UNIFORM_BUFFER, 0, lightData.getAndFlip(lightBlockBuffer));
-        glBindBuffer(GL_UNIFORM_BUFFER, 0);
+        lightUniformRing.beginFrame();
+        int lightDataOffset = lightUniformRing.write(lightData, LightBlock.SIZE_IN_BYTES);
+        lightUniformRing.bindRange(lightBlockIndex, lightDataOffset, LightBlock.SIZE_IN_BYTES);
 
         {
             modelMatrix.pushMatrix();
@@ -288,6 +283,8 @@ public class SceneLighting extends Tutorial {
 
             modelMatrix.popMatrix();
         }
+
+        lightUniformRing.endFrame();
     }
 
     @Override
@@ -340,7 +337,7 @@ public class SceneLighting extends Tutorial {
     private final int materialBlockIndex = 0;
     private final int lightBlockIndex = 1;
 
-    private int lightUniformBuffer;
+    private UniformRingBuffer lightUniformRing;
 
     private Scene.ProgramData[] programs = new Scene.ProgramData[Scene.LightingProgramTypes.MAX_LIGHTING_PROGRAM_TYPES.ordinal()];
     private Shaders[] shaderFileNames = new Shaders[]{
@@ -401,6 +398,10 @@ public class SceneLighting extends Tutorial {
         glUniformBlockBinding(data.theProgram, lightBlock, lightBlockIndex);
         glUniformBlockBinding(data.theProgram, projectionBlock, projectionBlockIndex);
 
+        // The blocks are written from Java, so the offsets must match the ones of the driver.
+        LightBlock.LAYOUT.validate(data.theProgram, "Light");
+        ProjectionBlock.LAYOUT.validate(data.theProgram, "Projection");
+
         return data;
     }
 
@@ -423,7 +424,7 @@ public class SceneLighting extends Tutorial {
     ////////////////////////////////
     private Scene scene;
 
-    private LightManager lights = new LightManager();
+    private LightManager lights = new LightManager(clock);
     private final Vector4f skyDaylightColor = new Vector4f(0.65f, 0.65f, 1.0f, 1.0f);
 
     private LightManager.TimerTypes timerMode = LightManager.TimerTypes.ALL;
@@ -0,0 +1,19 @@
+#version 330
+
+#include "DeferredLighting.glsl"
+
+uniform vec4 ambientIntensity;
+uniform vec3 cameraSpaceLightDir;
+uniform vec4 lightIntensity;
+
+out vec4 outputColor;
+
+void main()
+{
+	Surface surface = ReadSurface();
+
+	vec4 accumLighting = surface.diffuseColor * ambientIntensity;
+	accumLighting += ComputeLighting(surface, cameraSpaceLightDir, lightIntensity);
+
+	outputColor = accumLighting / maxIntensity;
+}
@@ -0,0 +1,52 @@
+// The surface of the pixel, as written in the G-buffer, and the lighting of the forward HDR shaders.
+
+uniform sampler2D diffuseTexture;
+uniform sampler2D specularTexture;
+uniform sampler2D normalTexture;
+uniform sampler2D positionTexture;
+
+uniform float maxIntensity;
+
+struct Surface
+{
+	vec4 diffuseColor;
+	vec4 specularColor;
+	float specularShininess;
+	vec3 normal;
+	vec3 cameraSpacePosition;
+};
+
+Surface ReadSurface()
+{
+	ivec2 texel = ivec2(gl_FragCoord.xy);
+	vec4 specular = texelFetch(specularTexture, texel, 0);
+
+	Surface surface;
+	surface.diffuseColor = texelFetch(diffuseTexture, texel, 0);
+	surface.specularColor = vec4(specular.rgb, 1.0);
+	surface.specularShininess = specular.a;
+	surface.normal = texelFetch(normalTexture, texel, 0).xyz;
+	surface.cameraSpacePosition = texelFetch(positionTexture, texel, 0).xyz;
+	return surface;
+}
+
+vec4 ComputeLighting(in Surface surface, in vec3 lightDir, in vec4 lightIntensity)
+{
+	float cosAngIncidence = dot(surface.normal, lightDir);
+	cosAngIncidence = cosAngIncidence < 0.0001 ? 0.0 : cosAngIncidence;
+
+	vec3 viewDirection = normalize(-surface.cameraSpacePosition);
+
+	vec3 halfAngle = normalize(lightDir + viewDirection);
+	float angleNormalHalf = acos(dot(halfAngle, surface.normal));
+	float exponent = angleNormalHalf / surface.specularShininess;
+	exponent = -(exponent * exponent);
+	float gaussianTerm = exp(exponent);
+
+	gaussianTerm = cosAngIncidence != 0.0 ? gaussianTerm : 0.0;
+
+	vec4 lighting = surface.diffuseColor * lightIntensity * cosAngIncidence;
+	lighting += surface.specularColor * lightIntensity * gaussianTerm;
+
+	return lighting;
+}
@@ -0,0 +1,21 @@
+#version 330
+
+#include "DeferredLighting.glsl"
+
+uniform vec3 cameraSpaceLightPos;
+uniform vec4 lightIntensity;
+uniform float lightAttenuation;
+
+out vec4 outputColor;
+
+void main()
+{
+	Surface surface = ReadSurface();
+
+	vec3 lightDifference = cameraSpaceLightPos - surface.cameraSpacePosition;
+	float lightDistanceSqr = dot(lightDifference, lightDifference);
+	vec3 lightDir = lightDifference * inversesqrt(lightDistanceSqr);
+	float atten = 1 / (1.0 + lightAttenuation * lightDistanceSqr);
+
+	outputColor = ComputeLighting(surface, lightDir, atten * lightIntensity) / maxIntensity;
+}
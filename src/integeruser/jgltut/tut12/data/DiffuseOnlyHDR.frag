@@ -21,7 +21,11 @@ struct PerLight
 	vec4 lightIntensity;
 };
 
-const int numberOfLights = 4;
+// The lighting benchmark compiles variants with more lights.
+#ifndef NUMBER_OF_LIGHTS
+#define NUMBER_OF_LIGHTS 4
+#endif
+const int numberOfLights = NUMBER_OF_LIGHTS;
 
 uniform Light
 {
@@ -0,0 +1,40 @@
+#version 330
+
+#ifdef VERT_COLOR
+in vec4 diffuseColor;
+#endif
+in vec3 vertexNormal;
+in vec3 cameraSpacePosition;
+
+layout(location = 0) out vec4 outputDiffuse;
+layout(location = 1) out vec4 outputSpecular;
+layout(location = 2) out vec4 outputNormal;
+layout(location = 3) out vec4 outputPosition;
+
+layout(std140) uniform;
+
+uniform Material
+{
+	vec4 diffuseColor;
+	vec4 specularColor;
+	float specularShininess;
+} Mtl;
+
+void main()
+{
+#ifdef VERT_COLOR
+	outputDiffuse = diffuseColor;
+#else
+	outputDiffuse = Mtl.diffuseColor;
+#endif
+
+#ifdef SPECULAR
+	outputSpecular = vec4(Mtl.specularColor.rgb, Mtl.specularShininess);
+#else
+	// Any shininess will do, as long as the division by it is defined.
+	outputSpecular = vec4(0.0, 0.0, 0.0, 1.0);
+#endif
+
+	outputNormal = vec4(normalize(vertexNormal), 0.0);
+	outputPosition = vec4(cameraSpacePosition, 1.0);
+}
@@ -52,7 +52,7 @@ import static org.lwjgl.opengl.GL32.GL_DEPTH_CLAMP;
  */
 public class BasicImpostor extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut13/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut13/data/"));
         new BasicImpostor().start(500, 500);
     }
 
@@ -198,8 +198,6 @@ public class BasicImpostor extends Tutorial {
 
     @Override
     protected void display() {
-        sphereTimer.update(elapsedTime);
-
         glClearColor(0.75f, 0.75f, 1.0f, 1.0f);
         glClearDepth(1.0f);
         glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
@@ -443,7 +441,7 @@ public class BasicImpostor extends Tutorial {
 
     private int imposterVAO;
 
-    private Timer sphereTimer = new Timer(Timer.Type.LOOP, 6.0f);
+    private Timer sphereTimer = clock.register(new Timer(Timer.Type.LOOP, 6.0f));
 
     private boolean[] drawImposter = {false, false, false, false};
     private boolean drawCameraPos;
@@ -9,6 +9,7 @@ import integeruser.jgltut.commons.*;
 import integeruser.jgltut.framework.Framework;
 import integeruser.jgltut.framework.Mesh;
 import integeruser.jgltut.framework.MousePole;
+import integeruser.jgltut.framework.StreamingVertexBuffer;
 import integeruser.jgltut.framework.Timer;
 import org.joml.*;
 import org.lwjgl.BufferUtils;
@@ -52,7 +53,7 @@ import static org.lwjgl.opengl.GL32.*;
  */
 public class GeomImpostor extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut13/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut13/data/"));
         new GeomImpostor().start(500, 500);
     }
 
@@ -98,19 +99,16 @@ public class GeomImpostor extends Tutorial {
 
         glBindBuffer(GL_UNIFORM_BUFFER, 0);
 
-        imposterVBO = glGenBuffers();
-        glBindBuffer(GL_ARRAY_BUFFER, imposterVBO);
-        glBufferData(GL_ARRAY_BUFFER, NUMBER_OF_SPHERES * 4 * Float.BYTES, GL_STREAM_DRAW);
+        // Room for a few frames of impostors, so that the GPU can read one while the next is written.
+        imposterVertices = new StreamingVertexBuffer(NUMBER_OF_SPHERES * VertexData.SIZE * 4);
 
+        // The attributes are pointed at the vertices of each frame in display.
         imposterVAO = glGenVertexArrays();
         glBindVertexArray(imposterVAO);
         glEnableVertexAttribArray(0);
-        glVertexAttribPointer(0, 3, GL_FLOAT, false, 16, 0);
         glEnableVertexAttribArray(1);
-        glVertexAttribPointer(1, 1, GL_FLOAT, false, 16, 12);
 
         glBindVertexArray(0);
-        glBindBuffer(GL_ARRAY_BUFFER, 0);
 
         glEnable(GL_PROGRAM_POINT_SIZE);
 
@@ -181,8 +179,6 @@ public class GeomImpostor extends Tutorial {
 
     @Override
     protected void display() {
-        sphereTimer.update(elapsedTime);
-
         glClearColor(0.75f, 0.75f, 1.0f, 1.0f);
         glClearDepth(1.0f);
         glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
@@ -247,28 +243,18 @@ public class GeomImpostor extends Tutorial {
                     new Vector3f(0.0f, 1.0f, 0.0f), 10.0f, sphereTimer.getAlpha() * 2.0f);
             posSizeArray[3].sphereRadius = 1.0f;
 
-            glBindBuffer(GL_ARRAY_BUFFER, imposterVBO);
-
-            {
-                ByteBuffer vertexDataBuffer = BufferUtils.createByteBuffer(NUMBER_OF_SPHERES * VertexData.SIZE);
-
-                for (VertexData vertexData : posSizeArray) {
-                    vertexData.get(vertexDataBuffer);
-                }
-
-                vertexDataBuffer.flip();
-
-                glBufferData(GL_ARRAY_BUFFER, vertexDataBuffer, GL_STREAM_DRAW);
+            ByteBuffer vertexDataBuffer = imposterVertices.map(NUMBER_OF_SPHERES * VertexData.SIZE, VertexData.SIZE);
+            for (VertexData vertexData : posSizeArray) {
+                vertexData.get(vertexDataBuffer);
             }
-
-            glBindBuffer(GL_ARRAY_BUFFER, 0);
+            imposterOffset = imposterVertices.unmap();
         }
 
         {
             glBindBufferRange(GL_UNIFORM_BUFFER, materialBlockIndex, materialArrayUniformBuffer, 0, MaterialBlock.SIZE_IN_BYTES * NUMBER_OF_SPHERES);
 
             glUseProgram(litImpProg.theProgram);
-            glBindVertexArray(imposterVAO);
+            imposterVertices.bindVertexArray(imposterVAO, imposterOffset, VertexData.SIZE, imposterAttributes);
             glDrawArrays(GL_POINTS, 0, NUMBER_OF_SPHERES);
             glBindVertexArray(0);
             glUseProgram(0);
@@ -312,6 +298,8 @@ public class GeomImpostor extends Tutorial {
 
             modelMatrix.popMatrix();
         }
+
+        imposterVertices.endFrame();
     }
 
     @Override
@@ -454,11 +442,17 @@ public class GeomImpostor extends Tutorial {
     private Mesh cubeMesh;
 
     private int imposterVAO;
-    private int imposterVBO;
+    private StreamingVertexBuffer imposterVertices;
+    private int imposterOffset;
+
+    private final StreamingVertexBuffer.Attribute[] imposterAttributes = {
+            new StreamingVertexBuffer.Attribute(0, 3, GL_FLOAT, false, 0),
+            new StreamingVertexBuffer.Attribute(1, 1, GL_FLOAT, false, 12)
+    };
 
     private final int NUMBER_OF_SPHERES = 4;
 
-    private Timer sphereTimer = new Timer(Timer.Type.LOOP, 6.0f);
+    private Timer sphereTimer = clock.register(new Timer(Timer.Type.LOOP, 6.0f));
 
     private boolean drawCameraPos;
     private boolean drawLights = true;
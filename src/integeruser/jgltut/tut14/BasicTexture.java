@@ -1,5 +1,7 @@
 package integeruser.jgltut.tut14;
 
+import integeruser.jglsdk.glimg.ImageSet;
+import integeruser.jglsdk.glimg.ProceduralImage;
 import integeruser.jglsdk.glutil.MousePoles.*;
 import integeruser.jgltut.Tutorial;
 import integeruser.jgltut.commons.LightBlock;
@@ -58,7 +60,7 @@ import static org.lwjgl.opengl.GL33.*;
  */
 public class BasicTexture extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut14/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut14/data/"));
         new BasicTexture().start(500, 500);
     }
 
@@ -194,8 +196,6 @@ public class BasicTexture extends Tutorial {
 
     @Override
     protected void display() {
-        lightTimer.update(elapsedTime);
-
         glClearColor(0.75f, 0.75f, 1.0f, 1.0f);
         glClearDepth(1.0f);
         glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
@@ -405,7 +405,7 @@ public class BasicTexture extends Tutorial {
 
     private int gaussSampler;
 
-    private Timer lightTimer = new Timer(Timer.Type.LOOP, 6.0f);
+    private Timer lightTimer = clock.register(new Timer(Timer.Type.LOOP, 6.0f));
 
     private boolean drawLights = true;
     private boolean drawCameraPos;
@@ -425,13 +425,11 @@ public class BasicTexture extends Tutorial {
     }
 
     private int createGaussianTexture(int cosAngleResolution) {
-        byte[] textureData = new byte[cosAngleResolution];
-
-        buildGaussianData(textureData, cosAngleResolution);
-
-        ByteBuffer textureDataBuffer = BufferUtils.createByteBuffer(textureData.length);
-        textureDataBuffer.put(textureData);
-        textureDataBuffer.flip();
+        final float shininess = specularShininess;
+        ImageSet imageSet = ProceduralImage.create1D(cosAngleResolution, 1, 1,
+                (cosAng, v, mipmapLevel, texel) -> texel[0] = calcGaussianTerm(cosAng, shininess),
+                "gaussian", shininess);
+        ByteBuffer textureDataBuffer = imageSet.getImageData(0, 0, 0);
 
         int gaussTexture = glGenTextures();
         glBindTexture(GL_TEXTURE_1D, gaussTexture);
@@ -443,16 +441,11 @@ public class BasicTexture extends Tutorial {
         return gaussTexture;
     }
 
-    private void buildGaussianData(byte[] textureData, int cosAngleResolution) {
-        for (int cosAngIndex = 0; cosAngIndex < cosAngleResolution; cosAngIndex++) {
-            float cosAng = cosAngIndex / (float) (cosAngleResolution - 1);
-            float angle = (float) Math.acos(cosAng);
-            float exponent = angle / specularShininess;
-            exponent = -(exponent * exponent);
-            float gaussianTerm = (float) Math.exp(exponent);
-
-            textureData[cosAngIndex] = (byte) (gaussianTerm * 255.0f);
-        }
+    private float calcGaussianTerm(float cosAng, float shininess) {
+        float angle = (float) Math.acos(cosAng);
+        float exponent = angle / shininess;
+        exponent = -(exponent * exponent);
+        return (float) Math.exp(exponent);
     }
 
     private int calcCosAngResolution(int level) {
@@ -4,6 +4,7 @@ import integeruser.jglsdk.glimg.DdsLoader;
 import integeruser.jglsdk.glimg.ImageSet;
 import integeruser.jglsdk.glimg.ImageSet.Dimensions;
 import integeruser.jglsdk.glimg.ImageSet.SingleImage;
+import integeruser.jglsdk.glimg.ProceduralImage;
 import integeruser.jglsdk.glutil.MousePoles.*;
 import integeruser.jgltut.Tutorial;
 import integeruser.jgltut.commons.LightBlock;
@@ -12,7 +13,6 @@ import integeruser.jgltut.commons.PerLight;
 import integeruser.jgltut.commons.ProjectionBlock;
 import integeruser.jgltut.framework.*;
 import org.joml.*;
-import org.lwjgl.BufferUtils;
 import org.lwjgl.glfw.GLFWCursorPosCallback;
 import org.lwjgl.glfw.GLFWKeyCallback;
 import org.lwjgl.glfw.GLFWMouseButtonCallback;
@@ -62,7 +62,7 @@ import static org.lwjgl.opengl.GL33.*;
  */
 public class MaterialTexture extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut14/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut14/data/"));
         new MaterialTexture().start(500, 500);
     }
 
@@ -208,8 +208,6 @@ public class MaterialTexture extends Tutorial {
 
     @Override
     protected void display() {
-        lightTimer.update(elapsedTime);
-
         glClearColor(0.75f, 0.75f, 1.0f, 1.0f);
         glClearDepth(1.0f);
         glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
@@ -458,7 +456,7 @@ public class MaterialTexture extends Tutorial {
             "Texture Shininess with computed Gaussian"
     };
 
-    private Timer lightTimer = new Timer(Timer.Type.LOOP, 6.0f);
+    private Timer lightTimer = clock.register(new Timer(Timer.Type.LOOP, 6.0f));
 
     private boolean drawLights = true;
     private boolean useInfinity = true;
@@ -489,13 +487,14 @@ public class MaterialTexture extends Tutorial {
     }
 
     private int createGaussianTexture(int cosAngleResolution, int shininessResolution) {
-        byte[] textureData = new byte[shininessResolution * cosAngleResolution];
-
-        buildGaussianData(textureData, cosAngleResolution, shininessResolution);
-
-        ByteBuffer textureDataBuffer = BufferUtils.createByteBuffer(textureData.length);
-        textureDataBuffer.put(textureData);
-        textureDataBuffer.flip();
+        // Shininess goes from 1 / shininessResolution on the first line to 1 on the last one.
+        ImageSet imageSet = ProceduralImage.create2D(cosAngleResolution, shininessResolution, 1, 1,
+                (cosAng, v, mipmapLevel, texel) -> {
+                    float shininess = (v * (shininessResolution - 1) + 1.0f) / shininessResolution;
+                    texel[0] = calcGaussianTerm(cosAng, shininess);
+                },
+                "gaussian");
+        ByteBuffer textureDataBuffer = imageSet.getImageData(0, 0, 0);
 
         int gaussTexture = glGenTextures();
         glBindTexture(GL_TEXTURE_2D, gaussTexture);
@@ -507,22 +506,11 @@ public class MaterialTexture extends Tutorial {
         return gaussTexture;
     }
 
-    private void buildGaussianData(byte[] textureData, int cosAngleResolution, int shininessResolution) {
-        int offset = 0;
-        for (int shinIndex = 1; shinIndex <= shininessResolution; shinIndex++) {
-            float shininess = shinIndex / (float) (shininessResolution);
-
-            for (int cosAngIndex = 0; cosAngIndex < cosAngleResolution; cosAngIndex++) {
-                float cosAng = cosAngIndex / (float) (cosAngleResolution - 1);
-                float angle = (float) Math.acos(cosAng);
-                float exponent = angle / shininess;
-                exponent = -(exponent * exponent);
-                float gaussianTerm = (float) Math.exp(exponent);
-
-                textureData[offset] = (byte) (char) (gaussianTerm * 255.0f);
-                offset++;
-            }
-        }
+    private float calcGaussianTerm(float cosAng, float shininess) {
+        float angle = (float) Math.acos(cosAng);
+        float exponent = angle / shininess;
+        exponent = -(exponent * exponent);
+        return (float) Math.exp(exponent);
     }
 
     private int calcCosAngResolution(int level) {
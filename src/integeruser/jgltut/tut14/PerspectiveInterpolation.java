@@ -24,7 +24,7 @@ import static org.lwjgl.opengl.GL20.*;
  */
 public class PerspectiveInterpolation extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut14/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut14/data/"));
         new PerspectiveInterpolation().start(500, 500);
     }
 
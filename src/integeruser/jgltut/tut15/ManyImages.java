@@ -2,6 +2,7 @@ package integeruser.jgltut.tut15;
 
 import integeruser.jglsdk.glimg.DdsLoader;
 import integeruser.jglsdk.glimg.ImageSet;
+import integeruser.jglsdk.glimg.ProceduralImage;
 import integeruser.jgltut.Tutorial;
 import integeruser.jgltut.commons.ProjectionBlock;
 import integeruser.jgltut.framework.Framework;
@@ -10,7 +11,6 @@ import integeruser.jgltut.framework.Timer;
 import org.joml.Matrix4f;
 import org.joml.MatrixStackf;
 import org.joml.Vector3f;
-import org.lwjgl.BufferUtils;
 import org.lwjgl.glfw.GLFWKeyCallback;
 
 import java.nio.ByteBuffer;
@@ -44,7 +44,7 @@ import static org.lwjgl.opengl.GL33.*;
  */
 public class ManyImages extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut15/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut15/data/"));
         new ManyImages().start(500, 500);
     }
 
@@ -128,8 +128,6 @@ public class ManyImages extends Tutorial {
         glClearDepth(1.0f);
         glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
 
-        camTimer.update(elapsedTime);
-
         float cyclicAngle = camTimer.getAlpha() * 6.28f;
         float hOffset = (float) (Math.cos(cyclicAngle) * 0.25f);
         float vOffset = (float) (Math.sin(cyclicAngle) * 0.25f);
@@ -250,7 +248,7 @@ public class ManyImages extends Tutorial {
             "Max anisotropic"
     };
 
-    private Timer camTimer = new Timer(Timer.Type.LOOP, 5.0f);
+    private Timer camTimer = clock.register(new Timer(Timer.Type.LOOP, 5.0f));
 
     private boolean useMipmapTexture;
     private boolean drawCorridor;
@@ -263,21 +261,15 @@ public class ManyImages extends Tutorial {
         int oldAlign = glGetInteger(GL_UNPACK_ALIGNMENT);
         glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
 
-        for (int mipmapLevel = 0; mipmapLevel < 8; mipmapLevel++) {
-            int width = 128 >> mipmapLevel;
-            int height = 128 >> mipmapLevel;
-            ArrayList<Byte> texture = new ArrayList<>();
-
-            final int currColor = mipmapLevel * 3;
-            fillWithColor(texture, mipmapColors[currColor], mipmapColors[currColor + 1], mipmapColors[currColor + 2], width, height);
+        // Each mipmap level is filled with its own color.
+        ImageSet imageSet = ProceduralImage.create2D(128, 128, 3, 8, this::fillWithColor, "mipmapColors");
 
-            ByteBuffer textureBuffer = BufferUtils.createByteBuffer(texture.size());
-            for (Byte b : texture) {
-                textureBuffer.put(b);
-            }
-            textureBuffer.flip();
+        for (int mipmapLevel = 0; mipmapLevel < imageSet.getMipmapCount(); mipmapLevel++) {
+            ImageSet.Dimensions imageDimensions = imageSet.getDimensions(mipmapLevel);
+            ByteBuffer textureBuffer = imageSet.getImageData(mipmapLevel, 0, 0);
 
-            glTexImage2D(GL_TEXTURE_2D, mipmapLevel, GL_RGB8, width, height, 0, GL_RGB, GL_UNSIGNED_BYTE, textureBuffer);
+            glTexImage2D(GL_TEXTURE_2D, mipmapLevel, GL_RGB8, imageDimensions.width, imageDimensions.height, 0,
+                    GL_RGB, GL_UNSIGNED_BYTE, textureBuffer);
         }
 
         glPixelStorei(GL_UNPACK_ALIGNMENT, oldAlign);
@@ -287,12 +279,10 @@ public class ManyImages extends Tutorial {
         glBindTexture(GL_TEXTURE_2D, 0);
     }
 
-    private void fillWithColor(ArrayList<Byte> buffer, byte red, byte green, byte blue, int width, int height) {
-        int numTexels = width * height;
-        for (int i = 0; i < numTexels * 3; i++) {
-            buffer.add(red);
-            buffer.add(green);
-            buffer.add(blue);
+    private void fillWithColor(float u, float v, int mipmapLevel, float[] texel) {
+        final int currColor = mipmapLevel * 3;
+        for (int component = 0; component < 3; component++) {
+            texel[component] = (mipmapColors[currColor + component] & 0xFF) / 255.0f;
         }
     }
 
@@ -0,0 +1,131 @@
+package integeruser.jgltut.tut16;
+
+import integeruser.jglsdk.glimg.ColorConversion;
+import integeruser.jglsdk.glimg.ImageSet;
+import integeruser.jglsdk.glimg.ProceduralImage;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+
+/**
+ * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
+ * <p>
+ * Times the lookup table conversions of ColorConversion against the scalar ones they replace, which call Math.pow for
+ * each component of each pixel. Both convert the color components of an RGBA image from sRGB to linear, and raise them
+ * to the power 2.2. The lookup table results are checked against the scalar ones, which they must match exactly.
+ * <p>
+ * Each conversion runs WARMUP_RUNS times, then RUNS timed times; the median is printed. No GL context is needed.
+ */
+public class ColorConversionBenchmark {
+    public static void main(String[] args) {
+        ImageSet imageSet = ProceduralImage.create2D(SIZE, SIZE, 4, 1, (u, v, mipmapLevel, components) -> {
+            components[0] = u;
+            components[1] = v;
+            components[2] = (u + v) * 0.5f;
+            components[3] = 1.0f - u;
+        });
+        ByteBuffer source = imageSet.getImageData(0, 0, 0);
+        byte[] pixels = new byte[source.remaining()];
+        source.get(pixels);
+
+        byte[] srgbScalar = pixels.clone();
+        convertScalar(srgbScalar, c -> ColorConversion.srgbToLinear(c));
+        byte[] gammaScalar = pixels.clone();
+        convertScalar(gammaScalar, c -> (float) Math.pow(c, GAMMA));
+
+        checkMatch("sRGB to linear", srgbScalar, convertLut(pixels, false));
+        checkMatch("gamma " + GAMMA, gammaScalar, convertLut(pixels, true));
+
+        // Every run starts from the original pixels: the cost of Math.pow depends on the values. Both paths copy them.
+        byte[] scratch = new byte[pixels.length];
+        ByteBuffer imageData = imageSet.getImageData(0, 0, 0);
+
+        System.out.printf("\nMedian time (ms), %dx%d RGBA, %d CPUs\n", SIZE, SIZE,
+                Runtime.getRuntime().availableProcessors());
+        System.out.printf("%16s%12s%12s\n", "conversion", "Math.pow", "table");
+        System.out.printf("%16s%12.2f%12.2f\n", "sRGB to linear",
+                time(() -> {
+                    System.arraycopy(pixels, 0, scratch, 0, pixels.length);
+                    convertScalar(scratch, c -> ColorConversion.srgbToLinear(c));
+                }),
+                time(() -> {
+                    imageData.duplicate().put(pixels);
+                    ColorConversion.srgbToLinear(imageSet);
+                }));
+        System.out.printf("%16s%12.2f%12.2f\n", "gamma " + GAMMA,
+                time(() -> {
+                    System.arraycopy(pixels, 0, scratch, 0, pixels.length);
+                    convertScalar(scratch, c -> (float) Math.pow(c, GAMMA));
+                }),
+                time(() -> {
+                    imageData.duplicate().put(pixels);
+                    ColorConversion.applyGamma(imageSet, GAMMA);
+                }));
+    }
+
+    ////////////////////////////////
+    private static final int SIZE = 2048;
+    private static final float GAMMA = 2.2f;
+
+    private static final int WARMUP_RUNS = 3;
+    private static final int RUNS = 11;
+
+
+    private interface ScalarFunction {
+        float apply(float component);
+    }
+
+
+    // The reference: every color component goes through the function, the alpha is left as it is.
+    private static void convertScalar(byte[] pixels, ScalarFunction function) {
+        for (int pixelIx = 0; pixelIx < pixels.length; pixelIx += 4) {
+            for (int componentIx = 0; componentIx < 3; componentIx++) {
+                float component = (pixels[pixelIx + componentIx] & 0xFF) / 255.0f;
+                pixels[pixelIx + componentIx] = (byte) Math.round(function.apply(component) * 255.0f);
+            }
+        }
+    }
+
+    private static byte[] convertLut(byte[] pixels, boolean gamma) {
+        ImageSet imageSet = ProceduralImage.create2D(SIZE, SIZE, 4, 1, (u, v, mipmapLevel, components) -> {
+        });
+        ByteBuffer imageData = imageSet.getImageData(0, 0, 0);
+        imageData.duplicate().put(pixels);
+
+        if (gamma) {
+            ColorConversion.applyGamma(imageSet, GAMMA);
+        } else {
+            ColorConversion.srgbToLinear(imageSet);
+        }
+
+        byte[] converted = new byte[pixels.length];
+        imageData.get(converted);
+        return converted;
+    }
+
+    private static void checkMatch(String conversion, byte[] expected, byte[] actual) {
+        int mismatches = 0;
+        for (int byteIx = 0; byteIx < expected.length; byteIx++) {
+            if (expected[byteIx] != actual[byteIx]) mismatches++;
+        }
+        System.out.printf("%s: %d of %d bytes differ from Math.pow.\n", conversion, mismatches, expected.length);
+    }
+
+
+    private static double time(Runnable conversion) {
+        for (int runIx = 0; runIx < WARMUP_RUNS; runIx++) {
+            conversion.run();
+        }
+
+        double[] millis = new double[RUNS];
+        for (int runIx = 0; runIx < RUNS; runIx++) {
+            long startNanos = System.nanoTime();
+            conversion.run();
+            millis[runIx] = (System.nanoTime() - startNanos) / 1000000.0;
+        }
+
+        Arrays.sort(millis);
+        return millis[RUNS / 2];
+    }
+}
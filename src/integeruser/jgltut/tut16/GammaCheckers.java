@@ -47,7 +47,7 @@ import static org.lwjgl.opengl.GL33.*;
  */
 public class GammaCheckers extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut16/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut16/data/"));
         new GammaCheckers().start(500, 500);
     }
 
@@ -148,8 +148,6 @@ public class GammaCheckers extends Tutorial {
         glClearDepth(1.0f);
         glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
 
-        camTimer.update(elapsedTime);
-
         float cyclicAngle = camTimer.getAlpha() * 6.28f;
         float hOffset = (float) (Math.cos(cyclicAngle) * 0.25f);
         float vOffset = (float) (Math.sin(cyclicAngle) * 0.25f);
@@ -253,7 +251,7 @@ public class GammaCheckers extends Tutorial {
     private int linearTexture;
     private int gammaTexture;
 
-    private Timer camTimer = new Timer(Timer.Type.LOOP, 5.0f);
+    private Timer camTimer = clock.register(new Timer(Timer.Type.LOOP, 5.0f));
 
     private boolean drawCorridor;
     private boolean drawGammaTexture;
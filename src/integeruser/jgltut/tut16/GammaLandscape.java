@@ -63,7 +63,7 @@ import static org.lwjgl.opengl.GL33.*;
  */
 public class GammaLandscape extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut16/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut16/data/"));
         new GammaLandscape().start(700, 700);
     }
 
@@ -71,7 +71,7 @@ public class GammaLandscape extends Tutorial {
     @Override
     protected void init() {
         try {
-            lightEnv = new LightEnv("LightEnv.xml");
+            lightEnv = new LightEnv("LightEnv.xml", clock);
 
             initializePrograms();
 
@@ -191,8 +191,6 @@ public class GammaLandscape extends Tutorial {
             glDisable(GL_FRAMEBUFFER_SRGB);
         }
 
-        lightEnv.updateTime(elapsedTime);
-
         Vector4f bgColor = lightEnv.getBackgroundColor();
         glClearColor(bgColor.x, bgColor.y, bgColor.z, bgColor.w);
         glClearDepth(1.0f);
@@ -38,7 +38,7 @@ import static org.lwjgl.opengl.GL33.*;
  */
 public class GammaRamp extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut16/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut16/data/"));
         new GammaRamp().start(500, 195);
     }
 
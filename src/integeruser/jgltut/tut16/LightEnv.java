@@ -2,6 +2,7 @@ package integeruser.jgltut.tut16;
 
 import integeruser.jgltut.commons.LightBlock;
 import integeruser.jgltut.commons.PerLight;
+import integeruser.jgltut.framework.Clock;
 import integeruser.jgltut.framework.Framework;
 import integeruser.jgltut.framework.Interpolators.ConstVelLinearInterpolatorVec3;
 import integeruser.jgltut.framework.Interpolators.WeightedLinearInterpolatorFloat;
@@ -19,6 +20,7 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Scanner;
 
@@ -27,7 +29,8 @@ import java.util.Scanner;
  * Visit https://github.com/integeruser/jgltut for info, updates and license terms.
  */
 class LightEnv {
-    LightEnv(String envFileName) {
+    // The timers are advanced by the clock.
+    LightEnv(String envFileName, Clock clock) {
         Document doc = null;
         try {
             DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
@@ -35,7 +38,9 @@ class LightEnv {
 
             String filePath = Framework.findFileOrThrow(envFileName);
 
-            doc = dBuilder.parse(ClassLoader.class.getResourceAsStream(filePath));
+            try (InputStream fileInputStream = Framework.openFile(filePath)) {
+                doc = dBuilder.parse(fileInputStream);
+            }
         } catch (SAXException | ParserConfigurationException | IOException e) {
             e.printStackTrace();
             System.exit(-1);
@@ -50,7 +55,7 @@ class LightEnv {
 
         float timerTime = Float.parseFloat(sunNode.getAttribute("time"));
 
-        sunTimer = new Timer(Timer.Type.LOOP, timerTime);
+        sunTimer = clock.register(new Timer(Timer.Type.LOOP, timerTime));
 
         ArrayList<LightData> ambient = new ArrayList<>();
         ArrayList<LightData> light = new ArrayList<>();
@@ -96,7 +101,7 @@ class LightEnv {
                     throw new RuntimeException("Too many lights specified.");
 
                 float lightTime = Float.parseFloat(elemLight.getAttribute("time"));
-                lightTimers.add(new Timer(Timer.Type.LOOP, lightTime));
+                lightTimers.add(clock.register(new Timer(Timer.Type.LOOP, lightTime)));
 
                 String strVec4 = elemLight.getAttribute("intensity");
                 lightIntensity.add(parseVec4(strVec4));
@@ -120,6 +125,13 @@ class LightEnv {
                 countLights++;
             }
         }
+
+        lightBlock.ambientIntensity = new Vector4f();
+        for (int lightIndex = 0; lightIndex < getNumLights(); lightIndex++) {
+            lightBlock.lights[lightIndex] = new PerLight();
+            lightBlock.lights[lightIndex].cameraSpaceLightPos = new Vector4f();
+            lightBlock.lights[lightIndex].lightIntensity = new Vector4f();
+        }
     }
 
     ////////////////////////////////
@@ -136,6 +148,11 @@ class LightEnv {
     private ArrayList<Vector4f> lightIntensity = new ArrayList<>();
     private ArrayList<Timer> lightTimers = new ArrayList<>();
 
+    // Filled in place every frame.
+    private final LightBlock lightBlock = new LightBlock();
+    private final Matrix4f sunRotation = new Matrix4f().rotate((float) Math.toRadians(5.0f), 0.0f, 1.0f, 0.0f);
+    private final Vector3f worldLightPos = new Vector3f();
+
     ////////////////////////////////
     class TimedLinearInterpolatorFloat extends WeightedLinearInterpolatorFloat {
         void setValues(ArrayList<MaxIntensityData> data) {
@@ -143,28 +160,20 @@ class LightEnv {
         }
 
         void setValues(ArrayList<MaxIntensityData> data, boolean isLooping) {
-            values.clear();
+            clear();
 
             for (MaxIntensityData curr : data) {
-                Data temp = new Data();
-                temp.data = getValue(curr);
-                temp.weight = getTime(curr);
-
-                values.add(temp);
+                add(LightEnv.this.getValue(curr), getTime(curr));
             }
 
-            if (isLooping && !values.isEmpty()) {
-                Data temp = new Data();
-                temp.data = values.get(0).data;
-                temp.weight = values.get(0).weight;
-
-                values.add(temp);
+            if (isLooping && getKeyCount() != 0) {
+                add(getValue(0), getWeight(0));
             }
 
             // Ensure first is weight 0, and last is weight 1.
-            if (!values.isEmpty()) {
-                values.get(0).weight = 0.0f;
-                values.get(values.size() - 1).weight = 1.0f;
+            if (getKeyCount() != 0) {
+                setWeight(0, 0.0f);
+                setWeight(getKeyCount() - 1, 1.0f);
             }
         }
     }
@@ -175,30 +184,24 @@ class LightEnv {
         }
 
         void setValues(ArrayList<LightData> data, boolean isLooping) {
-            values.clear();
+            clear();
 
             for (LightData curr : data) {
-                Data temp = new Data();
-                temp.data = new Vector4f(getValue(curr));
-                temp.weight = getTime(curr);
-
-                values.add(temp);
+                add(LightEnv.getValue(curr), getTime(curr));
             }
 
-            if (isLooping && !values.isEmpty()) {
-                Data temp = new Data();
-                temp.data = new Vector4f(values.get(0).data);
-                temp.weight = values.get(0).weight;
-
-                values.add(temp);
+            if (isLooping && getKeyCount() != 0) {
+                add(getValue(0, firstValue), getWeight(0));
             }
 
             // Ensure first is weight 0, and last is weight 1.
-            if (!values.isEmpty()) {
-                values.get(0).weight = 0.0f;
-                values.get(values.size() - 1).weight = 1.0f;
+            if (getKeyCount() != 0) {
+                setWeight(0, 0.0f);
+                setWeight(getKeyCount() - 1, 1.0f);
             }
         }
+
+        private final Vector4f firstValue = new Vector4f();
     }
 
     ////////////////////////////////
@@ -241,15 +244,6 @@ class LightEnv {
     }
 
     ////////////////////////////////
-    void updateTime(double elapsedTime) {
-        sunTimer.update((float) elapsedTime);
-
-        for (Timer timer : lightTimers) {
-            timer.update((float) elapsedTime);
-        }
-    }
-
-
     void togglePause() {
         boolean isPaused = sunTimer.togglePause();
         setPause(isPaused);
@@ -281,40 +275,37 @@ class LightEnv {
     }
 
     ////////////////////////////////
+    // The block is reused by the next call.
     LightBlock getLightBlock(Matrix4f worldToCameraMat) {
-        LightBlock lightData = new LightBlock();
-        lightData.ambientIntensity = ambientInterpolator.interpolate(sunTimer.getAlpha());
+        ambientInterpolator.interpolate(sunTimer.getAlpha(), lightBlock.ambientIntensity);
         float halfLightDistance = 70.0f;
-        lightData.lightAttenuation = 1.0f / (halfLightDistance * halfLightDistance);
-        lightData.maxIntensity = maxIntensityInterpolator.interpolate(sunTimer.getAlpha());
+        lightBlock.lightAttenuation = 1.0f / (halfLightDistance * halfLightDistance);
+        lightBlock.maxIntensity = maxIntensityInterpolator.interpolate(sunTimer.getAlpha());
 
-        lightData.lights[0] = new PerLight();
-        lightData.lights[0].cameraSpaceLightPos = worldToCameraMat.transform(getSunlightDirection());
-        lightData.lights[0].lightIntensity = sunlightInterpolator.interpolate(sunTimer.getAlpha());
+        worldToCameraMat.transform(getSunlightDirection(lightBlock.lights[0].cameraSpaceLightPos));
+        sunlightInterpolator.interpolate(sunTimer.getAlpha(), lightBlock.lights[0].lightIntensity);
 
         for (int lightIndex = 0; lightIndex < lightPos.size(); lightIndex++) {
-            Vector4f worldLightPos = new Vector4f(lightPos.get(lightIndex).interpolate(lightTimers.get(lightIndex).getAlpha()), 1.0f);
-            Vector4f lightPosCameraSpace = worldToCameraMat.transform(worldLightPos);
+            lightPos.get(lightIndex).interpolate(lightTimers.get(lightIndex).getAlpha(), worldLightPos);
 
-            lightData.lights[lightIndex + 1] = new PerLight();
-            lightData.lights[lightIndex + 1].cameraSpaceLightPos = lightPosCameraSpace;
-            lightData.lights[lightIndex + 1].lightIntensity = new Vector4f(lightIntensity.get(lightIndex));
+            PerLight light = lightBlock.lights[lightIndex + 1];
+            worldToCameraMat.transform(light.cameraSpaceLightPos.set(worldLightPos, 1.0f));
+            light.lightIntensity.set(lightIntensity.get(lightIndex));
         }
 
-        return lightData;
+        return lightBlock;
     }
 
 
     Vector4f getSunlightDirection() {
-        float angle = 2.0f * 3.14159f * sunTimer.getAlpha();
-        Vector4f sunDirection = new Vector4f(0.0f);
-        sunDirection.x = (float) Math.sin(angle);
-        sunDirection.y = (float) Math.cos(angle);
+        return getSunlightDirection(new Vector4f());
+    }
 
+    Vector4f getSunlightDirection(Vector4f dest) {
+        float angle = 2.0f * 3.14159f * sunTimer.getAlpha();
+        dest.set((float) Math.sin(angle), (float) Math.cos(angle), 0.0f, 0.0f);
         // Keep the sun from being perfectly centered overhead.
-        Matrix4f rotationMat = new Matrix4f().rotate((float) Math.toRadians(5.0f), 0.0f, 1.0f, 0.0f);
-        rotationMat.transform(sunDirection);
-        return sunDirection;
+        return sunRotation.transform(dest);
     }
 
     Vector4f getSunlightScaledIntensity() {
@@ -59,7 +59,7 @@ import static org.lwjgl.opengl.GL33.*;
  */
 public class CubePointLight extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut17/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut17/data/"));
         new CubePointLight().start(displayWidth, displayHeight);
     }
 
@@ -175,8 +175,6 @@ public class CubePointLight extends Tutorial {
 
     @Override
     protected void display() {
-        timer.update(elapsedTime);
-
         glClearColor(0.8f, 0.8f, 0.8f, 1.0f);
         glClearDepth(1.0f);
         glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
@@ -365,7 +363,7 @@ public class CubePointLight extends Tutorial {
     private SceneBinders.UniformMat4Binder lightProjMatBinder;
     private SceneBinders.UniformVec3Binder camLightPosBinder;
 
-    private Timer timer = new Timer(Timer.Type.LOOP, 10.0f);
+    private Timer timer = clock.register(new Timer(Timer.Type.LOOP, 10.0f));
 
     private Quaternionf spinBarOrient;
 
@@ -56,7 +56,7 @@ import static org.lwjgl.opengl.GL32.GL_DEPTH_CLAMP;
  */
 public class DoubleProjection extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut17/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut17/data/"));
         new DoubleProjection().start(displayWidth, displayHeight);
     }
 
@@ -163,8 +163,6 @@ public class DoubleProjection extends Tutorial {
 
     @Override
     protected void display() {
-        timer.update(elapsedTime);
-
         glClearColor(0.8f, 0.8f, 0.8f, 1.0f);
         glClearDepth(1.0f);
         glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
@@ -318,7 +316,7 @@ public class DoubleProjection extends Tutorial {
     private ArrayList<Scene.SceneNode> nodes;
     private Mesh sphereMesh;
 
-    private Timer timer = new Timer(Timer.Type.LOOP, 10.0f);
+    private Timer timer = clock.register(new Timer(Timer.Type.LOOP, 10.0f));
 
     private Quaternionf spinBarOrient;
 
@@ -72,7 +72,7 @@ import static org.lwjgl.opengl.GL33.*;
  */
 public class ProjectedLight extends Tutorial {
     public static void main(String[] args) {
-        Framework.CURRENT_TUTORIAL_DATAPATH = "/integeruser/jgltut/tut17/data/";
+        Framework.setAssetContext(Framework.createAssetContext("/integeruser/jgltut/tut17/data/"));
         new ProjectedLight().start(displayWidth, displayHeight);
     }
 
@@ -203,8 +203,6 @@ public class ProjectedLight extends Tutorial {
 
     @Override
     protected void display() {
-        timer.update(elapsedTime);
-
         glClearColor(0.8f, 0.8f, 0.8f, 1.0f);
         glClearDepth(1.0f);
         glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
@@ -433,7 +431,7 @@ public class ProjectedLight extends Tutorial {
     };
     private int currFOVIndex = 3;
 
-    private Timer timer = new Timer(Timer.Type.LOOP, 10.0f);
+    private Timer timer = clock.register(new Timer(Timer.Type.LOOP, 10.0f));
 
     private Quaternionf spinBarOrient;
 